@@ -1,8 +1,8 @@
 package com.borsibaar.config;
 
 import com.borsibaar.entity.User;
-import com.borsibaar.repository.UserRepository;
 import com.borsibaar.service.JwtService;
+import com.borsibaar.service.PrincipalCache;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,20 +20,20 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.Optional;
 
 /**
  * JWT Authentication Filter that intercepts every request and validates JWT
  * tokens from cookies.
  * If valid, sets the authentication in the SecurityContext for downstream
- * authorization.
+ * authorization. The user comes from the token's own claims when it carries
+ * them, and otherwise from {@link PrincipalCache}.
  */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -66,15 +66,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             Claims claims = jwtService.parseToken(token);
             String email = claims.getSubject();
 
-            // Load user from database and set JWT authentication
+            // Set JWT authentication
             // This replaces any existing OAuth2 session authentication
             if (email != null) {
-                // Use findByEmailWithRole to eagerly fetch role and avoid
-                // LazyInitializationException
-                Optional<User> userOptional = userRepository.findByEmailWithRole(email);
+                User user = jwtService.readPrincipal(claims);
+                if (user == null) {
+                    // Cached, or loaded with its role from the database
+                    user = principalCache.get(email);
+                }
 
-                if (userOptional.isPresent()) {
-                    User user = userOptional.get();
+                if (user != null) {
                     // Create authentication token with user details and role
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             user, // Principal - the authenticated user
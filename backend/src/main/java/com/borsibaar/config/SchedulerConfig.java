@@ -7,11 +7,15 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 @Configuration
 public class SchedulerConfig {
 
+    // One thread per scheduled task, so none waits behind another: the price decay tick, the decay
+    // claim heartbeat, the live sales push, the partition job and the idempotency key cleanup
+    static final int POOL_SIZE = 5;
+
     @Bean
     public ThreadPoolTaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
-        scheduler.setPoolSize(1);
+        scheduler.setPoolSize(POOL_SIZE);
         scheduler.setThreadNamePrefix("scheduler-");
         return scheduler;
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,12 @@ package com.borsibaar.config;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -14,7 +17,9 @@ import org.springframework.security.oauth2.client.web.DefaultOAuth2Authorization
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestResolver;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,13 +33,90 @@ public class SecurityConfig {
     private final ClientRegistrationRepository clientRegistrationRepository;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    /**
+     * The API authenticates every request from its JWT cookie alone: no
+     * session is created or read, no request is saved for a login redirect,
+     * and an unauthenticated request gets a 401 instead of the OAuth2 login.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http,
+            CorsConfigurationSource corsConfigurationSource) throws Exception {
+        return http
+                // Matched on the path alone, without Spring MVC's handler mappings
+                .securityMatcher(PathPatternRequestMatcher.withDefaults().matcher("/api/**"))
+                .csrf(csrf -> csrf.disable())
+                .cors(cors -> cors.configurationSource(corsConfigurationSource))
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .requestCache(cache -> cache.disable())
+                .logout(logout -> logout.disable())
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .authorizeHttpRequests(auth -> auth
+                        // Allow OPTIONS for CORS preflight
+                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Public API endpoints
+                        .requestMatchers(HttpMethod.GET, "/api/organizations/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/organizations").permitAll()
+                        .requestMatchers(HttpMethod.PUT, "/api/organizations/**").hasRole("ADMIN")
+                        // Need to make these public for client page
+                        // TODO: these should not be fully public
+                        .requestMatchers(HttpMethod.GET, "/api/categories/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/inventory/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/market/**").permitAll()
+                        // All other API requests require authentication
+                        .anyRequest().authenticated())
+                .build();
+    }
+
+    /**
+     * Everything else, i.e. the OAuth2 login flow ({@code /oauth2/**},
+     * {@code /login/**}, {@code /auth/**}) and the actuator, which keeps the
+     * session the login needs between the redirects.
+     */
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
             CorsConfigurationSource corsConfigurationSource) throws Exception {
+        return http
+                .csrf(csrf -> csrf.disable())
+                // ✅ Let Spring Security add CORS headers on 401/403/preflight too
+                .cors(cors -> cors.configurationSource(corsConfigurationSource))
+                // JWT authentication for /auth/logout
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Sessions only for the OAuth2 login flow
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
+                .authorizeHttpRequests(auth -> auth
+                        // Allow OPTIONS for CORS preflight
+                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Allow OAuth2 endpoints and public routes
+                        .requestMatchers("/", "/error", "/oauth2/**", "/login/oauth2/code/**", "/auth/login/success")
+                        .permitAll()
+                        .anyRequest().authenticated())
+                .oauth2Login(oauth2 -> oauth2
+                        .defaultSuccessUrl("/auth/login/success", true)
+                        .authorizationEndpoint(auth -> auth.authorizationRequestResolver(authorizationRequestResolver())))
+                .build();
+    }
+
+    /**
+     * The filter only runs inside the security filter chains, not a second
+     * time as a servlet filter of its own.
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(
+                jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    private OAuth2AuthorizationRequestResolver authorizationRequestResolver() {
         DefaultOAuth2AuthorizationRequestResolver defaultResolver = new DefaultOAuth2AuthorizationRequestResolver(
                 clientRegistrationRepository, "/oauth2/authorization");
 
-        OAuth2AuthorizationRequestResolver customResolver = new OAuth2AuthorizationRequestResolver() {
+        return new OAuth2AuthorizationRequestResolver() {
             @Override
             public OAuth2AuthorizationRequest resolve(HttpServletRequest request) {
                 var req = defaultResolver.resolve(request);
@@ -55,35 +137,6 @@ public class SecurityConfig {
                         .build();
             }
         };
-
-        return http
-                .csrf(csrf -> csrf.disable())
-                // ✅ Let Spring Security add CORS headers on 401/403/preflight too
-                .cors(cors -> cors.configurationSource(corsConfigurationSource))
-                // Add JWT authentication filter before standard authentication
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                // Use IF_REQUIRED session management (stateless for API, sessions for OAuth2)
-                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
-                .authorizeHttpRequests(auth -> auth
-                        // Allow OPTIONS for CORS preflight
-                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                        // Allow OAuth2 endpoints and public routes
-                        .requestMatchers("/", "/error", "/oauth2/**", "/login/oauth2/code/**", "/auth/login/success")
-                        .permitAll()
-                        // Public API endpoints
-                        .requestMatchers(HttpMethod.GET, "/api/organizations/**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/organizations").permitAll()
-                        .requestMatchers(HttpMethod.PUT, "/api/organizations/**").hasRole("ADMIN")
-                        // Need to make these public for client page
-                        // TODO: these should not be fully public
-                        .requestMatchers(HttpMethod.GET, "/api/categories/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/inventory/**").permitAll()
-                        // All other API requests require authentication
-                        .anyRequest().authenticated())
-                .oauth2Login(oauth2 -> oauth2
-                        .defaultSuccessUrl("/auth/login/success", true)
-                        .authorizationEndpoint(auth -> auth.authorizationRequestResolver(customResolver)))
-                .build();
     }
 
     @Value("${app.cors.allowed-origins}")
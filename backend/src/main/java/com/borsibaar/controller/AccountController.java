@@ -5,7 +5,9 @@ import com.borsibaar.entity.User;
 import com.borsibaar.repository.RoleRepository;
 import com.borsibaar.repository.UserRepository;
 import com.borsibaar.service.AccountService;
+import com.borsibaar.service.JwtService;
 import com.borsibaar.util.SecurityUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +19,7 @@ import org.springframework.web.server.ResponseStatusException;
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final JwtService jwtService;
 
     public record MeResponse(String email, String name, String role, Long organizationId, boolean needsOnboarding) {
     }
@@ -50,13 +53,14 @@ public class AccountController {
 
     @PostMapping("/onboarding")
     @Transactional
-    public ResponseEntity<Void> finish(@RequestBody onboardingRequest req) {
+    public ResponseEntity<Void> finish(@RequestBody onboardingRequest req, HttpServletResponse response) {
         try {
             if (req.organizationId() == null || !req.acceptTerms())
                 return ResponseEntity.badRequest().build();
 
             // Allow users without organization (that's the point of onboarding)
-            User user = SecurityUtils.getCurrentUser(false);
+            // The principal is a detached copy, change the stored user instead
+            User user = accountService.findUser(SecurityUtils.getCurrentUser(false).getId());
 
             Role adminRole = accountService.findRoleByName("ADMIN");
 
@@ -68,9 +72,10 @@ public class AccountController {
                 }
                 user.setOrganizationId(req.organizationId());
                 accountService.saveUser(user);
+                // Re-issue the token, which may carry the organization and role
+                response.addCookie(AuthController.jwtCookie(jwtService.generateToken(user), 24 * 60 * 60));
             }
 
-            // If later you add orgId to JWT, re-issue token here.
             return ResponseEntity.noContent().build();
         } catch (ResponseStatusException e) {
             throw e; // Re-throw to be handled by exception handler
@@ -28,12 +28,7 @@ public class AuthController {
     public void success(HttpServletResponse response, OAuth2AuthenticationToken auth) throws IOException {
         var result = authService.processOAuthLogin(auth);
 
-        Cookie cookie = new Cookie("jwt", result.dto().token());
-        cookie.setHttpOnly(true);
-        cookie.setSecure(true); // HTTPS enabled with domain
-        cookie.setPath("/");
-        cookie.setMaxAge(24 * 60 * 60); // 1 day
-        response.addCookie(cookie);
+        response.addCookie(jwtCookie(result.dto().token(), 24 * 60 * 60)); // 1 day
 
         String redirect = result.needsOnboarding() ? "/onboarding" : "/dashboard";
         response.sendRedirect(frontendUrl + redirect);
@@ -51,16 +46,20 @@ public class AuthController {
         SecurityContextHolder.clearContext();
 
         // Clear the JWT cookie
-        Cookie jwtCookie = new Cookie("jwt", "");
-        jwtCookie.setHttpOnly(true);
-        jwtCookie.setSecure(true); // HTTPS enabled with domain
-        jwtCookie.setPath("/");
-        jwtCookie.setMaxAge(0); // Expire immediately
-        response.addCookie(jwtCookie);
+        response.addCookie(jwtCookie("", 0)); // Expire immediately
 
         return ResponseEntity.ok().body(new LogoutResponse("Logged out successfully"));
     }
 
+    static Cookie jwtCookie(String token, int maxAgeSeconds) {
+        Cookie cookie = new Cookie("jwt", token);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true); // HTTPS enabled with domain
+        cookie.setPath("/");
+        cookie.setMaxAge(maxAgeSeconds);
+        return cookie;
+    }
+
     private record LogoutResponse(String message) {
     }
 }
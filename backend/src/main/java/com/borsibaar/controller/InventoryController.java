@@ -3,15 +3,28 @@ package com.borsibaar.controller;
 import com.borsibaar.dto.*;
 import com.borsibaar.entity.User;
 import com.borsibaar.service.InventoryService;
+import com.borsibaar.service.LiveSalesFeedService;
+import com.borsibaar.service.MenuResponseCache;
+import com.borsibaar.service.PriceCandleService;
+import com.borsibaar.service.SalesStatsService;
 import com.borsibaar.util.SecurityUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 @RestController
@@ -20,13 +33,18 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final MenuResponseCache menuResponseCache;
+    private final SalesStatsService salesStatsService;
+    private final LiveSalesFeedService liveSalesFeedService;
+    private final PriceCandleService priceCandleService;
     private static final Logger logger = LogManager.getLogger(InventoryController.class);
 
 
     @GetMapping
-    public List<InventoryResponseDto> getOrganizationInventory(
+    public ResponseEntity<byte[]> getOrganizationInventory(
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) Long organizationId) {
+            @RequestParam(required = false) Long organizationId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         // If organizationId is provided, use it (for public access)
         // Otherwise, get from authenticated user
         Long orgId;
@@ -36,7 +54,18 @@ public class InventoryController {
             User user = SecurityUtils.getCurrentUser();
             orgId = user.getOrganizationId();
         }
-        return inventoryService.getByOrganization(orgId, categoryId);
+        // The menu is served as pre-encoded JSON; Spring answers a matching If-None-Match with 304
+        MenuResponseCache.EncodedMenu menu = menuResponseCache.get(orgId, categoryId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (menu.hasGzip() && acceptsGzip(acceptEncoding)) {
+            return response.eTag(menu.etag() + "-gz")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(menu.gzip());
+        }
+        return response.eTag(menu.etag()).body(menu.json());
     }
 
     @GetMapping("/product/{productId}")
@@ -69,20 +98,85 @@ public class InventoryController {
     }
 
     @GetMapping("/product/{productId}/history")
-    public List<InventoryTransactionResponseDto> getTransactionHistory(@PathVariable Long productId) {
+    public List<InventoryTransactionResponseDto> getTransactionHistory(@PathVariable Long productId,
+            @RequestParam(required = false) HistoryCursor before,
+            @RequestParam(required = false) HistoryCursor after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        User user = SecurityUtils.getCurrentUser();
+        return inventoryService.getTransactionHistory(productId, user.getOrganizationId(), before, after, from, to,
+                limit);
+    }
+
+    @GetMapping("/product/{productId}/candles")
+    public List<PriceCandleDto> getPriceCandles(@PathVariable Long productId,
+            @RequestParam(defaultValue = "ONE_MINUTE") CandleResolution resolution,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
         User user = SecurityUtils.getCurrentUser();
-        return inventoryService.getTransactionHistory(productId, user.getOrganizationId());
+        return priceCandleService.getCandles(user.getOrganizationId(), productId, resolution, from, to);
+    }
+
+    @GetMapping("/product/{productId}/price-ticks")
+    public List<PriceTickDto> getPriceTicks(@PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        User user = SecurityUtils.getCurrentUser();
+        return priceCandleService.getPriceTicks(user.getOrganizationId(), productId, from, to, limit);
+    }
+
+    @GetMapping("/sparklines")
+    public SparklinesDto getSparklines(
+            @RequestParam(required = false) Long organizationId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "60") int points) {
+        // Public like the menu: the client board passes its organization
+        Long orgId = organizationId != null ? organizationId : SecurityUtils.getCurrentUser().getOrganizationId();
+        return priceCandleService.getSparklines(orgId, from, to, points);
     }
 
     @GetMapping("/sales-stats")
-    public List<UserSalesStatsResponseDto> getUserSalesStats() {
+    public List<UserSalesStatsResponseDto> getUserSalesStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) SalesStatsGranularity granularity,
+            @RequestParam(defaultValue = "UTC") ZoneId zone) {
         User user = SecurityUtils.getCurrentUser();
-        return inventoryService.getUserSalesStats(user.getOrganizationId());
+        return salesStatsService.getUserSalesStats(user.getOrganizationId(), from, to, granularity, zone);
     }
 
     @GetMapping("/station-sales-stats")
-    public List<StationSalesStatsResponseDto> getStationSalesStats() {
+    public List<StationSalesStatsResponseDto> getStationSalesStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) SalesStatsGranularity granularity,
+            @RequestParam(defaultValue = "UTC") ZoneId zone) {
+        User user = SecurityUtils.getCurrentUser();
+        return salesStatsService.getStationSalesStats(user.getOrganizationId(), from, to, granularity, zone);
+    }
+
+    @GetMapping(path = "/live-sales-stats", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveSalesStats(HttpServletResponse response) {
         User user = SecurityUtils.getCurrentUser();
-        return inventoryService.getStationSalesStats(user.getOrganizationId());
+        // Keep reverse proxies (nginx) from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-cache");
+        return liveSalesFeedService.subscribe(user.getOrganizationId());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,35 @@
+package com.borsibaar.controller;
+
+import com.borsibaar.dto.TopSellersDto;
+import com.borsibaar.dto.TopSellersWindow;
+import com.borsibaar.service.MarketFeedService;
+import com.borsibaar.service.TopSellersTracker;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/market")
+@RequiredArgsConstructor
+public class MarketController {
+
+    private final MarketFeedService marketFeedService;
+    private final TopSellersTracker topSellersTracker;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam Long organizationId, HttpServletResponse response) {
+        // Keep reverse proxies (nginx) from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-cache");
+        return marketFeedService.subscribe(organizationId);
+    }
+
+    @GetMapping("/top-sellers")
+    public TopSellersDto getTopSellers(@RequestParam Long organizationId,
+            @RequestParam(defaultValue = "LAST_10_MINUTES") TopSellersWindow window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return topSellersTracker.getTopSellers(organizationId, window, limit, System.currentTimeMillis());
+    }
+}
@@ -3,7 +3,8 @@ package com.borsibaar.controller;
 import com.borsibaar.dto.SaleRequestDto;
 import com.borsibaar.dto.SaleResponseDto;
 import com.borsibaar.entity.User;
-import com.borsibaar.service.SalesService;
+import com.borsibaar.service.SaleBatchProcessor;
+import com.borsibaar.service.SaleIdempotencyService;
 import com.borsibaar.util.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,12 +16,19 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class SalesController {
 
-    private final SalesService salesService;
+    private final SaleBatchProcessor saleBatchProcessor;
+    private final SaleIdempotencyService saleIdempotencyService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public SaleResponseDto processSale(@RequestBody @Valid SaleRequestDto request) {
+    public SaleResponseDto processSale(@RequestBody @Valid SaleRequestDto request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         User user = SecurityUtils.getCurrentUser();
-        return salesService.processSale(request, user.getId(), user.getOrganizationId());
+        if (idempotencyKey == null) {
+            return saleBatchProcessor.process(request, user.getId(), user.getOrganizationId(), null);
+        }
+        // Retries with the same key get the original sale back instead of selling again
+        return saleIdempotencyService.execute(user.getOrganizationId(), idempotencyKey, request,
+                () -> saleBatchProcessor.process(request, user.getId(), user.getOrganizationId(), idempotencyKey));
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.borsibaar.dto;
+
+/**
+ * Bucket size of price candles.
+ */
+public enum CandleResolution {
+    ONE_MINUTE(60),
+    FIVE_MINUTES(300),
+    ONE_HOUR(3600);
+
+    private final int seconds;
+
+    CandleResolution(int seconds) {
+        this.seconds = seconds;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+}
@@ -0,0 +1,29 @@
+package com.borsibaar.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Position in a product's transaction history, written as
+ * {@code <createdAt>,<id>} with the values of the row to continue from.
+ */
+public record HistoryCursor(OffsetDateTime createdAt, Long id) {
+
+    /**
+     * Parses {@code <ISO-8601 createdAt>,<id>}; used by Spring to bind
+     * request parameters.
+     *
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static HistoryCursor valueOf(String value) {
+        int comma = value.lastIndexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Cursor must be '<createdAt>,<id>': " + value);
+        }
+        try {
+            return new HistoryCursor(OffsetDateTime.parse(value.substring(0, comma).trim()),
+                    Long.valueOf(value.substring(comma + 1).trim()));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor must be '<createdAt>,<id>': " + value, e);
+        }
+    }
+}
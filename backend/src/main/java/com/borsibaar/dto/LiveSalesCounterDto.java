@@ -0,0 +1,17 @@
+package com.borsibaar.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Live sales of one bar station, user or product (or the whole organization,
+ * with a {@code null} id). Sales per minute are averaged over the last five
+ * minutes; windows include the current minute.
+ */
+public record LiveSalesCounterDto(
+        String id,
+        double salesPerMinute,
+        BigDecimal revenue5Min,
+        BigDecimal revenue15Min,
+        BigDecimal revenue60Min,
+        BigDecimal itemsSold60Min) {
+}
@@ -0,0 +1,16 @@
+package com.borsibaar.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Live sales of an organization, with the busiest station, user and product
+ * of the last hour first.
+ */
+public record LiveSalesStatsDto(
+        OffsetDateTime asOf,
+        LiveSalesCounterDto total,
+        List<LiveSalesCounterDto> stations,
+        List<LiveSalesCounterDto> users,
+        List<LiveSalesCounterDto> products) {
+}
@@ -0,0 +1,9 @@
+package com.borsibaar.dto;
+
+import java.math.BigDecimal;
+
+public record MarketUpdateDto(
+        Long productId,
+        BigDecimal quantity,
+        BigDecimal unitPrice) {
+}
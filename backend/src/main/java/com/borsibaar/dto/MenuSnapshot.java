@@ -0,0 +1,11 @@
+package com.borsibaar.dto;
+
+import java.util.List;
+
+/**
+ * Immutable view of an organization's menu at a given menu version. The ETag
+ * is derived from the items, so it only changes when they do and is the same
+ * on every instance, and clients can revalidate cheaply.
+ */
+public record MenuSnapshot(long version, String etag, List<InventoryResponseDto> items) {
+}
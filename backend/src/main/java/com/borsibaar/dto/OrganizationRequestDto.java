@@ -2,10 +2,13 @@ package com.borsibaar.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.math.BigDecimal;
 
 public record OrganizationRequestDto(
         @NotBlank String name,
         @DecimalMin("0.00") BigDecimal priceIncreaseStep,
-        @DecimalMin("0.00") BigDecimal priceDecreaseStep) {
+        @DecimalMin("0.00") BigDecimal priceDecreaseStep,
+        @Min(5) @Max(86400) Integer priceDecayIntervalSeconds) {
 }
@@ -9,5 +9,6 @@ public record OrganizationResponseDto(
                 OffsetDateTime createdAt,
                 OffsetDateTime updatedAt,
                 BigDecimal priceIncreaseStep,
-                BigDecimal priceDecreaseStep) {
+                BigDecimal priceDecreaseStep,
+                Integer priceDecayIntervalSeconds) {
 }
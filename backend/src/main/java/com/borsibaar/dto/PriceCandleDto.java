@@ -0,0 +1,15 @@
+package com.borsibaar.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Price of a product during one bucket, and the units sold in it.
+ */
+public record PriceCandleDto(
+        String bucketStart,
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close,
+        BigDecimal volume) {
+}
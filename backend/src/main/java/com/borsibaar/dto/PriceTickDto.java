@@ -0,0 +1,11 @@
+package com.borsibaar.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A price a product was lowered to by the price correction job, and when.
+ */
+public record PriceTickDto(
+        String createdAt,
+        BigDecimal price) {
+}
@@ -0,0 +1,14 @@
+package com.borsibaar.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Downsampled price series of one product; {@code times} are epoch
+ * milliseconds and pair up with {@code prices} by index.
+ */
+public record ProductSparklineDto(
+        Long productId,
+        List<Long> times,
+        List<BigDecimal> prices) {
+}
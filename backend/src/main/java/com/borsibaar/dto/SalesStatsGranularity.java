@@ -0,0 +1,9 @@
+package com.borsibaar.dto;
+
+/**
+ * Bucket size of a sales statistics time series.
+ */
+public enum SalesStatsGranularity {
+    HOURLY,
+    DAILY
+}
@@ -0,0 +1,11 @@
+package com.borsibaar.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public record SparklinesDto(
+        OffsetDateTime from,
+        OffsetDateTime to,
+        CandleResolution resolution,
+        List<ProductSparklineDto> products) {
+}
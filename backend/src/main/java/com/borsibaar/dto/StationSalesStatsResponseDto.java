@@ -6,6 +6,6 @@ public record StationSalesStatsResponseDto(
                 Long barStationId,
                 String barStationName,
                 Long salesCount,
-                BigDecimal totalRevenue) {
+                BigDecimal totalRevenue,
+                String bucketStart) {
 }
-
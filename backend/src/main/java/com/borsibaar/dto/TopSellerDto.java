@@ -0,0 +1,13 @@
+package com.borsibaar.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Estimated units or revenue of a best-selling product. The estimate may be
+ * too high by at most {@code maxOvercount}.
+ */
+public record TopSellerDto(
+        Long productId,
+        BigDecimal amount,
+        BigDecimal maxOvercount) {
+}
@@ -0,0 +1,11 @@
+package com.borsibaar.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public record TopSellersDto(
+        TopSellersWindow window,
+        OffsetDateTime since,
+        List<TopSellerDto> byUnits,
+        List<TopSellerDto> byRevenue) {
+}
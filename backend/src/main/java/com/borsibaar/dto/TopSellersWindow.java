@@ -0,0 +1,11 @@
+package com.borsibaar.dto;
+
+/**
+ * Time span covered by the best-seller lists.
+ */
+public enum TopSellersWindow {
+    /** The current minute and the nine before it. */
+    LAST_10_MINUTES,
+    /** Since the configured start of the current night. */
+    TONIGHT
+}
@@ -9,5 +9,6 @@ public record UserSalesStatsResponseDto(
         Long salesCount,
         BigDecimal totalRevenue,
         Long barStationId,
-        String barStationName) {
-}
\ No newline at end of file
+        String barStationName,
+        String bucketStart) {
+}
@@ -30,4 +30,7 @@ public class Organization {
 
     @Column(name = "price_decrease_step", precision = 19, scale = 4)
     private BigDecimal priceDecreaseStep;
+
+    @Column(name = "price_decay_interval_seconds")
+    private Integer priceDecayIntervalSeconds;
 }
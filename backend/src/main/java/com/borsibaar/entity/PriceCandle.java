@@ -0,0 +1,55 @@
+package com.borsibaar.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Open, high, low and close price of a product during the
+ * {@code resolutionSeconds} long bucket starting at {@code bucketStart}
+ * (UTC), with the units sold in it. Rows are only written by
+ * {@link com.borsibaar.repository.PriceCandleRepositoryCustom}.
+ */
+@Entity
+@Table(name = "price_candles")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceCandle {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "resolution_seconds", nullable = false)
+    private Integer resolutionSeconds;
+
+    @Column(name = "bucket_start", nullable = false)
+    private OffsetDateTime bucketStart;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal open;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal high;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal low;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal close;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal volume;
+}
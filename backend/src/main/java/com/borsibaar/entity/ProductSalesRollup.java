@@ -0,0 +1,52 @@
+package com.borsibaar.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Sales of one product by one user at one bar station during the hour
+ * starting at {@code bucketStart} (UTC). Rows are only written by
+ * {@link com.borsibaar.repository.SalesRollupRepositoryCustom#addSales}.
+ */
+@Entity
+@Table(name = "product_sales_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private OffsetDateTime bucketStart;
+
+    @Column(name = "bar_station_id")
+    private Long barStationId;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "sales_count", nullable = false)
+    private Long salesCount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal units;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal revenue;
+}
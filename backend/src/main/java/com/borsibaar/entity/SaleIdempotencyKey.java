@@ -0,0 +1,44 @@
+package com.borsibaar.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Response of a completed sale stored under the client's {@code Idempotency-Key},
+ * so a retried request can be answered without selling again.
+ */
+@Entity
+@Table(name = "sale_idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleIdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 of the request in hex; null for keys stored before it was kept
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "sale_id", nullable = false, length = 100)
+    private String saleId;
+
+    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,13 @@
+package com.borsibaar.event;
+
+import com.borsibaar.dto.MarketUpdateDto;
+
+import java.util.List;
+
+/**
+ * New stock and price of products whose inventory changed. Published inside
+ * the changing transaction and pushed to market feed subscribers after commit;
+ * changes made on other replicas are published once read back from the database.
+ */
+public record MarketUpdateEvent(Long organizationId, List<MarketUpdateDto> updates) {
+}
@@ -0,0 +1,8 @@
+package com.borsibaar.event;
+
+/**
+ * An organization's menu changed in a way not covered by
+ * {@link MarketUpdateEvent}, e.g. a product was added or removed.
+ */
+public record MenuChangedEvent(Long organizationId) {
+}
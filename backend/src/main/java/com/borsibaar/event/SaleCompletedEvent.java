@@ -0,0 +1,16 @@
+package com.borsibaar.event;
+
+import com.borsibaar.dto.SaleItemResponseDto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A sale with its line items. Published inside the selling transaction and
+ * fed to the live sales counters after commit, so rolled back sales are never
+ * counted. Sales made on other replicas are published once read back from the
+ * database.
+ */
+public record SaleCompletedEvent(Long organizationId, String saleId, UUID userId, Long barStationId,
+        List<SaleItemResponseDto> items, long soldAtMillis) {
+}
@@ -0,0 +1,8 @@
+package com.borsibaar.event;
+
+/**
+ * A user's organization, role or name changed, so an authenticated principal
+ * cached for their email is out of date.
+ */
+public record UserChangedEvent(String email) {
+}
@@ -9,6 +9,7 @@ import org.springframework.web.ErrorResponseException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.OffsetDateTime;
@@ -83,6 +84,16 @@ public class ApiExceptionHandler {
                 return problemDetail;
         }
 
+        @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+        public ProblemDetail handleTypeMismatch(MethodArgumentTypeMismatchException exception,
+                        HttpServletRequest request) {
+                return buildProblemDetail(
+                                HttpStatus.BAD_REQUEST,
+                                "Invalid parameter",
+                                "Invalid value for '" + exception.getName() + "': " + exception.getValue(),
+                                request.getRequestURI());
+        }
+
         @ExceptionHandler(ConstraintViolationException.class)
         public ProblemDetail handleConstraintViolation(ConstraintViolationException exception,
                         HttpServletRequest request) {
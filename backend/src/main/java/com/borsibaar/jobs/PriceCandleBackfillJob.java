@@ -0,0 +1,83 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.PriceCandleRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Builds price candles for the sales and price ticks written before candles
+ * were maintained. Runs once after startup, one day per statement from the
+ * earliest existing candle back to the first of them, so an interrupted
+ * run resumes where it stopped and a finished one has nothing left to do.
+ * Existing candles are kept, so the run is safe next to live sales.
+ */
+@Service
+public class PriceCandleBackfillJob {
+
+    private final PriceCandleRepository priceCandleRepository;
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final PriceTickRepository priceTickRepository;
+    private final boolean enabled;
+    private static final Logger logger = LogManager.getLogger(PriceCandleBackfillJob.class);
+
+    public PriceCandleBackfillJob(PriceCandleRepository priceCandleRepository,
+            InventoryTransactionRepository inventoryTransactionRepository,
+            PriceTickRepository priceTickRepository,
+            @Value("${app.candles.backfill.enabled:true}") boolean enabled) {
+        this.priceCandleRepository = priceCandleRepository;
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.priceTickRepository = priceTickRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Only sales and price ticks make candles, so other transactions must not move the start back
+            Optional<OffsetDateTime> firstChange = Stream.of(inventoryTransactionRepository.findEarliestSaleAt(),
+                            priceTickRepository.findEarliestCreatedAt())
+                    .flatMap(Optional::stream)
+                    .min(Comparator.naturalOrder());
+            if (firstChange.isEmpty()) {
+                return;
+            }
+            OffsetDateTime start = firstChange.get().withOffsetSameInstant(ZoneOffset.UTC)
+                    .truncatedTo(ChronoUnit.DAYS);
+            // The earliest candled hour may only be partly covered, so it is filled up as well
+            OffsetDateTime end = priceCandleRepository.findEarliestHourStart()
+                    .map(hour -> hour.withOffsetSameInstant(ZoneOffset.UTC).plusHours(1))
+                    .orElseGet(() -> OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS).plusHours(1));
+            if (!end.isAfter(start)) {
+                return;
+            }
+
+            int written = 0;
+            // Newest day first, so the earliest candle moves back as days complete
+            for (OffsetDateTime to = end; to.isAfter(start); ) {
+                OffsetDateTime from = to.minusDays(1).isBefore(start) ? start : to.minusDays(1);
+                written += priceCandleRepository.backfill(from, to);
+                to = from;
+            }
+            logger.info("Backfilled {} price candles from {} to {}", written, start, end);
+        } catch (RuntimeException e) {
+            // Retried on the next startup; live candles keep being written meanwhile
+            logger.warn("Price candle backfill failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,94 +1,107 @@
 package com.borsibaar.jobs;
 
-import com.borsibaar.controller.InventoryController;
-import com.borsibaar.entity.Inventory;
-import com.borsibaar.entity.InventoryTransaction;
-import com.borsibaar.entity.Product;
+import com.borsibaar.dto.MarketUpdateDto;
+import com.borsibaar.event.MarketUpdateEvent;
 import com.borsibaar.repository.*;
+import com.borsibaar.repository.projection.PriceChange;
+import com.borsibaar.repository.projection.PriceDecayCandidate;
+import com.borsibaar.repository.projection.PriceTick;
+import com.borsibaar.util.FixedPoint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
+/**
+ * Lowers the prices of dynamic-pricing products whose decay timer expired,
+ * as handed over by {@link PriceDecayScheduler}.
+ */
 @Service
 public class PriceCorrectionJob {
 
     private final InventoryRepository inventoryRepository;
-    private final InventoryTransactionRepository inventoryTransactionRepository;
-    private final ProductRepository productRepository;
+    private final PriceTickRepository priceTickRepository;
+    private final PriceCandleRepository priceCandleRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private static final Logger logger = LogManager.getLogger(PriceCorrectionJob.class);
 
 
     public PriceCorrectionJob(InventoryRepository inventoryRepository,
-            InventoryTransactionRepository inventoryTransactionRepository,
-            ProductRepository productRepository) {
+            PriceTickRepository priceTickRepository,
+            PriceCandleRepository priceCandleRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.inventoryRepository = inventoryRepository;
-        this.inventoryTransactionRepository = inventoryTransactionRepository;
-        this.productRepository = productRepository;
+        this.priceTickRepository = priceTickRepository;
+        this.priceCandleRepository = priceCandleRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Scheduled(cron = "0 * * * * *")
-    public void adjustPrices() {
-        logger.info("Running price reduction job");
-        List<Product> inactiveProducts = productRepository.findByActiveOrgAndInactiveSalesLastMinute();
-
-        if (inactiveProducts.isEmpty()) {
-            logger.info("No product prices to update automatically");
-            return;
+    /**
+     * Lowers the price of the given products by their organization's decrease
+     * step in a fixed number of statements: one query for the candidates, one
+     * set-based update of their prices and one insert of the price ticks.
+     * Reductions move no stock, so they are not written to the inventory
+     * transactions.
+     *
+     * @return the products that still use dynamic pricing, with their current
+     *         decay settings, whether or not their price changed
+     */
+    @Transactional
+    public List<PriceDecayCandidate> decay(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        List<PriceDecayCandidate> candidates = inventoryRepository.findPriceDecayCandidatesByProductIds(productIds);
+        if (candidates.isEmpty()) {
+            return candidates;
         }
 
-        int updatedCount = 0;
-        for (Product product : inactiveProducts) {
-            Inventory inventory = Optional.ofNullable(product.getInventory())
-                    .orElseGet(() -> {
-                        Inventory newInv = new Inventory();
-                        newInv.setProduct(product);
-                        newInv.setQuantity(BigDecimal.ZERO);
-                        newInv.setAdjustedPrice(product.getBasePrice());
-                        newInv.setCreatedAt(OffsetDateTime.now());
-                        newInv.setUpdatedAt(OffsetDateTime.now());
-                        return newInv;
-                    });
-
-            BigDecimal decreaseAmount = product.getOrganization().getPriceDecreaseStep();
-            BigDecimal minPrice = Optional.ofNullable(product.getMinPrice()).orElse(decreaseAmount);
-            BigDecimal currentPrice = Optional.ofNullable(inventory.getAdjustedPrice()).orElse(product.getBasePrice());
-            BigDecimal newPrice = currentPrice.subtract(decreaseAmount);
-            if (newPrice.compareTo(minPrice) < 0) {
-                newPrice = minPrice;
-            }
+        List<PriceChange> changes = new ArrayList<>(candidates.size());
+        Map<Long, PriceDecayCandidate> candidatesByInventory = new HashMap<>();
+        for (PriceDecayCandidate candidate : candidates) {
+            long decreaseAmount = FixedPoint.of(candidate.getPriceDecreaseStep());
+            long minPrice = candidate.getMinPrice() != null ? FixedPoint.of(candidate.getMinPrice()) : decreaseAmount;
+            BigDecimal currentPrice = candidate.getCurrentPrice();
+            long current = FixedPoint.of(currentPrice);
+            long newPrice = Math.max(Math.subtractExact(current, decreaseAmount), minPrice);
 
-            if (newPrice.compareTo(currentPrice) == 0) {
+            if (newPrice == current) {
                 // already at lowest price
                 continue;
             }
+            changes.add(new PriceChange(candidate.getInventoryId(), null, currentPrice,
+                    FixedPoint.toBigDecimal(newPrice)));
+            candidatesByInventory.put(candidate.getInventoryId(), candidate);
+        }
 
-            inventory.setAdjustedPrice(newPrice);
-            inventory.setUpdatedAt(OffsetDateTime.now());
-            inventory = inventoryRepository.save(inventory);
-
-            // Create price reduction transaction
-            InventoryTransaction transaction = new InventoryTransaction();
-            transaction.setInventory(inventory);
-            transaction.setTransactionType("ADJUSTMENT");
-            transaction.setQuantityChange(BigDecimal.ZERO);
-            transaction.setQuantityBefore(inventory.getQuantity());
-            transaction.setQuantityAfter(inventory.getQuantity());
-            transaction.setPriceBefore(currentPrice);
-            transaction.setPriceAfter(newPrice);
-            transaction.setReferenceId("REDUCE-" + System.currentTimeMillis());
-            transaction.setNotes("PriceCorrectionJob");
-            transaction.setCreatedBy(null);
-            transaction.setCreatedAt(OffsetDateTime.now());
-            inventoryTransactionRepository.save(transaction);
+        // Rows whose price was changed by a sale since they were read are skipped
+        List<PriceChange> applied = inventoryRepository.applyPriceChanges(changes);
 
-            updatedCount++;
+        OffsetDateTime now = OffsetDateTime.now();
+        List<PriceTick> ticks = new ArrayList<>(applied.size());
+        Map<Long, List<MarketUpdateDto>> marketUpdates = new HashMap<>();
+        for (PriceChange change : applied) {
+            PriceDecayCandidate candidate = candidatesByInventory.get(change.inventoryId());
+            marketUpdates.computeIfAbsent(candidate.getOrganizationId(), id -> new ArrayList<>())
+                    .add(new MarketUpdateDto(candidate.getProductId(), change.quantity(), change.priceAfter()));
+            ticks.add(new PriceTick(candidate.getProductId(), now, change.priceAfter()));
         }
-        logger.info("Updated prices of {} products.", updatedCount);
+        priceTickRepository.insertAll(ticks);
+        priceCandleRepository.addPriceReductions(applied, now);
+        // Delivered to market feed subscribers once the tick commits
+        marketUpdates.forEach((organizationId, updates) ->
+                eventPublisher.publishEvent(new MarketUpdateEvent(organizationId, updates)));
+
+        logger.debug("Lowered prices of {} of {} products", applied.size(), productIds.size());
+        return candidates;
     }
 }
@@ -0,0 +1,293 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.dto.MarketUpdateDto;
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryRepository;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.PriceDecayClaimRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import com.borsibaar.repository.projection.InventoryView;
+import com.borsibaar.repository.projection.LatestPriceTick;
+import com.borsibaar.repository.projection.SaleLine;
+import com.borsibaar.service.LiveSalesCounters;
+import com.borsibaar.service.SalesActivityTracker;
+import com.borsibaar.service.TopSellersTracker;
+import com.borsibaar.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Splits the price decay of the organizations across the backend replicas.
+ * Every heartbeat the node renews its claims, and then either claims free
+ * organizations up to its fair share (organizations divided by live nodes)
+ * or frees those beyond it. {@link PriceDecayScheduler} only handles the
+ * organizations claimed here, so no price is lowered twice, and the work
+ * spreads over the nodes as they join.
+ * <p>
+ * A node that dies keeps its claims until their lease runs out; the others
+ * take them over at their next heartbeat, well within one decay interval
+ * (the lease is a few heartbeats). A node that cannot renew stops decaying
+ * once its lease may have run out. A node shutting down frees its claims
+ * right away.
+ * <p>
+ * Sales made on other nodes are read back from the sale transactions on
+ * every heartbeat and published here as a {@link SaleCompletedEvent}, so the
+ * {@link SalesActivityTracker}, {@link LiveSalesCounters} and
+ * {@link TopSellersTracker} of every node count all sales; those made before
+ * this node started come from their rebuilds instead. The products they
+ * changed, and those whose prices other nodes lowered, are published as a
+ * {@link MarketUpdateEvent} with their current stock and price, so market
+ * feeds and menu caches of every node follow within a heartbeat.
+ */
+@Service
+public class PriceDecayClaimJob {
+
+    // Products loaded per statement when publishing changes of other nodes
+    static final int MARKET_UPDATE_BATCH_SIZE = 1_000;
+
+    private final PriceDecayClaimRepository priceDecayClaimRepository;
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final PriceTickRepository priceTickRepository;
+    private final InventoryRepository inventoryRepository;
+    private final PriceDecayScheduler priceDecayScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long leaseMillis;
+    private static final Logger logger = LogManager.getLogger(PriceDecayClaimJob.class);
+
+    private volatile Set<Long> claimedOrganizations = Set.of();
+    // Only touched by the heartbeat
+    private long claimsValidUntil;
+    private long changesReadUntil;
+    // Latest price tick already handled, per product; forgotten once older than the read window
+    private final Map<Long, Long> seenTicks = new HashMap<>();
+    // Sales made here or already published, with their time; forgotten once older than the read window
+    private final ConcurrentMap<String, Long> knownSales = new ConcurrentHashMap<>();
+    // Sales before this are counted by the rebuilds on startup
+    private volatile long countSalesFrom = Long.MAX_VALUE;
+
+    public PriceDecayClaimJob(PriceDecayClaimRepository priceDecayClaimRepository,
+            InventoryTransactionRepository inventoryTransactionRepository,
+            PriceTickRepository priceTickRepository,
+            InventoryRepository inventoryRepository,
+            PriceDecayScheduler priceDecayScheduler,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.pricing.decay.cluster.enabled:true}") boolean enabled,
+            @Value("${app.pricing.decay.cluster.node-id:}") String nodeId,
+            @Value("${app.pricing.decay.cluster.heartbeat-millis:2000}") long heartbeatMillis,
+            @Value("${app.pricing.decay.cluster.lease-millis:6000}") long leaseMillis) {
+        if (leaseMillis <= heartbeatMillis) {
+            throw new IllegalArgumentException("app.pricing.decay.cluster.lease-millis must exceed the heartbeat");
+        }
+        this.priceDecayClaimRepository = priceDecayClaimRepository;
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.priceTickRepository = priceTickRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.priceDecayScheduler = priceDecayScheduler;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.leaseMillis = leaseMillis;
+        this.changesReadUntil = System.currentTimeMillis();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Organizations this node currently lowers the prices of.
+     */
+    public Set<Long> getClaimedOrganizations() {
+        return claimedOrganizations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startCountingSales() {
+        startCountingSales(System.currentTimeMillis());
+    }
+
+    void startCountingSales(long nowMillis) {
+        countSalesFrom = nowMillis;
+    }
+
+    /**
+     * Remembers a sale before its transaction commits, so the heartbeat does
+     * not publish it a second time.
+     */
+    @EventListener
+    public void onSaleCompleted(SaleCompletedEvent event) {
+        if (enabled) {
+            knownSales.putIfAbsent(event.saleId(), event.soldAtMillis());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.pricing.decay.cluster.heartbeat-millis:2000}")
+    public void heartbeat() {
+        if (enabled) {
+            heartbeat(System.currentTimeMillis());
+        }
+    }
+
+    void heartbeat(long nowMillis) {
+        Set<Long> claimed;
+        try {
+            int nodes = priceDecayClaimRepository.registerNode(nodeId, leaseMillis);
+            int organizations = priceDecayClaimRepository.addMissingOrganizations();
+            claimed = new HashSet<>(priceDecayClaimRepository.renew(nodeId, leaseMillis));
+            int fairShare = Math.ceilDiv(organizations, Math.max(nodes, 1));
+            if (claimed.size() > fairShare) {
+                List<Long> excess = claimed.stream()
+                        .sorted(Comparator.reverseOrder())
+                        .limit(claimed.size() - fairShare)
+                        .toList();
+                claimed.removeAll(excess);
+                // Stopped here before another node can claim them
+                handOver(claimed, nowMillis);
+                priceDecayClaimRepository.release(nodeId, excess);
+                logger.info("Released price decay of {} organizations to other nodes", excess.size());
+            } else if (claimed.size() < fairShare) {
+                List<Long> taken = priceDecayClaimRepository.claim(nodeId, fairShare - claimed.size(), leaseMillis);
+                if (!taken.isEmpty()) {
+                    logger.info("Claimed price decay of organizations {}", taken);
+                }
+                claimed.addAll(taken);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew price decay claims of node {}: {}", nodeId, e.getMessage());
+            if (nowMillis >= claimsValidUntil && !claimedOrganizations.isEmpty()) {
+                // The claims may have lapsed and been taken by another node
+                handOver(Set.of(), nowMillis);
+            }
+            return;
+        }
+        // Measured from before the renewal, so never later than the lease in the database
+        claimsValidUntil = nowMillis + leaseMillis;
+        // Before the hand-over, so the decays of the organizations other nodes owned until now count as theirs
+        readRemoteChanges(nowMillis);
+        handOver(claimed, nowMillis);
+    }
+
+    @PreDestroy
+    void releaseClaims() {
+        if (!enabled) {
+            return;
+        }
+        handOver(Set.of(), System.currentTimeMillis());
+        try {
+            priceDecayClaimRepository.releaseAll(nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release price decay claims of node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private void handOver(Set<Long> organizationIds, long nowMillis) {
+        claimedOrganizations = Set.copyOf(organizationIds);
+        priceDecayScheduler.setOwnedOrganizations(claimedOrganizations, nowMillis);
+    }
+
+    private void readRemoteChanges(long nowMillis) {
+        // Overlaps the previous read by a lease, for changes committed after their timestamp
+        long sinceMillis = changesReadUntil - leaseMillis;
+        OffsetDateTime since = OffsetDateTime.ofInstant(Instant.ofEpochMilli(sinceMillis), ZoneOffset.UTC);
+        List<SaleLine> saleLines;
+        List<LatestPriceTick> ticks;
+        try {
+            saleLines = inventoryTransactionRepository.findSaleLinesSince(since);
+            ticks = priceTickRepository.findLatestSince(since);
+        } catch (RuntimeException e) {
+            logger.warn("Could not read recent changes of other nodes: {}", e.getMessage());
+            return;
+        }
+        changesReadUntil = nowMillis;
+
+        Set<Long> changedProducts = new HashSet<>();
+        knownSales.values().removeIf(soldAtMillis -> soldAtMillis < sinceMillis);
+        // Lines arrive grouped by sale reference
+        List<SaleItemResponseDto> items = new ArrayList<>();
+        for (int i = 0; i < saleLines.size(); i++) {
+            SaleLine line = saleLines.get(i);
+            items.add(toItem(line));
+            if (i + 1 < saleLines.size()
+                    && Objects.equals(saleLines.get(i + 1).getReferenceId(), line.getReferenceId())) {
+                continue;
+            }
+            long soldAtMillis = line.getCreatedAt().toInstant().toEpochMilli();
+            if (knownSales.putIfAbsent(line.getReferenceId(), soldAtMillis) == null) {
+                items.forEach(item -> changedProducts.add(item.productId()));
+                if (soldAtMillis >= countSalesFrom) {
+                    eventPublisher.publishEvent(new SaleCompletedEvent(line.getOrganizationId(),
+                            line.getReferenceId(), line.getUserId(), line.getBarStationId(), items, soldAtMillis));
+                }
+            }
+            items = new ArrayList<>();
+        }
+        seenTicks.values().removeIf(createdAtMillis -> createdAtMillis < sinceMillis);
+        Set<Long> owned = claimedOrganizations;
+        for (LatestPriceTick tick : ticks) {
+            long createdAtMillis = tick.createdAt().toInstant().toEpochMilli();
+            Long seen = seenTicks.get(tick.productId());
+            if (seen == null || createdAtMillis > seen) {
+                seenTicks.put(tick.productId(), createdAtMillis);
+                // Prices of owned organizations were lowered here and published then
+                if (!owned.contains(tick.organizationId())) {
+                    changedProducts.add(tick.productId());
+                }
+            }
+        }
+        publishMarketUpdates(changedProducts);
+    }
+
+    private static SaleItemResponseDto toItem(SaleLine line) {
+        return new SaleItemResponseDto(line.getProductId(), null, line.getQuantity(), line.getUnitPrice(),
+                FixedPoint.toBigDecimal(FixedPoint.multiply(FixedPoint.of(line.getUnitPrice()),
+                        FixedPoint.of(line.getQuantity()))));
+    }
+
+    private void publishMarketUpdates(Set<Long> productIds) {
+        List<Long> remaining = new ArrayList<>(productIds);
+        for (int from = 0; from < remaining.size(); from += MARKET_UPDATE_BATCH_SIZE) {
+            List<InventoryView> views;
+            try {
+                views = inventoryRepository.findInventoryViews(
+                        remaining.subList(from, Math.min(from + MARKET_UPDATE_BATCH_SIZE, remaining.size())));
+            } catch (RuntimeException e) {
+                logger.warn("Could not load {} products changed by other nodes: {}", remaining.size() - from,
+                        e.getMessage());
+                return;
+            }
+            Map<Long, List<MarketUpdateDto>> updates = new HashMap<>();
+            for (InventoryView view : views) {
+                updates.computeIfAbsent(view.getOrganizationId(), id -> new ArrayList<>())
+                        .add(new MarketUpdateDto(view.getProductId(), view.getQuantity(), view.getUnitPrice()));
+            }
+            updates.forEach((organizationId, organizationUpdates) ->
+                    eventPublisher.publishEvent(new MarketUpdateEvent(organizationId, organizationUpdates)));
+        }
+    }
+}
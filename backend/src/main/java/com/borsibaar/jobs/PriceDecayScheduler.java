@@ -0,0 +1,460 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.event.MenuChangedEvent;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryRepository;
+import com.borsibaar.repository.projection.PriceDecayCandidate;
+import com.borsibaar.service.SalesActivityTracker;
+import com.borsibaar.util.TimingWheel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Gives every dynamic-pricing product of a selling organization its own decay
+ * deadline, one decay interval after its last sale, kept in a
+ * {@link TimingWheel}. A sale pushes the deadline of its products back; when a
+ * deadline passes while the organization is still selling, the price is
+ * lowered by {@link PriceCorrectionJob} and the next deadline set one
+ * interval later. Products of organizations that stopped selling are dropped
+ * until their next sale.
+ * <p>
+ * The interval is the organization's own or {@code app.pricing.idle-window-seconds}.
+ * Since deadlines follow each product's sales, and products armed without a
+ * recent sale are spread over one interval, decays are spread over time
+ * rather than landing on the same moment.
+ * <p>
+ * The tick only does in-memory work and collects what came due; loading the
+ * products of organizations to arm and lowering each organization's
+ * products run as tasks on virtual threads, the latter in transactions of
+ * {@value #DECAY_BATCH_SIZE} products. At most
+ * {@code max-concurrent-organizations} tasks hold a database connection at
+ * a time, and a task yields after {@code organization-budget-millis}, leaving
+ * the rest for the next tick, so a venue with a huge catalog neither delays
+ * the others nor starves the request threads of connections. A deadline
+ * fires at most one {@code tick-millis} late plus the wait for its
+ * organization's task; {@code pricing.decay.lag} and
+ * {@code pricing.decay.duration} show both per organization.
+ * <p>
+ * With several replicas, each only handles the organizations that
+ * {@link PriceDecayClaimJob} claimed for it.
+ */
+@Service
+public class PriceDecayScheduler {
+
+    // Products lowered per transaction
+    static final int DECAY_BATCH_SIZE = 500;
+    // Four levels of 64 slots cover 2^24 ticks, about 48 days at 250 ms
+    private static final int WHEEL_SLOTS = 64;
+    private static final int WHEEL_LEVELS = 4;
+    // Selling organizations without timers are looked for this often, e.g. after a restart
+    static final long RECONCILE_MILLIS = 10_000;
+
+    private record Schedule(Long organizationId, long intervalMillis) {
+    }
+
+    private record Due(Long productId, long deadlineMillis) {
+    }
+
+    private record OrganizationMeters(Timer lag, Timer duration) {
+    }
+
+    private final InventoryRepository inventoryRepository;
+    private final PriceCorrectionJob priceCorrectionJob;
+    private final SalesActivityTracker salesActivityTracker;
+    private final long defaultIntervalMillis;
+    private final boolean clustered;
+    private final MeterRegistry meterRegistry;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Semaphore decayPermits;
+    private final long organizationBudgetMillis;
+    private static final Logger logger = LogManager.getLogger(PriceDecayScheduler.class);
+
+    // Organizations whose products are to be (re)armed on the next tick
+    private final Queue<Long> organizationsToArm = new ConcurrentLinkedQueue<>();
+    // Products that came due, per organization, and organizations with a task running
+    private final ConcurrentMap<Long, Queue<Due>> dueByOrganization = new ConcurrentHashMap<>();
+    private final Set<Long> runningOrganizations = ConcurrentHashMap.newKeySet();
+    // Set while a task loads the products of organizations to arm
+    private final AtomicBoolean arming = new AtomicBoolean();
+    private final ConcurrentMap<Long, OrganizationMeters> meters = new ConcurrentHashMap<>();
+
+    // Guarded by this; held only for in-memory work
+    private final TimingWheel<Long> wheel;
+    private final Map<Long, Schedule> schedules = new HashMap<>();
+    private final Set<Long> armedOrganizations = new HashSet<>();
+    // Only consulted when clustered
+    private final Set<Long> ownedOrganizations = new HashSet<>();
+    private long longestIntervalMillis;
+    private long nextReconcileAt;
+
+    @Autowired
+    public PriceDecayScheduler(InventoryRepository inventoryRepository,
+            PriceCorrectionJob priceCorrectionJob,
+            SalesActivityTracker salesActivityTracker,
+            MeterRegistry meterRegistry,
+            @Value("${app.pricing.decay.tick-millis:250}") long tickMillis,
+            @Value("${app.pricing.decay.cluster.enabled:true}") boolean clustered,
+            @Value("${app.pricing.decay.max-concurrent-organizations:4}") int maxConcurrentOrganizations,
+            @Value("${app.pricing.decay.organization-budget-millis:1000}") long organizationBudgetMillis) {
+        this(inventoryRepository, priceCorrectionJob, salesActivityTracker, meterRegistry,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("price-decay-", 0).factory()),
+                System::currentTimeMillis, tickMillis, clustered, maxConcurrentOrganizations,
+                organizationBudgetMillis);
+    }
+
+    PriceDecayScheduler(InventoryRepository inventoryRepository,
+            PriceCorrectionJob priceCorrectionJob,
+            SalesActivityTracker salesActivityTracker,
+            MeterRegistry meterRegistry,
+            Executor executor,
+            LongSupplier clock,
+            long tickMillis,
+            boolean clustered,
+            int maxConcurrentOrganizations,
+            long organizationBudgetMillis) {
+        this.inventoryRepository = inventoryRepository;
+        this.priceCorrectionJob = priceCorrectionJob;
+        this.salesActivityTracker = salesActivityTracker;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.clock = clock;
+        this.defaultIntervalMillis = salesActivityTracker.getIdleWindow().toMillis();
+        this.longestIntervalMillis = defaultIntervalMillis;
+        this.clustered = clustered;
+        this.decayPermits = new Semaphore(maxConcurrentOrganizations, true);
+        this.organizationBudgetMillis = organizationBudgetMillis;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SLOTS, WHEEL_LEVELS, clock.getAsLong());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSaleCompleted(SaleCompletedEvent event) {
+        recordSale(event.organizationId(), event.items().stream().map(SaleItemResponseDto::productId).toList(),
+                event.soldAtMillis());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        // Arms products that were added or moved to a dynamic-pricing category
+        synchronized (this) {
+            if (!armedOrganizations.contains(event.organizationId())) {
+                return;
+            }
+        }
+        organizationsToArm.add(event.organizationId());
+    }
+
+    synchronized void recordSale(Long organizationId, Collection<Long> productIds, long soldAtMillis) {
+        for (Long productId : productIds) {
+            Schedule schedule = schedules.get(productId);
+            if (schedule != null) {
+                wheel.schedule(productId, soldAtMillis + schedule.intervalMillis());
+            }
+        }
+        if (!armedOrganizations.contains(organizationId) && owns(organizationId)) {
+            organizationsToArm.add(organizationId);
+        }
+    }
+
+    /**
+     * Hands this node the price decay of exactly the given organizations:
+     * timers of organizations no longer in the set are dropped, and newly
+     * owned organizations that sold recently are armed on the next tick.
+     */
+    synchronized void setOwnedOrganizations(Set<Long> organizationIds, long nowMillis) {
+        Set<Long> lost = new HashSet<>(ownedOrganizations);
+        lost.removeAll(organizationIds);
+        if (!lost.isEmpty()) {
+            armedOrganizations.removeAll(lost);
+            for (Long organizationId : lost) {
+                dueByOrganization.remove(organizationId);
+                OrganizationMeters removed = meters.remove(organizationId);
+                if (removed != null) {
+                    meterRegistry.remove(removed.lag());
+                    meterRegistry.remove(removed.duration());
+                }
+            }
+            schedules.entrySet().removeIf(entry -> {
+                if (lost.contains(entry.getValue().organizationId())) {
+                    wheel.cancel(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+        for (Long organizationId : organizationIds) {
+            if (!ownedOrganizations.contains(organizationId) && salesActivityTracker.organizationSoldSince(
+                    organizationId, nowMillis - longestIntervalMillis)) {
+                organizationsToArm.add(organizationId);
+            }
+        }
+        ownedOrganizations.clear();
+        ownedOrganizations.addAll(organizationIds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.pricing.decay.tick-millis:250}")
+    public void tick() {
+        tick(clock.getAsLong());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    void tick(long nowMillis) {
+        if (nowMillis >= nextReconcileAt) {
+            reconcile(nowMillis);
+        }
+        if (!organizationsToArm.isEmpty() && arming.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        armOrganizations(clock.getAsLong());
+                    } finally {
+                        arming.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                arming.set(false);
+            }
+        }
+
+        synchronized (this) {
+            wheel.advance(nowMillis, (productId, deadlineMillis) -> {
+                Schedule schedule = schedules.get(productId);
+                Long lastSale = salesActivityTracker.getLastSale(productId);
+                if (lastSale != null && lastSale + schedule.intervalMillis() > nowMillis) {
+                    // Sold while its deadline was being set
+                    wheel.schedule(productId, lastSale + schedule.intervalMillis());
+                } else if (!salesActivityTracker.organizationSoldSince(schedule.organizationId(),
+                        nowMillis - schedule.intervalMillis())) {
+                    // Prices only fall while the organization sells; the next sale arms the product again
+                    schedules.remove(productId);
+                    armedOrganizations.remove(schedule.organizationId());
+                } else {
+                    dueByOrganization.computeIfAbsent(schedule.organizationId(), id -> new ConcurrentLinkedQueue<>())
+                            .add(new Due(productId, deadlineMillis));
+                }
+            });
+        }
+        // Also restarts organizations whose last task ran out of budget
+        dueByOrganization.forEach((organizationId, due) -> {
+            if (!due.isEmpty() && runningOrganizations.add(organizationId)) {
+                try {
+                    executor.execute(() -> runDecay(organizationId, due));
+                } catch (RejectedExecutionException e) {
+                    runningOrganizations.remove(organizationId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Number of products with a decay deadline.
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    private void runDecay(Long organizationId, Queue<Due> due) {
+        try {
+            decayPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runningOrganizations.remove(organizationId);
+            return;
+        }
+        try {
+            OrganizationMeters organizationMeters = metersOf(organizationId);
+            long startedAt = clock.getAsLong();
+            // At least one batch per run, however small the budget
+            do {
+                List<Due> batch = new ArrayList<>(DECAY_BATCH_SIZE);
+                Due next;
+                while (batch.size() < DECAY_BATCH_SIZE && (next = due.poll()) != null) {
+                    batch.add(next);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                long nowMillis = clock.getAsLong();
+                List<Long> productIds = new ArrayList<>(batch.size());
+                synchronized (this) {
+                    for (Due product : batch) {
+                        // Dropped meanwhile, e.g. its organization was handed to another node
+                        if (schedules.containsKey(product.productId())) {
+                            productIds.add(product.productId());
+                            organizationMeters.lag().record(nowMillis - product.deadlineMillis(),
+                                    TimeUnit.MILLISECONDS);
+                        }
+                    }
+                }
+                if (!productIds.isEmpty()) {
+                    decay(productIds, nowMillis);
+                }
+            } while (clock.getAsLong() - startedAt < organizationBudgetMillis);
+            organizationMeters.duration().record(clock.getAsLong() - startedAt, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            logger.warn("Price decay of organization {} failed: {}", organizationId, e.getMessage());
+        } finally {
+            decayPermits.release();
+            runningOrganizations.remove(organizationId);
+        }
+    }
+
+    private OrganizationMeters metersOf(Long organizationId) {
+        return meters.computeIfAbsent(organizationId, id -> new OrganizationMeters(
+                Timer.builder("pricing.decay.lag")
+                        .description("Time from a product's decay deadline to the start of its price update")
+                        .tag("organization", id.toString())
+                        .register(meterRegistry),
+                Timer.builder("pricing.decay.duration")
+                        .description("Time one run of an organization's price decay task took")
+                        .tag("organization", id.toString())
+                        .register(meterRegistry)));
+    }
+
+    private void decay(List<Long> productIds, long nowMillis) {
+        List<PriceDecayCandidate> candidates;
+        try {
+            candidates = priceCorrectionJob.decay(productIds);
+        } catch (RuntimeException e) {
+            logger.warn("Could not lower prices of {} products: {}", productIds.size(), e.getMessage());
+            // Retried one interval later
+            synchronized (this) {
+                for (Long productId : productIds) {
+                    Schedule schedule = schedules.get(productId);
+                    if (schedule != null && !wheel.contains(productId)) {
+                        wheel.schedule(productId, nowMillis + schedule.intervalMillis());
+                    }
+                }
+            }
+            return;
+        }
+
+        synchronized (this) {
+            Set<Long> remaining = new HashSet<>(productIds);
+            for (PriceDecayCandidate candidate : candidates) {
+                if (!owns(candidate.getOrganizationId())) {
+                    // Handed to another node while being lowered
+                    continue;
+                }
+                Schedule schedule = track(candidate);
+                remaining.remove(candidate.getProductId());
+                // A product sold meanwhile already has its new deadline
+                if (!wheel.contains(candidate.getProductId())) {
+                    wheel.schedule(candidate.getProductId(), nowMillis + schedule.intervalMillis());
+                }
+            }
+            // No longer dynamically priced
+            for (Long productId : remaining) {
+                schedules.remove(productId);
+                wheel.cancel(productId);
+            }
+        }
+    }
+
+    private void armOrganizations(long nowMillis) {
+        Set<Long> organizationIds = new HashSet<>();
+        for (Long organizationId = organizationsToArm.poll(); organizationId != null;
+                organizationId = organizationsToArm.poll()) {
+            organizationIds.add(organizationId);
+        }
+        if (organizationIds.isEmpty()) {
+            return;
+        }
+        List<PriceDecayCandidate> candidates;
+        try {
+            candidates = inventoryRepository.findPriceDecayCandidates(organizationIds);
+        } catch (RuntimeException e) {
+            logger.warn("Could not arm price decay of organizations {}: {}", organizationIds, e.getMessage());
+            organizationsToArm.addAll(organizationIds);
+            return;
+        }
+
+        synchronized (this) {
+            organizationIds.removeIf(organizationId -> !owns(organizationId));
+            armedOrganizations.addAll(organizationIds);
+            for (PriceDecayCandidate candidate : candidates) {
+                if (!organizationIds.contains(candidate.getOrganizationId())) {
+                    continue;
+                }
+                Schedule schedule = track(candidate);
+                if (!wheel.contains(candidate.getProductId())) {
+                    wheel.schedule(candidate.getProductId(),
+                            firstDeadline(candidate.getProductId(), schedule.intervalMillis(), nowMillis));
+                }
+            }
+        }
+        logger.debug("Armed price decay of {} products of organizations {}", candidates.size(), organizationIds);
+    }
+
+    private void reconcile(long nowMillis) {
+        nextReconcileAt = nowMillis + RECONCILE_MILLIS;
+        long longestInterval;
+        synchronized (this) {
+            longestInterval = longestIntervalMillis;
+            for (Long organizationId : salesActivityTracker.organizationsActiveSince(nowMillis - longestInterval)) {
+                if (!armedOrganizations.contains(organizationId) && owns(organizationId)) {
+                    organizationsToArm.add(organizationId);
+                }
+            }
+        }
+        salesActivityTracker.evictBefore(nowMillis - longestInterval);
+    }
+
+    private boolean owns(Long organizationId) {
+        return !clustered || ownedOrganizations.contains(organizationId);
+    }
+
+    private Schedule track(PriceDecayCandidate candidate) {
+        Integer seconds = candidate.getPriceDecayIntervalSeconds();
+        Schedule schedule = new Schedule(candidate.getOrganizationId(),
+                seconds != null ? seconds * 1000L : defaultIntervalMillis);
+        schedules.put(candidate.getProductId(), schedule);
+        longestIntervalMillis = Math.max(longestIntervalMillis, schedule.intervalMillis());
+        return schedule;
+    }
+
+    private long firstDeadline(Long productId, long intervalMillis, long nowMillis) {
+        Long lastSale = salesActivityTracker.getLastSale(productId);
+        if (lastSale != null && lastSale + intervalMillis > nowMillis) {
+            return lastSale + intervalMillis;
+        }
+        // Idle for a whole interval already: spread over the next one by product id
+        return nowMillis + Math.floorMod(productId * 0x9E3779B97F4A7C15L, intervalMillis);
+    }
+}
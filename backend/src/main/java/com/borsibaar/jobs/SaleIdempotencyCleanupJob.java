@@ -0,0 +1,30 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.repository.SaleIdempotencyKeyRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+
+@Service
+public class SaleIdempotencyCleanupJob {
+
+    private final SaleIdempotencyKeyRepository saleIdempotencyKeyRepository;
+    private final long retentionHours;
+    private static final Logger logger = LogManager.getLogger(SaleIdempotencyCleanupJob.class);
+
+    public SaleIdempotencyCleanupJob(SaleIdempotencyKeyRepository saleIdempotencyKeyRepository,
+            @Value("${app.sales.idempotency.retention-hours:24}") long retentionHours) {
+        this.saleIdempotencyKeyRepository = saleIdempotencyKeyRepository;
+        this.retentionHours = retentionHours;
+    }
+
+    @Scheduled(cron = "0 15 * * * *")
+    public void deleteExpiredKeys() {
+        int deleted = saleIdempotencyKeyRepository.deleteCreatedBefore(OffsetDateTime.now().minusHours(retentionHours));
+        logger.info("Deleted {} expired sale idempotency keys", deleted);
+    }
+}
@@ -0,0 +1,99 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.repository.InventoryTransactionRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of {@code inventory_transactions} in shape:
+ * partitions for the current and the next {@code months-ahead} months are
+ * created in advance, and with a retention set, partitions of months before
+ * the last {@code retention-months} full months are detached. Detached
+ * partitions stay as standalone tables to be archived, unless
+ * {@code retention-drop} is set. Runs at startup and daily; every step is
+ * idempotent, so replicas running it side by side only repeat work.
+ */
+@Service
+public class TransactionPartitionJob {
+
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropExpired;
+    private static final Logger logger = LogManager.getLogger(TransactionPartitionJob.class);
+
+    public TransactionPartitionJob(InventoryTransactionRepository inventoryTransactionRepository,
+            @Value("${app.transactions.partitions.enabled:true}") boolean enabled,
+            @Value("${app.transactions.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${app.transactions.retention-months:0}") int retentionMonths,
+            @Value("${app.transactions.retention-drop:false}") boolean dropExpired) {
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.dropExpired = dropExpired;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 3 * * *", zone = "UTC")
+    public void maintainPartitions() {
+        if (enabled) {
+            maintainPartitions(YearMonth.now(ZoneOffset.UTC));
+        }
+    }
+
+    void maintainPartitions(YearMonth currentMonth) {
+        List<YearMonth> existing;
+        try {
+            existing = inventoryTransactionRepository.findPartitionMonths();
+        } catch (RuntimeException e) {
+            logger.warn("Could not list inventory transaction partitions: {}", e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            if (!existing.contains(month)) {
+                try {
+                    inventoryTransactionRepository.createPartition(month);
+                    logger.info("Created inventory transaction partition for {}", month);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not create inventory transaction partition for {}: {}", month,
+                            e.getMessage());
+                }
+            }
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+        for (YearMonth month : existing) {
+            if (!month.isBefore(oldestKept)) {
+                break;
+            }
+            // One failing month (e.g. a lock timeout) must not keep the others from being handled
+            try {
+                inventoryTransactionRepository.detachPartition(month);
+                if (dropExpired) {
+                    inventoryTransactionRepository.dropDetachedPartition(month);
+                    logger.info("Dropped inventory transaction partition for {}", month);
+                } else {
+                    logger.info("Detached inventory transaction partition for {}", month);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not expire inventory transaction partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.borsibaar.dto.InventoryResponseDto;
 import com.borsibaar.dto.InventoryTransactionResponseDto;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
+import com.borsibaar.repository.projection.InventoryView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -19,6 +20,8 @@ public interface InventoryMapper {
     @Mapping(target = "updatedAt", source = "updatedAt", dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
     InventoryResponseDto toResponse(Inventory inventory);
 
+    InventoryResponseDto fromView(InventoryView view);
+
     @Mapping(target = "createdBy", source = "createdBy")
     @Mapping(target = "createdAt", source = "createdAt", dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
     InventoryTransactionResponseDto toTransactionResponse(InventoryTransaction transaction);
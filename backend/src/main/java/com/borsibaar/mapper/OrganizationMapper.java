@@ -17,6 +17,7 @@ public interface OrganizationMapper {
     @Mapping(target = "updatedAt", ignore = true) // set in service
     @Mapping(target = "priceIncreaseStep", source = "priceIncreaseStep")
     @Mapping(target = "priceDecreaseStep", source = "priceDecreaseStep")
+    @Mapping(target = "priceDecayIntervalSeconds", source = "priceDecayIntervalSeconds")
     Organization toEntity(OrganizationRequestDto request);
 
     OrganizationResponseDto toResponse(Organization organization);
@@ -27,5 +28,6 @@ public interface OrganizationMapper {
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "priceIncreaseStep", source = "priceIncreaseStep")
     @Mapping(target = "priceDecreaseStep", source = "priceDecreaseStep")
+    @Mapping(target = "priceDecayIntervalSeconds", source = "priceDecayIntervalSeconds")
     void updateEntity(@MappingTarget Organization target, OrganizationRequestDto source);
 }
@@ -1,29 +1,124 @@
 package com.borsibaar.repository;
 
 import com.borsibaar.entity.Inventory;
+import com.borsibaar.repository.projection.InventoryView;
+import com.borsibaar.repository.projection.PriceDecayCandidate;
+import com.borsibaar.repository.projection.SaleStockChange;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
 
     @Query("SELECT i FROM Inventory i JOIN Product p ON i.productId = p.id " +
             "WHERE p.organizationId = :organizationId AND i.productId = :productId")
     Optional<Inventory> findByOrganizationIdAndProductId(@Param("organizationId") Long organizationId, @Param("productId") Long productId);
 
-    @Query("SELECT i FROM Inventory i JOIN Product p ON i.productId = p.id " +
-            "WHERE p.organizationId = :organizationId")
-    List<Inventory> findByOrganizationId(@Param("organizationId") Long organizationId);
+    String INVENTORY_VIEW = """
+            SELECT i.id AS id, p.organizationId AS organizationId, p.id AS productId, p.name AS productName,
+                   i.quantity AS quantity, COALESCE(i.adjustedPrice, p.basePrice) AS unitPrice,
+                   p.description AS description, p.basePrice AS basePrice, p.minPrice AS minPrice,
+                   p.maxPrice AS maxPrice, i.updatedAt AS updatedAt, p.isActive AS active
+            FROM Inventory i
+            JOIN Product p ON p.id = i.productId
+            """;
 
-    @Query("SELECT i FROM Inventory i JOIN Product p ON i.productId = p.id " +
-            "WHERE p.organizationId = :organizationId AND p.categoryId = :categoryId")
-    List<Inventory> findByOrganizationIdAndCategoryId(@Param("organizationId") Long organizationId,
+    /**
+     * Menu of an organization: active products with their stock and current
+     * price, sorted by product name.
+     */
+    @Query(INVENTORY_VIEW + """
+            WHERE p.organizationId = :organizationId AND p.isActive = TRUE
+            ORDER BY p.name, i.id
+            """)
+    List<InventoryView> findMenuItems(@Param("organizationId") Long organizationId);
+
+    @Query(INVENTORY_VIEW + """
+            WHERE p.organizationId = :organizationId AND p.categoryId = :categoryId AND p.isActive = TRUE
+            ORDER BY p.name, i.id
+            """)
+    List<InventoryView> findMenuItemsByCategory(@Param("organizationId") Long organizationId,
             @Param("categoryId") Long categoryId);
 
+    /**
+     * Inventory of one product of the organization, including inactive products.
+     */
+    @Query(INVENTORY_VIEW + """
+            WHERE p.organizationId = :organizationId AND p.id = :productId
+            """)
+    Optional<InventoryView> findInventoryView(@Param("organizationId") Long organizationId,
+            @Param("productId") Long productId);
+
+    @Query(INVENTORY_VIEW + """
+            WHERE p.id IN :productIds
+            """)
+    List<InventoryView> findInventoryViews(@Param("productIds") Collection<Long> productIds);
+
     boolean existsByProductId(Long productId);
+
+    /**
+     * Sells {@code quantity} units of a product in a single statement: locks the
+     * inventory row, decrements the stock, bumps the price by the organization's
+     * increase step (clamped to the product's max price) for dynamic-pricing
+     * categories and returns the values before and after the update.
+     * Returns empty when the product is unknown, inactive, belongs to another
+     * organization or does not have enough stock.
+     */
+    @Query(value = """
+            UPDATE inventory inv
+            SET quantity = cur.quantity - :quantity,
+                adjusted_price = CASE
+                    WHEN cur.dynamic_pricing THEN LEAST(cur.price + cur.price_increase_step, cur.max_price)
+                    ELSE cur.price
+                END,
+                updated_at = CURRENT_TIMESTAMP
+            FROM (
+                SELECT i.id, i.quantity, COALESCE(i.adjusted_price, p.base_price) AS price,
+                       p.name::text AS name, p.max_price, c.dynamic_pricing, o.price_increase_step
+                FROM inventory i
+                JOIN products p ON p.id = i.product_id
+                JOIN organizations o ON o.id = p.organization_id
+                LEFT JOIN categories c ON c.id = p.category_id
+                WHERE i.product_id = :productId
+                  AND p.organization_id = :organizationId
+                  AND p.is_active = TRUE
+                FOR UPDATE OF i
+            ) cur
+            WHERE inv.id = cur.id
+              AND cur.quantity >= :quantity
+            RETURNING inv.id AS "inventoryId",
+                      cur.name AS "productName",
+                      cur.quantity AS "quantityBefore",
+                      inv.quantity AS "quantityAfter",
+                      cur.price AS "priceBefore",
+                      inv.adjusted_price AS "priceAfter"
+            """, nativeQuery = true)
+    Optional<SaleStockChange> decrementStockForSale(@Param("productId") Long productId,
+            @Param("organizationId") Long organizationId,
+            @Param("quantity") BigDecimal quantity);
+
+    String PRICE_DECAY_CANDIDATE = """
+            SELECT i.id AS inventoryId, p.id AS productId, p.organizationId AS organizationId,
+                   COALESCE(i.adjustedPrice, p.basePrice) AS currentPrice,
+                   p.minPrice AS minPrice, o.priceDecreaseStep AS priceDecreaseStep,
+                   o.priceDecayIntervalSeconds AS priceDecayIntervalSeconds
+            FROM Inventory i
+            JOIN Product p ON p.id = i.productId
+            JOIN Category c ON c.id = p.categoryId
+            JOIN Organization o ON o.id = p.organizationId
+            WHERE c.dynamicPricing = TRUE
+            """;
+
+    @Query(PRICE_DECAY_CANDIDATE + " AND p.organizationId IN :organizationIds")
+    List<PriceDecayCandidate> findPriceDecayCandidates(@Param("organizationIds") Collection<Long> organizationIds);
+
+    @Query(PRICE_DECAY_CANDIDATE + " AND p.id IN :productIds")
+    List<PriceDecayCandidate> findPriceDecayCandidatesByProductIds(@Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,18 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.repository.projection.PriceChange;
+
+import java.util.List;
+
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Sets the adjusted price of many inventory rows with one
+     * {@code UPDATE ... FROM (VALUES ...)} statement. A row is only updated while
+     * its current price still equals {@code priceBefore}, so a sale that changed
+     * the price in the meantime wins.
+     *
+     * @return the changes that were applied, with the row's quantity
+     */
+    List<PriceChange> applyPriceChanges(List<PriceChange> changes);
+}
@@ -0,0 +1,54 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.repository.projection.PriceChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class InventoryRepositoryImpl implements InventoryRepositoryCustom {
+
+    // Keeps each statement well below the 65535 bind parameter limit of PostgreSQL
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String UPDATE_SQL = """
+            UPDATE inventory inv
+            SET adjusted_price = v.price_after,
+                updated_at = CURRENT_TIMESTAMP
+            FROM (VALUES %s) AS v(inventory_id, price_before, price_after),
+                 products p
+            WHERE inv.id = v.inventory_id
+              AND p.id = inv.product_id
+              AND COALESCE(inv.adjusted_price, p.base_price) = v.price_before
+            RETURNING inv.id, inv.quantity, v.price_before, v.price_after
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<PriceChange> applyPriceChanges(List<PriceChange> changes) {
+        if (changes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<PriceChange> applied = new ArrayList<>(changes.size());
+        for (int from = 0; from < changes.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<PriceChange> chunk = changes.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, changes.size()));
+            String rows = String.join(", ",
+                    Collections.nCopies(chunk.size(), "(?::bigint, ?::numeric, ?::numeric)"));
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                PriceChange change = chunk.get(i);
+                args[i * 3] = change.inventoryId();
+                args[i * 3 + 1] = change.priceBefore();
+                args[i * 3 + 2] = change.priceAfter();
+            }
+            applied.addAll(jdbcTemplate.query(UPDATE_SQL.formatted(rows), (rs, rowNum) -> new PriceChange(
+                    rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getBigDecimal(4)), args));
+        }
+        return applied;
+    }
+}
@@ -1,33 +1,27 @@
 package com.borsibaar.repository;
 
 import com.borsibaar.entity.InventoryTransaction;
+import com.borsibaar.repository.projection.ProductLastSale;
+import com.borsibaar.repository.projection.SaleLine;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
-
-    List<InventoryTransaction> findByInventoryIdOrderByCreatedAtDesc(Long inventoryId);
+public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long>,
+        InventoryTransactionRepositoryCustom {
 
     Optional<InventoryTransaction> findFirstByInventoryIdOrderByCreatedAtDesc(Long inventoryId);
 
     List<InventoryTransaction> findByReferenceId(String referenceId);
 
-    @Query("""
-            SELECT it FROM InventoryTransaction it
-            JOIN Inventory i ON it.inventoryId = i.id
-            JOIN Product p on i.productId= p.id
-            WHERE p.organizationId = :organizationId
-            AND it.transactionType = 'SALE'
-            ORDER BY it.createdAt DESC
-            """)
-    List<InventoryTransaction> findSaleTransactionsByOrganizationId(@Param("organizationId") Long organizationId);
-
+    // Queries on recent rows also bound created_at from above, a day ahead to tolerate clock skew,
+    // so the planner skips the monthly partitions created in advance as well as the old ones
     @Query(value = """
               SELECT DISTINCT p.organizationId
               FROM InventoryTransaction it
@@ -35,6 +29,36 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
               JOIN Product p on i.productId= p.id
               WHERE it.transactionType = 'SALE'
                 AND it.createdAt >= (CURRENT_TIMESTAMP - 60 SECOND)
+                AND it.createdAt < (CURRENT_TIMESTAMP + 1 DAY)
             """)
     List<Long> findOrganizationIdsWithSalesInLastMinute();
+
+    @Query("""
+            SELECT p.organizationId AS organizationId, p.id AS productId, MAX(it.createdAt) AS lastSaleAt
+            FROM InventoryTransaction it
+            JOIN Inventory i ON i.id = it.inventoryId
+            JOIN Product p ON p.id = i.productId
+            WHERE it.transactionType = 'SALE'
+              AND it.createdAt >= :since
+              AND it.createdAt < (CURRENT_TIMESTAMP + 1 DAY)
+            GROUP BY p.organizationId, p.id
+            """)
+    List<ProductLastSale> findLastSalePerProductSince(@Param("since") OffsetDateTime since);
+
+    @Query("""
+            SELECT p.organizationId AS organizationId, it.referenceId AS referenceId, it.createdBy AS userId,
+                   it.barStationId AS barStationId, p.id AS productId, -it.quantityChange AS quantity,
+                   it.priceBefore AS unitPrice, it.createdAt AS createdAt
+            FROM InventoryTransaction it
+            JOIN Inventory i ON i.id = it.inventoryId
+            JOIN Product p ON p.id = i.productId
+            WHERE it.transactionType = 'SALE'
+              AND it.createdAt >= :since
+              AND it.createdAt < (CURRENT_TIMESTAMP + 1 DAY)
+            ORDER BY it.referenceId
+            """)
+    List<SaleLine> findSaleLinesSince(@Param("since") OffsetDateTime since);
+
+    @Query("SELECT MIN(it.createdAt) FROM InventoryTransaction it WHERE it.transactionType = 'SALE'")
+    Optional<OffsetDateTime> findEarliestSaleAt();
 }
@@ -0,0 +1,54 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.dto.HistoryCursor;
+import com.borsibaar.entity.InventoryTransaction;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+public interface InventoryTransactionRepositoryCustom {
+
+    /**
+     * Inserts all transactions with a single JDBC batch. The rows are written
+     * directly, so {@code inventoryId} must be set and the entities are not
+     * attached to the persistence context afterwards.
+     */
+    void insertAll(List<InventoryTransaction> transactions);
+
+    /**
+     * One page of an inventory row's transactions, newest first, read with a
+     * keyset on {@code (created_at, id)} so deep pages cost the same as the
+     * first. Every bound is optional: {@code before} and {@code after} are
+     * exclusive cursors, {@code from} is inclusive and {@code to} exclusive.
+     * With only {@code after} the page holds the {@code limit} rows right
+     * after the cursor, otherwise the newest matching rows. The returned
+     * entities are detached and have no {@code inventory} loaded.
+     */
+    List<InventoryTransaction> findHistoryPage(Long inventoryId, HistoryCursor before, HistoryCursor after,
+            OffsetDateTime from, OffsetDateTime to, int limit);
+
+    /**
+     * UTC months that have an attached partition of the table, oldest first.
+     * PostgreSQL only, like the other partition methods.
+     */
+    List<YearMonth> findPartitionMonths();
+
+    /**
+     * Creates the partition holding the transactions of {@code month} (UTC)
+     * unless it exists.
+     */
+    void createPartition(YearMonth month);
+
+    /**
+     * Detaches the partition of {@code month} without blocking writes to the
+     * table. Its rows stay in a standalone table of the same name. Must not
+     * be called inside a transaction.
+     */
+    void detachPartition(YearMonth month);
+
+    /**
+     * Drops the table of a partition detached by {@link #detachPartition}.
+     */
+    void dropDetachedPartition(YearMonth month);
+}
@@ -0,0 +1,176 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.dto.HistoryCursor;
+import com.borsibaar.entity.InventoryTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class InventoryTransactionRepositoryImpl implements InventoryTransactionRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO inventory_transactions (inventory_id, transaction_type, quantity_change,
+                quantity_before, quantity_after, price_before, price_after, reference_id, notes,
+                created_by, bar_station_id, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String HISTORY_SQL = """
+            SELECT id, inventory_id, transaction_type, quantity_change, quantity_before, quantity_after,
+                price_before, price_after, reference_id, notes, created_by, bar_station_id, created_at
+            FROM inventory_transactions
+            WHERE inventory_id = ?%s
+            ORDER BY created_at %s, id %s
+            LIMIT ?
+            """;
+
+    private static final RowMapper<InventoryTransaction> HISTORY_ROW_MAPPER = (rs, rowNum) -> {
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.setId(rs.getLong("id"));
+        transaction.setInventoryId(rs.getLong("inventory_id"));
+        transaction.setTransactionType(rs.getString("transaction_type"));
+        transaction.setQuantityChange(rs.getBigDecimal("quantity_change"));
+        transaction.setQuantityBefore(rs.getBigDecimal("quantity_before"));
+        transaction.setQuantityAfter(rs.getBigDecimal("quantity_after"));
+        transaction.setPriceBefore(rs.getBigDecimal("price_before"));
+        transaction.setPriceAfter(rs.getBigDecimal("price_after"));
+        transaction.setReferenceId(rs.getString("reference_id"));
+        transaction.setNotes(rs.getString("notes"));
+        transaction.setCreatedBy(rs.getObject("created_by", UUID.class));
+        transaction.setBarStationId(rs.getObject("bar_station_id", Long.class));
+        transaction.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
+        return transaction;
+    };
+
+    // Partitions are named after their UTC month, e.g. inventory_transactions_p202610
+    private static final String PARTITION_PREFIX = "inventory_transactions_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'inventory_transactions'::regclass AND NOT i.inhdetachpending
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, transactions.size(), (ps, transaction) -> {
+            ps.setLong(1, transaction.getInventoryId());
+            ps.setString(2, transaction.getTransactionType());
+            ps.setBigDecimal(3, transaction.getQuantityChange());
+            ps.setBigDecimal(4, transaction.getQuantityBefore());
+            ps.setBigDecimal(5, transaction.getQuantityAfter());
+            ps.setBigDecimal(6, transaction.getPriceBefore());
+            ps.setBigDecimal(7, transaction.getPriceAfter());
+            ps.setString(8, transaction.getReferenceId());
+            ps.setString(9, transaction.getNotes());
+            ps.setObject(10, transaction.getCreatedBy(), Types.OTHER);
+            ps.setObject(11, transaction.getBarStationId(), Types.BIGINT);
+            ps.setObject(12, transaction.getCreatedAt());
+        });
+    }
+
+    @Override
+    public List<InventoryTransaction> findHistoryPage(Long inventoryId, HistoryCursor before, HistoryCursor after,
+            OffsetDateTime from, OffsetDateTime to, int limit) {
+        StringBuilder conditions = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        args.add(inventoryId);
+        // Row comparisons match the (inventory_id, created_at DESC, id DESC) index
+        if (before != null) {
+            conditions.append(" AND (created_at, id) < (?, ?)");
+            args.add(before.createdAt());
+            args.add(before.id());
+        }
+        if (after != null) {
+            conditions.append(" AND (created_at, id) > (?, ?)");
+            args.add(after.createdAt());
+            args.add(after.id());
+        }
+        if (from != null) {
+            conditions.append(" AND created_at >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            conditions.append(" AND created_at < ?");
+            args.add(to);
+        }
+        args.add(limit);
+
+        // Rows right after an 'after' cursor are the oldest ones above it
+        boolean oldestFirst = after != null && before == null;
+        String direction = oldestFirst ? "ASC" : "DESC";
+        List<InventoryTransaction> page = jdbcTemplate.query(
+                HISTORY_SQL.formatted(conditions, direction, direction), HISTORY_ROW_MAPPER, args.toArray());
+        if (oldestFirst) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    @Override
+    public List<YearMonth> findPartitionMonths() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class).stream()
+                .filter(name -> name.startsWith(PARTITION_PREFIX))
+                .map(name -> YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_MONTH))
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public void createPartition(YearMonth month) {
+        // Names and bounds come from a YearMonth, so formatting them into the statement is safe
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF inventory_transactions FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(partitionName(month), monthStart(month), monthStart(month.plusMonths(1))));
+    }
+
+    @Override
+    public void detachPartition(YearMonth month) {
+        String name = partitionName(month);
+        // A concurrent detach interrupted earlier leaves the partition pending and has to be finalized
+        Boolean pending = jdbcTemplate.query(
+                "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)",
+                rs -> rs.next() ? rs.getBoolean(1) : null, name);
+        if (pending == null) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE inventory_transactions DETACH PARTITION %s %s"
+                .formatted(name, pending ? "FINALIZE" : "CONCURRENTLY"));
+    }
+
+    @Override
+    public void dropDetachedPartition(YearMonth month) {
+        String name = partitionName(month);
+        // Never drop a partition that is still (or again) attached
+        Integer attached = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_inherits WHERE inhrelid = to_regclass(?)", Integer.class, name);
+        if (attached != null && attached > 0) {
+            throw new IllegalStateException(name + " is still attached to inventory_transactions");
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_MONTH);
+    }
+
+    private static String monthStart(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+}
@@ -0,0 +1,53 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.PriceCandle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PriceCandleRepository extends JpaRepository<PriceCandle, Long>, PriceCandleRepositoryCustom {
+
+    /**
+     * Candles of a product starting in {@code [from, to)}, oldest first.
+     */
+    @Query("""
+            SELECT c FROM PriceCandle c
+            WHERE c.organizationId = :organizationId
+              AND c.productId = :productId
+              AND c.resolutionSeconds = :resolutionSeconds
+              AND c.bucketStart >= :from AND c.bucketStart < :to
+            ORDER BY c.bucketStart
+            """)
+    List<PriceCandle> findCandles(@Param("organizationId") Long organizationId,
+            @Param("productId") Long productId,
+            @Param("resolutionSeconds") Integer resolutionSeconds,
+            @Param("from") OffsetDateTime from,
+            @Param("to") OffsetDateTime to);
+
+    /**
+     * The newest candle of a product starting before {@code before}, whose
+     * close is the price at that moment.
+     */
+    @Query("""
+            SELECT c FROM PriceCandle c
+            WHERE c.organizationId = :organizationId
+              AND c.productId = :productId
+              AND c.resolutionSeconds = :resolutionSeconds
+              AND c.bucketStart < :before
+            ORDER BY c.bucketStart DESC
+            LIMIT 1
+            """)
+    Optional<PriceCandle> findLatestBefore(@Param("organizationId") Long organizationId,
+            @Param("productId") Long productId,
+            @Param("resolutionSeconds") Integer resolutionSeconds,
+            @Param("before") OffsetDateTime before);
+
+    @Query("SELECT MIN(c.bucketStart) FROM PriceCandle c WHERE c.resolutionSeconds = 3600")
+    Optional<OffsetDateTime> findEarliestHourStart();
+}
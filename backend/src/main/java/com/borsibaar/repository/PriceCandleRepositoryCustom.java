@@ -0,0 +1,46 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.InventoryTransaction;
+import com.borsibaar.repository.projection.PriceChange;
+import com.borsibaar.repository.projection.SparklineCandle;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface PriceCandleRepositoryCustom {
+
+    /**
+     * Merges the price changes of SALE transactions, in list order, into the
+     * candles of their product at every resolution. Must run in the
+     * transaction that inserts them; that transaction already holds the
+     * product's inventory row lock, so changes of one product are merged in
+     * commit order.
+     */
+    void addPriceChanges(List<InventoryTransaction> transactions);
+
+    /**
+     * Merges price reductions of the price correction job, all made at
+     * {@code changedAt}, like {@link #addPriceChanges}, in the transaction
+     * that applied them; they sell no units.
+     */
+    void addPriceReductions(List<PriceChange> changes, OffsetDateTime changedAt);
+
+    /**
+     * Builds the candles of all sales and price ticks created in
+     * {@code [from, to)}, keeping candles that already exist.
+     * Both bounds must be whole hours so no bucket is split between calls.
+     *
+     * @return the number of candles written
+     */
+    int backfill(OffsetDateTime from, OffsetDateTime to);
+
+    /**
+     * Streams the candles starting in {@code [from, to)} of every active
+     * product of the organization, ordered by product and time, to
+     * {@code consumer}. Products without such candles are passed once, with
+     * {@code bucketStart} left empty.
+     */
+    void streamSparklineCandles(Long organizationId, int resolutionSeconds, OffsetDateTime from,
+            OffsetDateTime to, Consumer<SparklineCandle> consumer);
+}
@@ -0,0 +1,183 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.InventoryTransaction;
+import com.borsibaar.repository.projection.PriceChange;
+import com.borsibaar.repository.projection.SparklineCandle;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class PriceCandleRepositoryImpl implements PriceCandleRepositoryCustom {
+
+    // Every change lands in one candle per resolution
+    private static final String RESOLUTIONS = "(VALUES (60), (300), (3600)) AS r(seconds)";
+
+    // Changes are passed as parallel arrays; ordinality keeps their order for open and close
+    private static final String UPSERT_SQL = """
+            WITH changed AS (
+                SELECT p.organization_id, p.id AS product_id, r.seconds AS resolution_seconds,
+                    to_timestamp(c.epoch - mod(c.epoch, r.seconds)) AS bucket_start,
+                    c.ord, c.price_before, c.price_after, c.units
+                FROM unnest(?, ?, ?, ?, ?) WITH ORDINALITY
+                    AS c(inventory_id, epoch, price_before, price_after, units, ord)
+                JOIN inventory i ON i.id = c.inventory_id
+                JOIN products p ON p.id = i.product_id
+                CROSS JOIN %s
+            )
+            INSERT INTO price_candles (organization_id, product_id, resolution_seconds, bucket_start,
+                open, high, low, close, volume)
+            SELECT organization_id, product_id, resolution_seconds, bucket_start,
+                (array_agg(price_before ORDER BY ord))[1],
+                GREATEST(MAX(price_before), MAX(price_after)),
+                LEAST(MIN(price_before), MIN(price_after)),
+                (array_agg(price_after ORDER BY ord DESC))[1],
+                SUM(units)
+            FROM changed
+            GROUP BY organization_id, product_id, resolution_seconds, bucket_start
+            ORDER BY product_id, resolution_seconds, bucket_start
+            ON CONFLICT (product_id, resolution_seconds, bucket_start) DO UPDATE SET
+                high = GREATEST(price_candles.high, EXCLUDED.high),
+                low = LEAST(price_candles.low, EXCLUDED.low),
+                close = EXCLUDED.close,
+                volume = price_candles.volume + EXCLUDED.volume
+            """.formatted(RESOLUTIONS);
+
+    // Sales come with the price before them; a price tick only stores the price it set, so the
+    // price before it is the one after the previous change of the product
+    private static final String BACKFILL_SQL = """
+            WITH changes AS (
+                SELECT i.product_id, it.created_at, it.id AS seq, it.price_before, it.price_after,
+                    -it.quantity_change AS units
+                FROM inventory_transactions it
+                JOIN inventory i ON i.id = it.inventory_id
+                WHERE it.created_at >= ? AND it.created_at < ? AND it.transaction_type = 'SALE'
+                UNION ALL
+                SELECT t.product_id, t.created_at, 0, NULL, t.price::NUMERIC / 10000, 0
+                FROM price_ticks t
+                WHERE t.created_at >= ? AND t.created_at < ?
+            ), ordered AS (
+                SELECT product_id, created_at, seq, units, price_after,
+                    COALESCE(price_before, LAG(price_after) OVER (PARTITION BY product_id ORDER BY created_at, seq),
+                        price_after) AS price_before
+                FROM changes
+            )
+            INSERT INTO price_candles (organization_id, product_id, resolution_seconds, bucket_start,
+                open, high, low, close, volume)
+            SELECT p.organization_id, p.id, r.seconds,
+                to_timestamp(floor(extract(epoch FROM c.created_at) / r.seconds) * r.seconds),
+                (array_agg(c.price_before ORDER BY c.created_at, c.seq))[1],
+                GREATEST(MAX(c.price_before), MAX(c.price_after)),
+                LEAST(MIN(c.price_before), MIN(c.price_after)),
+                (array_agg(c.price_after ORDER BY c.created_at DESC, c.seq DESC))[1],
+                SUM(c.units)
+            FROM ordered c
+            JOIN products p ON p.id = c.product_id
+            CROSS JOIN %s
+            GROUP BY 1, 2, 3, 4
+            ON CONFLICT (product_id, resolution_seconds, bucket_start) DO NOTHING
+            """.formatted(RESOLUTIONS);
+
+    // The close before the range comes from a backward scan of the candle key per product
+    private static final String SPARKLINE_SQL = """
+            SELECT p.id AS product_id, before.close AS close_before,
+                COALESCE(i.adjusted_price, p.base_price) AS current_price,
+                c.bucket_start, c.open, c.close
+            FROM products p
+            JOIN inventory i ON i.product_id = p.id
+            LEFT JOIN LATERAL (
+                SELECT b.close FROM price_candles b
+                WHERE b.product_id = p.id AND b.resolution_seconds = ? AND b.bucket_start < ?
+                ORDER BY b.bucket_start DESC
+                LIMIT 1
+            ) before ON TRUE
+            LEFT JOIN price_candles c ON c.product_id = p.id AND c.resolution_seconds = ?
+                AND c.bucket_start >= ? AND c.bucket_start < ?
+            WHERE p.organization_id = ? AND p.is_active = TRUE
+            ORDER BY p.id, c.bucket_start
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addPriceChanges(List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        int size = transactions.size();
+        Long[] inventoryIds = new Long[size];
+        Long[] epochs = new Long[size];
+        BigDecimal[] pricesBefore = new BigDecimal[size];
+        BigDecimal[] pricesAfter = new BigDecimal[size];
+        BigDecimal[] units = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            InventoryTransaction transaction = transactions.get(i);
+            inventoryIds[i] = transaction.getInventoryId();
+            epochs[i] = transaction.getCreatedAt().toEpochSecond();
+            pricesBefore[i] = transaction.getPriceBefore();
+            pricesAfter[i] = transaction.getPriceAfter();
+            units[i] = "SALE".equals(transaction.getTransactionType())
+                    ? transaction.getQuantityChange().negate()
+                    : BigDecimal.ZERO;
+        }
+        upsert(inventoryIds, epochs, pricesBefore, pricesAfter, units);
+    }
+
+    @Override
+    public void addPriceReductions(List<PriceChange> changes, OffsetDateTime changedAt) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        int size = changes.size();
+        Long[] inventoryIds = new Long[size];
+        Long[] epochs = new Long[size];
+        BigDecimal[] pricesBefore = new BigDecimal[size];
+        BigDecimal[] pricesAfter = new BigDecimal[size];
+        BigDecimal[] units = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            PriceChange change = changes.get(i);
+            inventoryIds[i] = change.inventoryId();
+            epochs[i] = changedAt.toEpochSecond();
+            pricesBefore[i] = change.priceBefore();
+            pricesAfter[i] = change.priceAfter();
+            units[i] = BigDecimal.ZERO;
+        }
+        upsert(inventoryIds, epochs, pricesBefore, pricesAfter, units);
+    }
+
+    private void upsert(Long[] inventoryIds, Long[] epochs, BigDecimal[] pricesBefore, BigDecimal[] pricesAfter,
+            BigDecimal[] units) {
+        jdbcTemplate.update(UPSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", inventoryIds));
+            ps.setArray(2, connection.createArrayOf("bigint", epochs));
+            ps.setArray(3, connection.createArrayOf("numeric", pricesBefore));
+            ps.setArray(4, connection.createArrayOf("numeric", pricesAfter));
+            ps.setArray(5, connection.createArrayOf("numeric", units));
+        });
+    }
+
+    @Override
+    public int backfill(OffsetDateTime from, OffsetDateTime to) {
+        return jdbcTemplate.update(BACKFILL_SQL, from, to, from, to);
+    }
+
+    @Override
+    public void streamSparklineCandles(Long organizationId, int resolutionSeconds, OffsetDateTime from,
+            OffsetDateTime to, Consumer<SparklineCandle> consumer) {
+        jdbcTemplate.query(SPARKLINE_SQL, (RowCallbackHandler) rs -> consumer.accept(new SparklineCandle(
+                        rs.getLong("product_id"),
+                        rs.getBigDecimal("close_before"),
+                        rs.getBigDecimal("current_price"),
+                        rs.getObject("bucket_start", OffsetDateTime.class),
+                        rs.getBigDecimal("open"),
+                        rs.getBigDecimal("close"))),
+                resolutionSeconds, from, resolutionSeconds, from, to, organizationId);
+    }
+}
@@ -0,0 +1,116 @@
+package com.borsibaar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Leases through which backend replicas split the price decay of the
+ * organizations between them. Every replica keeps a heartbeat row in
+ * {@code price_decay_nodes} and owns the organizations whose
+ * {@code price_decay_claims} row names it with an unexpired lease. Free rows
+ * are claimed with {@code FOR UPDATE SKIP LOCKED}, so replicas claiming at
+ * the same moment take different organizations instead of waiting on each
+ * other. PostgreSQL only.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceDecayClaimRepository {
+
+    private static final String REGISTER_NODE_SQL = """
+            INSERT INTO price_decay_nodes (node_id, lease_until)
+            VALUES (?, now() + ? * INTERVAL '1 millisecond')
+            ON CONFLICT (node_id) DO UPDATE SET lease_until = EXCLUDED.lease_until
+            """;
+
+    private static final String CLAIM_SQL = """
+            WITH free AS (
+                SELECT organization_id
+                FROM price_decay_claims
+                WHERE owner IS NULL OR lease_until < now()
+                ORDER BY organization_id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE price_decay_claims c
+            SET owner = ?, lease_until = now() + ? * INTERVAL '1 millisecond'
+            FROM free
+            WHERE c.organization_id = free.organization_id
+            RETURNING c.organization_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Extends the node's heartbeat lease, forgets nodes that stopped beating
+     * and returns the number of live nodes, this one included.
+     */
+    public int registerNode(String nodeId, long leaseMillis) {
+        jdbcTemplate.update(REGISTER_NODE_SQL, nodeId, leaseMillis);
+        jdbcTemplate.update("DELETE FROM price_decay_nodes WHERE lease_until < now() - INTERVAL '1 hour'");
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM price_decay_nodes WHERE lease_until >= now()", Integer.class);
+    }
+
+    /**
+     * Adds a free claim for organizations created since the last call and
+     * returns the number of organizations.
+     */
+    public int addMissingOrganizations() {
+        jdbcTemplate.update("""
+                INSERT INTO price_decay_claims (organization_id)
+                SELECT id FROM organizations
+                ON CONFLICT DO NOTHING
+                """);
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM price_decay_claims", Integer.class);
+    }
+
+    /**
+     * Extends the lease of every claim the node holds and returns their
+     * organizations.
+     */
+    public List<Long> renew(String nodeId, long leaseMillis) {
+        return jdbcTemplate.queryForList("""
+                UPDATE price_decay_claims
+                SET lease_until = now() + ? * INTERVAL '1 millisecond'
+                WHERE owner = ?
+                RETURNING organization_id
+                """, Long.class, leaseMillis, nodeId);
+    }
+
+    /**
+     * Claims up to {@code limit} free organizations, skipping rows another
+     * node is claiming concurrently, and returns them.
+     */
+    public List<Long> claim(String nodeId, int limit, long leaseMillis) {
+        return jdbcTemplate.queryForList(CLAIM_SQL, Long.class, limit, nodeId, leaseMillis);
+    }
+
+    public void release(String nodeId, Collection<Long> organizationIds) {
+        if (organizationIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("""
+                UPDATE price_decay_claims SET owner = NULL, lease_until = NULL
+                WHERE owner = ? AND organization_id = ANY(?)
+                """, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setString(1, nodeId);
+            ps.setArray(2, connection.createArrayOf("bigint", organizationIds.toArray()));
+        });
+    }
+
+    /**
+     * Frees all claims of the node and removes its heartbeat, so the other
+     * nodes take over at their next heartbeat instead of after the lease.
+     */
+    public void releaseAll(String nodeId) {
+        jdbcTemplate.update("UPDATE price_decay_claims SET owner = NULL, lease_until = NULL WHERE owner = ?",
+                nodeId);
+        jdbcTemplate.update("DELETE FROM price_decay_nodes WHERE node_id = ?", nodeId);
+    }
+}
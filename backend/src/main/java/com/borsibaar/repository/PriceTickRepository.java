@@ -0,0 +1,105 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.repository.projection.LatestPriceTick;
+import com.borsibaar.repository.projection.PriceTick;
+import com.borsibaar.util.FixedPoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only store of the automatic price reductions, one narrow row per
+ * product and moment with the price as a long of ten-thousandths (the scale
+ * of the price columns). Stock movements stay in
+ * {@code inventory_transactions}; the ticks only record where a price went.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceTickRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO price_ticks (product_id, created_at, price)
+            SELECT * FROM unnest(?, ?, ?)
+            """;
+
+    private static final String FIND_SQL = """
+            SELECT t.product_id, t.created_at, t.price
+            FROM price_ticks t
+            JOIN products p ON p.id = t.product_id
+            WHERE p.organization_id = ? AND t.product_id = ?
+              AND t.created_at >= ? AND t.created_at < ?
+            ORDER BY t.created_at
+            LIMIT ?
+            """;
+
+    private static final String LATEST_SQL = """
+            SELECT p.organization_id, t.product_id, MAX(t.created_at) AS created_at
+            FROM price_ticks t
+            JOIN products p ON p.id = t.product_id
+            WHERE t.created_at >= ?
+            GROUP BY p.organization_id, t.product_id
+            """;
+
+    private static final RowMapper<PriceTick> ROW_MAPPER = (rs, rowNum) -> new PriceTick(
+            rs.getLong("product_id"),
+            rs.getObject("created_at", OffsetDateTime.class),
+            FixedPoint.toBigDecimal(rs.getLong("price")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Appends the ticks in one statement.
+     */
+    public void insertAll(List<PriceTick> ticks) {
+        if (ticks.isEmpty()) {
+            return;
+        }
+        int size = ticks.size();
+        Long[] productIds = new Long[size];
+        Timestamp[] createdAt = new Timestamp[size];
+        Long[] prices = new Long[size];
+        for (int i = 0; i < size; i++) {
+            PriceTick tick = ticks.get(i);
+            productIds[i] = tick.productId();
+            createdAt[i] = Timestamp.from(tick.createdAt().toInstant());
+            prices[i] = FixedPoint.of(tick.price());
+        }
+        jdbcTemplate.update(INSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", productIds));
+            ps.setArray(2, connection.createArrayOf("timestamptz", createdAt));
+            ps.setArray(3, connection.createArrayOf("bigint", prices));
+        });
+    }
+
+    /**
+     * Ticks of a product of the organization in {@code [from, to)}, oldest
+     * first, at most {@code limit} of them.
+     */
+    public List<PriceTick> findTicks(Long organizationId, Long productId, OffsetDateTime from, OffsetDateTime to,
+            int limit) {
+        return jdbcTemplate.query(FIND_SQL, ROW_MAPPER, organizationId, productId, from, to, limit);
+    }
+
+    /**
+     * Latest tick at or after {@code since} of every product that has one.
+     */
+    public List<LatestPriceTick> findLatestSince(OffsetDateTime since) {
+        return jdbcTemplate.query(LATEST_SQL, (rs, rowNum) -> new LatestPriceTick(
+                rs.getLong("organization_id"),
+                rs.getLong("product_id"),
+                rs.getObject("created_at", OffsetDateTime.class)), since);
+    }
+
+    public Optional<OffsetDateTime> findEarliestCreatedAt() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM price_ticks", OffsetDateTime.class));
+    }
+}
@@ -0,0 +1,24 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.SaleIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SaleIdempotencyKeyRepository extends JpaRepository<SaleIdempotencyKey, Long>,
+        SaleIdempotencyKeyRepositoryCustom {
+
+    Optional<SaleIdempotencyKey> findByOrganizationIdAndIdempotencyKey(Long organizationId, String idempotencyKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SaleIdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
@@ -0,0 +1,14 @@
+package com.borsibaar.repository;
+
+public interface SaleIdempotencyKeyRepositoryCustom {
+
+    /**
+     * Stores the response of a sale, with the hash of its request, unless the
+     * organization already has one under the same key. Runs in the caller's transaction and waits for a
+     * concurrent insert of the same key to finish.
+     *
+     * @return false if the key was already taken
+     */
+    boolean insertIfAbsent(Long organizationId, String idempotencyKey, String requestHash, String saleId,
+            String responseBody);
+}
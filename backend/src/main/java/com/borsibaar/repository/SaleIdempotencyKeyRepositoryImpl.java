@@ -0,0 +1,24 @@
+package com.borsibaar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class SaleIdempotencyKeyRepositoryImpl implements SaleIdempotencyKeyRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO sale_idempotency_keys (organization_id, idempotency_key, request_hash, sale_id,
+                response_body)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (organization_id, idempotency_key) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean insertIfAbsent(Long organizationId, String idempotencyKey, String requestHash, String saleId,
+            String responseBody) {
+        return jdbcTemplate.update(INSERT_SQL, organizationId, idempotencyKey, requestHash, saleId,
+                responseBody) == 1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.SalesRollup;
+import com.borsibaar.repository.projection.ProductSalesTotal;
+import com.borsibaar.repository.projection.StationSalesBucket;
+import com.borsibaar.repository.projection.StationSalesStats;
+import com.borsibaar.repository.projection.UserSalesBucket;
+import com.borsibaar.repository.projection.UserSalesStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Reads the hourly sales rollups. All queries cover the hours starting in
+ * {@code [from, to)}, so their cost depends on the number of hours and
+ * users or stations, not on the number of sales.
+ */
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long>, SalesRollupRepositoryCustom {
+
+    /**
+     * Sales count and revenue per user and bar station, busiest first.
+     */
+    @Query("""
+            SELECT r.userId AS userId, u.name AS userName, u.email AS userEmail,
+                   SUM(r.salesCount) AS salesCount, SUM(r.revenue) AS totalRevenue,
+                   r.barStationId AS barStationId, s.name AS barStationName
+            FROM SalesRollup r
+            LEFT JOIN User u ON u.id = r.userId
+            LEFT JOIN BarStation s ON s.id = r.barStationId
+            WHERE r.organizationId = :organizationId
+              AND r.bucketStart >= :from AND r.bucketStart < :to
+              AND r.userId IS NOT NULL
+            GROUP BY r.userId, u.name, u.email, r.barStationId, s.name
+            ORDER BY SUM(r.salesCount) DESC
+            """)
+    List<UserSalesStats> findUserSalesStats(@Param("organizationId") Long organizationId,
+            @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Same as {@link #findUserSalesStats} with one row per hour, oldest hour first.
+     */
+    @Query("""
+            SELECT r.bucketStart AS bucketStart, r.userId AS userId, u.name AS userName, u.email AS userEmail,
+                   SUM(r.salesCount) AS salesCount, SUM(r.revenue) AS totalRevenue,
+                   r.barStationId AS barStationId, s.name AS barStationName
+            FROM SalesRollup r
+            LEFT JOIN User u ON u.id = r.userId
+            LEFT JOIN BarStation s ON s.id = r.barStationId
+            WHERE r.organizationId = :organizationId
+              AND r.bucketStart >= :from AND r.bucketStart < :to
+              AND r.userId IS NOT NULL
+            GROUP BY r.bucketStart, r.userId, u.name, u.email, r.barStationId, s.name
+            ORDER BY r.bucketStart, SUM(r.salesCount) DESC
+            """)
+    List<UserSalesBucket> findHourlyUserSalesStats(@Param("organizationId") Long organizationId,
+            @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Sales count and revenue per bar station, busiest first.
+     */
+    @Query("""
+            SELECT r.barStationId AS barStationId, s.name AS barStationName,
+                   SUM(r.salesCount) AS salesCount, SUM(r.revenue) AS totalRevenue
+            FROM SalesRollup r
+            LEFT JOIN BarStation s ON s.id = r.barStationId
+            WHERE r.organizationId = :organizationId
+              AND r.bucketStart >= :from AND r.bucketStart < :to
+              AND r.barStationId IS NOT NULL
+            GROUP BY r.barStationId, s.name
+            ORDER BY SUM(r.salesCount) DESC
+            """)
+    List<StationSalesStats> findStationSalesStats(@Param("organizationId") Long organizationId,
+            @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Same as {@link #findStationSalesStats} with one row per hour, oldest hour first.
+     */
+    @Query("""
+            SELECT r.bucketStart AS bucketStart, r.barStationId AS barStationId, s.name AS barStationName,
+                   SUM(r.salesCount) AS salesCount, SUM(r.revenue) AS totalRevenue
+            FROM SalesRollup r
+            LEFT JOIN BarStation s ON s.id = r.barStationId
+            WHERE r.organizationId = :organizationId
+              AND r.bucketStart >= :from AND r.bucketStart < :to
+              AND r.barStationId IS NOT NULL
+            GROUP BY r.bucketStart, r.barStationId, s.name
+            ORDER BY r.bucketStart, SUM(r.salesCount) DESC
+            """)
+    List<StationSalesBucket> findHourlyStationSalesStats(@Param("organizationId") Long organizationId,
+            @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Units and revenue per product of every organization in the hours
+     * starting at or after {@code from}.
+     */
+    @Query("""
+            SELECT r.organizationId AS organizationId, r.productId AS productId,
+                   SUM(r.units) AS units, SUM(r.revenue) AS revenue
+            FROM ProductSalesRollup r
+            WHERE r.bucketStart >= :from
+            GROUP BY r.organizationId, r.productId
+            """)
+    List<ProductSalesTotal> findProductSalesSince(@Param("from") OffsetDateTime from);
+}
@@ -0,0 +1,15 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.InventoryTransaction;
+
+import java.util.List;
+
+public interface SalesRollupRepositoryCustom {
+
+    /**
+     * Adds SALE transactions to the hourly rollups of their organization,
+     * user, bar station and product. Must run in the transaction that inserts
+     * them so the rollups never disagree with {@code inventory_transactions}.
+     */
+    void addSales(List<InventoryTransaction> transactions);
+}
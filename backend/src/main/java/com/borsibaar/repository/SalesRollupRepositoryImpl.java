@@ -0,0 +1,105 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.InventoryTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class SalesRollupRepositoryImpl implements SalesRollupRepositoryCustom {
+
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    // The transactions are passed as parallel arrays, so each rollup table is updated
+    // with one statement however many sales are committed together
+    private static final String SOLD = """
+            WITH sold AS (
+                SELECT p.organization_id, to_timestamp(s.bucket_epoch) AS bucket_start, s.bar_station_id,
+                    s.user_id, p.id AS product_id, s.reference_id, s.units, s.units * s.price AS revenue
+                FROM unnest(?, ?, ?, ?, ?, ?, ?)
+                    AS s(inventory_id, bucket_epoch, bar_station_id, user_id, reference_id, units, price)
+                JOIN inventory i ON i.id = s.inventory_id
+                JOIN products p ON p.id = i.product_id
+            )
+            """;
+
+    // Rows are upserted in key order so concurrent commits lock them in the same order
+    private static final String UPSERT_SALES_SQL = SOLD + """
+            INSERT INTO sales_rollups (organization_id, bucket_start, bar_station_id, user_id,
+                sales_count, units, revenue)
+            SELECT organization_id, bucket_start, bar_station_id, user_id,
+                COUNT(DISTINCT reference_id), SUM(units), SUM(revenue)
+            FROM sold
+            GROUP BY organization_id, bucket_start, bar_station_id, user_id
+            ORDER BY organization_id, bucket_start, bar_station_id, user_id
+            ON CONFLICT (organization_id, bucket_start, bar_station_id, user_id) DO UPDATE SET
+                sales_count = sales_rollups.sales_count + EXCLUDED.sales_count,
+                units = sales_rollups.units + EXCLUDED.units,
+                revenue = sales_rollups.revenue + EXCLUDED.revenue
+            """;
+
+    private static final String UPSERT_PRODUCT_SALES_SQL = SOLD + """
+            INSERT INTO product_sales_rollups (organization_id, bucket_start, bar_station_id, user_id,
+                product_id, sales_count, units, revenue)
+            SELECT organization_id, bucket_start, bar_station_id, user_id, product_id,
+                COUNT(DISTINCT reference_id), SUM(units), SUM(revenue)
+            FROM sold
+            GROUP BY organization_id, bucket_start, bar_station_id, user_id, product_id
+            ORDER BY organization_id, bucket_start, bar_station_id, user_id, product_id
+            ON CONFLICT (organization_id, bucket_start, bar_station_id, user_id, product_id) DO UPDATE SET
+                sales_count = product_sales_rollups.sales_count + EXCLUDED.sales_count,
+                units = product_sales_rollups.units + EXCLUDED.units,
+                revenue = product_sales_rollups.revenue + EXCLUDED.revenue
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addSales(List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        int size = transactions.size();
+        Long[] inventoryIds = new Long[size];
+        Long[] buckets = new Long[size];
+        Long[] barStationIds = new Long[size];
+        UUID[] userIds = new UUID[size];
+        String[] referenceIds = new String[size];
+        BigDecimal[] units = new BigDecimal[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            InventoryTransaction transaction = transactions.get(i);
+            long epochSecond = transaction.getCreatedAt().toEpochSecond();
+            inventoryIds[i] = transaction.getInventoryId();
+            buckets[i] = epochSecond - Math.floorMod(epochSecond, SECONDS_PER_HOUR);
+            barStationIds[i] = transaction.getBarStationId();
+            userIds[i] = transaction.getCreatedBy();
+            referenceIds[i] = transaction.getReferenceId();
+            units[i] = transaction.getQuantityChange().negate();
+            prices[i] = transaction.getPriceBefore();
+        }
+        for (String sql : List.of(UPSERT_SALES_SQL, UPSERT_PRODUCT_SALES_SQL)) {
+            jdbcTemplate.update(sql, ps -> {
+                Connection connection = ps.getConnection();
+                setArray(ps, 1, connection, "bigint", inventoryIds);
+                setArray(ps, 2, connection, "bigint", buckets);
+                setArray(ps, 3, connection, "bigint", barStationIds);
+                setArray(ps, 4, connection, "uuid", userIds);
+                setArray(ps, 5, connection, "varchar", referenceIds);
+                setArray(ps, 6, connection, "numeric", units);
+                setArray(ps, 7, connection, "numeric", prices);
+            });
+        }
+    }
+
+    private static void setArray(PreparedStatement ps, int index, Connection connection, String type,
+            Object[] values) throws SQLException {
+        ps.setArray(index, connection.createArrayOf(type, values));
+    }
+}
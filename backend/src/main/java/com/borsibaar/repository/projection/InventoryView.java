@@ -0,0 +1,34 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Inventory row joined with its product: exactly the columns of an
+ * {@code InventoryResponseDto}, loaded in one statement.
+ */
+public interface InventoryView {
+    Long getId();
+
+    Long getOrganizationId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    BigDecimal getQuantity();
+
+    BigDecimal getUnitPrice();
+
+    String getDescription();
+
+    BigDecimal getBasePrice();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getMaxPrice();
+
+    OffsetDateTime getUpdatedAt();
+
+    Boolean getActive();
+}
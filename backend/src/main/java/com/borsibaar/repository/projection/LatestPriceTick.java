@@ -0,0 +1,9 @@
+package com.borsibaar.repository.projection;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Moment of the latest price tick of a product, with its organization.
+ */
+public record LatestPriceTick(Long organizationId, Long productId, OffsetDateTime createdAt) {
+}
@@ -0,0 +1,11 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * A price change of one inventory row. {@code quantity} is the stock at the
+ * time of the change and is only filled in on changes returned by
+ * {@link com.borsibaar.repository.InventoryRepositoryCustom#applyPriceChanges}.
+ */
+public record PriceChange(Long inventoryId, BigDecimal quantity, BigDecimal priceBefore, BigDecimal priceAfter) {
+}
@@ -0,0 +1,26 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Current price and decay settings of a dynamic-pricing inventory row,
+ * loaded when its decay timer is armed and again when it fires.
+ */
+public interface PriceDecayCandidate {
+    Long getInventoryId();
+
+    Long getProductId();
+
+    Long getOrganizationId();
+
+    BigDecimal getCurrentPrice();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getPriceDecreaseStep();
+
+    /**
+     * The organization's decay interval, or {@code null} for the default.
+     */
+    Integer getPriceDecayIntervalSeconds();
+}
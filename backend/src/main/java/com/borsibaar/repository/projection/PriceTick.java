@@ -0,0 +1,11 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * The price a product was set to at one moment, as kept in
+ * {@link com.borsibaar.repository.PriceTickRepository}.
+ */
+public record PriceTick(Long productId, OffsetDateTime createdAt, BigDecimal price) {
+}
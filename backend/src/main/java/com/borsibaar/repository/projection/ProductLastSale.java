@@ -0,0 +1,15 @@
+package com.borsibaar.repository.projection;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Most recent sale of a product, used to rebuild
+ * {@link com.borsibaar.service.SalesActivityTracker} on startup.
+ */
+public interface ProductLastSale {
+    Long getOrganizationId();
+
+    Long getProductId();
+
+    OffsetDateTime getLastSaleAt();
+}
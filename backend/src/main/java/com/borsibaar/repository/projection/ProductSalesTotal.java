@@ -0,0 +1,17 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Units and revenue of one product summed over a range of rollup hours, used
+ * to rebuild {@link com.borsibaar.service.TopSellersTracker} on startup.
+ */
+public interface ProductSalesTotal {
+    Long getOrganizationId();
+
+    Long getProductId();
+
+    BigDecimal getUnits();
+
+    BigDecimal getRevenue();
+}
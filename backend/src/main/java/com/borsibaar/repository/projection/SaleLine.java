@@ -0,0 +1,27 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One line item of a past sale, used to rebuild
+ * {@link com.borsibaar.service.LiveSalesCounters} on startup.
+ */
+public interface SaleLine {
+    Long getOrganizationId();
+
+    String getReferenceId();
+
+    UUID getUserId();
+
+    Long getBarStationId();
+
+    Long getProductId();
+
+    BigDecimal getQuantity();
+
+    BigDecimal getUnitPrice();
+
+    OffsetDateTime getCreatedAt();
+}
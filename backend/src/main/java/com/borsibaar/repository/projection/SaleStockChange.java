@@ -0,0 +1,21 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Before/after values returned by the atomic sale update in
+ * {@link com.borsibaar.repository.InventoryRepository#decrementStockForSale}.
+ */
+public interface SaleStockChange {
+    Long getInventoryId();
+
+    String getProductName();
+
+    BigDecimal getQuantityBefore();
+
+    BigDecimal getQuantityAfter();
+
+    BigDecimal getPriceBefore();
+
+    BigDecimal getPriceAfter();
+}
@@ -0,0 +1,14 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * One price candle of an active product, with the product's close before the
+ * requested range ({@code null} if it has no earlier candle) and its current
+ * price. {@code bucketStart} and {@code close} are {@code null} for a product
+ * without candles in the range.
+ */
+public record SparklineCandle(Long productId, BigDecimal closeBefore, BigDecimal currentPrice,
+        OffsetDateTime bucketStart, BigDecimal open, BigDecimal close) {
+}
@@ -0,0 +1,10 @@
+package com.borsibaar.repository.projection;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Sales of one bar station during one hour.
+ */
+public interface StationSalesBucket extends StationSalesStats {
+    OffsetDateTime getBucketStart();
+}
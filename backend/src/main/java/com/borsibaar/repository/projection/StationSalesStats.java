@@ -0,0 +1,16 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of one bar station, aggregated in the database.
+ */
+public interface StationSalesStats {
+    Long getBarStationId();
+
+    String getBarStationName();
+
+    Long getSalesCount();
+
+    BigDecimal getTotalRevenue();
+}
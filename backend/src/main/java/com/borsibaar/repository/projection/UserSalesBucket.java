@@ -0,0 +1,10 @@
+package com.borsibaar.repository.projection;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Sales of one user at one bar station during one hour.
+ */
+public interface UserSalesBucket extends UserSalesStats {
+    OffsetDateTime getBucketStart();
+}
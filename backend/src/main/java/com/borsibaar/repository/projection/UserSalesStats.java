@@ -0,0 +1,23 @@
+package com.borsibaar.repository.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Sales of one user at one bar station, aggregated in the database.
+ */
+public interface UserSalesStats {
+    UUID getUserId();
+
+    String getUserName();
+
+    String getUserEmail();
+
+    Long getSalesCount();
+
+    BigDecimal getTotalRevenue();
+
+    Long getBarStationId();
+
+    String getBarStationName();
+}
@@ -2,20 +2,37 @@ package com.borsibaar.service;
 
 import com.borsibaar.entity.Role;
 import com.borsibaar.entity.User;
+import com.borsibaar.event.UserChangedEvent;
 import com.borsibaar.repository.RoleRepository;
 import com.borsibaar.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.UUID;
 
 @Service
 public class AccountService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AccountService(UserRepository userRepository, RoleRepository roleRepository) {
+    public AccountService(UserRepository userRepository, RoleRepository roleRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * The stored user behind an authenticated principal, which may be a
+     * detached copy that must not be saved.
+     */
+    public User findUser(UUID userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
     }
 
     public Role findRoleByName(String roleName) {
@@ -33,5 +50,6 @@ public class AccountService {
 
     public void saveUser(User user) {
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
     }
 }
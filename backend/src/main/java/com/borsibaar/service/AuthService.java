@@ -3,9 +3,11 @@ package com.borsibaar.service;
 import com.borsibaar.entity.Role;
 import com.borsibaar.entity.User;
 import com.borsibaar.dto.UserDTO;
+import com.borsibaar.event.UserChangedEvent;
 import com.borsibaar.mapper.UserMapper;
 import com.borsibaar.repository.RoleRepository;
 import com.borsibaar.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.stereotype.Service;
 
@@ -15,16 +17,18 @@ public class AuthService {
     private final JwtService jwtService;
     private final UserMapper userMapper;
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public record AuthResult(UserDTO dto, boolean needsOnboarding) {
     }
 
     public AuthService(UserRepository userRepository, JwtService jwtService, UserMapper userMapper,
-            RoleRepository roleRepository) {
+            RoleRepository roleRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.jwtService = jwtService;
         this.userMapper = userMapper;
         this.roleRepository = roleRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public AuthResult processOAuthLogin(OAuth2AuthenticationToken auth) {
@@ -47,9 +51,10 @@ public class AuthService {
 
         user.setName(name); // update name in case it changed
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
 
         // Issue JWT
-        String token = jwtService.generateToken(user.getEmail());
+        String token = jwtService.generateToken(user);
         boolean needsOnboarding = (user.getOrganizationId() == null);
 
         return new AuthResult(userMapper.toDto(user, token), needsOnboarding);
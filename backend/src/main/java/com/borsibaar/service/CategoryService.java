@@ -3,11 +3,13 @@ package com.borsibaar.service;
 import com.borsibaar.dto.CategoryRequestDto;
 import com.borsibaar.dto.CategoryResponseDto;
 import com.borsibaar.entity.Category;
+import com.borsibaar.event.MenuChangedEvent;
 import com.borsibaar.exception.BadRequestException;
 import com.borsibaar.exception.DuplicateResourceException;
 import com.borsibaar.exception.NotFoundException;
 import com.borsibaar.mapper.CategoryMapper;
 import com.borsibaar.repository.CategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,10 +26,13 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
+    public CategoryService(CategoryRepository categoryRepository, CategoryMapper categoryMapper,
+            ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -50,6 +55,7 @@ public class CategoryService {
         }
 
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new MenuChangedEvent(organizationId));
 
         log.info(
             "Category created: id={}, name='{}', organizationId={}",
@@ -96,6 +102,7 @@ public class CategoryService {
                 .map(category -> {
                     CategoryResponseDto dto = categoryMapper.toResponse(category);
                     categoryRepository.delete(category);
+                    eventPublisher.publishEvent(new MenuChangedEvent(organizationId));
 
                     log.info(
                         "Category deleted: id={}, name='{}'",
@@ -1,19 +1,20 @@
 package com.borsibaar.service;
 
 import com.borsibaar.dto.*;
-import com.borsibaar.entity.BarStation;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
 import com.borsibaar.entity.Product;
 import com.borsibaar.entity.User;
+import com.borsibaar.event.MarketUpdateEvent;
 import com.borsibaar.mapper.InventoryMapper;
-import com.borsibaar.repository.BarStationRepository;
 import com.borsibaar.repository.InventoryRepository;
 import com.borsibaar.repository.InventoryTransactionRepository;
 import com.borsibaar.repository.ProductRepository;
 import com.borsibaar.repository.UserRepository;
+import com.borsibaar.repository.projection.InventoryView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,93 +31,51 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class InventoryService {
 
+    // Largest page of transaction history served at once
+    static final int MAX_HISTORY_LIMIT = 1000;
+
     private final InventoryRepository inventoryRepository;
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
-    private final BarStationRepository barStationRepository;
     private final InventoryMapper inventoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MenuSnapshotCache menuSnapshotCache;
 
-    @Transactional(readOnly = true)
     public List<InventoryResponseDto> getByOrganization(Long organizationId) {
         return getByOrganization(organizationId, null);
     }
 
-    @Transactional(readOnly = true)
     public List<InventoryResponseDto> getByOrganization(Long organizationId, Long categoryId) {
-        List<Inventory> inventories;
+        return getMenu(organizationId, categoryId).items();
+    }
 
-        if (categoryId != null) {
-            inventories = inventoryRepository.findByOrganizationIdAndCategoryId(organizationId, categoryId);
-        } else {
-            inventories = inventoryRepository.findByOrganizationId(organizationId);
-        }
+    /**
+     * Returns the cached menu snapshot of the organization, optionally limited to
+     * one category.
+     */
+    public MenuSnapshot getMenu(Long organizationId, Long categoryId) {
+        return menuSnapshotCache.get(organizationId, categoryId, () -> loadMenu(organizationId, categoryId));
+    }
 
-        return inventories.stream()
-                .map(inv -> {
-                    InventoryResponseDto base = inventoryMapper.toResponse(inv);
-                    Product product = productRepository.findById(inv.getProductId())
-                            .orElse(null);
-
-                    if (product == null)
-                        return null;
-                    if (!product.isActive()) {
-                        return null;
-                    }
-
-                    String productName = product.getName();
-                    BigDecimal unitPrice = Optional.ofNullable(inv.getAdjustedPrice())
-                            .orElse(product.getBasePrice());
-
-                    return new InventoryResponseDto(
-                            base.id(),
-                            product.getOrganizationId(),
-                            base.productId(),
-                            productName,
-                            base.quantity(),
-                            unitPrice,
-                            product.getDescription(),
-                            product.getBasePrice(),
-                            product.getMinPrice(),
-                            product.getMaxPrice(),
-                            base.updatedAt());
-                })
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(InventoryResponseDto::productName))
+    private List<InventoryResponseDto> loadMenu(Long organizationId, Long categoryId) {
+        List<InventoryView> items = categoryId != null
+                ? inventoryRepository.findMenuItemsByCategory(organizationId, categoryId)
+                : inventoryRepository.findMenuItems(organizationId);
+        return items.stream()
+                .map(inventoryMapper::fromView)
                 .toList();
     }
 
     @Transactional(readOnly = true)
     public InventoryResponseDto getByProductAndOrganization(Long productId, Long organizationId) {
-        Inventory inventory = inventoryRepository
-                .findByOrganizationIdAndProductId(organizationId, productId)
+        InventoryView inventory = inventoryRepository.findInventoryView(organizationId, productId)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "No inventory found for this product"));
-
-        InventoryResponseDto base = inventoryMapper.toResponse(inventory);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "No product found"));
-        if (!product.isActive()) {
+        if (!inventory.getActive()) {
             throw new ResponseStatusException(HttpStatus.GONE, "Product is deleted");
         }
-
-        String productName = product.getName();
-        BigDecimal unitPrice = Optional.ofNullable(inventory.getAdjustedPrice())
-                .orElse(product.getBasePrice());
-        BigDecimal basePrice = product.getBasePrice();
-
-        return new InventoryResponseDto(
-                base.id(),
-                product.getOrganizationId(),
-                base.productId(),
-                productName,
-                base.quantity(),
-                unitPrice,
-                product.getDescription(), basePrice,
-                product.getMinPrice(),
-                product.getMaxPrice(),
-                base.updatedAt());
+        return inventoryMapper.fromView(inventory);
     }
 
     @Transactional
@@ -150,6 +109,7 @@ public class InventoryService {
         // Create transaction record
         createTransaction(inventory, "PURCHASE", request.quantity(),
                 oldQuantity, newQuantity, currentPrice, currentPrice, null, request.notes(), userId);
+        publishStockChange(organizationId, productId, newQuantity, currentPrice);
 
         InventoryResponseDto base = inventoryMapper.toResponse(inventory);
 
@@ -206,6 +166,7 @@ public class InventoryService {
         createTransaction(inventory, "ADJUSTMENT", request.quantity().negate(),
                 oldQuantity, newQuantity, currentPrice, currentPrice, request.referenceId(),
                 request.notes(), userId);
+        publishStockChange(organizationId, product.getId(), newQuantity, currentPrice);
 
         InventoryResponseDto base = inventoryMapper.toResponse(inventory);
 
@@ -255,6 +216,7 @@ public class InventoryService {
         createTransaction(inventory, "ADJUSTMENT", quantityChange,
                 oldQuantity, request.newQuantity(), currentPrice, currentPrice, null, request.notes(),
                 userId);
+        publishStockChange(organizationId, product.getId(), request.newQuantity(), currentPrice);
 
         InventoryResponseDto base = inventoryMapper.toResponse(inventory);
         return new InventoryResponseDto(
@@ -270,15 +232,28 @@ public class InventoryService {
                 base.updatedAt());
     }
 
+    /**
+     * One page of a product's transactions, newest first. See
+     * {@link InventoryTransactionRepository#findHistoryPage} for the cursor and
+     * range semantics; the next older page starts before the last row.
+     */
     @Transactional(readOnly = true)
-    public List<InventoryTransactionResponseDto> getTransactionHistory(Long productId, Long organizationId) {
+    public List<InventoryTransactionResponseDto> getTransactionHistory(Long productId, Long organizationId,
+            HistoryCursor before, HistoryCursor after, OffsetDateTime from, OffsetDateTime to, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "'limit' must be between 1 and " + MAX_HISTORY_LIMIT);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
         Inventory inventory = inventoryRepository
                 .findByOrganizationIdAndProductId(organizationId, productId)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "No inventory found for this product"));
 
         List<InventoryTransaction> transactions = inventoryTransactionRepository
-                .findByInventoryIdOrderByCreatedAtDesc(inventory.getId());
+                .findHistoryPage(inventory.getId(), before, after, from, to, limit);
 
         // Get all unique user IDs (filter out nulls)
         List<UUID> userIds = transactions.stream()
@@ -318,130 +293,6 @@ public class InventoryService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public List<UserSalesStatsResponseDto> getUserSalesStats(Long organizationId) {
-        // Get all sale transactions for the organization
-        List<InventoryTransaction> saleTransactions = inventoryTransactionRepository
-                .findSaleTransactionsByOrganizationId(organizationId);
-
-        // Group transactions by user and station
-        Map<String, List<InventoryTransaction>> transactionsByUserAndStation = saleTransactions.stream()
-                .filter(t -> t.getCreatedBy() != null)
-                .collect(Collectors.groupingBy(transaction -> {
-                    UUID userId = transaction.getCreatedBy();
-                    Long stationId = transaction.getBarStationId();
-                    return userId.toString() + "|"
-                            + (stationId != null ? stationId.toString() : "null");
-                }));
-
-        // Get all unique user IDs and station IDs
-        Set<UUID> userIds = saleTransactions.stream()
-                .map(InventoryTransaction::getCreatedBy)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        Set<Long> stationIds = saleTransactions.stream()
-                .map(InventoryTransaction::getBarStationId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        // Fetch all users and stations at once
-        Map<UUID, User> userMap = userRepository.findAllById(new ArrayList<>(userIds)).stream()
-                .collect(Collectors.toMap(User::getId, user -> user));
-
-        Map<Long, BarStation> stationMap = barStationRepository.findAllById(new ArrayList<>(stationIds))
-                .stream()
-                .collect(Collectors.toMap(BarStation::getId, station -> station));
-
-        // Calculate statistics for each user-station combination
-        return transactionsByUserAndStation.entrySet().stream()
-                .map(entry -> {
-                    String[] parts = entry.getKey().split("\\|");
-                    UUID userId = UUID.fromString(parts[0]);
-                    Long stationId = null;
-                    if (parts.length > 1 && !parts[1].equals("null")) {
-                        try {
-                            stationId = Long.parseLong(parts[1]);
-                        } catch (NumberFormatException e) {
-                            stationId = null;
-                        }
-                    }
-
-                    List<InventoryTransaction> userStationTransactions = entry.getValue();
-                    User user = userMap.get(userId);
-                    BarStation station = stationId != null ? stationMap.get(stationId) : null;
-
-                    // Count unique sales (by referenceId)
-                    long salesCount = userStationTransactions.stream()
-                            .map(InventoryTransaction::getReferenceId)
-                            .filter(Objects::nonNull)
-                            .distinct()
-                            .count();
-
-                    // Calculate total revenue by getting all products and their prices
-                    BigDecimal totalRevenue = calculateTotalRevenue(userStationTransactions);
-
-                    return new UserSalesStatsResponseDto(
-                            userId.toString(),
-                            user != null ? user.getName() : "Unknown User",
-                            user != null ? user.getEmail() : "unknown@email.com",
-                            salesCount,
-                            totalRevenue,
-                            stationId,
-                            station != null ? station.getName() : null);
-                })
-                .sorted((a, b) -> Long.compare(b.salesCount(), a.salesCount())) // Sort by sales count
-                // desc
-                .toList();
-    }
-
-    @Transactional(readOnly = true)
-    public List<StationSalesStatsResponseDto> getStationSalesStats(Long organizationId) {
-        // Get all sale transactions for the organization
-        List<InventoryTransaction> saleTransactions = inventoryTransactionRepository
-                .findSaleTransactionsByOrganizationId(organizationId);
-
-        // Group transactions by station
-        Map<Long, List<InventoryTransaction>> transactionsByStation = saleTransactions.stream()
-                .filter(t -> t.getBarStationId() != null)
-                .collect(Collectors.groupingBy(InventoryTransaction::getBarStationId));
-
-        // Get all unique station IDs
-        Set<Long> stationIds = transactionsByStation.keySet();
-
-        // Fetch all stations at once
-        Map<Long, BarStation> stationMap = barStationRepository.findAllById(new ArrayList<>(stationIds))
-                .stream()
-                .collect(Collectors.toMap(BarStation::getId, station -> station));
-
-        // Calculate statistics for each station
-        return transactionsByStation.entrySet().stream()
-                .map(entry -> {
-                    Long stationId = entry.getKey();
-                    List<InventoryTransaction> stationTransactions = entry.getValue();
-                    BarStation station = stationMap.get(stationId);
-
-                    // Count unique sales (by referenceId)
-                    long salesCount = stationTransactions.stream()
-                            .map(InventoryTransaction::getReferenceId)
-                            .filter(Objects::nonNull)
-                            .distinct()
-                            .count();
-
-                    // Calculate total revenue by getting all products and their prices
-                    BigDecimal totalRevenue = calculateTotalRevenue(stationTransactions);
-
-                    return new StationSalesStatsResponseDto(
-                            stationId,
-                            station != null ? station.getName() : null,
-                            salesCount,
-                            totalRevenue);
-                })
-                .sorted((a, b) -> Long.compare(b.salesCount(), a.salesCount())) // Sort by sales count
-                // desc
-                .toList();
-    }
-
     private void createTransaction(Inventory inventory, String type, BigDecimal quantityChange,
                                    BigDecimal quantityBefore, BigDecimal quantityAfter,
                                    BigDecimal priceBefore, BigDecimal priceAfter,
@@ -461,6 +312,11 @@ public class InventoryService {
         inventoryTransactionRepository.save(transaction);
     }
 
+    private void publishStockChange(Long organizationId, Long productId, BigDecimal quantity, BigDecimal unitPrice) {
+        eventPublisher.publishEvent(new MarketUpdateEvent(organizationId,
+                List.of(new MarketUpdateDto(productId, quantity, unitPrice))));
+    }
+
     private Product getOrganizationProduct(Long organizationId, Long productId) {
         // Verify product exists and belongs to organization
         Product product = productRepository.findById(productId)
@@ -476,28 +332,4 @@ public class InventoryService {
         }
         return product;
     }
-
-
-    private BigDecimal calculateTotalRevenue(List<InventoryTransaction> userStationTransactions) {
-        return userStationTransactions.stream()
-                .map(transaction -> {
-                    // Get inventory to find product
-                    return inventoryRepository
-                            .findById(transaction.getInventoryId())
-                            .flatMap(inventory -> productRepository
-                                    .findById(inventory
-                                            .getProductId()))
-                            .map(product -> {
-                                // Calculate revenue for this
-                                // transaction
-                                BigDecimal quantitySold = transaction
-                                        .getQuantityChange()
-                                        .abs();
-                                return product.getBasePrice()
-                                        .multiply(quantitySold);
-                            })
-                            .orElse(BigDecimal.ZERO);
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
@@ -1,6 +1,9 @@
 package com.borsibaar.service;
 
+import com.borsibaar.entity.Role;
+import com.borsibaar.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,20 +11,40 @@ import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 @Service
 public class JwtService {
+    static final String USER_ID_CLAIM = "uid";
+    static final String NAME_CLAIM = "name";
+    static final String ORGANIZATION_CLAIM = "org";
+    static final String ROLE_CLAIM = "role";
+
     @Value("${jwt.secret}")
     private String secretKey;
+    // Tokens carry the user, so requests authenticate without reading the database
+    @Value("${jwt.principal-claims.enabled:false}")
+    private boolean principalClaimsEnabled;
     private final long expirationMs = 86400000; // 24h
 
     public String generateToken(String subject) {
-        return Jwts.builder()
-                .subject(subject)
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expirationMs))
-                .signWith(SignatureAlgorithm.HS256, secretKey.getBytes(StandardCharsets.UTF_8))
-                .compact();
+        return builder(subject).compact();
+    }
+
+    /**
+     * Token for the user, with their id, name, organization and role as claims
+     * when {@code jwt.principal-claims.enabled} is set. The claims stay as
+     * they are until the token is re-issued.
+     */
+    public String generateToken(User user) {
+        JwtBuilder builder = builder(user.getEmail());
+        if (principalClaimsEnabled && user.getId() != null) {
+            builder.claim(USER_ID_CLAIM, user.getId().toString())
+                    .claim(NAME_CLAIM, user.getName())
+                    .claim(ORGANIZATION_CLAIM, user.getOrganizationId())
+                    .claim(ROLE_CLAIM, user.getRole() != null ? user.getRole().getName() : null);
+        }
+        return builder.compact();
     }
 
     public Claims parseToken(String token) {
@@ -31,4 +54,31 @@ public class JwtService {
                 .parseClaimsJws(token)
                 .getBody();
     }
+
+    /**
+     * The user described by the token's claims, or {@code null} if it has none
+     * or principal claims are disabled.
+     */
+    public User readPrincipal(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        if (!principalClaimsEnabled || userId == null) {
+            return null;
+        }
+        String role = claims.get(ROLE_CLAIM, String.class);
+        return User.builder()
+                .id(UUID.fromString(userId))
+                .email(claims.getSubject())
+                .name(claims.get(NAME_CLAIM, String.class))
+                .organizationId(claims.get(ORGANIZATION_CLAIM, Long.class))
+                .role(role != null ? Role.builder().name(role).build() : null)
+                .build();
+    }
+
+    private JwtBuilder builder(String subject) {
+        return Jwts.builder()
+                .subject(subject)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(SignatureAlgorithm.HS256, secretKey.getBytes(StandardCharsets.UTF_8));
+    }
 }
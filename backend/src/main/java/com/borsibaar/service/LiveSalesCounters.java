@@ -0,0 +1,187 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.LiveSalesCounterDto;
+import com.borsibaar.dto.LiveSalesStatsDto;
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.projection.SaleLine;
+import com.borsibaar.util.FixedPoint;
+import com.borsibaar.util.MinuteWindowCounter;
+import com.borsibaar.util.MinuteWindowCounter.Totals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * In-memory sales counters per bar station, user and product of every
+ * organization over the last hour, for the live dashboard. Fed with every
+ * committed sale and rebuilt from the last hour of sale transactions on
+ * startup; the hourly rollups remain the exact record.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveSalesCounters {
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final Function<Object, MinuteWindowCounter> NEW_COUNTER = key -> new MinuteWindowCounter();
+    private static final Comparator<LiveSalesCounterDto> BUSIEST_FIRST = Comparator
+            .comparing(LiveSalesCounterDto::revenue60Min).reversed();
+
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+
+    private final ConcurrentMap<Long, OrganizationCounters> organizations = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSaleCompleted(SaleCompletedEvent event) {
+        recordSale(event.organizationId(), event.userId(), event.barStationId(), event.items(),
+                event.soldAtMillis());
+    }
+
+    public void recordSale(Long organizationId, UUID userId, Long barStationId, List<SaleItemResponseDto> items,
+            long soldAtMillis) {
+        long minute = Math.floorDiv(soldAtMillis, MILLIS_PER_MINUTE);
+        OrganizationCounters counters = counterFor(organizations, organizationId, key -> new OrganizationCounters());
+        long saleUnits = 0;
+        long saleRevenue = 0;
+        for (SaleItemResponseDto item : items) {
+            long units = FixedPoint.of(item.quantity());
+            long revenue = FixedPoint.of(item.totalPrice());
+            counterFor(counters.products, item.productId(), NEW_COUNTER).add(minute, 1, units, revenue);
+            saleUnits += units;
+            saleRevenue += revenue;
+        }
+        counters.total.add(minute, 1, saleUnits, saleRevenue);
+        if (barStationId != null) {
+            counterFor(counters.stations, barStationId, NEW_COUNTER).add(minute, 1, saleUnits, saleRevenue);
+        }
+        if (userId != null) {
+            counterFor(counters.users, userId, NEW_COUNTER).add(minute, 1, saleUnits, saleRevenue);
+        }
+    }
+
+    /**
+     * Organizations that sold something since startup.
+     */
+    public Set<Long> organizationIds() {
+        return organizations.keySet();
+    }
+
+    public LiveSalesStatsDto snapshot(Long organizationId, long nowMillis) {
+        long minute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        OrganizationCounters counters = organizations.get(organizationId);
+        OffsetDateTime asOf = OffsetDateTime.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneOffset.UTC);
+        if (counters == null) {
+            return new LiveSalesStatsDto(asOf, toDto(null, new MinuteWindowCounter(), minute),
+                    List.of(), List.of(), List.of());
+        }
+        return new LiveSalesStatsDto(asOf,
+                toDto(null, counters.total, minute),
+                toDtos(counters.stations, minute),
+                toDtos(counters.users, minute),
+                toDtos(counters.products, minute));
+    }
+
+    /**
+     * Drops stations, users and products without sales in the last hour. A
+     * sale racing the removal of its entry may be missed here; the rollups
+     * still count it.
+     */
+    public void evictIdle(long nowMillis) {
+        long minute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        for (OrganizationCounters counters : organizations.values()) {
+            evictIdle(counters.stations, minute);
+            evictIdle(counters.users, minute);
+            evictIdle(counters.products, minute);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        OffsetDateTime since = OffsetDateTime.now().minusMinutes(MinuteWindowCounter.MINUTES);
+        try {
+            List<SaleLine> lines = inventoryTransactionRepository.findSaleLinesSince(since);
+            // Lines arrive grouped by sale reference
+            int sales = 0;
+            List<SaleItemResponseDto> items = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                SaleLine line = lines.get(i);
+                BigDecimal quantity = line.getQuantity();
+                items.add(new SaleItemResponseDto(line.getProductId(), null, quantity, line.getUnitPrice(),
+                        FixedPoint.toBigDecimal(FixedPoint.multiply(FixedPoint.of(line.getUnitPrice()),
+                                FixedPoint.of(quantity)))));
+                if (i + 1 == lines.size()
+                        || !Objects.equals(lines.get(i + 1).getReferenceId(), line.getReferenceId())) {
+                    recordSale(line.getOrganizationId(), line.getUserId(), line.getBarStationId(), items,
+                            line.getCreatedAt().toInstant().toEpochMilli());
+                    items = new ArrayList<>();
+                    sales++;
+                }
+            }
+            log.info("Rebuilt live sales counters from {} sales since {}", sales, since);
+        } catch (RuntimeException e) {
+            // The counters fill up again with new sales
+            log.warn("Could not rebuild live sales counters: {}", e.getMessage());
+        }
+    }
+
+    private static <K> List<LiveSalesCounterDto> toDtos(Map<K, MinuteWindowCounter> counters, long minute) {
+        List<LiveSalesCounterDto> dtos = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> dtos.add(toDto(key.toString(), counter, minute)));
+        dtos.sort(BUSIEST_FIRST);
+        return dtos;
+    }
+
+    private static LiveSalesCounterDto toDto(String id, MinuteWindowCounter counter, long minute) {
+        Totals last5 = counter.totals(minute, 5);
+        Totals last15 = counter.totals(minute, 15);
+        Totals last60 = counter.totals(minute, 60);
+        return new LiveSalesCounterDto(id,
+                last5.sales() / 5.0,
+                FixedPoint.toBigDecimal(last5.revenue()),
+                FixedPoint.toBigDecimal(last15.revenue()),
+                FixedPoint.toBigDecimal(last60.revenue()),
+                FixedPoint.toBigDecimal(last60.units()));
+    }
+
+    private static <K> void evictIdle(ConcurrentMap<K, MinuteWindowCounter> counters, long minute) {
+        counters.forEach((key, counter) -> {
+            if (counter.isIdle(minute)) {
+                counters.remove(key, counter);
+            }
+        });
+    }
+
+    private static <K, V> V counterFor(ConcurrentMap<K, V> counters, K key, Function<? super K, ? extends V> factory) {
+        // Plain get first: computeIfAbsent may lock the bin even when the key exists
+        V counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, factory);
+    }
+
+    private static final class OrganizationCounters {
+        private final MinuteWindowCounter total = new MinuteWindowCounter();
+        private final ConcurrentMap<Long, MinuteWindowCounter> stations = new ConcurrentHashMap<>();
+        private final ConcurrentMap<UUID, MinuteWindowCounter> users = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, MinuteWindowCounter> products = new ConcurrentHashMap<>();
+    }
+}
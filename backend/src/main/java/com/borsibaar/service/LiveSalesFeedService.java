@@ -0,0 +1,57 @@
+package com.borsibaar.service;
+
+import com.borsibaar.util.SseBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * Live sales feed of an organization's dashboard. A subscriber receives a
+ * {@code stats} event with the current {@link LiveSalesCounters} snapshot on
+ * connect and then once per push interval.
+ */
+@Service
+public class LiveSalesFeedService {
+
+    private final LiveSalesCounters liveSalesCounters;
+    private final SseBroadcaster<Long> broadcaster;
+
+    public LiveSalesFeedService(LiveSalesCounters liveSalesCounters,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.sales.live.stream.buffer-size:16}") int bufferSize,
+            @Value("${app.sales.live.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+            @Value("${app.sales.live.stream.max-subscribers:1000}") int maxSubscribers) {
+        this.liveSalesCounters = liveSalesCounters;
+        this.broadcaster = new SseBroadcaster<>("sales.live.stream", objectMapper, meterRegistry, bufferSize,
+                Duration.ofSeconds(heartbeatSeconds), maxSubscribers);
+    }
+
+    public SseEmitter subscribe(Long organizationId) {
+        return broadcaster.subscribe(organizationId, "stats",
+                () -> liveSalesCounters.snapshot(organizationId, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedRateString = "${app.sales.live.push-interval-ms:1000}")
+    public void push() {
+        long now = System.currentTimeMillis();
+        liveSalesCounters.evictIdle(now);
+        for (Long organizationId : liveSalesCounters.organizationIds()) {
+            // Snapshots are only built for organizations someone is watching
+            if (broadcaster.hasSubscribers(organizationId)) {
+                broadcaster.publish(organizationId, "stats", liveSalesCounters.snapshot(organizationId, now));
+            }
+        }
+    }
+
+    @PreDestroy
+    void closeStreams() {
+        broadcaster.closeAll();
+    }
+}
@@ -0,0 +1,60 @@
+package com.borsibaar.service;
+
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.exception.NotFoundException;
+import com.borsibaar.repository.OrganizationRepository;
+import com.borsibaar.util.SseBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * Live price and stock feed of an organization's menu. A subscriber first
+ * receives a {@code snapshot} event with the full inventory and then an
+ * {@code update} event for every committed change.
+ */
+@Service
+public class MarketFeedService {
+
+    private final InventoryService inventoryService;
+    private final OrganizationRepository organizationRepository;
+    private final SseBroadcaster<Long> broadcaster;
+
+    public MarketFeedService(InventoryService inventoryService,
+            OrganizationRepository organizationRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.market.stream.buffer-size:256}") int bufferSize,
+            @Value("${app.market.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+            @Value("${app.market.stream.max-subscribers:10000}") int maxSubscribers) {
+        this.inventoryService = inventoryService;
+        this.organizationRepository = organizationRepository;
+        this.broadcaster = new SseBroadcaster<>("market.stream", objectMapper, meterRegistry, bufferSize,
+                Duration.ofSeconds(heartbeatSeconds), maxSubscribers);
+    }
+
+    public SseEmitter subscribe(Long organizationId) {
+        if (!organizationRepository.existsById(organizationId)) {
+            throw new NotFoundException("Organization not found: " + organizationId);
+        }
+        return broadcaster.subscribe(organizationId, "snapshot",
+                () -> inventoryService.getByOrganization(organizationId));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarketUpdate(MarketUpdateEvent event) {
+        broadcaster.publish(event.organizationId(), "update", event.updates());
+    }
+
+    @PreDestroy
+    void closeStreams() {
+        broadcaster.closeAll();
+    }
+}
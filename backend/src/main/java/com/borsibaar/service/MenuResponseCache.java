@@ -0,0 +1,112 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.InventoryResponseDto;
+import com.borsibaar.dto.MenuSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the encoded JSON of each menu snapshot, so serving the price board
+ * copies bytes instead of serializing the menu on every request. The bytes are
+ * encoded once per organization, category and snapshot ETag and optionally
+ * gzipped up front for clients that accept it. The menu is public, so at most
+ * {@code app.menu.cache.max-encoded-bytes} are kept, and pairs not served for
+ * a snapshot's max age are dropped.
+ */
+@Component
+public class MenuResponseCache {
+
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+
+    private final Cache<MenuKey, EncodedMenu> encoded;
+
+    public MenuResponseCache(InventoryService inventoryService,
+            ObjectMapper objectMapper,
+            @Value("${app.menu.cache.gzip:true}") boolean gzip,
+            @Value("${app.menu.cache.max-age-seconds:10}") long maxAgeSeconds,
+            @Value("${app.menu.cache.max-encoded-bytes:67108864}") long maxEncodedBytes) {
+        this.inventoryService = inventoryService;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.encoded = Caffeine.newBuilder()
+                .maximumWeight(maxEncodedBytes)
+                .weigher((MenuKey key, EncodedMenu menu) -> menu.size())
+                .expireAfterAccess(Duration.ofSeconds(maxAgeSeconds))
+                .build();
+    }
+
+    public EncodedMenu get(Long organizationId, Long categoryId) {
+        MenuSnapshot snapshot = inventoryService.getMenu(organizationId, categoryId);
+        MenuKey key = new MenuKey(organizationId, categoryId);
+        EncodedMenu cached = encoded.getIfPresent(key);
+        if (cached != null && cached.etag().equals(snapshot.etag())) {
+            return cached;
+        }
+
+        // Racing encoders produce identical bytes, so the last one may win
+        EncodedMenu menu = encode(snapshot);
+        encoded.put(key, menu);
+        return menu;
+    }
+
+    EncodedMenu encode(MenuSnapshot snapshot) {
+        byte[] json = toJson(snapshot.items());
+        byte[] gzipped = gzip ? gzip(json) : null;
+        // Small menus can grow when compressed
+        return new EncodedMenu(snapshot.etag(), json, gzipped != null && gzipped.length < json.length ? gzipped : null);
+    }
+
+    private byte[] toJson(List<InventoryResponseDto> items) {
+        try {
+            return objectMapper.writeValueAsBytes(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize menu", e);
+        }
+    }
+
+    long size() {
+        encoded.cleanUp();
+        return encoded.estimatedSize();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record MenuKey(Long organizationId, Long categoryId) {
+    }
+
+    /**
+     * JSON of a menu snapshot, and its gzip encoding when that is smaller.
+     * The arrays are shared between requests and must not be modified.
+     */
+    public record EncodedMenu(String etag, byte[] json, byte[] gzip) {
+
+        public boolean hasGzip() {
+            return gzip != null;
+        }
+
+        int size() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
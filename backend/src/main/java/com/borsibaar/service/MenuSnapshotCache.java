@@ -0,0 +1,185 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.InventoryResponseDto;
+import com.borsibaar.dto.MenuSnapshot;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.event.MenuChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-organization cache of menu snapshots. Every committed sale, stock or
+ * price change and every product or category change bumps the organization's
+ * menu version; the next read rebuilds the snapshot once while concurrent
+ * readers wait for it. Snapshots are also rebuilt after {@code max-age-seconds}
+ * so that changes made by other instances show up.
+ * <p>
+ * The menu is public, so any organization and category id can be asked for;
+ * snapshots and versions are kept for at most {@code max-entries} keys and
+ * dropped once they are {@code max-age-seconds} old or unused. Versions come
+ * from one counter, so a version created again after being dropped is newer
+ * than any snapshot still cached.
+ */
+@Component
+public class MenuSnapshotCache {
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long maxAgeNanos;
+
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final Cache<Long, Long> versions;
+    private final Cache<MenuKey, Entry> entries;
+
+    public MenuSnapshotCache(ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.menu.cache.max-age-seconds:10}") long maxAgeSeconds,
+            @Value("${app.menu.cache.max-entries:10000}") long maxEntries) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofSeconds(maxAgeSeconds))
+                .build();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(maxAgeSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the current snapshot of the organization's menu (optionally one
+     * category of it), building it with {@code loader} if the cached one is stale.
+     */
+    public MenuSnapshot get(Long organizationId, Long categoryId, Supplier<List<InventoryResponseDto>> loader) {
+        MenuKey key = new MenuKey(organizationId, categoryId);
+        // Read the version before loading: a change committed meanwhile leaves the result stale
+        long version = version(organizationId);
+        Entry cached = entries.getIfPresent(key);
+        if (cached != null && cached.isFreshFor(version, System.nanoTime())) {
+            return await(cached.snapshot);
+        }
+
+        Entry own = new Entry(version, System.nanoTime(), new CompletableFuture<>());
+        Entry current = entries.asMap().compute(key, (k, existing) -> {
+            if (existing != null && existing.isFreshFor(version, own.createdAt)) {
+                return existing;
+            }
+            return own;
+        });
+        if (current != own) {
+            return await(current.snapshot);
+        }
+
+        try {
+            List<InventoryResponseDto> items = List.copyOf(readOnlyTransaction.execute(status -> loader.get()));
+            MenuSnapshot snapshot = new MenuSnapshot(version, etag(items), items);
+            own.snapshot.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(key, own);
+            own.snapshot.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the organization's cached menu as stale.
+     */
+    public void invalidate(Long organizationId) {
+        // Without a version there is no snapshot either; a new version is newer than any
+        versions.asMap().computeIfPresent(organizationId, (id, version) -> lastVersion.incrementAndGet());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMarketUpdate(MarketUpdateEvent event) {
+        invalidate(event.organizationId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        invalidate(event.organizationId());
+    }
+
+    private long version(Long organizationId) {
+        return versions.get(organizationId, id -> lastVersion.incrementAndGet());
+    }
+
+    /**
+     * Hash of the menu's JSON, so every instance gives the same menu the same
+     * ETag and a client moving between them still gets 304s.
+     */
+    private String etag(List<InventoryResponseDto> items) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            objectMapper.writeValue(out, items);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "m" + HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private static MenuSnapshot await(CompletableFuture<MenuSnapshot> snapshot) {
+        try {
+            return snapshot.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record MenuKey(Long organizationId, Long categoryId) {
+    }
+
+    private final class Entry {
+        private final long version;
+        private final long createdAt;
+        private final CompletableFuture<MenuSnapshot> snapshot;
+
+        private Entry(long version, long createdAt, CompletableFuture<MenuSnapshot> snapshot) {
+            this.version = version;
+            this.createdAt = createdAt;
+            this.snapshot = snapshot;
+        }
+
+        private boolean isFreshFor(long currentVersion, long now) {
+            return version >= currentVersion && now - createdAt < maxAgeNanos;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.CandleResolution;
+import com.borsibaar.dto.PriceCandleDto;
+import com.borsibaar.dto.PriceTickDto;
+import com.borsibaar.dto.ProductSparklineDto;
+import com.borsibaar.dto.SparklinesDto;
+import com.borsibaar.entity.PriceCandle;
+import com.borsibaar.repository.PriceCandleRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import com.borsibaar.repository.projection.SparklineCandle;
+import com.borsibaar.util.LttbDownsampler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Price candles and sparklines for charting, read from the candles that
+ * {@link SalesService} and the price correction job maintain with every price
+ * change, and the raw price ticks of the job.
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceCandleService {
+
+    // Candles returned when the caller leaves the range open, and at most
+    static final int DEFAULT_CANDLES = 60;
+    static final int MAX_CANDLES = 1440;
+
+    // Sparkline points per product by default and at most, and the longest window they may cover
+    static final int DEFAULT_SPARKLINE_POINTS = 60;
+    static final int MAX_SPARKLINE_POINTS = 500;
+    static final Duration MAX_SPARKLINE_WINDOW = Duration.ofDays(31);
+
+    // Price ticks returned at most per request
+    static final int MAX_PRICE_TICKS = 10000;
+
+    private final PriceCandleRepository priceCandleRepository;
+    private final PriceTickRepository priceTickRepository;
+
+    /**
+     * Candles between {@code from} and {@code to} (both optional, widened to
+     * whole buckets), oldest first. Buckets without a price change get a flat
+     * candle at the previous close; buckets before the first known price are
+     * left out.
+     */
+    @Transactional(readOnly = true)
+    public List<PriceCandleDto> getCandles(Long organizationId, Long productId, CandleResolution resolution,
+            OffsetDateTime from, OffsetDateTime to) {
+        long seconds = resolution.getSeconds();
+        long end = ceil(to != null ? to.toEpochSecond() : OffsetDateTime.now().toEpochSecond(), seconds);
+        long start = from != null ? floor(from.toEpochSecond(), seconds) : end - DEFAULT_CANDLES * seconds;
+        if (start >= end) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        if ((end - start) / seconds > MAX_CANDLES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_CANDLES + " candles can be requested at once");
+        }
+
+        OffsetDateTime startTime = toDateTime(start);
+        List<PriceCandle> candles = priceCandleRepository.findCandles(organizationId, productId,
+                resolution.getSeconds(), startTime, toDateTime(end));
+        BigDecimal lastClose = priceCandleRepository
+                .findLatestBefore(organizationId, productId, resolution.getSeconds(), startTime)
+                .map(PriceCandle::getClose)
+                .orElse(null);
+
+        List<PriceCandleDto> result = new ArrayList<>();
+        Iterator<PriceCandle> stored = candles.iterator();
+        PriceCandle next = stored.hasNext() ? stored.next() : null;
+        for (long bucket = start; bucket < end; bucket += seconds) {
+            OffsetDateTime bucketStart = toDateTime(bucket);
+            if (next != null && next.getBucketStart().toEpochSecond() == bucket) {
+                result.add(new PriceCandleDto(format(bucketStart), next.getOpen(), next.getHigh(), next.getLow(),
+                        next.getClose(), next.getVolume()));
+                lastClose = next.getClose();
+                next = stored.hasNext() ? stored.next() : null;
+            } else if (lastClose != null) {
+                result.add(new PriceCandleDto(format(bucketStart), lastClose, lastClose, lastClose, lastClose,
+                        BigDecimal.ZERO));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Price series of every active product of the organization between
+     * {@code from} (default: an hour before {@code to}) and {@code to}
+     * (default: now), each downsampled with LTTB to at most {@code points}
+     * points. The series are read from the coarsest candles that still hold
+     * {@code points} buckets over the window, in one pass, so the work and
+     * the response size depend on the number of products and points only.
+     */
+    @Transactional(readOnly = true)
+    public SparklinesDto getSparklines(Long organizationId, OffsetDateTime from, OffsetDateTime to, int points) {
+        if (points < 2 || points > MAX_SPARKLINE_POINTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "points must be between 2 and " + MAX_SPARKLINE_POINTS);
+        }
+        OffsetDateTime end = to != null ? to : OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime start = from != null ? from : end.minusHours(1);
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        Duration window = Duration.between(start, end);
+        if (window.compareTo(MAX_SPARKLINE_WINDOW) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Sparklines cover at most " + MAX_SPARKLINE_WINDOW.toDays() + " days");
+        }
+
+        CandleResolution resolution = CandleResolution.ONE_MINUTE;
+        for (CandleResolution candidate : CandleResolution.values()) {
+            if (window.toSeconds() / candidate.getSeconds() >= points) {
+                resolution = candidate;
+            }
+        }
+        // The candle containing the start is read as well; its close lies inside the window
+        OffsetDateTime candlesFrom = toDateTime(floor(start.toEpochSecond(), resolution.getSeconds()));
+        SparklineBuilder builder = new SparklineBuilder(start.toInstant().toEpochMilli(),
+                end.toInstant().toEpochMilli(), resolution.getSeconds() * 1000L, points);
+        priceCandleRepository.streamSparklineCandles(organizationId, resolution.getSeconds(), candlesFrom, end,
+                builder::add);
+        return new SparklinesDto(start, end, resolution, builder.finish());
+    }
+
+    /**
+     * Automatic price reductions of a product between {@code from} (default:
+     * a day before {@code to}) and {@code to} (default: now), oldest first,
+     * at most {@code limit} of them.
+     */
+    @Transactional(readOnly = true)
+    public List<PriceTickDto> getPriceTicks(Long organizationId, Long productId, OffsetDateTime from,
+            OffsetDateTime to, int limit) {
+        if (limit < 1 || limit > MAX_PRICE_TICKS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "'limit' must be between 1 and " + MAX_PRICE_TICKS);
+        }
+        OffsetDateTime end = to != null ? to : OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime start = from != null ? from : end.minusDays(1);
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        return priceTickRepository.findTicks(organizationId, productId, start, end, limit).stream()
+                .map(tick -> new PriceTickDto(format(tick.createdAt()), tick.price()))
+                .toList();
+    }
+
+    /**
+     * Turns the candle rows of one product after another into downsampled
+     * series. A series starts at the price before the window, steps to every
+     * candle's close at the end of its bucket and is carried to the end of
+     * the window.
+     */
+    private static final class SparklineBuilder {
+
+        private record Point(long time, BigDecimal price) {
+        }
+
+        private final long start;
+        private final long end;
+        private final long bucketMillis;
+        private final int points;
+        private final List<ProductSparklineDto> sparklines = new ArrayList<>();
+
+        private Long productId;
+        private LttbDownsampler<Point> downsampler;
+        private Point last;
+
+        private SparklineBuilder(long start, long end, long bucketMillis, int points) {
+            this.start = start;
+            this.end = end;
+            this.bucketMillis = bucketMillis;
+            this.points = points;
+        }
+
+        void add(SparklineCandle candle) {
+            if (!candle.productId().equals(productId)) {
+                completeProduct();
+                productId = candle.productId();
+                downsampler = new LttbDownsampler<>(start, end, points);
+                BigDecimal startPrice = candle.closeBefore() != null ? candle.closeBefore()
+                        : candle.bucketStart() != null ? candle.open()
+                        : candle.currentPrice();
+                add(new Point(start, startPrice));
+            }
+            if (candle.bucketStart() != null) {
+                long bucketEnd = candle.bucketStart().toInstant().toEpochMilli() + bucketMillis;
+                add(new Point(Math.min(bucketEnd, end), candle.close()));
+            }
+        }
+
+        List<ProductSparklineDto> finish() {
+            completeProduct();
+            return sparklines;
+        }
+
+        private void add(Point point) {
+            downsampler.add(point.time(), point.price().doubleValue(), point);
+            last = point;
+        }
+
+        private void completeProduct() {
+            if (productId == null) {
+                return;
+            }
+            if (last.time() < end) {
+                add(new Point(end, last.price()));
+            }
+            List<Point> kept = downsampler.finish();
+            sparklines.add(new ProductSparklineDto(productId,
+                    kept.stream().map(Point::time).toList(),
+                    kept.stream().map(Point::price).toList()));
+        }
+    }
+
+    private static long floor(long epochSecond, long seconds) {
+        return epochSecond - Math.floorMod(epochSecond, seconds);
+    }
+
+    private static long ceil(long epochSecond, long seconds) {
+        long floor = floor(epochSecond, seconds);
+        return floor == epochSecond ? floor : floor + seconds;
+    }
+
+    private static OffsetDateTime toDateTime(long epochSecond) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+
+    private static String format(OffsetDateTime time) {
+        return time.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+}
@@ -0,0 +1,91 @@
+package com.borsibaar.service;
+
+import com.borsibaar.entity.Role;
+import com.borsibaar.entity.User;
+import com.borsibaar.event.UserChangedEvent;
+import com.borsibaar.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * The users behind JWT subjects, so that authenticating a request does not
+ * read the database every time. Entries are dropped when this instance
+ * changes the user ({@link UserChangedEvent}) and expire after a few seconds
+ * to pick up changes made by other replicas. Unknown emails are not cached.
+ * <p>
+ * Only the fields a request needs are kept, and every lookup returns a new
+ * detached {@link User}, so a caller changing its principal cannot change
+ * the cached one.
+ */
+@Service
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Principal> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.principal-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "auth.principals");
+    }
+
+    /**
+     * The user with this email, or {@code null} if there is none.
+     */
+    public User get(String email) {
+        // An invalidation waits for a load in progress, so a load cannot bring back a stale user
+        Principal principal = principals.get(email, key -> userRepository.findByEmailWithRole(key)
+                .map(Principal::of)
+                .orElse(null));
+        return principal != null ? principal.toUser() : null;
+    }
+
+    public void invalidate(String email) {
+        principals.invalidate(email);
+    }
+
+    public void invalidateAll() {
+        principals.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.email());
+    }
+
+    private record Principal(UUID id, String email, String name, Long organizationId, Long roleId,
+            String roleName) {
+
+        static Principal of(User user) {
+            Role role = user.getRole();
+            return new Principal(user.getId(), user.getEmail(), user.getName(), user.getOrganizationId(),
+                    role != null ? role.getId() : null, role != null ? role.getName() : null);
+        }
+
+        User toUser() {
+            return User.builder()
+                    .id(id)
+                    .email(email)
+                    .name(name)
+                    .organizationId(organizationId)
+                    .role(roleName != null ? Role.builder().id(roleId).name(roleName).build() : null)
+                    .build();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.borsibaar.entity.Category;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
 import com.borsibaar.entity.Product;
+import com.borsibaar.event.MenuChangedEvent;
 import com.borsibaar.mapper.ProductMapper;
 import com.borsibaar.repository.CategoryRepository;
 import com.borsibaar.repository.InventoryRepository;
@@ -14,6 +15,7 @@ import com.borsibaar.repository.ProductRepository;
 import com.borsibaar.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +35,7 @@ public class ProductService {
     private final UserRepository userRepository;
     private final InventoryRepository inventoryRepository;
     private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ProductResponseDto create(ProductRequestDto request, Long orgId) {
@@ -65,6 +68,7 @@ public class ProductService {
 
         // Automatically create inventory record with 0 quantity
         createInitialInventory(saved, orgId);
+        eventPublisher.publishEvent(new MenuChangedEvent(orgId));
 
         ProductResponseDto base = productMapper.toResponse(saved);
 
@@ -141,5 +145,6 @@ public class ProductService {
         product.setActive(false);
         product.setUpdatedAt(OffsetDateTime.now());
         productRepository.save(product);
+        eventPublisher.publishEvent(new MenuChangedEvent(product.getOrganizationId()));
     }
 }
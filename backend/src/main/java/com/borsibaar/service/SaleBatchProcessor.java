@@ -0,0 +1,267 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleRequestDto;
+import com.borsibaar.dto.SaleResponseDto;
+import com.borsibaar.entity.InventoryTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit front end for {@link SalesService}. Sales arriving within a short
+ * window are applied by a single worker thread in one database transaction, so
+ * a rush of POS requests pays for one commit instead of one per sale. Every sale
+ * runs behind its own savepoint: a sale that fails (e.g. oversell) is rolled back
+ * and reported to its caller without affecting the rest of the batch.
+ */
+@Slf4j
+@Service
+public class SaleBatchProcessor {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final SalesService salesService;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<PendingSale> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final DistributionSummary batchSize;
+    private final Timer waitTime;
+    private final Timer commitTime;
+    private final Counter fallbacks;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public SaleBatchProcessor(SalesService salesService,
+            PlatformTransactionManager transactionManager,
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.sales.batch.enabled:false}") boolean enabled,
+            @Value("${app.sales.batch.max-wait-ms:3}") long maxWaitMs,
+            @Value("${app.sales.batch.max-size:64}") int maxBatchSize) {
+        this.salesService = salesService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder("sales.batch.size")
+                .description("Number of sales committed together in one transaction")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("sales.batch.wait")
+                .description("Time a sale waited in the queue before its batch started")
+                .register(meterRegistry);
+        this.commitTime = Timer.builder("sales.batch.transaction")
+                .description("Time spent applying and committing one batch")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("sales.batch.fallbacks")
+                .description("Batches that failed as a whole and were retried sale by sale")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("sale-batcher").daemon().start(this::runLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Processes a sale and blocks until it has been committed or rejected.
+     * Falls back to a dedicated transaction when batching is disabled or the
+     * queue is full.
+     */
+    public SaleResponseDto process(SaleRequestDto request, UUID userId, Long organizationId, String idempotencyKey) {
+        if (!running) {
+            return salesService.processSale(request, userId, organizationId, idempotencyKey);
+        }
+
+        PendingSale sale = new PendingSale(request, userId, organizationId, idempotencyKey, System.nanoTime(),
+                new CompletableFuture<>());
+        if (!queue.offer(sale)) {
+            return salesService.processSale(request, userId, organizationId, idempotencyKey);
+        }
+
+        try {
+            return sale.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void runLoop() {
+        List<PendingSale> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSale first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect followers until the window that opened with the first sale closes
+                long deadline = first.enqueuedAt() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSale next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                batch.forEach(this::processAlone);
+                break;
+            } catch (RuntimeException e) {
+                log.error("Sale batch worker failed", e);
+                batch.forEach(sale -> sale.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // Never leave a caller waiting: whatever is still queued gets its own transaction
+        PendingSale sale;
+        while ((sale = queue.poll()) != null) {
+            processAlone(sale);
+        }
+    }
+
+    void processBatch(List<PendingSale> batch) {
+        long startedAt = System.nanoTime();
+        batchSize.record(batch.size());
+        for (PendingSale sale : batch) {
+            waitTime.record(startedAt - sale.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+
+        SaleResponseDto[] responses = new SaleResponseDto[batch.size()];
+        RuntimeException[] failures = new RuntimeException[batch.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // HibernateJpaDialect does not expose savepoints, so set them on the JDBC connection
+                // that the transaction manager bound for this transaction
+                Connection connection = DataSourceUtils.getConnection(dataSource);
+                try {
+                    List<InventoryTransaction> transactions = new ArrayList<>();
+                    for (int i = 0; i < batch.size(); i++) {
+                        PendingSale sale = batch.get(i);
+                        Savepoint savepoint = createSavepoint(connection);
+                        int firstTransaction = transactions.size();
+                        try {
+                            responses[i] = salesService.applySale(sale.request(), sale.userId(),
+                                    sale.organizationId(), sale.idempotencyKey(), transactions);
+                            releaseSavepoint(connection, savepoint);
+                        } catch (RuntimeException e) {
+                            rollbackToSavepoint(connection, savepoint);
+                            transactions.subList(firstTransaction, transactions.size()).clear();
+                            failures[i] = e;
+                        }
+                    }
+                    salesService.saveSaleTransactions(transactions);
+                } finally {
+                    DataSourceUtils.releaseConnection(connection, dataSource);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The batch could not be committed as a whole; give every sale its own transaction
+            log.warn("Sale batch of {} failed, retrying sales individually: {}", batch.size(), e.getMessage());
+            fallbacks.increment();
+            batch.forEach(this::processAlone);
+            return;
+        } finally {
+            commitTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (failures[i] != null) {
+                batch.get(i).result().completeExceptionally(failures[i]);
+            } else {
+                batch.get(i).result().complete(responses[i]);
+            }
+        }
+    }
+
+    private static Savepoint createSavepoint(Connection connection) {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new CannotCreateTransactionException("Could not create JDBC savepoint", e);
+        }
+    }
+
+    private static void rollbackToSavepoint(Connection connection, Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+        }
+    }
+
+    private static void releaseSavepoint(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not release JDBC savepoint", e);
+        }
+    }
+
+    private void processAlone(PendingSale sale) {
+        try {
+            sale.result().complete(salesService.processSale(sale.request(), sale.userId(), sale.organizationId(),
+                    sale.idempotencyKey()));
+        } catch (RuntimeException e) {
+            sale.result().completeExceptionally(e);
+        }
+    }
+
+    record PendingSale(SaleRequestDto request, UUID userId, Long organizationId, String idempotencyKey,
+            long enqueuedAt, CompletableFuture<SaleResponseDto> result) {
+    }
+}
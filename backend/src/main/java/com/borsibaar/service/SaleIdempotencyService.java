@@ -0,0 +1,197 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleRequestDto;
+import com.borsibaar.dto.SaleResponseDto;
+import com.borsibaar.exception.DuplicateResourceException;
+import com.borsibaar.repository.SaleIdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes {@code POST /api/sales} safe to retry. The response of a sale made with
+ * an {@code Idempotency-Key} is kept in a bounded in-memory cache and stored in
+ * {@code sale_idempotency_keys} in the same transaction as the sale, so a retry
+ * gets the original response back instead of selling again. A duplicate that
+ * arrives while the first request is still running waits for its result.
+ * <p>
+ * A hash of the request is kept with the key, and a request reusing a key
+ * for a different sale is rejected with 422 rather than answered with the
+ * response of the first one.
+ */
+@Service
+public class SaleIdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final SaleIdempotencyKeyRepository saleIdempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Completed> completed;
+    private final ConcurrentMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public SaleIdempotencyService(SaleIdempotencyKeyRepository saleIdempotencyKeyRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.sales.idempotency.cache-size:10000}") long cacheSize,
+            @Value("${app.sales.idempotency.retention-hours:24}") long retentionHours) {
+        this.saleIdempotencyKeyRepository = saleIdempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(retentionHours))
+                .build();
+    }
+
+    /**
+     * Runs {@code sale} once per organization and key and returns its response
+     * for every request carrying the same key. Failed sales are not remembered,
+     * so the client can retry them.
+     *
+     * @throws ResponseStatusException 422 if the key was used for a different
+     *         request
+     */
+    public SaleResponseDto execute(Long organizationId, String idempotencyKey, SaleRequestDto request,
+            Supplier<SaleResponseDto> sale) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Key key = new Key(organizationId, idempotencyKey);
+        String requestHash = requestHash(request);
+        Completed cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return cached.responseFor(key, requestHash);
+        }
+
+        InFlight own = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            if (!running.requestHash().equals(requestHash)) {
+                throw keyReused(key);
+            }
+            return await(running.response());
+        }
+
+        try {
+            Completed done = findStored(key).orElseGet(() -> runSale(key, requestHash, sale));
+            completed.put(key, done);
+            SaleResponseDto response = done.responseFor(key, requestHash);
+            own.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            own.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Stores the response of a sale under its key in the caller's transaction.
+     *
+     * @throws DuplicateResourceException if a sale with the same key has already
+     *                                    been stored, so that the caller's sale is rolled back
+     */
+    public void record(Long organizationId, String idempotencyKey, SaleRequestDto request,
+            SaleResponseDto response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize sale " + response.saleId(), e);
+        }
+
+        if (!saleIdempotencyKeyRepository.insertIfAbsent(organizationId, idempotencyKey, requestHash(request),
+                response.saleId(), body)) {
+            throw new DuplicateResourceException("A sale with Idempotency-Key '" + idempotencyKey + "' already exists");
+        }
+    }
+
+    private Completed runSale(Key key, String requestHash, Supplier<SaleResponseDto> sale) {
+        try {
+            return new Completed(requestHash, sale.get());
+        } catch (DuplicateResourceException e) {
+            // Another instance committed a sale with this key first
+            return findStored(key).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<Completed> findStored(Key key) {
+        return saleIdempotencyKeyRepository
+                .findByOrganizationIdAndIdempotencyKey(key.organizationId(), key.idempotencyKey())
+                .map(stored -> {
+                    try {
+                        return new Completed(stored.getRequestHash(),
+                                objectMapper.readValue(stored.getResponseBody(), SaleResponseDto.class));
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Could not read stored sale " + stored.getSaleId(), e);
+                    }
+                });
+    }
+
+    /**
+     * SHA-256 of the request as JSON, in hex.
+     */
+    private String requestHash(SaleRequestDto request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize sale request", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseStatusException keyReused(Key key) {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key '" + key.idempotencyKey() + "' was already used for a different sale");
+    }
+
+    private static SaleResponseDto await(CompletableFuture<SaleResponseDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(Long organizationId, String idempotencyKey) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<SaleResponseDto> response) {
+    }
+
+    /**
+     * Response of a sale and the hash of its request; keys stored before
+     * hashes were kept have none and match any request.
+     */
+    private record Completed(String requestHash, SaleResponseDto response) {
+
+        SaleResponseDto responseFor(Key key, String otherRequestHash) {
+            if (requestHash != null && !requestHash.equals(otherRequestHash)) {
+                throw keyReused(key);
+            }
+            return response;
+        }
+    }
+}
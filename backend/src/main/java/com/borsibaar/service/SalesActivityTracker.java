@@ -0,0 +1,122 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.projection.ProductLastSale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers when each product and organization last sold, so the price
+ * decay scheduler can tell idle products without scanning
+ * {@code inventory_transactions}. Updated once each sale commits
+ * ({@link SaleCompletedEvent}), so rolled back sales never count, and rebuilt from the last window of sale transactions on startup.
+ */
+@Slf4j
+@Component
+public class SalesActivityTracker {
+
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final Duration idleWindow;
+
+    // Epoch millis of the latest sale, per product and per organization
+    private final ConcurrentMap<Long, Long> lastSaleByProduct = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> lastSaleByOrganization = new ConcurrentHashMap<>();
+
+    public SalesActivityTracker(InventoryTransactionRepository inventoryTransactionRepository,
+            @Value("${app.pricing.idle-window-seconds:60}") long idleWindowSeconds) {
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.idleWindow = Duration.ofSeconds(idleWindowSeconds);
+    }
+
+    public Duration getIdleWindow() {
+        return idleWindow;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSaleCompleted(SaleCompletedEvent event) {
+        recordSale(event.organizationId(), event.items().stream().map(SaleItemResponseDto::productId).toList(),
+                event.soldAtMillis());
+    }
+
+    public void recordSale(Long organizationId, Collection<Long> productIds, long soldAtMillis) {
+        for (Long productId : productIds) {
+            lastSaleByProduct.merge(productId, soldAtMillis, Math::max);
+        }
+        lastSaleByOrganization.merge(organizationId, soldAtMillis, Math::max);
+    }
+
+    /**
+     * Organizations with at least one sale at or after {@code sinceMillis}.
+     */
+    public Set<Long> organizationsActiveSince(long sinceMillis) {
+        return lastSaleByOrganization.entrySet().stream()
+                .filter(entry -> entry.getValue() >= sinceMillis)
+                .map(ConcurrentMap.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    public boolean organizationSoldSince(Long organizationId, long sinceMillis) {
+        Long lastSale = lastSaleByOrganization.get(organizationId);
+        return lastSale != null && lastSale >= sinceMillis;
+    }
+
+    /**
+     * Epoch millis of the product's latest sale, or {@code null} if it has not
+     * sold since its entry was evicted.
+     */
+    public Long getLastSale(Long productId) {
+        return lastSaleByProduct.get(productId);
+    }
+
+    public boolean soldSince(Long productId, long sinceMillis) {
+        Long lastSale = lastSaleByProduct.get(productId);
+        return lastSale != null && lastSale >= sinceMillis;
+    }
+
+    /**
+     * Drops entries that fell out of the window so the maps only hold recently
+     * sold products.
+     */
+    public void evictBefore(long cutoffMillis) {
+        evict(lastSaleByProduct, cutoffMillis);
+        evict(lastSaleByOrganization, cutoffMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        OffsetDateTime since = OffsetDateTime.now().minus(idleWindow);
+        try {
+            List<ProductLastSale> lastSales = inventoryTransactionRepository.findLastSalePerProductSince(since);
+            for (ProductLastSale lastSale : lastSales) {
+                recordSale(lastSale.getOrganizationId(), List.of(lastSale.getProductId()),
+                        lastSale.getLastSaleAt().toInstant().toEpochMilli());
+            }
+            log.info("Rebuilt sales activity for {} products sold since {}", lastSales.size(), since);
+        } catch (RuntimeException e) {
+            // Without history every product counts as idle until it sells again
+            log.warn("Could not rebuild sales activity: {}", e.getMessage());
+        }
+    }
+
+    private static void evict(ConcurrentMap<Long, Long> lastSales, long cutoffMillis) {
+        // Re-checked atomically so a sale recorded meanwhile is not dropped
+        lastSales.keySet().forEach(key ->
+                lastSales.computeIfPresent(key, (k, lastSale) -> lastSale < cutoffMillis ? null : lastSale));
+    }
+}
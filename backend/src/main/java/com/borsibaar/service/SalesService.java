@@ -1,14 +1,21 @@
 package com.borsibaar.service;
 
 import com.borsibaar.dto.*;
-import com.borsibaar.entity.Category;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
 import com.borsibaar.entity.Product;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.event.SaleCompletedEvent;
 import com.borsibaar.repository.InventoryRepository;
 import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.PriceCandleRepository;
 import com.borsibaar.repository.ProductRepository;
+import com.borsibaar.repository.SalesRollupRepository;
+import com.borsibaar.repository.projection.SaleStockChange;
+import com.borsibaar.util.FixedPoint;
+import com.borsibaar.util.ReferenceIdGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,7 +25,6 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -28,114 +34,139 @@ public class SalesService {
         private final InventoryRepository inventoryRepository;
         private final InventoryTransactionRepository inventoryTransactionRepository;
         private final ProductRepository productRepository;
+        private final SalesRollupRepository salesRollupRepository;
+        private final PriceCandleRepository priceCandleRepository;
+        private final ReferenceIdGenerator referenceIdGenerator;
+        private final SaleIdempotencyService saleIdempotencyService;
+        private final ApplicationEventPublisher eventPublisher;
 
         @Transactional
-        public SaleResponseDto processSale(SaleRequestDto request, UUID userId, Long organizationId) {
+        public SaleResponseDto processSale(SaleRequestDto request, UUID userId, Long organizationId,
+                        String idempotencyKey) {
+                List<InventoryTransaction> transactions = new ArrayList<>();
+                SaleResponseDto response = applySale(request, userId, organizationId, idempotencyKey, transactions);
+                saveSaleTransactions(transactions);
+                return response;
+        }
+
+        /**
+         * Inserts the transactions collected by {@link #applySale} and adds them to
+         * the sales rollups and price candles, all in the caller's transaction.
+         */
+        public void saveSaleTransactions(List<InventoryTransaction> transactions) {
+                inventoryTransactionRepository.insertAll(transactions);
+                salesRollupRepository.addSales(transactions);
+                priceCandleRepository.addPriceChanges(transactions);
+        }
+
+        /**
+         * Applies the stock and price changes of a sale in the caller's transaction
+         * and appends the resulting sale transactions to {@code transactions} so the
+         * caller can insert them together with those of other sales. With an
+         * idempotency key the response is stored in the same transaction.
+         */
+        public SaleResponseDto applySale(SaleRequestDto request, UUID userId, Long organizationId,
+                        String idempotencyKey, List<InventoryTransaction> transactions) {
                 // Generate unique sale reference ID
-                String saleId = "SALE-" + System.currentTimeMillis();
+                String saleId = referenceIdGenerator.nextReference("SALE");
 
                 List<SaleItemResponseDto> saleItems = new ArrayList<>();
-                BigDecimal totalAmount = BigDecimal.ZERO;
+                List<MarketUpdateDto> marketUpdates = new ArrayList<>();
+                long totalAmount = 0;
 
                 // Process each item in the sale
                 for (SaleItemRequestDto item : request.items()) {
                         SaleItemResponseDto saleItem = processSaleItem(item, userId, organizationId, saleId,
-                                        request.barStationId());
+                                        request.barStationId(), transactions, marketUpdates);
                         saleItems.add(saleItem);
-                        totalAmount = totalAmount.add(saleItem.totalPrice());
+                        totalAmount = Math.addExact(totalAmount, FixedPoint.of(saleItem.totalPrice()));
                 }
 
-                return new SaleResponseDto(
+                long soldAtMillis = System.currentTimeMillis();
+
+                SaleResponseDto response = new SaleResponseDto(
                                 saleId,
                                 saleItems,
-                                totalAmount,
+                                FixedPoint.toBigDecimal(totalAmount),
                                 request.notes(),
                                 OffsetDateTime.now());
+                if (idempotencyKey != null) {
+                        saleIdempotencyService.record(organizationId, idempotencyKey, request, response);
+                }
+                // Delivered to market feed subscribers once the transaction commits
+                eventPublisher.publishEvent(new MarketUpdateEvent(organizationId, marketUpdates));
+                eventPublisher.publishEvent(new SaleCompletedEvent(organizationId, saleId, userId,
+                                request.barStationId(), saleItems, soldAtMillis));
+                return response;
         }
 
         private SaleItemResponseDto processSaleItem(SaleItemRequestDto item, UUID userId, Long organizationId,
-                        String saleId, Long barStationId) {
-                // Verify product exists and belongs to organization
-                Product product = productRepository.findById(item.productId())
-                                .orElseThrow(() -> new ResponseStatusException(
-                                                HttpStatus.NOT_FOUND, "Product not found: " + item.productId()));
+                        String saleId, Long barStationId, List<InventoryTransaction> transactions,
+                        List<MarketUpdateDto> marketUpdates) {
+                // Decrement stock and bump the price atomically; the database rejects oversells
+                SaleStockChange change = inventoryRepository
+                                .decrementStockForSale(item.productId(), organizationId, item.quantity())
+                                .orElseThrow(() -> saleRejected(item, organizationId));
+
+                BigDecimal priceBeforeSale = change.getPriceBefore();
+                // Rounded half up to the scale of the price columns
+                long totalPrice = FixedPoint.multiply(FixedPoint.of(priceBeforeSale), FixedPoint.of(item.quantity()));
+
+                // Create sale transaction
+                transactions.add(createSaleTransaction(change.getInventoryId(),
+                                item.quantity(), change.getQuantityBefore(), change.getQuantityAfter(),
+                                priceBeforeSale, change.getPriceAfter(), saleId, userId, barStationId));
+                marketUpdates.add(new MarketUpdateDto(item.productId(), change.getQuantityAfter(),
+                                change.getPriceAfter()));
+
+                return new SaleItemResponseDto(
+                                item.productId(),
+                                change.getProductName(),
+                                item.quantity(),
+                                priceBeforeSale,
+                                FixedPoint.toBigDecimal(totalPrice));
+        }
+
+        /**
+         * Explains why the atomic stock update matched no row. Only runs on the
+         * failure path, so the extra reads do not slow down successful sales.
+         */
+        private ResponseStatusException saleRejected(SaleItemRequestDto item, Long organizationId) {
+                Product product = productRepository.findById(item.productId()).orElse(null);
+                if (product == null) {
+                        return new ResponseStatusException(
+                                        HttpStatus.NOT_FOUND, "Product not found: " + item.productId());
+                }
 
                 if (!product.getOrganizationId().equals(organizationId)) {
-                        throw new ResponseStatusException(
+                        return new ResponseStatusException(
                                         HttpStatus.FORBIDDEN, "Product does not belong to your organization");
                 }
 
                 if (!product.isActive()) {
-                        throw new ResponseStatusException(
+                        return new ResponseStatusException(
                                         HttpStatus.BAD_REQUEST, "Product is not active: " + product.getName());
                 }
 
-                // Get inventory for this product
-                /*
-                 * Inventory inventory = inventoryRepository
-                 * .findByOrganizationIdAndProductId(organizationId, item.productId())
-                 * .orElseThrow(() -> new ResponseStatusException(
-                 * HttpStatus.NOT_FOUND, "No inventory found for product: " +
-                 * product.getName()));
-                 */
-                Inventory inventory = Optional.ofNullable(product.getInventory())
-                                .orElseThrow(() -> new ResponseStatusException(
-                                                HttpStatus.NOT_FOUND,
-                                                "No inventory found for product: " + product.getName()));
-
-                // Check stock availability
-                BigDecimal oldQuantity = inventory.getQuantity();
-                BigDecimal newQuantity = oldQuantity.subtract(item.quantity());
-
-                if (newQuantity.compareTo(BigDecimal.ZERO) < 0) {
-                        throw new ResponseStatusException(
-                                        HttpStatus.BAD_REQUEST,
-                                        "Insufficient stock for " + product.getName() +
-                                                        ". Available: " + oldQuantity + ", Requested: "
-                                                        + item.quantity());
+                Inventory inventory = product.getInventory();
+                if (inventory == null) {
+                        return new ResponseStatusException(
+                                        HttpStatus.NOT_FOUND, "No inventory found for product: " + product.getName());
                 }
 
-                // Calculate pricing
-                BigDecimal priceBeforeSale = Optional.ofNullable(inventory.getAdjustedPrice())
-                                .orElse(product.getBasePrice());
-                BigDecimal totalPrice = priceBeforeSale.multiply(item.quantity());
-
-                BigDecimal priceAfterSale = priceBeforeSale;
-                Category category = product.getCategory();
-                if (category != null && category.isDynamicPricing()) {
-                        priceAfterSale = priceBeforeSale.add(product.getOrganization().getPriceIncreaseStep());
-                        if (product.getMaxPrice() != null && priceAfterSale.compareTo(product.getMaxPrice()) > 0) {
-                                priceAfterSale = product.getMaxPrice();
-                        }
-                }
-
-
-                // Update inventory
-                inventory.setQuantity(newQuantity);
-                inventory.setUpdatedAt(OffsetDateTime.now());
-                inventory.setAdjustedPrice(priceAfterSale);
-
-                inventory = inventoryRepository.save(inventory);
-
-                // Create sale transaction
-                createSaleTransaction(inventory, item.quantity(),
-                                oldQuantity, newQuantity, priceBeforeSale, priceAfterSale,
-                                saleId, userId, barStationId);
-
-                return new SaleItemResponseDto(
-                                item.productId(),
-                                product.getName(),
-                                item.quantity(),
-                                priceBeforeSale,
-                                totalPrice);
+                return new ResponseStatusException(
+                                HttpStatus.BAD_REQUEST,
+                                "Insufficient stock for " + product.getName() +
+                                                ". Available: " + inventory.getQuantity() + ", Requested: "
+                                                + item.quantity());
         }
 
-        private void createSaleTransaction(Inventory inventory, BigDecimal quantity,
+        private InventoryTransaction createSaleTransaction(Long inventoryId, BigDecimal quantity,
                         BigDecimal quantityBefore, BigDecimal quantityAfter,
                         BigDecimal priceBefore, BigDecimal priceAfter,
                         String saleId, UUID userId, Long barStationId) {
                 InventoryTransaction transaction = new InventoryTransaction();
-                transaction.setInventory(inventory);
+                transaction.setInventoryId(inventoryId);
                 transaction.setTransactionType("SALE");
                 transaction.setQuantityChange(quantity.negate()); // Negative for sales
                 transaction.setQuantityBefore(quantityBefore);
@@ -147,6 +178,6 @@ public class SalesService {
                 transaction.setCreatedBy(userId);
                 transaction.setBarStationId(barStationId);
                 transaction.setCreatedAt(OffsetDateTime.now());
-                inventoryTransactionRepository.save(transaction);
+                return transaction;
         }
 }
\ No newline at end of file
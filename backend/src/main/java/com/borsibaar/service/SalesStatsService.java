@@ -0,0 +1,157 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SalesStatsGranularity;
+import com.borsibaar.dto.StationSalesStatsResponseDto;
+import com.borsibaar.dto.UserSalesStatsResponseDto;
+import com.borsibaar.repository.SalesRollupRepository;
+import com.borsibaar.repository.projection.StationSalesStats;
+import com.borsibaar.repository.projection.UserSalesStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Dashboard sales statistics, answered from the hourly sales rollups that
+ * {@link SalesService} maintains with every sale. Range bounds are widened to
+ * whole hours; daily buckets are formed from the hourly ones in the requested
+ * time zone.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesStatsService {
+
+    // Bounds used when the caller leaves the range open
+    private static final OffsetDateTime EARLIEST = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime LATEST = OffsetDateTime.of(9999, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final Comparator<UserSalesStatsResponseDto> BUSIEST_USER_FIRST = Comparator
+            .comparing(UserSalesStatsResponseDto::salesCount).reversed();
+    private static final Comparator<StationSalesStatsResponseDto> BUSIEST_STATION_FIRST = Comparator
+            .comparing(StationSalesStatsResponseDto::salesCount).reversed();
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    /**
+     * Sales per user and bar station between {@code from} and {@code to}
+     * (both optional). Without a granularity there is one row per user and
+     * station, busiest first; with one the rows are repeated per bucket,
+     * oldest bucket first.
+     */
+    @Transactional(readOnly = true)
+    public List<UserSalesStatsResponseDto> getUserSalesStats(Long organizationId, OffsetDateTime from,
+            OffsetDateTime to, SalesStatsGranularity granularity, ZoneId zone) {
+        OffsetDateTime start = startOf(from, to);
+        OffsetDateTime end = endOf(to);
+        if (granularity == null) {
+            return salesRollupRepository.findUserSalesStats(organizationId, start, end).stream()
+                    .map(stats -> toUserResponse(stats, null))
+                    .toList();
+        }
+        Map<OffsetDateTime, Map<List<Object>, UserSalesStatsResponseDto>> buckets = new TreeMap<>();
+        salesRollupRepository.findHourlyUserSalesStats(organizationId, start, end).forEach(hour -> {
+            OffsetDateTime bucket = bucketStart(hour.getBucketStart(), granularity, zone);
+            buckets.computeIfAbsent(bucket, b -> new LinkedHashMap<>())
+                    .merge(Arrays.asList(hour.getUserId(), hour.getBarStationId()),
+                            toUserResponse(hour, bucket), SalesStatsService::add);
+        });
+        return buckets.values().stream()
+                .flatMap(bucket -> bucket.values().stream().sorted(BUSIEST_USER_FIRST))
+                .toList();
+    }
+
+    /**
+     * Sales per bar station, with the same range and bucket handling as
+     * {@link #getUserSalesStats}.
+     */
+    @Transactional(readOnly = true)
+    public List<StationSalesStatsResponseDto> getStationSalesStats(Long organizationId, OffsetDateTime from,
+            OffsetDateTime to, SalesStatsGranularity granularity, ZoneId zone) {
+        OffsetDateTime start = startOf(from, to);
+        OffsetDateTime end = endOf(to);
+        if (granularity == null) {
+            return salesRollupRepository.findStationSalesStats(organizationId, start, end).stream()
+                    .map(stats -> toStationResponse(stats, null))
+                    .toList();
+        }
+        Map<OffsetDateTime, Map<Long, StationSalesStatsResponseDto>> buckets = new TreeMap<>();
+        salesRollupRepository.findHourlyStationSalesStats(organizationId, start, end).forEach(hour -> {
+            OffsetDateTime bucket = bucketStart(hour.getBucketStart(), granularity, zone);
+            buckets.computeIfAbsent(bucket, b -> new LinkedHashMap<>())
+                    .merge(hour.getBarStationId(), toStationResponse(hour, bucket), SalesStatsService::add);
+        });
+        return buckets.values().stream()
+                .flatMap(bucket -> bucket.values().stream().sorted(BUSIEST_STATION_FIRST))
+                .toList();
+    }
+
+    private static OffsetDateTime startOf(OffsetDateTime from, OffsetDateTime to) {
+        if (from == null) {
+            return EARLIEST;
+        }
+        if (to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        return from.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static OffsetDateTime endOf(OffsetDateTime to) {
+        if (to == null) {
+            return LATEST;
+        }
+        OffsetDateTime utc = to.withOffsetSameInstant(ZoneOffset.UTC);
+        OffsetDateTime hour = utc.truncatedTo(ChronoUnit.HOURS);
+        return hour.isBefore(utc) ? hour.plusHours(1) : hour;
+    }
+
+    private static OffsetDateTime bucketStart(OffsetDateTime hour, SalesStatsGranularity granularity, ZoneId zone) {
+        ZonedDateTime local = hour.atZoneSameInstant(zone);
+        return (granularity == SalesStatsGranularity.DAILY ? local.truncatedTo(ChronoUnit.DAYS) : local)
+                .toOffsetDateTime();
+    }
+
+    private static UserSalesStatsResponseDto toUserResponse(UserSalesStats stats, OffsetDateTime bucket) {
+        return new UserSalesStatsResponseDto(
+                stats.getUserId().toString(),
+                stats.getUserName() != null ? stats.getUserName() : "Unknown User",
+                stats.getUserEmail() != null ? stats.getUserEmail() : "unknown@email.com",
+                stats.getSalesCount(),
+                stats.getTotalRevenue(),
+                stats.getBarStationId(),
+                stats.getBarStationName(),
+                format(bucket));
+    }
+
+    private static StationSalesStatsResponseDto toStationResponse(StationSalesStats stats, OffsetDateTime bucket) {
+        return new StationSalesStatsResponseDto(
+                stats.getBarStationId(),
+                stats.getBarStationName(),
+                stats.getSalesCount(),
+                stats.getTotalRevenue(),
+                format(bucket));
+    }
+
+    private static UserSalesStatsResponseDto add(UserSalesStatsResponseDto a, UserSalesStatsResponseDto b) {
+        return new UserSalesStatsResponseDto(a.userId(), a.userName(), a.userEmail(),
+                a.salesCount() + b.salesCount(), a.totalRevenue().add(b.totalRevenue()),
+                a.barStationId(), a.barStationName(), a.bucketStart());
+    }
+
+    private static StationSalesStatsResponseDto add(StationSalesStatsResponseDto a, StationSalesStatsResponseDto b) {
+        return new StationSalesStatsResponseDto(a.barStationId(), a.barStationName(),
+                a.salesCount() + b.salesCount(), a.totalRevenue().add(b.totalRevenue()), a.bucketStart());
+    }
+
+    private static String format(OffsetDateTime bucket) {
+        return bucket != null ? bucket.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) : null;
+    }
+}
@@ -0,0 +1,243 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.dto.TopSellerDto;
+import com.borsibaar.dto.TopSellersDto;
+import com.borsibaar.dto.TopSellersWindow;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.SalesRollupRepository;
+import com.borsibaar.repository.projection.ProductSalesTotal;
+import com.borsibaar.repository.projection.SaleLine;
+import com.borsibaar.util.FixedPoint;
+import com.borsibaar.util.SpaceSavingSketch;
+import com.borsibaar.util.SpaceSavingSketch.Estimate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Best-selling products of every organization by units and by revenue, over
+ * the last ten minutes and since the start of the night. Each window is kept
+ * in {@link SpaceSavingSketch}es of a fixed capacity, so memory does not grow
+ * with the size of the catalog and answering needs no database query. Fed
+ * with every committed sale and rebuilt from the sales rollups and the last
+ * minutes of sale transactions on startup.
+ */
+@Slf4j
+@Component
+public class TopSellersTracker {
+
+    private static final int WINDOW_MINUTES = 10;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final SalesRollupRepository salesRollupRepository;
+    private final int capacity;
+    private final ZoneId zone;
+    private final LocalTime nightStart;
+
+    private final ConcurrentMap<Long, OrganizationSketches> organizations = new ConcurrentHashMap<>();
+
+    public TopSellersTracker(InventoryTransactionRepository inventoryTransactionRepository,
+            SalesRollupRepository salesRollupRepository,
+            @Value("${app.sales.top.capacity:64}") int capacity,
+            @Value("${app.sales.top.time-zone:UTC}") String zone,
+            @Value("${app.sales.top.night-start:06:00}") String nightStart) {
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.salesRollupRepository = salesRollupRepository;
+        this.capacity = capacity;
+        this.zone = ZoneId.of(zone);
+        this.nightStart = LocalTime.parse(nightStart);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSaleCompleted(SaleCompletedEvent event) {
+        recordSale(event.organizationId(), event.items(), event.soldAtMillis());
+    }
+
+    public void recordSale(Long organizationId, List<SaleItemResponseDto> items, long soldAtMillis) {
+        long minute = Math.floorDiv(soldAtMillis, MILLIS_PER_MINUTE);
+        long night = nightStartMillis(soldAtMillis);
+        OrganizationSketches sketches = sketchesFor(organizationId);
+        synchronized (sketches) {
+            for (SaleItemResponseDto item : items) {
+                long units = FixedPoint.of(item.quantity());
+                long revenue = FixedPoint.of(item.totalPrice());
+                sketches.addMinute(minute, item.productId(), units, revenue);
+                sketches.addNight(night, item.productId(), units, revenue);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} products with the most units and the most revenue
+     * in {@code window}, best first. Organizations without sales get empty
+     * lists.
+     *
+     * @throws ResponseStatusException 400 if {@code limit} is not between 1
+     *         and the sketch capacity
+     */
+    public TopSellersDto getTopSellers(Long organizationId, TopSellersWindow window, int limit, long nowMillis) {
+        if (limit < 1 || limit > capacity) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'limit' must be between 1 and " + capacity);
+        }
+        long minute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        long night = nightStartMillis(nowMillis);
+        long since = window == TopSellersWindow.TONIGHT
+                ? night
+                : (minute - WINDOW_MINUTES + 1) * MILLIS_PER_MINUTE;
+        SpaceSavingSketch<Long> units = new SpaceSavingSketch<>(capacity * WINDOW_MINUTES);
+        SpaceSavingSketch<Long> revenue = new SpaceSavingSketch<>(capacity * WINDOW_MINUTES);
+        OrganizationSketches sketches = organizations.get(organizationId);
+        if (sketches != null) {
+            synchronized (sketches) {
+                if (window == TopSellersWindow.TONIGHT) {
+                    if (sketches.night == night) {
+                        units.addAll(sketches.nightUnits);
+                        revenue.addAll(sketches.nightRevenue);
+                    }
+                } else {
+                    for (int slot = 0; slot < WINDOW_MINUTES; slot++) {
+                        long slotMinute = sketches.minutes[slot];
+                        if (slotMinute <= minute && slotMinute > minute - WINDOW_MINUTES) {
+                            units.addAll(sketches.minuteUnits[slot]);
+                            revenue.addAll(sketches.minuteRevenue[slot]);
+                        }
+                    }
+                }
+            }
+        }
+        return new TopSellersDto(window,
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(since), zone),
+                toDtos(units.top(limit)),
+                toDtos(revenue.top(limit)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        long night = nightStartMillis(now);
+        OffsetDateTime nightSince = OffsetDateTime.ofInstant(Instant.ofEpochMilli(night), zone);
+        OffsetDateTime minutesSince = OffsetDateTime.ofInstant(
+                Instant.ofEpochMilli((Math.floorDiv(now, MILLIS_PER_MINUTE) - WINDOW_MINUTES + 1) * MILLIS_PER_MINUTE),
+                zone);
+        try {
+            // Rollup hours starting at or after the night start; exact when it falls on a whole UTC hour
+            List<ProductSalesTotal> totals = salesRollupRepository.findProductSalesSince(nightSince);
+            for (ProductSalesTotal total : totals) {
+                OrganizationSketches sketches = sketchesFor(total.getOrganizationId());
+                synchronized (sketches) {
+                    sketches.addNight(night, total.getProductId(), FixedPoint.of(total.getUnits()),
+                            FixedPoint.of(total.getRevenue()));
+                }
+            }
+            List<SaleLine> lines = inventoryTransactionRepository.findSaleLinesSince(minutesSince);
+            for (SaleLine line : lines) {
+                OrganizationSketches sketches = sketchesFor(line.getOrganizationId());
+                long units = FixedPoint.of(line.getQuantity());
+                synchronized (sketches) {
+                    sketches.addMinute(Math.floorDiv(line.getCreatedAt().toInstant().toEpochMilli(),
+                            MILLIS_PER_MINUTE), line.getProductId(), units,
+                            FixedPoint.multiply(FixedPoint.of(line.getUnitPrice()), units));
+                }
+            }
+            log.info("Rebuilt top sellers from {} products sold since {} and {} recent sale lines",
+                    totals.size(), nightSince, lines.size());
+        } catch (RuntimeException e) {
+            // The sketches fill up again with new sales
+            log.warn("Could not rebuild top sellers: {}", e.getMessage());
+        }
+    }
+
+    private OrganizationSketches sketchesFor(Long organizationId) {
+        OrganizationSketches sketches = organizations.get(organizationId);
+        return sketches != null ? sketches
+                : organizations.computeIfAbsent(organizationId, id -> new OrganizationSketches(capacity));
+    }
+
+    private long nightStartMillis(long millis) {
+        ZonedDateTime local = Instant.ofEpochMilli(millis).atZone(zone);
+        ZonedDateTime start = local.toLocalDate().atTime(nightStart).atZone(zone);
+        if (start.isAfter(local)) {
+            start = start.minusDays(1);
+        }
+        return start.toInstant().toEpochMilli();
+    }
+
+    private static List<TopSellerDto> toDtos(List<Estimate<Long>> estimates) {
+        return estimates.stream()
+                .map(estimate -> new TopSellerDto(estimate.key(), FixedPoint.toBigDecimal(estimate.count()),
+                        FixedPoint.toBigDecimal(estimate.error())))
+                .toList();
+    }
+
+    /**
+     * Sketches of one organization: a ring of one per minute of the short
+     * window and one for the current night, each for units and for revenue.
+     * Guarded by the instance's monitor.
+     */
+    private static final class OrganizationSketches {
+        private final long[] minutes = new long[WINDOW_MINUTES];
+        private final SpaceSavingSketch<Long>[] minuteUnits;
+        private final SpaceSavingSketch<Long>[] minuteRevenue;
+        private final SpaceSavingSketch<Long> nightUnits;
+        private final SpaceSavingSketch<Long> nightRevenue;
+        private long night = Long.MIN_VALUE;
+
+        @SuppressWarnings("unchecked")
+        private OrganizationSketches(int capacity) {
+            minuteUnits = new SpaceSavingSketch[WINDOW_MINUTES];
+            minuteRevenue = new SpaceSavingSketch[WINDOW_MINUTES];
+            for (int slot = 0; slot < WINDOW_MINUTES; slot++) {
+                minutes[slot] = Long.MIN_VALUE;
+                minuteUnits[slot] = new SpaceSavingSketch<>(capacity);
+                minuteRevenue[slot] = new SpaceSavingSketch<>(capacity);
+            }
+            nightUnits = new SpaceSavingSketch<>(capacity);
+            nightRevenue = new SpaceSavingSketch<>(capacity);
+        }
+
+        private void addMinute(long minute, Long productId, long units, long revenue) {
+            int slot = (int) Math.floorMod(minute, WINDOW_MINUTES);
+            if (minutes[slot] != minute) {
+                if (minute < minutes[slot]) {
+                    return;
+                }
+                minutes[slot] = minute;
+                minuteUnits[slot].clear();
+                minuteRevenue[slot].clear();
+            }
+            minuteUnits[slot].add(productId, units);
+            minuteRevenue[slot].add(productId, revenue);
+        }
+
+        private void addNight(long nightStart, Long productId, long units, long revenue) {
+            if (night != nightStart) {
+                if (nightStart < night) {
+                    return;
+                }
+                night = nightStart;
+                nightUnits.clear();
+                nightRevenue.clear();
+            }
+            nightUnits.add(productId, units);
+            nightRevenue.add(productId, revenue);
+        }
+    }
+}
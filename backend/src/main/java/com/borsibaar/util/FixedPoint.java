@@ -0,0 +1,58 @@
+package com.borsibaar.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices and quantities as a {@code long} of ten-thousandths, the scale of
+ * the {@code DECIMAL(19,4)} columns, so the pricing engine and the in-memory
+ * caches compute without allocating. Values only become {@link BigDecimal}
+ * at the JPA, JDBC and JSON boundaries, through {@link #of} and
+ * {@link #toBigDecimal}.
+ * <p>
+ * Addition, subtraction and comparison are plain {@code long} arithmetic
+ * ({@link Math#addExact} where overflow is possible). Rounding is always
+ * {@link RoundingMode#HALF_UP}, as {@link BigDecimal#setScale} would round
+ * the exact result; a result beyond the range of {@code long} throws
+ * {@link ArithmeticException} instead of wrapping.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 4;
+    // 1 in fixed point
+    public static final long ONE = 10_000;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * The value in ten-thousandths, rounded half up. Values read from the
+     * price and quantity columns already have scale 4 and are not rounded.
+     */
+    public static long of(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Product of two fixed-point values (e.g. unit price and quantity),
+     * rounded half up to four decimals.
+     */
+    public static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if (high != (low >> 63)) {
+            // The exact product needs more than 64 bits; rare enough to leave to BigDecimal
+            return of(toBigDecimal(a).multiply(toBigDecimal(b)));
+        }
+        long quotient = low / ONE;
+        long remainder = low % ONE;
+        if (Math.abs(remainder) >= ONE / 2) {
+            quotient += Long.signum(low);
+        }
+        return quotient;
+    }
+}
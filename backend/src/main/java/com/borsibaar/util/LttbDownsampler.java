@@ -0,0 +1,131 @@
+package com.borsibaar.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downsamples a time series to at most {@code threshold} points with
+ * Largest-Triangle-Three-Buckets (Steinarsson), in one pass over points added
+ * in time order.
+ * <p>
+ * The first and last point are always kept. The time range between
+ * {@code start} and {@code end} is split into {@code threshold - 2} buckets of
+ * equal length, and from every non-empty bucket the point forming the largest
+ * triangle with the point kept before it and the average of the next
+ * non-empty bucket is kept. Splitting by time rather than by point count is
+ * what allows a single pass: only the points of two buckets are held at a
+ * time. Not thread-safe.
+ */
+public final class LttbDownsampler<T> {
+
+    private record Point<T>(double time, double value, T item) {
+    }
+
+    private final long start;
+    private final long end;
+    private final int buckets;
+    private final List<T> kept = new ArrayList<>();
+
+    private Point<T> first;
+    private Point<T> previous;
+    private Point<T> latest;
+    private List<Point<T>> pending = new ArrayList<>();
+    private int pendingBucket = -1;
+    private List<Point<T>> following = new ArrayList<>();
+    private int followingBucket = -1;
+
+    public LttbDownsampler(long start, long end, int threshold) {
+        if (end <= start) {
+            throw new IllegalArgumentException("end must be after start");
+        }
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2");
+        }
+        this.start = start;
+        this.end = end;
+        this.buckets = threshold - 2;
+    }
+
+    /**
+     * Adds the next point; {@code time} must not be before that of the
+     * previous point.
+     */
+    public void add(long time, double value, T item) {
+        Point<T> point = new Point<>(time - start, value, item);
+        if (first == null) {
+            first = point;
+            previous = point;
+            kept.add(item);
+            return;
+        }
+        // Held back until the next point arrives, as it may be the last one
+        if (latest != null) {
+            place(latest);
+        }
+        latest = point;
+    }
+
+    /**
+     * The kept items in time order. No points may be added afterwards.
+     */
+    public List<T> finish() {
+        if (latest != null) {
+            if (!pending.isEmpty()) {
+                select(pending, following.isEmpty() ? List.of(latest) : following);
+            }
+            if (!following.isEmpty()) {
+                select(following, List.of(latest));
+            }
+            kept.add(latest.item());
+        }
+        return kept;
+    }
+
+    private void place(Point<T> point) {
+        if (buckets == 0) {
+            return;
+        }
+        int bucket = (int) Math.min(buckets - 1,
+                Math.max(0, (long) (point.time() * buckets / (end - start))));
+        if (pending.isEmpty() || bucket == pendingBucket) {
+            pendingBucket = bucket;
+            pending.add(point);
+        } else if (following.isEmpty() || bucket == followingBucket) {
+            followingBucket = bucket;
+            following.add(point);
+        } else {
+            // The following bucket is complete, which is all the pending one was waiting for
+            select(pending, following);
+            pending = following;
+            pendingBucket = followingBucket;
+            following = new ArrayList<>();
+            following.add(point);
+            followingBucket = bucket;
+        }
+    }
+
+    private void select(List<Point<T>> bucket, List<Point<T>> next) {
+        double averageTime = 0;
+        double averageValue = 0;
+        for (Point<T> point : next) {
+            averageTime += point.time();
+            averageValue += point.value();
+        }
+        averageTime /= next.size();
+        averageValue /= next.size();
+
+        Point<T> best = null;
+        double bestArea = -1;
+        for (Point<T> point : bucket) {
+            // Twice the triangle area; only the comparison matters
+            double area = Math.abs((previous.time() - averageTime) * (point.value() - previous.value())
+                    - (previous.time() - point.time()) * (averageValue - previous.value()));
+            if (area > bestArea) {
+                bestArea = area;
+                best = point;
+            }
+        }
+        kept.add(best.item());
+        previous = best;
+    }
+}
@@ -0,0 +1,92 @@
+package com.borsibaar.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sales, units and revenue per minute over the last {@value #MINUTES} minutes.
+ * <p>
+ * Minutes live in a ring of slots, each with its own {@link LongAdder}s, so
+ * concurrent writers do not contend on one cache line and {@link #add}
+ * allocates nothing. Units and revenue are {@link FixedPoint} longs. A slot is cleared when it is first written in
+ * a new minute; readers ignore slots that belong to another minute.
+ */
+public final class MinuteWindowCounter {
+
+    public static final int MINUTES = 60;
+
+    public record Totals(long sales, long units, long revenue) {
+    }
+
+    private final Slot[] slots = new Slot[MINUTES];
+    private volatile long lastMinute = Long.MIN_VALUE;
+
+    public MinuteWindowCounter() {
+        for (int i = 0; i < MINUTES; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Adds to the minute {@code epochMinute}. Minutes that already left the
+     * window are ignored.
+     */
+    public void add(long epochMinute, long sales, long units, long revenue) {
+        Slot slot = slots[(int) Math.floorMod(epochMinute, MINUTES)];
+        long slotMinute = slot.minute;
+        if (slotMinute != epochMinute) {
+            if (epochMinute < slotMinute) {
+                return;
+            }
+            slot.roll(epochMinute);
+        }
+        slot.sales.add(sales);
+        slot.units.add(units);
+        slot.revenue.add(revenue);
+        if (epochMinute > lastMinute) {
+            lastMinute = epochMinute;
+        }
+    }
+
+    /**
+     * Totals of minute {@code nowMinute} and the {@code minutes - 1} minutes
+     * before it.
+     */
+    public Totals totals(long nowMinute, int minutes) {
+        long sales = 0;
+        long units = 0;
+        long revenue = 0;
+        for (Slot slot : slots) {
+            long minute = slot.minute;
+            if (minute <= nowMinute && minute > nowMinute - minutes) {
+                sales += slot.sales.sum();
+                units += slot.units.sum();
+                revenue += slot.revenue.sum();
+            }
+        }
+        return new Totals(sales, units, revenue);
+    }
+
+    /**
+     * Whether nothing was added in the window ending at {@code nowMinute}.
+     */
+    public boolean isIdle(long nowMinute) {
+        return lastMinute <= nowMinute - MINUTES;
+    }
+
+    private static final class Slot {
+        private volatile long minute = Long.MIN_VALUE;
+        private final LongAdder sales = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenue = new LongAdder();
+
+        private synchronized void roll(long epochMinute) {
+            if (minute < epochMinute) {
+                sales.reset();
+                units.reset();
+                revenue.reset();
+                // Published after the reset so writers that see the new minute add to cleared adders
+                minute = epochMinute;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.borsibaar.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates unique, time-ordered reference IDs for inventory transactions
+ * (snowflake layout: 41 bits of milliseconds since 2024-01-01, 10 bits of node
+ * id and a 12-bit per-millisecond sequence).
+ * <p>
+ * Generation is lock-free. When the 4096 IDs of a millisecond are used up the
+ * sequence carries into the next millisecond instead of waiting, and a clock
+ * that moves backwards never produces an ID smaller than the last one.
+ * Replicas must run with distinct {@code app.node-id} values; without one the
+ * node id is derived from the host name.
+ */
+@Slf4j
+@Component
+public class ReferenceIdGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public ReferenceIdGenerator(@Value("${app.node-id:#{null}}") Integer nodeId) {
+        this(nodeId != null ? nodeId : hostNodeId(), System::currentTimeMillis);
+    }
+
+    ReferenceIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the next ID as a positive long; IDs from one node are strictly increasing.
+     */
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            // A new millisecond restarts the sequence; otherwise continue after the last ID
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Returns the next ID formatted as {@code PREFIX-} followed by 16 hex digits,
+     * so references with the same prefix also sort in creation order as strings.
+     */
+    public String nextReference(String prefix) {
+        long id = nextId();
+        char[] chars = new char[prefix.length() + 17];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        chars[prefix.length()] = '-';
+        for (int i = chars.length - 1; i > prefix.length(); i--) {
+            chars[i] = HEX_DIGITS[(int) (id & 0xF)];
+            id >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private static int hostNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = System.getenv().getOrDefault("HOSTNAME", "localhost");
+        }
+        int nodeId = (host.hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+        log.info("app.node-id not set, using node id {} derived from host name {}", nodeId, host);
+        return nodeId;
+    }
+}
@@ -0,0 +1,91 @@
+package com.borsibaar.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heaviest keys of a weighted stream in bounded memory (Space-Saving,
+ * Metwally et al.).
+ * <p>
+ * At most {@code capacity} keys are tracked. A new key arriving at a full
+ * sketch takes over the entry with the smallest count and inherits that count
+ * as its possible overestimate, so every key whose true total is above
+ * {@code total / capacity} is guaranteed to be present, and no count is more
+ * than {@code total / capacity} too high. Not thread-safe.
+ */
+public final class SpaceSavingSketch<K> {
+
+    public record Estimate<K>(K key, long count, long error) {
+    }
+
+    private static final class Entry {
+        private long count;
+        private long error;
+    }
+
+    private final int capacity;
+    private final Map<K, Entry> entries;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    public void add(K key, long weight) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() < capacity) {
+                entry = new Entry();
+            } else {
+                // Linear scan; capacities are small and new keys are rare once the sketch warms up
+                K minKey = null;
+                for (Map.Entry<K, Entry> candidate : entries.entrySet()) {
+                    if (minKey == null || candidate.getValue().count < entry.count) {
+                        minKey = candidate.getKey();
+                        entry = candidate.getValue();
+                    }
+                }
+                entries.remove(minKey);
+                entry.error = entry.count;
+            }
+            entries.put(key, entry);
+        }
+        entry.count += weight;
+    }
+
+    /**
+     * Adds every estimate of {@code other} to this sketch. Counts of keys
+     * missing from one side are taken as zero, so merged counts stay upper
+     * bounds only up to the sum of both error bounds.
+     */
+    public void addAll(SpaceSavingSketch<K> other) {
+        other.entries.forEach((key, entry) -> {
+            add(key, entry.count);
+            entries.get(key).error += entry.error;
+        });
+    }
+
+    /**
+     * Up to {@code limit} tracked keys, highest count first.
+     */
+    public List<Estimate<K>> top(int limit) {
+        List<Estimate<K>> estimates = new ArrayList<>(entries.size());
+        entries.forEach((key, entry) -> estimates.add(new Estimate<>(key, entry.count, entry.error)));
+        estimates.sort(Comparator.comparingLong(Estimate<K>::count).reversed());
+        return estimates.size() > limit ? List.copyOf(estimates.subList(0, limit)) : estimates;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,186 @@
+package com.borsibaar.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fans server-sent events out to many subscribers grouped by topic.
+ * <p>
+ * Each event is serialized once per publish. Every subscriber has a bounded
+ * queue drained by its own virtual thread, so publishers never wait on a slow
+ * client. A subscriber whose queue overflows is disconnected; on reconnect it
+ * receives a fresh initial event. Idle connections get a comment line every
+ * heartbeat interval so proxies keep them open and dead clients are noticed.
+ */
+@Slf4j
+public class SseBroadcaster<K> {
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final String name;
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final long heartbeatMillis;
+    private final int maxSubscribers;
+
+    private final ConcurrentMap<K, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter evictions;
+
+    public SseBroadcaster(String name, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            int queueCapacity, Duration heartbeatInterval, int maxSubscribers) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        Gauge.builder(name + ".subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open server-sent event connections")
+                .register(meterRegistry);
+        this.evictions = Counter.builder(name + ".evictions")
+                .description("Subscribers disconnected because they fell behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream on {@code topic}. The value of {@code initialData} is sent
+     * as the first event; it is computed after the subscriber is registered, so
+     * no event published in between is lost.
+     *
+     * @throws ResponseStatusException 503 if the node is at its subscriber limit
+     */
+    public SseEmitter subscribe(K topic, String initialEventName, Supplier<?> initialData) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open streams");
+        }
+
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        subscribers.compute(topic, (key, topicSubscribers) -> {
+            Set<Subscriber> set = topicSubscribers != null ? topicSubscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        subscriber.drainer = Thread.ofVirtual()
+                .name(name + "-" + topic)
+                .start(() -> subscriber.drain(initialEventName, initialData));
+        return emitter;
+    }
+
+    /**
+     * Queues an event for every subscriber of {@code topic} without blocking.
+     */
+    public void publish(K topic, String eventName, Object data) {
+        Set<Subscriber> topicSubscribers = subscribers.get(topic);
+        if (topicSubscribers == null || topicSubscribers.isEmpty()) {
+            return;
+        }
+
+        Set<DataWithMediaType> frame = frame(eventName, data);
+        for (Subscriber subscriber : topicSubscribers) {
+            if (!subscriber.queue.offer(frame)) {
+                log.info("Disconnecting slow {} subscriber of {}", name, topic);
+                evictions.increment();
+                subscriber.close();
+            }
+        }
+    }
+
+    public boolean hasSubscribers(K topic) {
+        Set<Subscriber> topicSubscribers = subscribers.get(topic);
+        return topicSubscribers != null && !topicSubscribers.isEmpty();
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Disconnects every subscriber, e.g. on shutdown.
+     */
+    public void closeAll() {
+        subscribers.values().forEach(topicSubscribers -> topicSubscribers.forEach(Subscriber::close));
+    }
+
+    private Set<DataWithMediaType> frame(String eventName, Object data) {
+        try {
+            return SseEmitter.event().name(eventName).data(objectMapper.writeValueAsString(data)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize " + eventName + " event", e);
+        }
+    }
+
+    private final class Subscriber {
+        private final K topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Thread drainer;
+
+        private Subscriber(K topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        private void drain(String initialEventName, Supplier<?> initialData) {
+            try {
+                emitter.send(frame(initialEventName, initialData.get()));
+                while (!closed.get()) {
+                    Set<DataWithMediaType> frame = queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    emitter.send(frame != null ? frame : HEARTBEAT);
+                }
+            } catch (InterruptedException e) {
+                // Closed while waiting for the next event
+            } catch (IOException e) {
+                log.debug("{} subscriber of {} went away: {}", name, topic, e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("{} stream of {} failed", name, topic, e);
+                emitter.completeWithError(e);
+            } finally {
+                close();
+                emitter.complete();
+            }
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.computeIfPresent(topic, (key, topicSubscribers) -> {
+                topicSubscribers.remove(this);
+                return topicSubscribers.isEmpty() ? null : topicSubscribers;
+            });
+            subscriberCount.decrementAndGet();
+
+            Thread thread = drainer;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.borsibaar.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck) holding one timer per key.
+ * <p>
+ * Time advances in ticks of {@code tickMillis}. Level 0 has a slot per tick,
+ * and every level above has slots spanning a whole rotation of the level
+ * below. A timer sits on the lowest level whose current rotation contains its
+ * tick, so scheduling, rescheduling and cancelling are constant time, and a
+ * timer is moved down at most once per level before it expires. Timers beyond
+ * the range of the top level wait there and are re-placed on each of its
+ * rotations. A timer expires at the first tick boundary at or after its
+ * deadline, i.e. at most one tick late. Not thread-safe.
+ */
+public final class TimingWheel<K> {
+
+    private static final class Timer<K> {
+        private final K key;
+        private long deadlineMillis;
+        private long tick;
+        private Timer<K> previous = this;
+        private Timer<K> next = this;
+
+        private Timer(K key) {
+            this.key = key;
+        }
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    // Circular lists with a sentinel head per slot
+    private final Timer<K>[][] slots;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levels, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (slotsPerLevel < 2 || Integer.bitCount(slotsPerLevel) != 1) {
+            throw new IllegalArgumentException("slotsPerLevel must be a power of two");
+        }
+        this.bits = Integer.numberOfTrailingZeros(slotsPerLevel);
+        if (levels < 1 || bits * levels > 62) {
+            throw new IllegalArgumentException("levels out of range");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = slotsPerLevel - 1;
+        this.levels = levels;
+        this.slots = new Timer[levels][slotsPerLevel];
+        for (Timer<K>[] level : slots) {
+            for (int slot = 0; slot < slotsPerLevel; slot++) {
+                level[slot] = new Timer<>(null);
+            }
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Sets the timer of {@code key} to expire at {@code deadlineMillis},
+     * replacing its previous deadline. A deadline that has passed expires on
+     * the next {@link #advance}.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        Timer<K> timer = timers.get(key);
+        if (timer == null) {
+            timer = new Timer<>(key);
+            timers.put(key, timer);
+        } else {
+            unlink(timer);
+        }
+        timer.deadlineMillis = deadlineMillis;
+        timer.tick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        place(timer);
+    }
+
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    /**
+     * The moment the timer of {@code key} expires, rounded up to a tick, or
+     * {@code null} if it has none.
+     */
+    public Long deadlineOf(K key) {
+        Timer<K> timer = timers.get(key);
+        return timer == null ? null : timer.tick * tickMillis;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and removes and returns the keys
+     * whose timers expired on the way, in deadline order (by tick).
+     */
+    public List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        advance(nowMillis, (key, deadlineMillis) -> expired.add(key));
+        return expired;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and hands each key whose timer
+     * expired on the way to {@code expired} with its deadline, in deadline
+     * order (by tick). The timer is removed before the call, so
+     * {@code expired} may schedule the key again.
+     */
+    public void advance(long nowMillis, ObjLongConsumer<K> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (timers.isEmpty()) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            // Rotations starting at this tick move their next slot down, highest level first
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bits * level)) & mask));
+                }
+            }
+            Timer<K> head = slots[0][(int) (currentTick & mask)];
+            Timer<K> timer = head.next;
+            head.previous = head;
+            head.next = head;
+            while (timer != head) {
+                Timer<K> next = timer.next;
+                if (timer.tick > currentTick) {
+                    // Only with a single level: beyond its range, back for another rotation
+                    place(timer);
+                } else {
+                    timers.remove(timer.key);
+                    timer.previous = timer;
+                    timer.next = timer;
+                    expired.accept(timer.key, timer.deadlineMillis);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timer<K> head = slots[level][slot];
+        Timer<K> timer = head.next;
+        head.previous = head;
+        head.next = head;
+        while (timer != head) {
+            Timer<K> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        int level = 0;
+        while (level < levels - 1
+                && (timer.tick >>> (bits * (level + 1))) != (currentTick >>> (bits * (level + 1)))) {
+            level++;
+        }
+        Timer<K> head = slots[level][(int) ((timer.tick >>> (bits * level)) & mask)];
+        timer.previous = head.previous;
+        timer.next = head;
+        head.previous.next = timer;
+        head.previous = timer;
+    }
+
+    private static <K> void unlink(Timer<K> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = timer;
+        timer.next = timer;
+    }
+}
@@ -0,0 +1,124 @@
+package com.borsibaar.benchmark;
+
+import com.borsibaar.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sale totals and a price decay pass over a batch of products, in
+ * {@link BigDecimal} and in {@link FixedPoint} longs. Run with the GC
+ * profiler to compare the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}), from the backend directory after
+ * {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.borsibaar.benchmark.FixedPointBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    private static final int PRODUCTS = 500;
+
+    private BigDecimal[] prices;
+    private BigDecimal[] quantities;
+    private BigDecimal[] minPrices;
+    private BigDecimal step;
+
+    private long[] fixedPrices;
+    private long[] fixedQuantities;
+    private long[] fixedMinPrices;
+    private long fixedStep;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new BigDecimal[PRODUCTS];
+        quantities = new BigDecimal[PRODUCTS];
+        minPrices = new BigDecimal[PRODUCTS];
+        fixedPrices = new long[PRODUCTS];
+        fixedQuantities = new long[PRODUCTS];
+        fixedMinPrices = new long[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            // Scale 4, as read from the DECIMAL(19,4) columns
+            prices[i] = BigDecimal.valueOf(20_000 + random.nextInt(80_000), 4);
+            quantities[i] = BigDecimal.valueOf((1 + random.nextInt(5)) * FixedPoint.ONE, 4);
+            minPrices[i] = BigDecimal.valueOf(10_000 + random.nextInt(10_000), 4);
+            fixedPrices[i] = FixedPoint.of(prices[i]);
+            fixedQuantities[i] = FixedPoint.of(quantities[i]);
+            fixedMinPrices[i] = FixedPoint.of(minPrices[i]);
+        }
+        step = new BigDecimal("0.5000");
+        fixedStep = FixedPoint.of(step);
+    }
+
+    @Benchmark
+    public BigDecimal saleTotalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < PRODUCTS; i++) {
+            total = total.add(prices[i].multiply(quantities[i]).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long saleTotalFixedPoint() {
+        long total = 0;
+        for (int i = 0; i < PRODUCTS; i++) {
+            total = Math.addExact(total, FixedPoint.multiply(fixedPrices[i], fixedQuantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal decayBigDecimal() {
+        BigDecimal lowered = BigDecimal.ZERO;
+        for (int i = 0; i < PRODUCTS; i++) {
+            BigDecimal newPrice = prices[i].subtract(step).max(minPrices[i]);
+            if (newPrice.compareTo(prices[i]) != 0) {
+                lowered = lowered.add(newPrice);
+            }
+        }
+        return lowered;
+    }
+
+    @Benchmark
+    public long decayFixedPoint() {
+        long lowered = 0;
+        for (int i = 0; i < PRODUCTS; i++) {
+            long newPrice = Math.max(Math.subtractExact(fixedPrices[i], fixedStep), fixedMinPrices[i]);
+            if (newPrice != fixedPrices[i]) {
+                lowered += newPrice;
+            }
+        }
+        return lowered;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(FixedPointBenchmark.class.getSimpleName());
+        if (args.length > 1 && "-prof".equals(args[0])) {
+            options.addProfiler(args[1]);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.borsibaar.benchmark;
+
+import com.borsibaar.dto.InventoryResponseDto;
+import com.borsibaar.service.InventoryService;
+import com.borsibaar.service.MenuResponseCache;
+import com.borsibaar.service.MenuSnapshotCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the menu of {@code GET /api/inventory} to the response:
+ * serializing the cached snapshot on every request versus copying its
+ * pre-encoded bytes. Both read the same cached snapshot first.
+ * Run from the backend directory after {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.borsibaar.benchmark.MenuResponseBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuResponseBenchmark {
+
+    @Param({"20", "200"})
+    public int menuSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream response = new ByteArrayOutputStream(64 * 1024);
+    private InventoryService inventoryService;
+    private MenuResponseCache menuResponseCache;
+
+    @Setup
+    public void setUp() {
+        List<InventoryResponseDto> menu = new ArrayList<>();
+        String updatedAt = OffsetDateTime.now().toString();
+        for (int i = 0; i < menuSize; i++) {
+            menu.add(new InventoryResponseDto((long) i, 1L, 1000L + i, "Product " + i, BigDecimal.valueOf(40 + i),
+                    new BigDecimal("4.50"), "Description of product " + i, new BigDecimal("4.00"),
+                    new BigDecimal("2.50"), new BigDecimal("8.00"), updatedAt));
+        }
+
+        MenuSnapshotCache snapshots = new MenuSnapshotCache(new ObjectMapper(), new NoTransactionManager(),
+                TimeUnit.HOURS.toSeconds(1), 10_000);
+        snapshots.get(1L, null, () -> menu);
+        inventoryService = new InventoryService(null, null, null, null, null, null, snapshots);
+        menuResponseCache = new MenuResponseCache(inventoryService, objectMapper, true,
+                TimeUnit.HOURS.toSeconds(1), 64L << 20);
+    }
+
+    @Benchmark
+    public int serializePerRequest() throws IOException {
+        response.reset();
+        objectMapper.writeValue(response, inventoryService.getMenu(1L, null).items());
+        return response.size();
+    }
+
+    @Benchmark
+    public int preEncodedJson() throws IOException {
+        response.reset();
+        response.write(menuResponseCache.get(1L, null).json());
+        return response.size();
+    }
+
+    @Benchmark
+    public int preEncodedGzip() throws IOException {
+        response.reset();
+        response.write(menuResponseCache.get(1L, null).gzip());
+        return response.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MenuResponseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static final class NoTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.borsibaar.benchmark;
+
+import com.borsibaar.BorsibaarApplication;
+import com.borsibaar.dto.StationSalesStatsResponseDto;
+import com.borsibaar.dto.UserSalesStatsResponseDto;
+import com.borsibaar.service.SalesStatsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the dashboard sales statistics on a large sales history.
+ * {@code loadSaleRows} is the first step of the original implementation,
+ * which pulled every SALE row of the organization into the JVM before
+ * grouping it; the other two read the hourly sales rollups.
+ * Needs a PostgreSQL database (schema is created by Liquibase); the seeded
+ * organization is removed again after the run.
+ * Run from the backend directory after {@code mvn test-compile}:
+ * {@code java -Dbenchmark.db-url=jdbc:postgresql://localhost:5432/borsibaar?user=postgres
+ * -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.borsibaar.benchmark.SalesStatsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SalesStatsBenchmark {
+
+    @Param({"2000000"})
+    public int sales;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private SalesStatsService salesStatsService;
+    private long organizationId;
+
+    @Setup
+    public void setUp() {
+        String url = System.getProperty("benchmark.db-url",
+                "jdbc:postgresql://localhost:5432/borsibaar?user=postgres");
+        context = new SpringApplicationBuilder(BorsibaarApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=",
+                        "--spring.datasource.driverClassName=org.postgresql.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                        "--spring.liquibase.enabled=true",
+                        "--spring.security.oauth2.client.registration.google.client-id=benchmark",
+                        "--spring.security.oauth2.client.registration.google.client-secret=benchmark",
+                        "--app.sales.batch.enabled=false",
+                        "--logging.level.root=WARN");
+        jdbc = context.getBean(JdbcTemplate.class);
+        salesStatsService = context.getBean(SalesStatsService.class);
+        seed();
+    }
+
+    private void seed() {
+        organizationId = jdbc.queryForObject(
+                "INSERT INTO organizations (name) VALUES ('Sales stats benchmark') RETURNING id", Long.class);
+        Long categoryId = jdbc.queryForObject(
+                "INSERT INTO categories (organization_id, name) VALUES (?, 'Drinks') RETURNING id",
+                Long.class, organizationId);
+        jdbc.update("""
+                INSERT INTO products (organization_id, category_id, name, base_price, is_active)
+                SELECT ?, ?, 'Product ' || g, 3 + g % 5, TRUE FROM generate_series(1, 50) g
+                """, organizationId, categoryId);
+        jdbc.update("""
+                INSERT INTO inventory (product_id, quantity, adjusted_price)
+                SELECT id, 1000000, base_price FROM products WHERE organization_id = ?
+                """, organizationId);
+        jdbc.update("""
+                INSERT INTO users (id, organization_id, name, email)
+                SELECT gen_random_uuid(), ?, 'Bartender ' || g, 'bench-' || ? || '-' || g || '@example.com'
+                FROM generate_series(1, 40) g
+                """, organizationId, organizationId);
+        jdbc.update("""
+                INSERT INTO bar_stations (organization_id, name, is_active)
+                SELECT ?, 'Station ' || g, TRUE FROM generate_series(1, 8) g
+                """, organizationId);
+        // Two line items per sale, each sale by one bartender at one station
+        jdbc.update("""
+                WITH inv AS (SELECT array_agg(i.id) AS ids FROM inventory i
+                             JOIN products p ON p.id = i.product_id WHERE p.organization_id = ?),
+                     usr AS (SELECT array_agg(id) AS ids FROM users WHERE organization_id = ?),
+                     st AS (SELECT array_agg(id) AS ids FROM bar_stations WHERE organization_id = ?)
+                INSERT INTO inventory_transactions (inventory_id, transaction_type, quantity_change,
+                        quantity_before, quantity_after, price_before, price_after, reference_id,
+                        created_by, bar_station_id, created_at)
+                SELECT inv.ids[1 + g % 50], 'SALE', -(1 + g % 3), 1000000, 999999,
+                       3 + g % 5, 3 + g % 5, 'SALE-BENCH-' || (g / 2),
+                       usr.ids[1 + (g / 2) % 40], st.ids[1 + (g / 2) % 8],
+                       now() - g * INTERVAL '1 second'
+                FROM generate_series(1, ?) g, inv, usr, st
+                """, organizationId, organizationId, organizationId, sales);
+        // Same rollup rows the sale path would have written
+        jdbc.update("""
+                INSERT INTO sales_rollups (organization_id, bucket_start, bar_station_id, user_id,
+                        sales_count, units, revenue)
+                SELECT p.organization_id, date_trunc('hour', it.created_at, 'UTC'), it.bar_station_id,
+                       it.created_by, COUNT(DISTINCT it.reference_id), SUM(-it.quantity_change),
+                       SUM(it.price_before * -it.quantity_change)
+                FROM inventory_transactions it
+                JOIN inventory i ON i.id = it.inventory_id
+                JOIN products p ON p.id = i.product_id
+                WHERE p.organization_id = ? AND it.transaction_type = 'SALE'
+                GROUP BY 1, 2, 3, 4
+                """, organizationId);
+        jdbc.execute("ANALYZE inventory_transactions");
+        jdbc.execute("ANALYZE sales_rollups");
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbc.update("DELETE FROM inventory_transactions WHERE inventory_id IN (SELECT i.id FROM inventory i "
+                + "JOIN products p ON p.id = i.product_id WHERE p.organization_id = ?)", organizationId);
+        jdbc.update("DELETE FROM inventory WHERE product_id IN "
+                + "(SELECT id FROM products WHERE organization_id = ?)", organizationId);
+        jdbc.update("DELETE FROM products WHERE organization_id = ?", organizationId);
+        jdbc.update("DELETE FROM categories WHERE organization_id = ?", organizationId);
+        jdbc.update("DELETE FROM users WHERE organization_id = ?", organizationId);
+        jdbc.update("DELETE FROM bar_stations WHERE organization_id = ?", organizationId);
+        jdbc.update("DELETE FROM organizations WHERE id = ?", organizationId);
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserSalesStatsResponseDto> userSalesStats() {
+        return salesStatsService.getUserSalesStats(organizationId, null, null, null, ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public List<StationSalesStatsResponseDto> stationSalesStats() {
+        return salesStatsService.getStationSalesStats(organizationId, null, null, null, ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public int loadSaleRows() {
+        return jdbc.query("""
+                SELECT it.* FROM inventory_transactions it
+                JOIN inventory i ON i.id = it.inventory_id
+                JOIN products p ON p.id = i.product_id
+                WHERE p.organization_id = ? AND it.transaction_type = 'SALE'
+                ORDER BY it.created_at DESC
+                """, (rs, rowNum) -> rs.getLong("id"), organizationId).size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SalesStatsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,162 @@
+package com.borsibaar.benchmark;
+
+import com.borsibaar.BorsibaarApplication;
+import com.borsibaar.config.JwtAuthenticationFilter;
+import com.borsibaar.entity.Role;
+import com.borsibaar.entity.User;
+import com.borsibaar.service.JwtService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.cors.CorsConfigurationSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work the security filters do per API request: the stateless {@code /api/**}
+ * chain ({@code stateless}) against the single session-backed chain all
+ * requests went through before ({@code stateful}, rebuilt here as it was).
+ * Both are run without the observation wrapper the application adds to every
+ * chain alike. The request ends at the filters, so no controller runs, and
+ * JWTs carry their principal so no database is read. Run with the GC profiler to also
+ * compare bytes allocated per request, from the backend directory after
+ * {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.borsibaar.benchmark.SecurityFilterChainBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterChainBenchmark {
+
+    private static final FilterChain CONTROLLER = (request, response) -> {
+    };
+
+    @Param({"stateless", "stateful"})
+    public String chain;
+
+    private ConfigurableApplicationContext context;
+    private Filter filters;
+    private Cookie jwt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(BorsibaarApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.security.oauth2.client.registration.google.client-id=benchmark",
+                        "--spring.security.oauth2.client.registration.google.client-secret=benchmark",
+                        "--jwt.principal-claims.enabled=true",
+                        "--app.candles.backfill.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.borsibaar=WARN",
+                        // Startup jobs find no tables in the empty in-memory database
+                        "--logging.level.org.hibernate=OFF");
+        FilterChainProxy proxy = "stateless".equals(chain)
+                ? new FilterChainProxy(List.of(
+                        context.getBean("apiSecurityFilterChain", SecurityFilterChain.class),
+                        context.getBean("securityFilterChain", SecurityFilterChain.class)))
+                : new FilterChainProxy(previousChain());
+        proxy.afterPropertiesSet();
+        filters = proxy;
+
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("bartender@example.com")
+                .name("Bartender")
+                .organizationId(1L)
+                .role(Role.builder().name("USER").build())
+                .build();
+        jwt = new Cookie("jwt", context.getBean(JwtService.class).generateToken(user));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticated() throws IOException, ServletException {
+        MockHttpServletRequest request = request(HttpMethod.POST, "/api/sales");
+        request.setCookies(jwt);
+        return filter(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse publicEndpoint() throws IOException, ServletException {
+        return filter(request(HttpMethod.GET, "/api/market/top-sellers"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse unauthenticated() throws IOException, ServletException {
+        return filter(request(HttpMethod.GET, "/api/account"));
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filters.doFilter(request, response, CONTROLLER);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(HttpMethod method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method.name(), path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    private SecurityFilterChain previousChain() throws Exception {
+        return context.getBean(HttpSecurity.class)
+                .csrf(csrf -> csrf.disable())
+                .cors(cors -> cors.configurationSource(context.getBean(CorsConfigurationSource.class)))
+                .addFilterBefore(context.getBean(JwtAuthenticationFilter.class),
+                        UsernamePasswordAuthenticationFilter.class)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.GET, "/api/market/**").permitAll()
+                        .anyRequest().authenticated())
+                .oauth2Login(oauth2 -> oauth2.defaultSuccessUrl("/auth/login/success", true))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(SecurityFilterChainBenchmark.class.getSimpleName());
+        if (args.length > 1 && "-prof".equals(args[0])) {
+            options.addProfiler(args[1]);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,191 @@
+package com.borsibaar.benchmark;
+
+import com.borsibaar.BorsibaarApplication;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.projection.SaleLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the queries on the last minute of sales against a year of
+ * transaction history, on the monthly partitioned {@code inventory_transactions}
+ * and on an unpartitioned copy of the same rows. The setup prints which
+ * partitions the last-minute query actually scans; all months but the
+ * current one should be pruned.
+ * Needs a PostgreSQL database (schema is created by Liquibase); the seeded
+ * organization, the copy and the partitions created for the past months are
+ * removed again after the run.
+ * Run from the backend directory after {@code mvn test-compile}:
+ * {@code java -Dbenchmark.db-url=jdbc:postgresql://localhost:5432/borsibaar?user=postgres
+ * -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.borsibaar.benchmark.TransactionPartitionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransactionPartitionBenchmark {
+
+    private static final String LAST_MINUTE_SALES = """
+            SELECT p.organization_id, it.reference_id, it.created_by, it.bar_station_id, p.id,
+                   -it.quantity_change, it.price_before, it.created_at
+            FROM %s it
+            JOIN inventory i ON i.id = it.inventory_id
+            JOIN products p ON p.id = i.product_id
+            WHERE it.transaction_type = 'SALE'
+              AND it.created_at >= now() - INTERVAL '1 minute'
+              AND it.created_at < now() + INTERVAL '1 day'
+            ORDER BY it.reference_id
+            """;
+
+    @Param({"2000000"})
+    public int transactions;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private InventoryTransactionRepository inventoryTransactionRepository;
+    private long organizationId;
+    private final List<YearMonth> createdPartitions = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        String url = System.getProperty("benchmark.db-url",
+                "jdbc:postgresql://localhost:5432/borsibaar?user=postgres");
+        context = new SpringApplicationBuilder(BorsibaarApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=",
+                        "--spring.datasource.driverClassName=org.postgresql.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                        "--spring.liquibase.enabled=true",
+                        "--spring.security.oauth2.client.registration.google.client-id=benchmark",
+                        "--spring.security.oauth2.client.registration.google.client-secret=benchmark",
+                        "--app.sales.batch.enabled=false",
+                        "--app.candles.backfill.enabled=false",
+                        "--logging.level.root=WARN");
+        jdbc = context.getBean(JdbcTemplate.class);
+        inventoryTransactionRepository = context.getBean(InventoryTransactionRepository.class);
+        seed();
+        printScannedPartitions();
+    }
+
+    private void seed() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<YearMonth> existing = inventoryTransactionRepository.findPartitionMonths();
+        for (int i = 12; i >= 0; i--) {
+            YearMonth month = current.minusMonths(i);
+            if (!existing.contains(month)) {
+                inventoryTransactionRepository.createPartition(month);
+                createdPartitions.add(month);
+            }
+        }
+
+        organizationId = jdbc.queryForObject(
+                "INSERT INTO organizations (name) VALUES ('Partition benchmark') RETURNING id", Long.class);
+        Long categoryId = jdbc.queryForObject(
+                "INSERT INTO categories (organization_id, name) VALUES (?, 'Drinks') RETURNING id",
+                Long.class, organizationId);
+        jdbc.update("""
+                INSERT INTO products (organization_id, category_id, name, base_price, is_active)
+                SELECT ?, ?, 'Product ' || g, 3 + g % 5, TRUE FROM generate_series(1, 50) g
+                """, organizationId, categoryId);
+        jdbc.update("""
+                INSERT INTO inventory (product_id, quantity, adjusted_price)
+                SELECT id, 1000000, base_price FROM products WHERE organization_id = ?
+                """, organizationId);
+        // A year of sales and price decays, evenly spread, the newest a few seconds old
+        jdbc.update("""
+                WITH inv AS (SELECT array_agg(i.id) AS ids FROM inventory i
+                             JOIN products p ON p.id = i.product_id WHERE p.organization_id = ?)
+                INSERT INTO inventory_transactions (inventory_id, transaction_type, quantity_change,
+                        quantity_before, quantity_after, price_before, price_after, reference_id, created_at)
+                SELECT inv.ids[1 + g % 50], CASE WHEN g % 4 = 0 THEN 'ADJUSTMENT' ELSE 'SALE' END,
+                       CASE WHEN g % 4 = 0 THEN 0 ELSE -1 END, 1000000, 999999, 3 + g % 5, 3 + g % 5,
+                       'BENCH-' || g, now() - g * (INTERVAL '365 days' / ?)
+                FROM generate_series(1, ?) g, inv
+                """, organizationId, transactions, transactions);
+        jdbc.execute("DROP TABLE IF EXISTS inventory_transactions_benchmark_flat");
+        jdbc.execute("CREATE TABLE inventory_transactions_benchmark_flat AS SELECT * FROM inventory_transactions");
+        jdbc.execute("CREATE INDEX ON inventory_transactions_benchmark_flat (inventory_id, created_at DESC, id DESC)");
+        jdbc.execute("CREATE INDEX ON inventory_transactions_benchmark_flat (created_at)");
+        jdbc.execute("CREATE INDEX ON inventory_transactions_benchmark_flat (transaction_type)");
+        jdbc.execute("ANALYZE inventory_transactions");
+        jdbc.execute("ANALYZE inventory_transactions_benchmark_flat");
+    }
+
+    private void printScannedPartitions() {
+        List<String> plan = jdbc.queryForList(
+                "EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) "
+                        + LAST_MINUTE_SALES.formatted("inventory_transactions"), String.class);
+        System.out.println("Partitions of inventory_transactions: "
+                + inventoryTransactionRepository.findPartitionMonths());
+        System.out.println("Last-minute sales plan:");
+        plan.forEach(line -> System.out.println("  " + line));
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbc.execute("DROP TABLE IF EXISTS inventory_transactions_benchmark_flat");
+        jdbc.update("DELETE FROM inventory_transactions WHERE inventory_id IN (SELECT i.id FROM inventory i "
+                + "JOIN products p ON p.id = i.product_id WHERE p.organization_id = ?)", organizationId);
+        jdbc.update("DELETE FROM inventory WHERE product_id IN "
+                + "(SELECT id FROM products WHERE organization_id = ?)", organizationId);
+        jdbc.update("DELETE FROM products WHERE organization_id = ?", organizationId);
+        jdbc.update("DELETE FROM categories WHERE organization_id = ?", organizationId);
+        jdbc.update("DELETE FROM organizations WHERE id = ?", organizationId);
+        for (YearMonth month : createdPartitions) {
+            inventoryTransactionRepository.detachPartition(month);
+            inventoryTransactionRepository.dropDetachedPartition(month);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public List<SaleLine> saleLinesSinceRepository() {
+        return inventoryTransactionRepository.findSaleLinesSince(OffsetDateTime.now().minusMinutes(1));
+    }
+
+    @Benchmark
+    public int lastMinuteSalesPartitioned() {
+        return jdbc.query(LAST_MINUTE_SALES.formatted("inventory_transactions"),
+                (rs, rowNum) -> rs.getString(2)).size();
+    }
+
+    @Benchmark
+    public int lastMinuteSalesUnpartitioned() {
+        return jdbc.query(LAST_MINUTE_SALES.formatted("inventory_transactions_benchmark_flat"),
+                (rs, rowNum) -> rs.getString(2)).size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionPartitionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -4,11 +4,18 @@ import com.borsibaar.entity.Role;
 import com.borsibaar.entity.User;
 import com.borsibaar.repository.UserRepository;
 import com.borsibaar.service.JwtService;
+import com.borsibaar.service.PrincipalCache;
 import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
@@ -17,10 +24,15 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -41,8 +53,17 @@ class JwtAuthenticationFilterTest {
     @MockitoBean
     private ClientRegistrationRepository clientRegistrationRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     private final String testSecret = "test-secret-key-for-jwt-testing-purposes-at-least-256-bits";
 
+    @AfterEach
+    void tearDown() {
+        principalCache.invalidateAll();
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", false);
+    }
+
     @Test
     void testFilter_WithValidJwtCookie_AuthenticatesUser() throws Exception {
         // Arrange: Set test secret
@@ -82,19 +103,18 @@ class JwtAuthenticationFilterTest {
 
         String invalidToken = "invalid.jwt.token";
 
-        // Act & Assert: Request with invalid JWT should redirect to OAuth2 login (302)
-        // Spring Security redirects unauthenticated requests
+        // Act & Assert: Request with invalid JWT should be rejected (401)
+        // The API chain does not redirect to the OAuth2 login
         mockMvc.perform(get("/api/users")
                 .cookie(new Cookie("jwt", invalidToken)))
-                .andExpect(status().is3xxRedirection());
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
     void testFilter_WithoutJwtCookie_DoesNotAuthenticate() throws Exception {
-        // Act & Assert: Request without JWT cookie should redirect to OAuth2 login
-        // (302)
+        // Act & Assert: Request without JWT cookie should be rejected (401)
         mockMvc.perform(get("/api/users"))
-                .andExpect(status().is3xxRedirection());
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
@@ -109,11 +129,11 @@ class JwtAuthenticationFilterTest {
         // Arrange: Generate valid JWT token
         String token = jwtService.generateToken("nonexistent@example.com");
 
-        // Act & Assert: Request with valid token but non-existent user should redirect
-        // (302)
+        // Act & Assert: Request with valid token but non-existent user should be
+        // rejected (401)
         mockMvc.perform(get("/api/users")
                 .cookie(new Cookie("jwt", token)))
-                .andExpect(status().is3xxRedirection());
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
@@ -151,10 +171,10 @@ class JwtAuthenticationFilterTest {
         String token = jwtService.generateToken(email);
         String expiredToken = token.substring(0, token.length() - 10) + "EXPIREDXXX";
 
-        // Act & Assert: Request with expired/invalid token should redirect (302)
+        // Act & Assert: Request with expired/invalid token should be rejected (401)
         mockMvc.perform(get("/api/users")
                 .cookie(new Cookie("jwt", expiredToken)))
-                .andExpect(status().is3xxRedirection());
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
@@ -194,10 +214,10 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void testFilter_WithEmptyJwtCookie_DoesNotAuthenticate() throws Exception {
-        // Act & Assert: Request with empty JWT cookie should redirect (302)
+        // Act & Assert: Request with empty JWT cookie should be rejected (401)
         mockMvc.perform(get("/api/users")
                 .cookie(new Cookie("jwt", "")))
-                .andExpect(status().is3xxRedirection());
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
@@ -268,4 +288,88 @@ class JwtAuthenticationFilterTest {
                 .cookie(new Cookie("jwt", token)))
                 .andExpect(status().is5xxServerError()); // 500 because endpoint implementation issue
     }
+
+    @Test
+    void testFilter_RepeatedRequests_LoadUserOnce() throws Exception {
+        ReflectionTestUtils.setField(jwtService, "secretKey", testSecret);
+        User adminUser = User.builder()
+                .id(UUID.randomUUID())
+                .email("admin@example.com")
+                .name("Admin User")
+                .organizationId(1L)
+                .role(Role.builder().id(2L).name("ADMIN").build())
+                .build();
+        when(userRepository.findByEmailWithRole("admin@example.com"))
+                .thenReturn(Optional.of(adminUser));
+        String token = jwtService.generateToken("admin@example.com");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/users")
+                    .cookie(new Cookie("jwt", token)))
+                    .andExpect(status().isOk());
+        }
+
+        verify(userRepository, times(1)).findByEmailWithRole("admin@example.com");
+    }
+
+    @Test
+    void testFilter_WithPrincipalClaims_AuthenticatesWithoutDatabase() throws Exception {
+        ReflectionTestUtils.setField(jwtService, "secretKey", testSecret);
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", true);
+        User adminUser = User.builder()
+                .id(UUID.randomUUID())
+                .email("admin@example.com")
+                .name("Admin User")
+                .organizationId(1L)
+                .role(Role.builder().id(2L).name("ADMIN").build())
+                .build();
+        String token = jwtService.generateToken(adminUser);
+
+        mockMvc.perform(get("/api/users")
+                .cookie(new Cookie("jwt", token)))
+                .andExpect(status().isOk());
+
+        verify(userRepository, never()).findByEmailWithRole(anyString());
+        verify(userRepository).findByOrganizationId(1L);
+    }
+
+    @Test
+    void testFilter_ApiRequest_DoesNotCreateSession() throws Exception {
+        ReflectionTestUtils.setField(jwtService, "secretKey", testSecret);
+        User adminUser = User.builder()
+                .id(UUID.randomUUID())
+                .email("admin@example.com")
+                .name("Admin User")
+                .organizationId(1L)
+                .role(Role.builder().id(2L).name("ADMIN").build())
+                .build();
+        when(userRepository.findByEmailWithRole("admin@example.com"))
+                .thenReturn(Optional.of(adminUser));
+        String token = jwtService.generateToken("admin@example.com");
+
+        var result = mockMvc.perform(get("/api/users")
+                .cookie(new Cookie("jwt", token)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void testFilter_ApiRequest_IgnoresSessionAuthentication() throws Exception {
+        // Authenticated through the OAuth2 login, but without a JWT
+        User adminUser = User.builder()
+                .id(UUID.randomUUID())
+                .email("admin@example.com")
+                .organizationId(1L)
+                .role(Role.builder().id(2L).name("ADMIN").build())
+                .build();
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                new SecurityContextImpl(new UsernamePasswordAuthenticationToken(adminUser, null,
+                        List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))));
+
+        mockMvc.perform(get("/api/users").session(session))
+                .andExpect(status().isUnauthorized());
+    }
 }
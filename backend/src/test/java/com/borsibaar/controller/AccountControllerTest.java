@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -73,15 +74,23 @@ class AccountControllerTest {
 
         Role adminRole = Role.builder().id(1L).name("ADMIN").build();
         when(roleRepository.findByName("ADMIN")).thenReturn(Optional.of(adminRole));
+        User stored = userWithOrgAndRole(null, "USER");
+        stored.setId(user.getId());
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(stored));
 
         String payload = "{\"organizationId\":1,\"acceptTerms\":true}";
 
         mockMvc.perform(post("/api/account/onboarding")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(payload))
-                .andExpect(status().isNoContent());
-
-        verify(userRepository).save(any(User.class));
+                .andExpect(status().isNoContent())
+                .andExpect(cookie().exists("jwt"));
+
+        // The stored user is changed, not the principal
+        verify(userRepository).save(stored);
+        assertEquals(1L, stored.getOrganizationId());
+        assertEquals("ADMIN", stored.getRole().getName());
+        assertNull(user.getOrganizationId());
     }
 
     @Test
@@ -4,6 +4,9 @@ import com.borsibaar.dto.*;
 import com.borsibaar.entity.Role;
 import com.borsibaar.entity.User;
 import com.borsibaar.service.InventoryService;
+import com.borsibaar.service.LiveSalesFeedService;
+import com.borsibaar.service.PriceCandleService;
+import com.borsibaar.service.SalesStatsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -17,16 +20,24 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -44,6 +55,15 @@ class InventoryControllerTest {
         @MockitoBean
         private InventoryService inventoryService;
 
+        @MockitoBean
+        private SalesStatsService salesStatsService;
+
+        @MockitoBean
+        private LiveSalesFeedService liveSalesFeedService;
+
+        @MockitoBean
+        private PriceCandleService priceCandleService;
+
         @MockitoBean
         private ClientRegistrationRepository clientRegistrationRepository;
 
@@ -57,11 +77,11 @@ class InventoryControllerTest {
                 User user = userWithOrg(42L, "USER");
                 setAuth(user);
 
-                when(inventoryService.getByOrganization(42L, null)).thenReturn(List.of());
+                when(inventoryService.getMenu(42L, null)).thenReturn(new MenuSnapshot(1, "m1", List.of()));
                 mockMvc.perform(get("/api/inventory"))
                                 .andExpect(status().isOk());
 
-                verify(inventoryService).getByOrganization(42L, null);
+                verify(inventoryService).getMenu(42L, null);
         }
 
         @Test
@@ -97,16 +117,65 @@ class InventoryControllerTest {
 
         @Test
         void getOrganizationInventory_UsesQueryParams_WhenProvided() throws Exception {
-                when(inventoryService.getByOrganization(99L, 7L)).thenReturn(List.of(
+                when(inventoryService.getMenu(99L, 7L)).thenReturn(new MenuSnapshot(1, "m1", List.of(
                                 new InventoryResponseDto(1L, 99L, 10L, "Cola", BigDecimal.ONE, BigDecimal.TEN, "abc",
-                                                BigDecimal.TEN, null, null, OffsetDateTime.now().toString())));
+                                                BigDecimal.TEN, null, null, OffsetDateTime.now().toString()))));
 
                 mockMvc.perform(get("/api/inventory").param("organizationId", "99").param("categoryId", "7"))
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$", hasSize(1)))
                                 .andExpect(jsonPath("$[0].organizationId").value(99));
 
-                verify(inventoryService).getByOrganization(99L, 7L);
+                verify(inventoryService).getMenu(99L, 7L);
+        }
+
+        @Test
+        void getOrganizationInventory_SendsETagAndAnswersMatchingIfNoneMatchWith304() throws Exception {
+                when(inventoryService.getMenu(99L, null)).thenReturn(new MenuSnapshot(3, "m2a", List.of(
+                                new InventoryResponseDto(1L, 99L, 10L, "Cola", BigDecimal.ONE, BigDecimal.TEN, "abc",
+                                                BigDecimal.TEN, null, null, OffsetDateTime.now().toString()))));
+
+                mockMvc.perform(get("/api/inventory").param("organizationId", "99"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"m2a\""))
+                                .andExpect(header().string("Cache-Control", "no-cache"));
+
+                mockMvc.perform(get("/api/inventory").param("organizationId", "99")
+                                .header("If-None-Match", "\"m2a\""))
+                                .andExpect(status().isNotModified())
+                                .andExpect(content().string(""));
+
+                mockMvc.perform(get("/api/inventory").param("organizationId", "99")
+                                .header("If-None-Match", "\"m29\""))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)));
+        }
+
+        @Test
+        void getOrganizationInventory_ServesPreGzippedJsonWhenAccepted() throws Exception {
+                List<InventoryResponseDto> items = new ArrayList<>();
+                for (long i = 0; i < 20; i++) {
+                        items.add(new InventoryResponseDto(i, 99L, 10L + i, "Cola", BigDecimal.ONE, BigDecimal.TEN,
+                                        "abc", BigDecimal.TEN, null, null, null));
+                }
+                when(inventoryService.getMenu(99L, null)).thenReturn(new MenuSnapshot(3, "m2b", items));
+
+                byte[] body = mockMvc.perform(get("/api/inventory").param("organizationId", "99")
+                                .header("Accept-Encoding", "br, gzip;q=0.8"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip"))
+                                .andExpect(header().string("ETag", "\"m2b-gz\""))
+                                .andExpect(header().string("Vary", "Accept-Encoding"))
+                                .andReturn().getResponse().getContentAsByteArray();
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                        assertEquals(objectMapper.writeValueAsString(items), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+
+                mockMvc.perform(get("/api/inventory").param("organizationId", "99")
+                                .header("Accept-Encoding", "gzip;q=0"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Content-Encoding"))
+                                .andExpect(jsonPath("$", hasSize(20)));
         }
 
         @Test
@@ -168,7 +237,7 @@ class InventoryControllerTest {
         void getTransactionHistory_ReturnsList() throws Exception {
                 User user = userWithOrg(4L, "USER");
                 setAuth(user);
-                when(inventoryService.getTransactionHistory(40L, 4L)).thenReturn(List.of(
+                when(inventoryService.getTransactionHistory(40L, 4L, null, null, null, null, 100)).thenReturn(List.of(
                                 new InventoryTransactionResponseDto(1L, 99L, "SALE", BigDecimal.ONE.negate(),
                                                 BigDecimal.TEN, new BigDecimal("9"), BigDecimal.TEN, BigDecimal.TEN,
                                                 "ref", "n", UUID.randomUUID().toString(), "Alice", "a@b.c",
@@ -178,36 +247,184 @@ class InventoryControllerTest {
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$", hasSize(1)));
 
-                verify(inventoryService).getTransactionHistory(40L, 4L);
+                verify(inventoryService).getTransactionHistory(40L, 4L, null, null, null, null, 100);
+        }
+
+        @Test
+        void getTransactionHistory_PassesCursorRangeAndLimit() throws Exception {
+                User user = userWithOrg(4L, "USER");
+                setAuth(user);
+
+                mockMvc.perform(get("/api/inventory/product/{productId}/history", 40L)
+                                .param("before", "2025-03-01T10:00:00+02:00,17")
+                                .param("from", "2025-03-01T00:00:00Z")
+                                .param("limit", "50"))
+                                .andExpect(status().isOk());
+
+                verify(inventoryService).getTransactionHistory(40L, 4L,
+                                new HistoryCursor(OffsetDateTime.parse("2025-03-01T10:00:00+02:00"), 17L), null,
+                                OffsetDateTime.parse("2025-03-01T00:00:00Z"), null, 50);
+        }
+
+        @Test
+        void getTransactionHistory_MalformedCursor_ReturnsBadRequest() throws Exception {
+                User user = userWithOrg(4L, "USER");
+                setAuth(user);
+
+                mockMvc.perform(get("/api/inventory/product/{productId}/history", 40L).param("before", "yesterday"))
+                                .andExpect(status().isBadRequest());
+
+                verifyNoInteractions(inventoryService);
+        }
+
+        @Test
+        void getPriceCandles_UsesUserOrgAndParams() throws Exception {
+                User user = userWithOrg(4L, "USER");
+                setAuth(user);
+                when(priceCandleService.getCandles(eq(4L), eq(40L), eq(CandleResolution.FIVE_MINUTES), any(), any()))
+                                .thenReturn(List.of(new PriceCandleDto("2025-03-01T10:00:00Z", new BigDecimal("3.00"),
+                                                new BigDecimal("3.20"), new BigDecimal("2.90"), new BigDecimal("3.10"),
+                                                new BigDecimal("4"))));
+
+                mockMvc.perform(get("/api/inventory/product/{productId}/candles", 40L)
+                                .param("resolution", "FIVE_MINUTES")
+                                .param("from", "2025-03-01T10:00:00Z"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].close").value(3.10));
+
+                verify(priceCandleService).getCandles(4L, 40L, CandleResolution.FIVE_MINUTES,
+                                OffsetDateTime.parse("2025-03-01T10:00:00Z"), null);
+        }
+
+        @Test
+        void getPriceCandles_DefaultsToOneMinute() throws Exception {
+                User user = userWithOrg(4L, "USER");
+                setAuth(user);
+
+                mockMvc.perform(get("/api/inventory/product/{productId}/candles", 40L))
+                                .andExpect(status().isOk());
+
+                verify(priceCandleService).getCandles(4L, 40L, CandleResolution.ONE_MINUTE, null, null);
+        }
+
+        @Test
+        void getPriceTicks_UsesUserOrgAndParams() throws Exception {
+                User user = userWithOrg(4L, "USER");
+                setAuth(user);
+                when(priceCandleService.getPriceTicks(4L, 40L, null, null, 50)).thenReturn(List.of(
+                                new PriceTickDto("2025-03-01T10:00:00Z", new BigDecimal("2.5000"))));
+
+                mockMvc.perform(get("/api/inventory/product/{productId}/price-ticks", 40L)
+                                .param("limit", "50"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].price").value(2.5));
+        }
+
+        @Test
+        void getSparklines_PublicWithOrganizationParam() throws Exception {
+                OffsetDateTime from = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+                when(priceCandleService.getSparklines(2L, from, null, 120)).thenReturn(new SparklinesDto(from,
+                                from.plusHours(1), CandleResolution.ONE_MINUTE, List.of(new ProductSparklineDto(5L,
+                                                List.of(1L, 2L), List.of(BigDecimal.ONE, BigDecimal.TEN)))));
+
+                mockMvc.perform(get("/api/inventory/sparklines")
+                                .param("organizationId", "2")
+                                .param("from", "2025-03-01T10:00:00Z")
+                                .param("points", "120"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.resolution").value("ONE_MINUTE"))
+                                .andExpect(jsonPath("$.products[0].productId").value(5))
+                                .andExpect(jsonPath("$.products[0].prices", hasSize(2)));
+        }
+
+        @Test
+        void getSparklines_UsesUserOrg_WhenNoQueryParam() throws Exception {
+                User user = userWithOrg(4L, "USER");
+                setAuth(user);
+
+                mockMvc.perform(get("/api/inventory/sparklines"))
+                                .andExpect(status().isOk());
+
+                verify(priceCandleService).getSparklines(4L, null, null, 60);
         }
 
         @Test
         void getUserSalesStats_ReturnsList() throws Exception {
                 User user = userWithOrg(6L, "USER");
                 setAuth(user);
-                when(inventoryService.getUserSalesStats(6L)).thenReturn(List.of(
+                when(salesStatsService.getUserSalesStats(6L, null, null, null, ZoneId.of("UTC"))).thenReturn(List.of(
                                 new UserSalesStatsResponseDto(UUID.randomUUID().toString(), "U", "u@x", 2L,
-                                                new BigDecimal("12.00"), 1L, "S")));
+                                                new BigDecimal("12.00"), 1L, "S", null)));
 
                 mockMvc.perform(get("/api/inventory/sales-stats"))
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$", hasSize(1)));
 
-                verify(inventoryService).getUserSalesStats(6L);
+                verify(salesStatsService).getUserSalesStats(6L, null, null, null, ZoneId.of("UTC"));
+        }
+
+        @Test
+        void getUserSalesStats_PassesRangeAndGranularity() throws Exception {
+                User user = userWithOrg(6L, "USER");
+                setAuth(user);
+                OffsetDateTime from = OffsetDateTime.parse("2025-01-01T00:00:00+02:00");
+                OffsetDateTime to = OffsetDateTime.parse("2025-01-08T00:00:00+02:00");
+                ZoneId zone = ZoneId.of("Europe/Tallinn");
+                when(salesStatsService.getUserSalesStats(6L, from, to, SalesStatsGranularity.DAILY, zone))
+                                .thenReturn(List.of());
+
+                mockMvc.perform(get("/api/inventory/sales-stats")
+                                .param("from", "2025-01-01T00:00:00+02:00")
+                                .param("to", "2025-01-08T00:00:00+02:00")
+                                .param("granularity", "DAILY")
+                                .param("zone", "Europe/Tallinn"))
+                                .andExpect(status().isOk());
+
+                verify(salesStatsService).getUserSalesStats(6L, from, to, SalesStatsGranularity.DAILY, zone);
         }
 
         @Test
         void getStationSalesStats_ReturnsList() throws Exception {
                 User user = userWithOrg(7L, "USER");
                 setAuth(user);
-                when(inventoryService.getStationSalesStats(7L)).thenReturn(List.of(
-                                new StationSalesStatsResponseDto(1L, "Main", 3L, new BigDecimal("30.00"))));
+                when(salesStatsService.getStationSalesStats(7L, null, null, SalesStatsGranularity.HOURLY,
+                                ZoneId.of("UTC"))).thenReturn(List.of(
+                                                new StationSalesStatsResponseDto(1L, "Main", 3L, new BigDecimal("30.00"),
+                                                                "2025-01-01T10:00:00Z")));
 
-                mockMvc.perform(get("/api/inventory/station-sales-stats"))
+                mockMvc.perform(get("/api/inventory/station-sales-stats").param("granularity", "HOURLY"))
                                 .andExpect(status().isOk())
-                                .andExpect(jsonPath("$", hasSize(1)));
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].bucketStart").value("2025-01-01T10:00:00Z"));
+
+                verify(salesStatsService).getStationSalesStats(7L, null, null, SalesStatsGranularity.HOURLY,
+                                ZoneId.of("UTC"));
+        }
+
+        @Test
+        void getStationSalesStats_UnknownGranularity_Returns400() throws Exception {
+                User user = userWithOrg(7L, "USER");
+                setAuth(user);
+
+                mockMvc.perform(get("/api/inventory/station-sales-stats").param("granularity", "WEEKLY"))
+                                .andExpect(status().isBadRequest());
+
+                verifyNoInteractions(salesStatsService);
+        }
+
+        @Test
+        void streamLiveSalesStats_SubscribesUsersOrganization() throws Exception {
+                User user = userWithOrg(6L, "USER");
+                setAuth(user);
+                when(liveSalesFeedService.subscribe(6L)).thenReturn(new SseEmitter());
+
+                mockMvc.perform(get("/api/inventory/live-sales-stats"))
+                                .andExpect(request().asyncStarted())
+                                .andExpect(header().string("X-Accel-Buffering", "no"));
 
-                verify(inventoryService).getStationSalesStats(7L);
+                verify(liveSalesFeedService).subscribe(6L);
         }
 
         private static User userWithOrg(Long orgId, String roleName) {
@@ -0,0 +1,102 @@
+package com.borsibaar.controller;
+
+import com.borsibaar.dto.InventoryResponseDto;
+import com.borsibaar.dto.TopSellerDto;
+import com.borsibaar.dto.TopSellersDto;
+import com.borsibaar.dto.TopSellersWindow;
+import com.borsibaar.repository.OrganizationRepository;
+import com.borsibaar.service.InventoryService;
+import com.borsibaar.service.TopSellersTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+class MarketControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private InventoryService inventoryService;
+
+    @MockitoBean
+    private OrganizationRepository organizationRepository;
+
+    @MockitoBean
+    private TopSellersTracker topSellersTracker;
+
+    @MockitoBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @Test
+    void stream_StartsWithSnapshot() throws Exception {
+        when(organizationRepository.existsById(1L)).thenReturn(true);
+        when(inventoryService.getByOrganization(1L)).thenReturn(List.of(new InventoryResponseDto(9L, 1L, 5L, "Beer",
+                BigDecimal.TEN, BigDecimal.valueOf(3), null, null, null, null, null)));
+
+        MvcResult result = mockMvc.perform(get("/api/market/stream").param("organizationId", "1"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andReturn();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains("event:snapshot")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("event:snapshot"), body);
+        assertTrue(body.contains("\"productId\":5"), body);
+    }
+
+    @Test
+    void stream_UnknownOrganization_ReturnsNotFound() throws Exception {
+        when(organizationRepository.existsById(99L)).thenReturn(false);
+
+        mockMvc.perform(get("/api/market/stream").param("organizationId", "99"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getTopSellers_DefaultsToLast10Minutes() throws Exception {
+        when(topSellersTracker.getTopSellers(eq(1L), eq(TopSellersWindow.LAST_10_MINUTES), eq(10), anyLong()))
+                .thenReturn(new TopSellersDto(TopSellersWindow.LAST_10_MINUTES,
+                        OffsetDateTime.parse("2025-03-01T23:21:00+02:00"),
+                        List.of(new TopSellerDto(5L, new BigDecimal("4.0000"), BigDecimal.ZERO)), List.of()));
+
+        mockMvc.perform(get("/api/market/top-sellers").param("organizationId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").value("LAST_10_MINUTES"))
+                .andExpect(jsonPath("$.byUnits[0].productId").value(5));
+    }
+
+    @Test
+    void getTopSellers_BadLimit_ReturnsBadRequest() throws Exception {
+        when(topSellersTracker.getTopSellers(eq(1L), eq(TopSellersWindow.TONIGHT), eq(0), anyLong()))
+                .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+
+        mockMvc.perform(get("/api/market/top-sellers").param("organizationId", "1")
+                        .param("window", "TONIGHT").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
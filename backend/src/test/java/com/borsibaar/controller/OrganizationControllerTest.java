@@ -42,8 +42,8 @@ class OrganizationControllerTest {
 
     @Test
     void create_ReturnsCreated() throws Exception {
-        OrganizationRequestDto req = new OrganizationRequestDto("Org", BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5));
-        OrganizationResponseDto resp = new OrganizationResponseDto(1L, "Org", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5));
+        OrganizationRequestDto req = new OrganizationRequestDto("Org", BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5), null);
+        OrganizationResponseDto resp = new OrganizationResponseDto(1L, "Org", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5), null);
         when(organizationService.create(any(OrganizationRequestDto.class))).thenReturn(resp);
 
         mockMvc.perform(post("/api/organizations")
@@ -58,7 +58,7 @@ class OrganizationControllerTest {
 
     @Test
     void get_ReturnsDto() throws Exception {
-        OrganizationResponseDto resp = new OrganizationResponseDto(2L, "Org2", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5));
+        OrganizationResponseDto resp = new OrganizationResponseDto(2L, "Org2", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5), null);
         when(organizationService.getById(2L)).thenReturn(resp);
 
         mockMvc.perform(get("/api/organizations/2"))
@@ -71,8 +71,8 @@ class OrganizationControllerTest {
 
     @Test
     void getAll_ReturnsList() throws Exception {
-        OrganizationResponseDto resp1 = new OrganizationResponseDto(1L, "A", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5));
-        OrganizationResponseDto resp2 = new OrganizationResponseDto(2L, "B", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5));
+        OrganizationResponseDto resp1 = new OrganizationResponseDto(1L, "A", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5), null);
+        OrganizationResponseDto resp2 = new OrganizationResponseDto(2L, "B", OffsetDateTime.now(), OffsetDateTime.now(), BigDecimal.valueOf(0.5), BigDecimal.valueOf(0.5), null);
         when(organizationService.getAll()).thenReturn(List.of(resp1, resp2));
 
         mockMvc.perform(get("/api/organizations"))
@@ -87,7 +87,8 @@ class OrganizationControllerTest {
         OrganizationRequestDto req = new OrganizationRequestDto(
                 "Updated Org",
                 BigDecimal.valueOf(1.0),
-                BigDecimal.valueOf(0.25)
+                BigDecimal.valueOf(0.25),
+                30
         );
         OrganizationResponseDto resp = new OrganizationResponseDto(
                 5L,
@@ -95,7 +96,8 @@ class OrganizationControllerTest {
                 OffsetDateTime.now(),
                 OffsetDateTime.now(),
                 BigDecimal.valueOf(1.0),
-                BigDecimal.valueOf(0.25)
+                BigDecimal.valueOf(0.25),
+                30
         );
         when(organizationService.update(5L, req)).thenReturn(resp);
 
@@ -106,7 +108,8 @@ class OrganizationControllerTest {
                 .andExpect(jsonPath("$.id").value(5))
                 .andExpect(jsonPath("$.name").value("Updated Org"))
                 .andExpect(jsonPath("$.priceIncreaseStep").value(1.0))
-                .andExpect(jsonPath("$.priceDecreaseStep").value(0.25));
+                .andExpect(jsonPath("$.priceDecreaseStep").value(0.25))
+                .andExpect(jsonPath("$.priceDecayIntervalSeconds").value(30));
 
         verify(organizationService).update(5L, req);
     }
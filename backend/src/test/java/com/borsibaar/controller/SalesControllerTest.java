@@ -6,6 +6,7 @@ import com.borsibaar.dto.SaleRequestDto;
 import com.borsibaar.dto.SaleResponseDto;
 import com.borsibaar.entity.Role;
 import com.borsibaar.entity.User;
+import com.borsibaar.repository.SaleIdempotencyKeyRepository;
 import com.borsibaar.service.SalesService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
@@ -29,6 +30,9 @@ import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -47,6 +51,9 @@ class SalesControllerTest {
     @MockitoBean
     private SalesService salesService;
 
+    @MockitoBean
+    private SaleIdempotencyKeyRepository saleIdempotencyKeyRepository;
+
     @MockitoBean
     private ClientRegistrationRepository clientRegistrationRepository;
 
@@ -63,7 +70,7 @@ class SalesControllerTest {
         SaleRequestDto req = new SaleRequestDto(List.of(new SaleItemRequestDto(10L, new BigDecimal("2"))), "note", 5L);
         SaleItemResponseDto itemResp = new SaleItemResponseDto(10L, "Cola", new BigDecimal("2"), new BigDecimal("3.00"), new BigDecimal("6.00"));
         SaleResponseDto resp = new SaleResponseDto("SALE-1", List.of(itemResp), new BigDecimal("6.00"), "note", OffsetDateTime.now());
-        when(salesService.processSale(any(SaleRequestDto.class), any(UUID.class), anyLong())).thenReturn(resp);
+        when(salesService.processSale(any(SaleRequestDto.class), any(UUID.class), anyLong(), isNull())).thenReturn(resp);
 
         mockMvc.perform(post("/api/sales")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -73,7 +80,54 @@ class SalesControllerTest {
                 .andExpect(jsonPath("$.items[0].productName").value("Cola"))
                 .andExpect(jsonPath("$.totalAmount").value(6.00));
 
-        verify(salesService).processSale(any(SaleRequestDto.class), any(UUID.class), anyLong());
+        verify(salesService).processSale(any(SaleRequestDto.class), any(UUID.class), anyLong(), isNull());
+    }
+
+    @Test
+    void processSale_RetryWithSameIdempotencyKey_ReturnsOriginalSale() throws Exception {
+        User user = userWithOrg(1L, "USER");
+        setAuth(user);
+
+        SaleRequestDto req = new SaleRequestDto(List.of(new SaleItemRequestDto(10L, new BigDecimal("1"))), null, 5L);
+        SaleResponseDto resp = new SaleResponseDto("SALE-2", List.of(), new BigDecimal("3.00"), null, OffsetDateTime.now());
+        when(salesService.processSale(any(SaleRequestDto.class), any(UUID.class), anyLong(), eq("retry-key")))
+                .thenReturn(resp);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/sales")
+                            .header("Idempotency-Key", "retry-key")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.saleId").value("SALE-2"));
+        }
+
+        verify(salesService, times(1)).processSale(any(SaleRequestDto.class), any(UUID.class), anyLong(), eq("retry-key"));
+    }
+
+    @Test
+    void processSale_IdempotencyKeyReusedForDifferentSale_Returns422() throws Exception {
+        User user = userWithOrg(1L, "USER");
+        setAuth(user);
+
+        SaleRequestDto first = new SaleRequestDto(List.of(new SaleItemRequestDto(10L, new BigDecimal("1"))), null, 5L);
+        SaleRequestDto second = new SaleRequestDto(List.of(new SaleItemRequestDto(11L, new BigDecimal("1"))), null, 5L);
+        SaleResponseDto resp = new SaleResponseDto("SALE-3", List.of(), new BigDecimal("3.00"), null, OffsetDateTime.now());
+        when(salesService.processSale(any(SaleRequestDto.class), any(UUID.class), anyLong(), eq("reused-key")))
+                .thenReturn(resp);
+
+        mockMvc.perform(post("/api/sales")
+                        .header("Idempotency-Key", "reused-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/sales")
+                        .header("Idempotency-Key", "reused-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(salesService, times(1)).processSale(any(SaleRequestDto.class), any(UUID.class), anyLong(), eq("reused-key"));
     }
 
     private static User userWithOrg(Long orgId, String roleName) {
@@ -0,0 +1,94 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.PriceCandleRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceCandleBackfillJobTest {
+
+    @Mock private PriceCandleRepository priceCandleRepository;
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+    @Mock private PriceTickRepository priceTickRepository;
+
+    @Test
+    void backfill_WalksDaysBackFromEarliestCandle() {
+        when(inventoryTransactionRepository.findEarliestSaleAt())
+                .thenReturn(Optional.of(OffsetDateTime.parse("2025-03-01T20:30:00+02:00")));
+        when(priceCandleRepository.findEarliestHourStart())
+                .thenReturn(Optional.of(OffsetDateTime.parse("2025-03-03T09:00:00Z")));
+
+        new PriceCandleBackfillJob(priceCandleRepository, inventoryTransactionRepository, priceTickRepository,
+                true).backfill();
+
+        InOrder inOrder = inOrder(priceCandleRepository);
+        inOrder.verify(priceCandleRepository).backfill(OffsetDateTime.parse("2025-03-02T10:00:00Z"),
+                OffsetDateTime.parse("2025-03-03T10:00:00Z"));
+        inOrder.verify(priceCandleRepository).backfill(OffsetDateTime.parse("2025-03-01T10:00:00Z"),
+                OffsetDateTime.parse("2025-03-02T10:00:00Z"));
+        inOrder.verify(priceCandleRepository).backfill(OffsetDateTime.parse("2025-03-01T00:00:00Z"),
+                OffsetDateTime.parse("2025-03-01T10:00:00Z"));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void backfill_StartsAtEarlierPriceTick() {
+        when(inventoryTransactionRepository.findEarliestSaleAt())
+                .thenReturn(Optional.of(OffsetDateTime.parse("2025-03-02T12:00:00Z")));
+        when(priceTickRepository.findEarliestCreatedAt())
+                .thenReturn(Optional.of(OffsetDateTime.parse("2025-03-01T20:00:00Z")));
+        when(priceCandleRepository.findEarliestHourStart())
+                .thenReturn(Optional.of(OffsetDateTime.parse("2025-03-02T09:00:00Z")));
+
+        new PriceCandleBackfillJob(priceCandleRepository, inventoryTransactionRepository, priceTickRepository,
+                true).backfill();
+
+        verify(priceCandleRepository).backfill(OffsetDateTime.parse("2025-03-01T10:00:00Z"),
+                OffsetDateTime.parse("2025-03-02T10:00:00Z"));
+        verify(priceCandleRepository).backfill(OffsetDateTime.parse("2025-03-01T00:00:00Z"),
+                OffsetDateTime.parse("2025-03-01T10:00:00Z"));
+    }
+
+    @Test
+    void backfill_NoSalesOrTicks_DoesNothing() {
+        when(inventoryTransactionRepository.findEarliestSaleAt()).thenReturn(Optional.empty());
+        when(priceTickRepository.findEarliestCreatedAt()).thenReturn(Optional.empty());
+
+        new PriceCandleBackfillJob(priceCandleRepository, inventoryTransactionRepository, priceTickRepository,
+                true).backfill();
+
+        verifyNoInteractions(priceCandleRepository);
+    }
+
+    @Test
+    void backfill_Disabled_DoesNothing() {
+        new PriceCandleBackfillJob(priceCandleRepository, inventoryTransactionRepository, priceTickRepository,
+                false).backfill();
+
+        verifyNoInteractions(inventoryTransactionRepository, priceTickRepository, priceCandleRepository);
+    }
+
+    @Test
+    void backfill_Failure_IsSwallowed() {
+        when(inventoryTransactionRepository.findEarliestSaleAt())
+                .thenReturn(Optional.of(OffsetDateTime.parse("2025-03-01T00:00:00Z")));
+        when(priceCandleRepository.findEarliestHourStart()).thenReturn(Optional.empty());
+        when(priceCandleRepository.backfill(any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        new PriceCandleBackfillJob(priceCandleRepository, inventoryTransactionRepository, priceTickRepository,
+                true).backfill();
+
+        verify(priceCandleRepository).backfill(any(), any());
+    }
+}
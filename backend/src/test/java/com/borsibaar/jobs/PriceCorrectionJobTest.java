@@ -0,0 +1,138 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.dto.MarketUpdateDto;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.repository.InventoryRepository;
+import com.borsibaar.repository.PriceCandleRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import com.borsibaar.repository.projection.PriceChange;
+import com.borsibaar.repository.projection.PriceDecayCandidate;
+import com.borsibaar.repository.projection.PriceTick;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceCorrectionJobTest {
+
+    @Mock private InventoryRepository inventoryRepository;
+    @Mock private PriceTickRepository priceTickRepository;
+    @Mock private PriceCandleRepository priceCandleRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private PriceCorrectionJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new PriceCorrectionJob(inventoryRepository, priceTickRepository, priceCandleRepository, eventPublisher);
+    }
+
+    @Test
+    void decay_NoProducts_DoesNothing() {
+        assertEquals(List.of(), job.decay(List.of()));
+
+        verifyNoInteractions(inventoryRepository);
+        verifyNoInteractions(priceTickRepository);
+        verifyNoInteractions(priceCandleRepository);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void decay_LowersProductsInOneBatch() {
+        List<PriceDecayCandidate> candidates = List.of(
+                candidate(101L, 11L, "5.00", "1.00", "0.50"),
+                candidate(102L, 12L, "1.20", "1.00", "0.50"),   // clamped to min price
+                candidate(103L, 13L, "1.00", "1.00", "0.50"),   // already at min price
+                candidate(104L, 14L, "2.00", null, "0.50"));   // min price defaults to the step
+        when(inventoryRepository.findPriceDecayCandidatesByProductIds(List.of(11L, 12L, 13L, 14L)))
+                .thenReturn(candidates);
+        when(inventoryRepository.applyPriceChanges(anyList())).thenAnswer(inv -> {
+            List<PriceChange> changes = inv.getArgument(0);
+            // Pretend a sale changed product 14's price meanwhile
+            return changes.stream()
+                    .filter(change -> change.inventoryId() != 104L)
+                    .map(change -> new PriceChange(change.inventoryId(), BigDecimal.TEN, change.priceBefore(),
+                            change.priceAfter()))
+                    .toList();
+        });
+
+        // Every product still on dynamic pricing is handed back, changed or not
+        assertEquals(candidates, job.decay(List.of(11L, 12L, 13L, 14L)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PriceChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(inventoryRepository).applyPriceChanges(changes.capture());
+        assertEquals(List.of(
+                new PriceChange(101L, null, new BigDecimal("5.00"), new BigDecimal("4.5000")),
+                new PriceChange(102L, null, new BigDecimal("1.20"), new BigDecimal("1.0000")),
+                new PriceChange(104L, null, new BigDecimal("2.00"), new BigDecimal("1.5000"))), changes.getValue());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PriceTick>> ticks = ArgumentCaptor.forClass(List.class);
+        verify(priceTickRepository).insertAll(ticks.capture());
+        assertEquals(List.of(11L, 12L), ticks.getValue().stream().map(PriceTick::productId).toList());
+        assertEquals(List.of(new BigDecimal("4.5000"), new BigDecimal("1.0000")),
+                ticks.getValue().stream().map(PriceTick::price).toList());
+        OffsetDateTime tickedAt = ticks.getValue().get(0).createdAt();
+        verify(priceCandleRepository).addPriceReductions(List.of(
+                new PriceChange(101L, BigDecimal.TEN, new BigDecimal("5.00"), new BigDecimal("4.5000")),
+                new PriceChange(102L, BigDecimal.TEN, new BigDecimal("1.20"), new BigDecimal("1.0000"))), tickedAt);
+        // Price reductions are not stock movements
+        verify(inventoryRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new MarketUpdateEvent(1L, List.of(
+                new MarketUpdateDto(11L, BigDecimal.TEN, new BigDecimal("4.5000")),
+                new MarketUpdateDto(12L, BigDecimal.TEN, new BigDecimal("1.0000")))));
+    }
+
+    private static PriceDecayCandidate candidate(Long inventoryId, Long productId, String currentPrice,
+            String minPrice, String step) {
+        return new PriceDecayCandidate() {
+            @Override
+            public Long getInventoryId() {
+                return inventoryId;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getOrganizationId() {
+                return 1L;
+            }
+
+            @Override
+            public BigDecimal getCurrentPrice() {
+                return new BigDecimal(currentPrice);
+            }
+
+            @Override
+            public BigDecimal getMinPrice() {
+                return minPrice == null ? null : new BigDecimal(minPrice);
+            }
+
+            @Override
+            public BigDecimal getPriceDecreaseStep() {
+                return new BigDecimal(step);
+            }
+
+            @Override
+            public Integer getPriceDecayIntervalSeconds() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,212 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.dto.MarketUpdateDto;
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryRepository;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.PriceDecayClaimRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import com.borsibaar.repository.projection.InventoryView;
+import com.borsibaar.repository.projection.LatestPriceTick;
+import com.borsibaar.repository.projection.SaleLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceDecayClaimJobTest {
+
+    @Mock private PriceDecayClaimRepository priceDecayClaimRepository;
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+    @Mock private PriceTickRepository priceTickRepository;
+    @Mock private InventoryRepository inventoryRepository;
+    @Mock private PriceDecayScheduler priceDecayScheduler;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private PriceDecayClaimJob job;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        job = new PriceDecayClaimJob(priceDecayClaimRepository, inventoryTransactionRepository, priceTickRepository,
+                inventoryRepository, priceDecayScheduler, eventPublisher, true, "node-a", 2_000, 6_000);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void heartbeat_BelowFairShare_ClaimsFreeOrganizations() {
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000)).thenReturn(2);
+        when(priceDecayClaimRepository.addMissingOrganizations()).thenReturn(5);
+        when(priceDecayClaimRepository.renew("node-a", 6_000)).thenReturn(List.of(1L));
+        when(priceDecayClaimRepository.claim("node-a", 2, 6_000)).thenReturn(List.of(2L, 3L));
+
+        job.heartbeat(now);
+
+        assertEquals(Set.of(1L, 2L, 3L), job.getClaimedOrganizations());
+        verify(priceDecayScheduler).setOwnedOrganizations(Set.of(1L, 2L, 3L), now);
+        verify(priceDecayClaimRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void heartbeat_AboveFairShare_StopsBeforeReleasing() {
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000)).thenReturn(3);
+        when(priceDecayClaimRepository.addMissingOrganizations()).thenReturn(4);
+        when(priceDecayClaimRepository.renew("node-a", 6_000)).thenReturn(List.of(1L, 2L, 3L, 4L));
+
+        job.heartbeat(now);
+
+        assertEquals(Set.of(1L, 2L), job.getClaimedOrganizations());
+        var inOrder = inOrder(priceDecayScheduler, priceDecayClaimRepository);
+        inOrder.verify(priceDecayScheduler).setOwnedOrganizations(Set.of(1L, 2L), now);
+        inOrder.verify(priceDecayClaimRepository).release("node-a", List.of(4L, 3L));
+        verify(priceDecayClaimRepository, never()).claim(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void heartbeat_RenewalFails_DropsClaimsOnceLeaseMayHaveLapsed() {
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000)).thenReturn(1);
+        when(priceDecayClaimRepository.addMissingOrganizations()).thenReturn(1);
+        when(priceDecayClaimRepository.renew("node-a", 6_000)).thenReturn(List.of(1L));
+        job.heartbeat(now);
+
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        job.heartbeat(now + 2_000);
+        assertEquals(Set.of(1L), job.getClaimedOrganizations());
+
+        job.heartbeat(now + 6_000);
+        assertEquals(Set.of(), job.getClaimedOrganizations());
+        verify(priceDecayScheduler).setOwnedOrganizations(Set.of(), now + 6_000);
+    }
+
+    @Test
+    void heartbeat_PublishesSalesOfOtherNodesOnce() {
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000)).thenReturn(1);
+        when(priceDecayClaimRepository.addMissingOrganizations()).thenReturn(1);
+        when(priceDecayClaimRepository.renew("node-a", 6_000)).thenReturn(List.of(1L));
+        job.startCountingSales(now);
+        // SALE-1 was made here, SALE-2 on another node
+        job.onSaleCompleted(new SaleCompletedEvent(1L, "SALE-1", null, null, List.of(), now + 100));
+        List<SaleLine> lines = List.of(
+                line("SALE-1", 10L, "1", "3.00", now + 100),
+                line("SALE-2", 11L, "2", "4.00", now + 500),
+                line("SALE-2", 12L, "1", "2.50", now + 500));
+        when(inventoryTransactionRepository.findSaleLinesSince(any())).thenReturn(lines);
+        InventoryView first = view(1L, 11L, "4.50");
+        InventoryView second = view(1L, 12L, "3.00");
+        when(inventoryRepository.findInventoryViews(argThat(ids -> Set.copyOf(ids).equals(Set.of(11L, 12L)))))
+                .thenReturn(List.of(first, second));
+
+        job.heartbeat(now + 1_000);
+        job.heartbeat(now + 3_000);
+
+        ArgumentCaptor<SaleCompletedEvent> sales = ArgumentCaptor.forClass(SaleCompletedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(sales.capture());
+        SaleCompletedEvent sale = sales.getValue();
+        assertEquals("SALE-2", sale.saleId());
+        assertEquals(now + 500, sale.soldAtMillis());
+        assertEquals(7L, sale.barStationId());
+        assertEquals(List.of(
+                new SaleItemResponseDto(11L, null, new BigDecimal("2"), new BigDecimal("4.00"),
+                        new BigDecimal("8.0000")),
+                new SaleItemResponseDto(12L, null, BigDecimal.ONE, new BigDecimal("2.50"),
+                        new BigDecimal("2.5000"))), sale.items());
+        verify(eventPublisher, times(1)).publishEvent(new MarketUpdateEvent(1L, List.of(
+                new MarketUpdateDto(11L, BigDecimal.TEN, new BigDecimal("4.50")),
+                new MarketUpdateDto(12L, BigDecimal.TEN, new BigDecimal("3.00")))));
+    }
+
+    @Test
+    void heartbeat_SalesBeforeStartup_AreLeftToRebuilds() {
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000)).thenReturn(1);
+        when(priceDecayClaimRepository.addMissingOrganizations()).thenReturn(1);
+        when(priceDecayClaimRepository.renew("node-a", 6_000)).thenReturn(List.of(1L));
+        List<SaleLine> lines = List.of(line("SALE-1", 11L, "1", "4.00", now - 1_000));
+        when(inventoryTransactionRepository.findSaleLinesSince(any())).thenReturn(lines);
+        InventoryView product = view(1L, 11L, "4.50");
+        when(inventoryRepository.findInventoryViews(List.of(11L))).thenReturn(List.of(product));
+        job.startCountingSales(now);
+
+        job.heartbeat(now + 1_000);
+
+        verify(eventPublisher, never()).publishEvent(any(SaleCompletedEvent.class));
+        verify(eventPublisher).publishEvent(new MarketUpdateEvent(1L,
+                List.of(new MarketUpdateDto(11L, BigDecimal.TEN, new BigDecimal("4.50")))));
+    }
+
+    @Test
+    void heartbeat_PublishesPriceDecaysOfOtherNodesOnce() {
+        when(priceDecayClaimRepository.registerNode("node-a", 6_000)).thenReturn(2);
+        when(priceDecayClaimRepository.addMissingOrganizations()).thenReturn(2);
+        when(priceDecayClaimRepository.renew("node-a", 6_000)).thenReturn(List.of(1L));
+        job.heartbeat(now);
+
+        // Organization 1 is lowered here, organization 2 by the other node
+        when(priceTickRepository.findLatestSince(any())).thenReturn(List.of(
+                tick(1L, 10L, now + 1_000), tick(2L, 20L, now + 1_000)));
+        InventoryView product = view(2L, 20L, "2.00");
+        when(inventoryRepository.findInventoryViews(List.of(20L))).thenReturn(List.of(product));
+        job.heartbeat(now + 2_000);
+        job.heartbeat(now + 4_000);
+
+        verify(eventPublisher, times(1)).publishEvent(new MarketUpdateEvent(2L,
+                List.of(new MarketUpdateDto(20L, BigDecimal.TEN, new BigDecimal("2.00")))));
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void releaseClaims_FreesClaimsOnShutdown() {
+        job.releaseClaims();
+
+        verify(priceDecayScheduler).setOwnedOrganizations(eq(Set.of()), anyLong());
+        verify(priceDecayClaimRepository).releaseAll("node-a");
+    }
+
+    private static LatestPriceTick tick(Long organizationId, Long productId, long createdAtMillis) {
+        return new LatestPriceTick(organizationId, productId,
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(createdAtMillis), ZoneOffset.UTC));
+    }
+
+    private static InventoryView view(Long organizationId, Long productId, String unitPrice) {
+        InventoryView view = mock(InventoryView.class);
+        when(view.getOrganizationId()).thenReturn(organizationId);
+        when(view.getProductId()).thenReturn(productId);
+        when(view.getQuantity()).thenReturn(BigDecimal.TEN);
+        when(view.getUnitPrice()).thenReturn(new BigDecimal(unitPrice));
+        return view;
+    }
+
+    private static SaleLine line(String referenceId, Long productId, String quantity, String unitPrice,
+            long createdAtMillis) {
+        // Only the last line of a sale is read for its sale-level fields
+        SaleLine line = mock(SaleLine.class, withSettings().strictness(Strictness.LENIENT));
+        when(line.getOrganizationId()).thenReturn(1L);
+        when(line.getReferenceId()).thenReturn(referenceId);
+        when(line.getBarStationId()).thenReturn(7L);
+        when(line.getProductId()).thenReturn(productId);
+        when(line.getQuantity()).thenReturn(new BigDecimal(quantity));
+        when(line.getUnitPrice()).thenReturn(new BigDecimal(unitPrice));
+        when(line.getCreatedAt()).thenReturn(OffsetDateTime.ofInstant(Instant.ofEpochMilli(createdAtMillis),
+                ZoneOffset.UTC));
+        return line;
+    }
+}
@@ -0,0 +1,234 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.BorsibaarApplication;
+import com.borsibaar.dto.SaleItemRequestDto;
+import com.borsibaar.dto.SaleRequestDto;
+import com.borsibaar.dto.TopSellersWindow;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.service.LiveSalesCounters;
+import com.borsibaar.service.SalesService;
+import com.borsibaar.service.TopSellersTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three application contexts sharing one PostgreSQL database split the
+ * organizations between them, take over those of a node that stops and see
+ * the sales and price decays of each other.
+ * Skipped unless {@code cluster.db-url} is set, e.g.
+ * {@code mvn test -Dtest=PriceDecayClusterTest
+ * -Dcluster.db-url=jdbc:postgresql://localhost:5432/borsibaar?user=postgres}
+ * (schema is created by Liquibase; the seeded organizations are removed
+ * again).
+ */
+@EnabledIfSystemProperty(named = "cluster.db-url", matches = ".+")
+class PriceDecayClusterTest {
+
+    private static final int NODES = 3;
+    private static final long HEARTBEAT_MILLIS = 200;
+    private static final long LEASE_MILLIS = 600;
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final List<Long> organizationIds = new ArrayList<>();
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        for (int node = 1; node <= NODES; node++) {
+            contexts.add(start("cluster-test-" + node));
+        }
+        jdbc = contexts.get(0).getBean(JdbcTemplate.class);
+        for (int i = 0; i < 7; i++) {
+            organizationIds.add(jdbc.queryForObject(
+                    "INSERT INTO organizations (name) VALUES ('Cluster test " + i + "') RETURNING id", Long.class));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc != null) {
+            for (Long id : organizationIds) {
+                jdbc.update("DELETE FROM inventory_transactions WHERE inventory_id IN (SELECT i.id FROM inventory i "
+                        + "JOIN products p ON p.id = i.product_id WHERE p.organization_id = ?)", id);
+                jdbc.update("DELETE FROM inventory WHERE product_id IN "
+                        + "(SELECT id FROM products WHERE organization_id = ?)", id);
+                jdbc.update("DELETE FROM products WHERE organization_id = ?", id);
+                jdbc.update("DELETE FROM categories WHERE organization_id = ?", id);
+                jdbc.update("DELETE FROM organizations WHERE id = ?", id);
+            }
+        }
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void nodesSplitOrganizationsAndTakeOverFromStoppedNode() {
+        int organizations = jdbc.queryForObject("SELECT count(*) FROM organizations", Integer.class);
+
+        await(() -> splitEvenly(contexts, organizations), 5_000);
+
+        // Heartbeats stop without releasing anything, as if the node died
+        ConfigurableApplicationContext stopped = contexts.get(NODES - 1);
+        stopped.getBean(ScheduledAnnotationBeanPostProcessor.class)
+                .postProcessBeforeDestruction(stopped.getBean(PriceDecayClaimJob.class), "priceDecayClaimJob");
+        long stoppedAt = System.currentTimeMillis();
+        List<ConfigurableApplicationContext> survivors = contexts.subList(0, NODES - 1);
+
+        await(() -> splitEvenly(survivors, organizations), LEASE_MILLIS + 4 * HEARTBEAT_MILLIS);
+        assertTrue(System.currentTimeMillis() - stoppedAt < LEASE_MILLIS + 4 * HEARTBEAT_MILLIS);
+    }
+
+    @Test
+    void stoppingNodeHandsOverRightAway() {
+        int organizations = jdbc.queryForObject("SELECT count(*) FROM organizations", Integer.class);
+        await(() -> splitEvenly(contexts, organizations), 5_000);
+
+        contexts.remove(NODES - 1).close();
+
+        // Faster than the lease, since the claims were released on shutdown
+        await(() -> splitEvenly(contexts, organizations), LEASE_MILLIS);
+    }
+
+    @Test
+    void priceDecayOnOwningNodeReachesMarketFeedOfOthers() {
+        int organizations = jdbc.queryForObject("SELECT count(*) FROM organizations", Integer.class);
+        await(() -> splitEvenly(contexts, organizations), 5_000);
+        Long organizationId = organizationIds.get(0);
+        Long productId = createProduct(organizationId);
+
+        ConfigurableApplicationContext owner = contexts.stream()
+                .filter(node -> node.getBean(PriceDecayClaimJob.class).getClaimedOrganizations()
+                        .contains(organizationId))
+                .findFirst().orElseThrow();
+        List<MarketUpdateEvent> received = new CopyOnWriteArrayList<>();
+        for (ConfigurableApplicationContext node : contexts) {
+            if (node != owner) {
+                node.addApplicationListener((ApplicationListener<PayloadApplicationEvent<?>>) event -> {
+                    if (event.getPayload() instanceof MarketUpdateEvent update
+                            && update.organizationId().equals(organizationId)) {
+                        received.add(update);
+                    }
+                });
+            }
+        }
+
+        owner.getBean(PriceCorrectionJob.class).decay(List.of(productId));
+
+        // Both other nodes publish the lowered price to their own subscribers
+        await(() -> received.size() == NODES - 1, LEASE_MILLIS + 4 * HEARTBEAT_MILLIS);
+        for (MarketUpdateEvent update : received) {
+            assertEquals(1, update.updates().size());
+            assertEquals(productId, update.updates().get(0).productId());
+            assertEquals(0, new BigDecimal("4.50").compareTo(update.updates().get(0).unitPrice()));
+        }
+    }
+
+    @Test
+    void saleOnOneNodeIsCountedByOthers() {
+        int organizations = jdbc.queryForObject("SELECT count(*) FROM organizations", Integer.class);
+        await(() -> splitEvenly(contexts, organizations), 5_000);
+        Long organizationId = organizationIds.get(0);
+        Long productId = createProduct(organizationId);
+
+        contexts.get(0).getBean(SalesService.class).processSale(new SaleRequestDto(
+                List.of(new SaleItemRequestDto(productId, new BigDecimal("2"))), null, null), null, organizationId,
+                null);
+
+        for (ConfigurableApplicationContext node : contexts.subList(1, NODES)) {
+            await(() -> new BigDecimal("10").compareTo(node.getBean(LiveSalesCounters.class)
+                    .snapshot(organizationId, System.currentTimeMillis()).total().revenue60Min()) == 0,
+                    LEASE_MILLIS + 4 * HEARTBEAT_MILLIS);
+            assertEquals(productId, node.getBean(TopSellersTracker.class)
+                    .getTopSellers(organizationId, TopSellersWindow.TONIGHT, 1, System.currentTimeMillis())
+                    .byUnits().get(0).productId());
+        }
+        // Counted once, also after further heartbeats
+        sleep(4 * HEARTBEAT_MILLIS);
+        for (ConfigurableApplicationContext node : contexts) {
+            assertEquals(0, new BigDecimal("2").compareTo(node.getBean(LiveSalesCounters.class)
+                    .snapshot(organizationId, System.currentTimeMillis()).total().itemsSold60Min()));
+        }
+    }
+
+    private Long createProduct(Long organizationId) {
+        Long categoryId = jdbc.queryForObject("INSERT INTO categories (organization_id, name, dynamic_pricing) "
+                + "VALUES (?, 'Beer', TRUE) RETURNING id", Long.class, organizationId);
+        Long productId = jdbc.queryForObject("INSERT INTO products (organization_id, category_id, name, base_price, "
+                + "min_price) VALUES (?, ?, 'Lager', 5.00, 1.00) RETURNING id", Long.class, organizationId, categoryId);
+        jdbc.update("INSERT INTO inventory (product_id, quantity, adjusted_price) VALUES (?, 10, 5.00)", productId);
+        return productId;
+    }
+
+    private static boolean splitEvenly(List<ConfigurableApplicationContext> nodes, int organizations) {
+        Set<Long> claimed = new HashSet<>();
+        int fairShare = Math.ceilDiv(organizations, nodes.size());
+        for (ConfigurableApplicationContext node : nodes) {
+            Set<Long> own = node.getBean(PriceDecayClaimJob.class).getClaimedOrganizations();
+            if (own.size() > fairShare) {
+                return false;
+            }
+            for (Long organizationId : own) {
+                // Claimed by two nodes
+                if (!claimed.add(organizationId)) {
+                    return false;
+                }
+            }
+        }
+        return claimed.size() == organizations;
+    }
+
+    private static void await(BooleanSupplier condition, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Not reached within " + timeoutMillis + " ms");
+            }
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted");
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId) {
+        return new SpringApplicationBuilder(BorsibaarApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + System.getProperty("cluster.db-url"),
+                        "--spring.datasource.username=",
+                        "--spring.datasource.driverClassName=org.postgresql.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                        "--spring.liquibase.enabled=true",
+                        "--spring.security.oauth2.client.registration.google.client-id=cluster-test",
+                        "--spring.security.oauth2.client.registration.google.client-secret=cluster-test",
+                        "--spring.task.scheduling.pool.size=4",
+                        "--app.pricing.decay.cluster.enabled=true",
+                        "--app.pricing.decay.cluster.node-id=" + nodeId,
+                        "--app.pricing.decay.cluster.heartbeat-millis=" + HEARTBEAT_MILLIS,
+                        "--app.pricing.decay.cluster.lease-millis=" + LEASE_MILLIS,
+                        "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,316 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.repository.InventoryRepository;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.projection.PriceDecayCandidate;
+import com.borsibaar.service.SalesActivityTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceDecaySchedulerTest {
+
+    @Mock private InventoryRepository inventoryRepository;
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+    @Mock private PriceCorrectionJob priceCorrectionJob;
+
+    private SalesActivityTracker salesActivityTracker;
+    private SimpleMeterRegistry meterRegistry;
+    private PriceDecayScheduler scheduler;
+    private long start;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        salesActivityTracker = new SalesActivityTracker(inventoryTransactionRepository, 60);
+        meterRegistry = new SimpleMeterRegistry();
+        start = System.currentTimeMillis();
+        now = start;
+        // Organization tasks run inline
+        scheduler = scheduler(Runnable::run, false, 1_000);
+    }
+
+    @Test
+    void tick_SoldProductDecaysOneIntervalAfterItsLastSale() {
+        sell(1L, List.of(10L, 11L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L)))
+                .thenReturn(List.of(candidate(10L, null), candidate(11L, null)));
+        when(priceCorrectionJob.decay(anyList()))
+                .thenAnswer(inv -> candidatesFor(inv.getArgument(0)));
+
+        tickAt(start + 1_000);
+        assertEquals(2, scheduler.size());
+        // Keep the organization selling something else
+        sell(1L, List.of(99L), start + 50_000);
+
+        tickAt(start + 59_000);
+        verify(priceCorrectionJob, never()).decay(anyList());
+
+        tickAt(start + 60_250);
+        verify(priceCorrectionJob).decay(List.of(10L, 11L));
+        // Next step one interval after the decay
+        tickAt(start + 61_000);
+        verifyNoMoreInteractions(priceCorrectionJob);
+        assertEquals(2, scheduler.size());
+
+        var lag = meterRegistry.get("pricing.decay.lag").tag("organization", "1").timer();
+        assertEquals(2, lag.count());
+        assertEquals(500, lag.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, meterRegistry.get("pricing.decay.duration").tag("organization", "1").timer().count());
+    }
+
+    @Test
+    void tick_SlowOrganization_DoesNotHoldUpOthers() {
+        List<Runnable> tasks = new ArrayList<>();
+        scheduler = scheduler(tasks::add, false, 1_000);
+        sell(1L, List.of(10L), start);
+        sell(2L, List.of(20L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L, 2L)))
+                .thenReturn(List.of(candidate(10L, null), candidate(20L, null, 2L)));
+        when(priceCorrectionJob.decay(anyList()))
+                .thenAnswer(inv -> candidatesFor(inv.getArgument(0)));
+        tickAt(start + 1_000);
+        // Arming runs on the executor as well
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        sell(1L, List.of(99L), start + 50_000);
+        sell(2L, List.of(98L), start + 50_000);
+
+        tickAt(start + 60_250);
+        assertEquals(2, tasks.size());
+        // A task still running is not started twice
+        tickAt(start + 60_500);
+        assertEquals(2, tasks.size());
+
+        // Either organization's task completes on its own
+        tasks.get(1).run();
+        verify(priceCorrectionJob).decay(anyList());
+        tasks.get(0).run();
+        verify(priceCorrectionJob).decay(List.of(10L));
+        verify(priceCorrectionJob).decay(List.of(20L));
+    }
+
+    @Test
+    void tick_ArmsOnExecutorAndNotTwiceAtOnce() {
+        List<Runnable> tasks = new ArrayList<>();
+        scheduler = scheduler(tasks::add, false, 1_000);
+        sell(1L, List.of(10L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L))).thenReturn(List.of(candidate(10L, null)));
+
+        tickAt(start + 250);
+        sell(1L, List.of(10L), start + 300);
+        tickAt(start + 500);
+        assertEquals(1, tasks.size());
+        verifyNoInteractions(inventoryRepository);
+
+        tasks.remove(0).run();
+        assertEquals(1, scheduler.size());
+        tickAt(start + 750);
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void tick_OrganizationOverBudget_ContinuesOnNextTick() {
+        scheduler = scheduler(Runnable::run, false, 0);
+        List<Long> productIds = LongStream.range(1_000, 1_000 + PriceDecayScheduler.DECAY_BATCH_SIZE + 1)
+                .boxed()
+                .toList();
+        sell(1L, productIds, start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L))).thenReturn(candidatesFor(productIds));
+        when(priceCorrectionJob.decay(anyList()))
+                .thenAnswer(inv -> candidatesFor(inv.getArgument(0)));
+        tickAt(start + 1_000);
+        sell(1L, List.of(99L), start + 50_000);
+
+        tickAt(start + 60_250);
+        verify(priceCorrectionJob).decay(argThat(ids -> ids.size() == PriceDecayScheduler.DECAY_BATCH_SIZE));
+        verifyNoMoreInteractions(priceCorrectionJob);
+
+        tickAt(start + 60_500);
+        verify(priceCorrectionJob).decay(argThat(ids -> ids.size() == 1));
+    }
+
+    @Test
+    void tick_SalePushesDeadlineBack() {
+        sell(1L, List.of(10L, 11L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L)))
+                .thenReturn(List.of(candidate(10L, null), candidate(11L, null)));
+        when(priceCorrectionJob.decay(anyList()))
+                .thenAnswer(inv -> candidatesFor(inv.getArgument(0)));
+        tickAt(start + 1_000);
+
+        sell(1L, List.of(10L), start + 30_000);
+
+        tickAt(start + 60_250);
+        verify(priceCorrectionJob).decay(List.of(11L));
+        sell(1L, List.of(99L), start + 80_000);
+        tickAt(start + 90_250);
+        verify(priceCorrectionJob).decay(List.of(10L));
+    }
+
+    @Test
+    void tick_OrganizationInterval_OverridesDefault() {
+        sell(1L, List.of(10L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L)))
+                .thenReturn(List.of(candidate(10L, 10)));
+        when(priceCorrectionJob.decay(anyList()))
+                .thenAnswer(inv -> candidatesFor(inv.getArgument(0)));
+        tickAt(start + 1_000);
+
+        sell(1L, List.of(99L), start + 5_000);
+        tickAt(start + 10_250);
+
+        verify(priceCorrectionJob).decay(List.of(10L));
+    }
+
+    @Test
+    void tick_IdleOrganization_DropsItsTimers() {
+        sell(1L, List.of(10L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L)))
+                .thenReturn(List.of(candidate(10L, null)));
+        tickAt(start + 1_000);
+
+        tickAt(start + 60_250);
+
+        verifyNoInteractions(priceCorrectionJob);
+        assertEquals(0, scheduler.size());
+
+        // The next sale arms the organization again
+        sell(1L, List.of(10L), start + 70_000);
+        tickAt(start + 70_250);
+        assertEquals(1, scheduler.size());
+        verify(inventoryRepository, times(2)).findPriceDecayCandidates(Set.of(1L));
+    }
+
+    @Test
+    void tick_ProductNoLongerDynamic_IsDropped() {
+        sell(1L, List.of(10L, 11L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L)))
+                .thenReturn(List.of(candidate(10L, null), candidate(11L, null)));
+        when(priceCorrectionJob.decay(anyList())).thenReturn(List.of(candidate(10L, null)));
+        tickAt(start + 1_000);
+        sell(1L, List.of(99L), start + 50_000);
+
+        tickAt(start + 60_250);
+
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    void tick_DecayFails_RetriesOneIntervalLater() {
+        sell(1L, List.of(10L), start);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L)))
+                .thenReturn(List.of(candidate(10L, null)));
+        when(priceCorrectionJob.decay(anyList())).thenThrow(new IllegalStateException("database down"));
+        tickAt(start + 1_000);
+        sell(1L, List.of(99L), start + 50_000);
+
+        tickAt(start + 60_250);
+
+        verify(priceCorrectionJob).decay(List.of(10L));
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    void setOwnedOrganizations_Clustered_OnlyHandlesOwnedOrganizations() {
+        scheduler = scheduler(Runnable::run, true, 1_000);
+        sell(1L, List.of(10L), start);
+        sell(2L, List.of(20L), start);
+        tickAt(start + 1_000);
+        verifyNoInteractions(inventoryRepository);
+
+        scheduler.setOwnedOrganizations(Set.of(1L, 2L), start + 1_000);
+        when(inventoryRepository.findPriceDecayCandidates(Set.of(1L, 2L)))
+                .thenReturn(List.of(candidate(10L, null), candidate(20L, null, 2L)));
+        tickAt(start + 2_000);
+        assertEquals(2, scheduler.size());
+
+        // Organization 2 moved to another node
+        scheduler.setOwnedOrganizations(Set.of(1L), start + 3_000);
+        assertEquals(1, scheduler.size());
+        sell(2L, List.of(20L), start + 4_000);
+        tickAt(start + 4_000);
+        verify(inventoryRepository, times(1)).findPriceDecayCandidates(anyCollection());
+    }
+
+    private PriceDecayScheduler scheduler(Executor executor, boolean clustered, long budgetMillis) {
+        return new PriceDecayScheduler(inventoryRepository, priceCorrectionJob, salesActivityTracker, meterRegistry,
+                executor, () -> now, 250, clustered, 4, budgetMillis);
+    }
+
+    private void tickAt(long at) {
+        now = at;
+        scheduler.tick(at);
+    }
+
+    private void sell(Long organizationId, List<Long> productIds, long soldAtMillis) {
+        salesActivityTracker.recordSale(organizationId, productIds, soldAtMillis);
+        scheduler.recordSale(organizationId, productIds, soldAtMillis);
+    }
+
+    private static List<PriceDecayCandidate> candidatesFor(List<Long> productIds) {
+        // Product 20 belongs to organization 2, all others to organization 1
+        return productIds.stream()
+                .map(productId -> candidate(productId, null, productId == 20L ? 2L : 1L))
+                .toList();
+    }
+
+    private static PriceDecayCandidate candidate(Long productId, Integer intervalSeconds) {
+        return candidate(productId, intervalSeconds, 1L);
+    }
+
+    private static PriceDecayCandidate candidate(Long productId, Integer intervalSeconds, Long organizationId) {
+        return new PriceDecayCandidate() {
+            @Override
+            public Long getInventoryId() {
+                return productId + 100;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getOrganizationId() {
+                return organizationId;
+            }
+
+            @Override
+            public BigDecimal getCurrentPrice() {
+                return new BigDecimal("5.00");
+            }
+
+            @Override
+            public BigDecimal getMinPrice() {
+                return new BigDecimal("1.00");
+            }
+
+            @Override
+            public BigDecimal getPriceDecreaseStep() {
+                return new BigDecimal("0.50");
+            }
+
+            @Override
+            public Integer getPriceDecayIntervalSeconds() {
+                return intervalSeconds;
+            }
+        };
+    }
+}
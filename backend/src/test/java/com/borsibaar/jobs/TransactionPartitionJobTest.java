@@ -0,0 +1,85 @@
+package com.borsibaar.jobs;
+
+import com.borsibaar.repository.InventoryTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionJobTest {
+
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+
+    @Test
+    void maintainPartitions_CreatesMissingMonthsAhead() {
+        when(inventoryTransactionRepository.findPartitionMonths())
+                .thenReturn(List.of(OCTOBER.minusMonths(1), OCTOBER, OCTOBER.plusMonths(1)));
+
+        job(3, 0, false).maintainPartitions(OCTOBER);
+
+        verify(inventoryTransactionRepository).createPartition(OCTOBER.plusMonths(2));
+        verify(inventoryTransactionRepository).createPartition(OCTOBER.plusMonths(3));
+        verify(inventoryTransactionRepository, times(2)).createPartition(any());
+        verify(inventoryTransactionRepository, never()).detachPartition(any());
+    }
+
+    @Test
+    void maintainPartitions_DetachesMonthsBeforeRetention() {
+        when(inventoryTransactionRepository.findPartitionMonths()).thenReturn(List.of(
+                YearMonth.of(2026, 7), YearMonth.of(2026, 8), YearMonth.of(2026, 9), OCTOBER));
+
+        job(0, 2, false).maintainPartitions(OCTOBER);
+
+        verify(inventoryTransactionRepository).detachPartition(YearMonth.of(2026, 7));
+        verify(inventoryTransactionRepository, times(1)).detachPartition(any());
+        verify(inventoryTransactionRepository, never()).dropDetachedPartition(any());
+        verify(inventoryTransactionRepository, never()).createPartition(any());
+    }
+
+    @Test
+    void maintainPartitions_DropsExpiredMonthsAndContinuesAfterFailure() {
+        when(inventoryTransactionRepository.findPartitionMonths()).thenReturn(List.of(
+                YearMonth.of(2026, 1), YearMonth.of(2026, 2), OCTOBER));
+        doThrow(new IllegalStateException("lock timeout"))
+                .when(inventoryTransactionRepository).detachPartition(YearMonth.of(2026, 1));
+
+        job(0, 6, true).maintainPartitions(OCTOBER);
+
+        InOrder inOrder = inOrder(inventoryTransactionRepository);
+        inOrder.verify(inventoryTransactionRepository).detachPartition(YearMonth.of(2026, 2));
+        inOrder.verify(inventoryTransactionRepository).dropDetachedPartition(YearMonth.of(2026, 2));
+        verify(inventoryTransactionRepository, never()).dropDetachedPartition(YearMonth.of(2026, 1));
+    }
+
+    @Test
+    void maintainPartitions_ListingFails_DoesNothing() {
+        when(inventoryTransactionRepository.findPartitionMonths()).thenThrow(new IllegalStateException("no"));
+
+        job(3, 2, true).maintainPartitions(OCTOBER);
+
+        verify(inventoryTransactionRepository, never()).createPartition(any());
+        verify(inventoryTransactionRepository, never()).detachPartition(any());
+    }
+
+    @Test
+    void maintainPartitions_Disabled_DoesNothing() {
+        new TransactionPartitionJob(inventoryTransactionRepository, false, 3, 2, false).maintainPartitions();
+
+        verifyNoInteractions(inventoryTransactionRepository);
+    }
+
+    private TransactionPartitionJob job(int monthsAhead, int retentionMonths, boolean dropExpired) {
+        return new TransactionPartitionJob(inventoryTransactionRepository, true, monthsAhead, retentionMonths,
+                dropExpired);
+    }
+}
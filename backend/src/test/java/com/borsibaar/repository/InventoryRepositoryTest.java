@@ -0,0 +1,129 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.Category;
+import com.borsibaar.entity.Inventory;
+import com.borsibaar.entity.Organization;
+import com.borsibaar.entity.Product;
+import com.borsibaar.repository.projection.InventoryView;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class InventoryRepositoryTest {
+
+    @Autowired private InventoryRepository inventoryRepository;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Organization organization;
+    private Category drinks;
+    private Category snacks;
+
+    @BeforeEach
+    void setUp() {
+        organization = new Organization();
+        organization.setName("Bar");
+        organization.setCreatedAt(OffsetDateTime.now());
+        organization.setUpdatedAt(OffsetDateTime.now());
+        entityManager.persist(organization);
+        drinks = category("Drinks");
+        snacks = category("Snacks");
+    }
+
+    @Test
+    void findMenuItems_ReturnsActiveProductsSortedByName() {
+        product("Stout", drinks, true, new BigDecimal("4.0000"), null);
+        product("Cider", drinks, true, new BigDecimal("3.0000"), new BigDecimal("3.5000"));
+        product("Old lager", drinks, false, BigDecimal.ONE, null);
+        product("Chips", snacks, true, new BigDecimal("2.0000"), null);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<InventoryView> menu = inventoryRepository.findMenuItems(organization.getId());
+
+        assertEquals(List.of("Chips", "Cider", "Stout"), menu.stream().map(InventoryView::getProductName).toList());
+        InventoryView cider = menu.get(1);
+        assertEquals(organization.getId(), cider.getOrganizationId());
+        assertEquals(0, new BigDecimal("3.5").compareTo(cider.getUnitPrice()));
+        assertEquals(0, new BigDecimal("3").compareTo(cider.getBasePrice()));
+        assertEquals(0, new BigDecimal("4").compareTo(menu.get(2).getUnitPrice()));
+        assertEquals(List.of("Cider", "Stout"), inventoryRepository
+                .findMenuItemsByCategory(organization.getId(), drinks.getId()).stream()
+                .map(InventoryView::getProductName).toList());
+    }
+
+    @Test
+    void findInventoryView_IncludesInactiveProducts() {
+        Product product = product("Old lager", drinks, false, BigDecimal.ONE, null);
+        entityManager.flush();
+        entityManager.clear();
+
+        InventoryView view = inventoryRepository.findInventoryView(organization.getId(), product.getId()).orElseThrow();
+
+        assertFalse(view.getActive());
+        assertTrue(inventoryRepository.findInventoryView(organization.getId() + 1, product.getId()).isEmpty());
+    }
+
+    @Test
+    void menuQueries_RunOneStatementRegardlessOfMenuSize() {
+        Product first = product("Product 0", drinks, true, BigDecimal.ONE, null);
+        assertEquals(1, statementsFor(() -> inventoryRepository.findMenuItems(organization.getId())));
+
+        for (int i = 1; i < 30; i++) {
+            product("Product " + i, i % 2 == 0 ? drinks : snacks, true, BigDecimal.ONE, null);
+        }
+        assertEquals(1, statementsFor(() -> inventoryRepository.findMenuItems(organization.getId())));
+        assertEquals(1, statementsFor(() -> inventoryRepository.findMenuItemsByCategory(organization.getId(), drinks.getId())));
+        assertEquals(1, statementsFor(() -> inventoryRepository.findInventoryView(organization.getId(), first.getId())));
+    }
+
+    private long statementsFor(Supplier<?> query) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        query.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setOrganizationId(organization.getId());
+        category.setName(name);
+        category.setDynamicPricing(true);
+        return entityManager.persist(category);
+    }
+
+    private Product product(String name, Category category, boolean active, BigDecimal basePrice,
+            BigDecimal adjustedPrice) {
+        Product product = new Product();
+        product.setOrganizationId(organization.getId());
+        product.setCategoryId(category.getId());
+        product.setName(name);
+        product.setBasePrice(basePrice);
+        product.setActive(active);
+        product.setCreatedAt(OffsetDateTime.now());
+        product.setUpdatedAt(OffsetDateTime.now());
+        entityManager.persist(product);
+        entityManager.persist(new Inventory(product, BigDecimal.TEN, adjustedPrice));
+        return product;
+    }
+}
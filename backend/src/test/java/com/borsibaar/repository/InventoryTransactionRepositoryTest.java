@@ -0,0 +1,144 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.dto.HistoryCursor;
+import com.borsibaar.entity.Category;
+import com.borsibaar.entity.Inventory;
+import com.borsibaar.entity.InventoryTransaction;
+import com.borsibaar.entity.Organization;
+import com.borsibaar.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class InventoryTransactionRepositoryTest {
+
+    private static final OffsetDateTime TEN = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+
+    @Autowired private InventoryTransactionRepository inventoryTransactionRepository;
+    @Autowired private TestEntityManager entityManager;
+
+    private Long inventoryId;
+    private Long otherInventoryId;
+
+    @BeforeEach
+    void setUp() {
+        Organization organization = new Organization();
+        organization.setName("Bar");
+        entityManager.persist(organization);
+        Category category = new Category();
+        category.setOrganizationId(organization.getId());
+        category.setName("Drinks");
+        category.setDynamicPricing(true);
+        entityManager.persist(category);
+        inventoryId = inventory(organization, category, "Beer");
+        otherInventoryId = inventory(organization, category, "Cider");
+        entityManager.flush();
+
+        // Minutes 0..5, with two rows sharing minute 3 so the id breaks the tie
+        List<InventoryTransaction> rows = new ArrayList<>();
+        for (int minute : new int[] {0, 1, 2, 3, 3, 4, 5}) {
+            rows.add(transaction(inventoryId, TEN.plusMinutes(minute)));
+        }
+        rows.add(transaction(otherInventoryId, TEN.plusMinutes(2)));
+        inventoryTransactionRepository.insertAll(rows);
+    }
+
+    @Test
+    void findHistoryPage_PagesNewestFirstWithoutGapsOrRepeats() {
+        List<InventoryTransaction> all = inventoryTransactionRepository.findHistoryPage(inventoryId, null, null,
+                null, null, 100);
+        assertEquals(7, all.size());
+        assertTrue(all.stream().allMatch(t -> t.getInventoryId().equals(inventoryId)));
+
+        List<Long> paged = new ArrayList<>();
+        HistoryCursor before = null;
+        List<InventoryTransaction> page;
+        do {
+            page = inventoryTransactionRepository.findHistoryPage(inventoryId, before, null, null, null, 2);
+            page.forEach(t -> paged.add(t.getId()));
+            if (!page.isEmpty()) {
+                InventoryTransaction last = page.get(page.size() - 1);
+                before = new HistoryCursor(last.getCreatedAt(), last.getId());
+            }
+        } while (page.size() == 2);
+
+        assertEquals(all.stream().map(InventoryTransaction::getId).toList(), paged);
+        InventoryTransaction first = all.get(0);
+        assertEquals(0, first.getCreatedAt().compareTo(TEN.plusMinutes(5)));
+        assertEquals("ADJUSTMENT", first.getTransactionType());
+        assertEquals(0, new BigDecimal("2.5").compareTo(first.getPriceAfter()));
+        // Same minute: higher id first
+        assertTrue(all.get(2).getId() > all.get(3).getId());
+    }
+
+    @Test
+    void findHistoryPage_AfterCursor_ReturnsRowsRightAboveItNewestFirst() {
+        List<InventoryTransaction> all = inventoryTransactionRepository.findHistoryPage(inventoryId, null, null,
+                null, null, 100);
+        InventoryTransaction oldest = all.get(all.size() - 1);
+
+        List<InventoryTransaction> page = inventoryTransactionRepository.findHistoryPage(inventoryId, null,
+                new HistoryCursor(oldest.getCreatedAt(), oldest.getId()), null, null, 2);
+
+        assertEquals(List.of(all.get(4).getId(), all.get(5).getId()),
+                page.stream().map(InventoryTransaction::getId).toList());
+    }
+
+    @Test
+    void findHistoryPage_TimeRange_IncludesFromAndExcludesTo() {
+        List<InventoryTransaction> page = inventoryTransactionRepository.findHistoryPage(inventoryId, null, null,
+                TEN.plusMinutes(1), TEN.plusMinutes(3), 100);
+
+        assertEquals(2, page.size());
+        assertEquals(0, page.get(0).getCreatedAt().compareTo(TEN.plusMinutes(2)));
+        assertEquals(0, page.get(1).getCreatedAt().compareTo(TEN.plusMinutes(1)));
+    }
+
+    @Test
+    void findEarliestSaleAt_IgnoresOtherTransactionTypes() {
+        assertTrue(inventoryTransactionRepository.findEarliestSaleAt().isEmpty());
+
+        InventoryTransaction sale = transaction(inventoryId, TEN.plusMinutes(4));
+        sale.setTransactionType("SALE");
+        inventoryTransactionRepository.insertAll(List.of(sale));
+
+        assertEquals(0, inventoryTransactionRepository.findEarliestSaleAt().orElseThrow()
+                .compareTo(TEN.plusMinutes(4)));
+    }
+
+    private Long inventory(Organization organization, Category category, String name) {
+        Product product = new Product();
+        product.setOrganizationId(organization.getId());
+        product.setCategoryId(category.getId());
+        product.setName(name);
+        product.setBasePrice(BigDecimal.ONE);
+        product.setActive(true);
+        entityManager.persist(product);
+        return entityManager.persist(new Inventory(product, BigDecimal.TEN, null)).getId();
+    }
+
+    private static InventoryTransaction transaction(Long inventoryId, OffsetDateTime createdAt) {
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.setInventoryId(inventoryId);
+        transaction.setTransactionType("ADJUSTMENT");
+        transaction.setQuantityChange(BigDecimal.ZERO);
+        transaction.setQuantityBefore(BigDecimal.TEN);
+        transaction.setQuantityAfter(BigDecimal.TEN);
+        transaction.setPriceBefore(new BigDecimal("3.00"));
+        transaction.setPriceAfter(new BigDecimal("2.50"));
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+}
@@ -0,0 +1,159 @@
+package com.borsibaar.repository;
+
+import com.borsibaar.entity.BarStation;
+import com.borsibaar.entity.Organization;
+import com.borsibaar.entity.ProductSalesRollup;
+import com.borsibaar.entity.SalesRollup;
+import com.borsibaar.entity.User;
+import com.borsibaar.repository.projection.ProductSalesTotal;
+import com.borsibaar.repository.projection.StationSalesBucket;
+import com.borsibaar.repository.projection.StationSalesStats;
+import com.borsibaar.repository.projection.UserSalesBucket;
+import com.borsibaar.repository.projection.UserSalesStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SalesRollupRepositoryTest {
+
+    private static final OffsetDateTime TEN = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+    private static final OffsetDateTime ELEVEN = TEN.plusHours(1);
+    private static final OffsetDateTime NOON = TEN.plusHours(2);
+
+    @Autowired private SalesRollupRepository salesRollupRepository;
+    @Autowired private TestEntityManager entityManager;
+
+    private Long organizationId;
+    private User alice;
+    private User bob;
+    private BarStation main;
+    private BarStation terrace;
+
+    @BeforeEach
+    void setUp() {
+        Organization organization = new Organization();
+        organization.setName("Bar");
+        organizationId = entityManager.persist(organization).getId();
+        alice = user("Alice");
+        bob = user("Bob");
+        main = station("Main");
+        terrace = station("Terrace");
+    }
+
+    @Test
+    void findUserSalesStats_SumsHoursPerUserAndStation() {
+        rollup(TEN, alice, main, 1, "8.00");
+        rollup(ELEVEN, alice, main, 1, "5.00");
+        rollup(ELEVEN, alice, terrace, 1, "4.00");
+        rollup(TEN, bob, main, 1, "9.00");
+        rollup(TEN, null, main, 1, "4.00");
+
+        List<UserSalesStats> stats = salesRollupRepository.findUserSalesStats(organizationId, TEN, NOON);
+
+        assertEquals(3, stats.size());
+        UserSalesStats first = stats.get(0);
+        assertEquals(alice.getId(), first.getUserId());
+        assertEquals("Alice", first.getUserName());
+        assertEquals(main.getId(), first.getBarStationId());
+        assertEquals("Main", first.getBarStationName());
+        assertEquals(2L, first.getSalesCount());
+        assertEquals(0, new BigDecimal("13.00").compareTo(first.getTotalRevenue()));
+        assertEquals(1, salesRollupRepository.findUserSalesStats(organizationId, ELEVEN, NOON).stream()
+                .filter(s -> s.getBarStationId().equals(main.getId())).count());
+    }
+
+    @Test
+    void findHourlyUserSalesStats_ReturnsOneRowPerHour() {
+        rollup(TEN, alice, main, 2, "8.00");
+        rollup(ELEVEN, alice, main, 1, "5.00");
+        rollup(NOON, alice, main, 1, "5.00");
+
+        List<UserSalesBucket> stats = salesRollupRepository.findHourlyUserSalesStats(organizationId, TEN, NOON);
+
+        assertEquals(List.of(TEN.toInstant(), ELEVEN.toInstant()),
+                stats.stream().map(s -> s.getBucketStart().toInstant()).toList());
+        assertEquals(2L, stats.get(0).getSalesCount());
+    }
+
+    @Test
+    void findStationSalesStats_SumsHoursPerStation() {
+        rollup(TEN, alice, main, 1, "11.50");
+        rollup(TEN, bob, main, 1, "9.00");
+        rollup(ELEVEN, alice, terrace, 1, "4.00");
+        rollup(ELEVEN, alice, null, 1, "4.00");
+
+        List<StationSalesStats> stats = salesRollupRepository.findStationSalesStats(organizationId, TEN, NOON);
+
+        assertEquals(List.of("Main", "Terrace"), stats.stream().map(StationSalesStats::getBarStationName).toList());
+        assertEquals(2L, stats.get(0).getSalesCount());
+        assertEquals(0, new BigDecimal("20.50").compareTo(stats.get(0).getTotalRevenue()));
+        assertTrue(salesRollupRepository.findStationSalesStats(organizationId + 1, TEN, NOON).isEmpty());
+    }
+
+    @Test
+    void findHourlyStationSalesStats_OrdersByHour() {
+        rollup(ELEVEN, alice, main, 1, "4.00");
+        rollup(TEN, alice, terrace, 1, "4.00");
+
+        List<StationSalesBucket> stats = salesRollupRepository.findHourlyStationSalesStats(organizationId, TEN,
+                NOON);
+
+        assertEquals(List.of("Terrace", "Main"), stats.stream().map(StationSalesStats::getBarStationName).toList());
+    }
+
+    @Test
+    void findProductSalesSince_SumsHoursPerProduct() {
+        productRollup(TEN, alice, 5L, "2", "7.00");
+        productRollup(ELEVEN, alice, 5L, "1", "3.50");
+        productRollup(ELEVEN, bob, 5L, "3", "10.50");
+        productRollup(ELEVEN, bob, 6L, "1", "4.00");
+
+        List<ProductSalesTotal> totals = salesRollupRepository.findProductSalesSince(ELEVEN);
+
+        assertEquals(2, totals.size());
+        ProductSalesTotal beer = totals.stream().filter(t -> t.getProductId().equals(5L)).findFirst().orElseThrow();
+        assertEquals(organizationId, beer.getOrganizationId());
+        assertEquals(0, new BigDecimal("4").compareTo(beer.getUnits()));
+        assertEquals(0, new BigDecimal("14.00").compareTo(beer.getRevenue()));
+    }
+
+    private void productRollup(OffsetDateTime bucketStart, User user, Long productId, String units,
+            String revenue) {
+        entityManager.persist(new ProductSalesRollup(null, organizationId, bucketStart, main.getId(), user.getId(),
+                productId, 1L, new BigDecimal(units), new BigDecimal(revenue)));
+    }
+
+    private void rollup(OffsetDateTime bucketStart, User user, BarStation station, long salesCount,
+            String revenue) {
+        entityManager.persist(new SalesRollup(null, organizationId, bucketStart,
+                station != null ? station.getId() : null, user != null ? user.getId() : null, salesCount,
+                BigDecimal.valueOf(salesCount), new BigDecimal(revenue)));
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setOrganizationId(organizationId);
+        user.setName(name);
+        user.setEmail(name.toLowerCase() + "-" + UUID.randomUUID() + "@example.com");
+        return entityManager.persist(user);
+    }
+
+    private BarStation station(String name) {
+        BarStation station = new BarStation();
+        station.setOrganizationId(organizationId);
+        station.setName(name);
+        return entityManager.persist(station);
+    }
+}
@@ -3,6 +3,7 @@ package com.borsibaar.service;
 import com.borsibaar.dto.CategoryRequestDto;
 import com.borsibaar.dto.CategoryResponseDto;
 import com.borsibaar.entity.Category;
+import com.borsibaar.event.MenuChangedEvent;
 import com.borsibaar.exception.BadRequestException;
 import com.borsibaar.exception.DuplicateResourceException;
 import com.borsibaar.exception.NotFoundException;
@@ -15,6 +16,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +31,8 @@ class CategoryServiceTest {
     private CategoryRepository categoryRepository;
     @Mock
     private CategoryMapper categoryMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private CategoryService categoryService;
@@ -103,5 +107,6 @@ class CategoryServiceTest {
         CategoryResponseDto dto = categoryService.deleteReturningDto(5L, 1L);
         assertEquals(5L, dto.id());
         verify(categoryRepository).delete(cat);
+        verify(eventPublisher).publishEvent(new MenuChangedEvent(1L));
     }
 }
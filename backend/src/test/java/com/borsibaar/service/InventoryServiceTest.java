@@ -3,27 +3,28 @@ package com.borsibaar.service;
 import com.borsibaar.dto.AddStockRequestDto;
 import com.borsibaar.dto.InventoryResponseDto;
 import com.borsibaar.dto.InventoryTransactionResponseDto;
+import com.borsibaar.dto.MarketUpdateDto;
+import com.borsibaar.dto.MenuSnapshot;
 import com.borsibaar.dto.RemoveStockRequestDto;
 import com.borsibaar.dto.AdjustStockRequestDto;
-import com.borsibaar.dto.StationSalesStatsResponseDto;
-import com.borsibaar.dto.UserSalesStatsResponseDto;
-import com.borsibaar.entity.BarStation;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
 import com.borsibaar.entity.Product;
 import com.borsibaar.entity.User;
+import com.borsibaar.event.MarketUpdateEvent;
 import com.borsibaar.mapper.InventoryMapper;
-import com.borsibaar.repository.BarStationRepository;
 import com.borsibaar.repository.InventoryRepository;
 import com.borsibaar.repository.InventoryTransactionRepository;
 import com.borsibaar.repository.ProductRepository;
 import com.borsibaar.repository.UserRepository;
+import com.borsibaar.repository.projection.InventoryView;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.web.server.ResponseStatusException;
@@ -33,8 +34,10 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,10 +56,13 @@ class InventoryServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BarStationRepository barStationRepository;
+    private InventoryMapper inventoryMapper;
 
     @Mock
-    private InventoryMapper inventoryMapper;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MenuSnapshotCache menuSnapshotCache;
 
     @Mock
     private ClientRegistrationRepository clientRegistrationRepository;
@@ -115,32 +121,50 @@ class InventoryServiceTest {
         InventoryResponseDto dto = inventoryService.adjustStock(request, userId, 1L);
         assertEquals(BigDecimal.valueOf(8), dto.quantity());
         verify(inventoryTransactionRepository).save(any(InventoryTransaction.class));
+        verify(eventPublisher).publishEvent(new MarketUpdateEvent(1L,
+                List.of(new MarketUpdateDto(5L, BigDecimal.valueOf(8), BigDecimal.valueOf(2)))));
     }
 
     @Test
-    void getByOrganization_FiltersInactiveProducts() {
-        Inventory inv1 = new Inventory(); inv1.setId(1L); inv1.setProductId(10L); inv1.setQuantity(BigDecimal.ONE); inv1.setUpdatedAt(OffsetDateTime.now());
-        Inventory inv2 = new Inventory(); inv2.setId(2L); inv2.setProductId(11L); inv2.setQuantity(BigDecimal.ONE); inv2.setUpdatedAt(OffsetDateTime.now());
-        when(inventoryRepository.findByOrganizationId(1L)).thenReturn(List.of(inv1, inv2));
-        Product p1 = new Product(); p1.setId(10L); p1.setActive(true); p1.setBasePrice(BigDecimal.ONE); p1.setName("A");
-        Product p2 = new Product(); p2.setId(11L); p2.setActive(false); p2.setBasePrice(BigDecimal.ONE); p2.setName("B");
-        when(productRepository.findById(10L)).thenReturn(Optional.of(p1));
-        when(productRepository.findById(11L)).thenReturn(Optional.of(p2));
-        when(inventoryMapper.toResponse(inv1)).thenReturn(new InventoryResponseDto(1L,1L,10L,"A",BigDecimal.ONE,BigDecimal.ONE, "abc", null,null,null,OffsetDateTime.now().toString()));
+    void getByOrganization_MapsMenuItemsOfOneQuery() {
+        InventoryView view = mock(InventoryView.class);
+        InventoryResponseDto dto = new InventoryResponseDto(1L,1L,10L,"A",BigDecimal.ONE,BigDecimal.ONE, "abc", null,null,null,OffsetDateTime.now().toString());
+        when(inventoryRepository.findMenuItems(1L)).thenReturn(List.of(view));
+        when(inventoryMapper.fromView(view)).thenReturn(dto);
+        when(menuSnapshotCache.get(eq(1L), isNull(), any())).thenAnswer(a -> {
+            Supplier<List<InventoryResponseDto>> loader = a.getArgument(2);
+            return new MenuSnapshot(0, "m1", loader.get()); });
         List<InventoryResponseDto> result = inventoryService.getByOrganization(1L);
-        assertEquals(1, result.size());
+        assertEquals(List.of(dto), result);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getByOrganization_WithCategory_UsesCategoryQuery() {
+        when(inventoryRepository.findMenuItemsByCategory(1L, 7L)).thenReturn(List.of());
+        when(menuSnapshotCache.get(eq(1L), eq(7L), any())).thenAnswer(a -> {
+            Supplier<List<InventoryResponseDto>> loader = a.getArgument(2);
+            return new MenuSnapshot(0, "m1", loader.get()); });
+        assertTrue(inventoryService.getByOrganization(1L, 7L).isEmpty());
+        verify(inventoryRepository, never()).findMenuItems(any());
     }
 
     @Test
     void getByProductAndOrganization_ProductInactive_Gone() {
-        Inventory inv = new Inventory(); inv.setId(1L); inv.setProductId(10L); inv.setQuantity(BigDecimal.ONE); inv.setUpdatedAt(OffsetDateTime.now());
-        when(inventoryRepository.findByOrganizationIdAndProductId(1L, 10L)).thenReturn(Optional.of(inv));
-        Product p = new Product(); p.setId(10L); p.setActive(false); p.setBasePrice(BigDecimal.ONE); p.setName("A");
-        when(productRepository.findById(10L)).thenReturn(Optional.of(p));
+        InventoryView view = mock(InventoryView.class);
+        when(view.getActive()).thenReturn(false);
+        when(inventoryRepository.findInventoryView(1L, 10L)).thenReturn(Optional.of(view));
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> inventoryService.getByProductAndOrganization(10L, 1L));
         assertEquals(HttpStatus.GONE, ex.getStatusCode());
     }
 
+    @Test
+    void getByProductAndOrganization_NotFound() {
+        when(inventoryRepository.findInventoryView(1L, 10L)).thenReturn(Optional.empty());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> inventoryService.getByProductAndOrganization(10L, 1L));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
     @Test
     void addStock_ProductWrongOrg_Forbidden() {
         Product product = new Product(); product.setId(5L); product.setOrganizationId(2L); product.setActive(true);
@@ -178,75 +202,33 @@ class InventoryServiceTest {
         tx.setQuantityChange(new BigDecimal("-1")); tx.setQuantityBefore(BigDecimal.TEN); tx.setQuantityAfter(new BigDecimal("9"));
         tx.setPriceBefore(BigDecimal.ONE); tx.setPriceAfter(BigDecimal.ONE); tx.setReferenceId("ref"); tx.setNotes("n");
         tx.setCreatedBy(uid); tx.setCreatedAt(OffsetDateTime.now());
-        when(inventoryTransactionRepository.findByInventoryIdOrderByCreatedAtDesc(100L)).thenReturn(List.of(tx));
+        when(inventoryTransactionRepository.findHistoryPage(100L, null, null, null, null, 100)).thenReturn(List.of(tx));
         User user = new User(); user.setId(uid); user.setName("Alice"); user.setEmail("a@b.c");
         when(userRepository.findAllById(anyList())).thenReturn(List.of(user));
 
-        List<InventoryTransactionResponseDto> result = inventoryService.getTransactionHistory(10L, 1L);
+        List<InventoryTransactionResponseDto> result = inventoryService.getTransactionHistory(10L, 1L, null, null,
+                null, null, 100);
         assertEquals(1, result.size());
         assertEquals(uid.toString(), result.get(0).createdBy());
         assertEquals("Alice", result.get(0).createdByName());
     }
 
     @Test
-    void getUserSalesStats_ComputesCountsAndRevenue() {
-        Long orgId = 1L;
-        UUID uid = UUID.randomUUID();
-        Long stationId = 7L;
-        // two transactions for same user/station, different inventories
-        InventoryTransaction t1 = new InventoryTransaction(); t1.setInventoryId(11L); t1.setTransactionType("SALE"); t1.setReferenceId("o1"); t1.setQuantityChange(new BigDecimal("-2")); t1.setCreatedBy(uid); t1.setBarStationId(stationId);
-        InventoryTransaction t2 = new InventoryTransaction(); t2.setInventoryId(12L); t2.setTransactionType("SALE"); t2.setReferenceId("o2"); t2.setQuantityChange(new BigDecimal("-1")); t2.setCreatedBy(uid); t2.setBarStationId(stationId);
-        when(inventoryTransactionRepository.findSaleTransactionsByOrganizationId(orgId)).thenReturn(List.of(t1, t2));
-
-        // inventories map to products with base prices
-        Inventory inv1 = new Inventory(); inv1.setId(11L); inv1.setProductId(101L);
-        Inventory inv2 = new Inventory(); inv2.setId(12L); inv2.setProductId(102L);
-        when(inventoryRepository.findById(11L)).thenReturn(Optional.of(inv1));
-        when(inventoryRepository.findById(12L)).thenReturn(Optional.of(inv2));
-        Product p1 = new Product(); p1.setId(101L); p1.setBasePrice(new BigDecimal("3.00"));
-        Product p2 = new Product(); p2.setId(102L); p2.setBasePrice(new BigDecimal("5.00"));
-        when(productRepository.findById(101L)).thenReturn(Optional.of(p1));
-        when(productRepository.findById(102L)).thenReturn(Optional.of(p2));
-
-        User user = new User(); user.setId(uid); user.setName("Bob"); user.setEmail("b@c.d");
-        when(userRepository.findAllById(anyList())).thenReturn(List.of(user));
-        BarStation station = new BarStation(); station.setId(stationId); station.setName("Main");
-        when(barStationRepository.findAllById(anyList())).thenReturn(List.of(station));
-
-        List<UserSalesStatsResponseDto> stats = inventoryService.getUserSalesStats(orgId);
-        assertEquals(1, stats.size());
-        UserSalesStatsResponseDto s = stats.get(0);
-        assertEquals(2L, s.salesCount());
-        // revenue = 2*3 + 1*5 = 11
-        assertEquals(new BigDecimal("11.00"), s.totalRevenue());
-        assertEquals("Bob", s.userName());
+    void getTransactionHistory_LimitOutOfRange_Throws400() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> inventoryService.getTransactionHistory(10L, 1L, null, null, null, null, 1001));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(inventoryTransactionRepository);
     }
 
     @Test
-    void getStationSalesStats_ComputesCountsAndRevenue() {
-        Long orgId = 1L;
-        Long stationId = 7L;
-        InventoryTransaction t1 = new InventoryTransaction(); t1.setInventoryId(11L); t1.setTransactionType("SALE"); t1.setReferenceId("o1"); t1.setQuantityChange(new BigDecimal("-2")); t1.setBarStationId(stationId);
-        InventoryTransaction t2 = new InventoryTransaction(); t2.setInventoryId(12L); t2.setTransactionType("SALE"); t2.setReferenceId("o2"); t2.setQuantityChange(new BigDecimal("-1")); t2.setBarStationId(stationId);
-        when(inventoryTransactionRepository.findSaleTransactionsByOrganizationId(orgId)).thenReturn(List.of(t1, t2));
-
-        Inventory inv1 = new Inventory(); inv1.setId(11L); inv1.setProductId(101L);
-        Inventory inv2 = new Inventory(); inv2.setId(12L); inv2.setProductId(102L);
-        when(inventoryRepository.findById(11L)).thenReturn(Optional.of(inv1));
-        when(inventoryRepository.findById(12L)).thenReturn(Optional.of(inv2));
-        Product p1 = new Product(); p1.setId(101L); p1.setBasePrice(new BigDecimal("3.00"));
-        Product p2 = new Product(); p2.setId(102L); p2.setBasePrice(new BigDecimal("5.00"));
-        when(productRepository.findById(101L)).thenReturn(Optional.of(p1));
-        when(productRepository.findById(102L)).thenReturn(Optional.of(p2));
-
-        BarStation station = new BarStation(); station.setId(stationId); station.setName("Main");
-        when(barStationRepository.findAllById(anyList())).thenReturn(List.of(station));
-
-        List<StationSalesStatsResponseDto> stats = inventoryService.getStationSalesStats(orgId);
-        assertEquals(1, stats.size());
-        StationSalesStatsResponseDto s = stats.get(0);
-        assertEquals(2L, s.salesCount());
-        assertEquals(new BigDecimal("11.00"), s.totalRevenue());
-        assertEquals("Main", s.barStationName());
+    void getTransactionHistory_EmptyRange_Throws400() {
+        OffsetDateTime at = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> inventoryService.getTransactionHistory(10L, 1L, null, null, at, at, 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
     }
 }
@@ -1,9 +1,12 @@
 package com.borsibaar.service;
 
+import com.borsibaar.entity.Role;
+import com.borsibaar.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +17,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,6 +38,11 @@ class JwtServiceTest {
         ReflectionTestUtils.setField(jwtService, "secretKey", testSecret);
     }
 
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", false);
+    }
+
     @Test
     void testGenerateToken_Success() {
         // Arrange
@@ -196,4 +205,53 @@ class JwtServiceTest {
         // Act & Assert
         assertThrows(Exception.class, () -> jwtService.parseToken(null));
     }
+
+    @Test
+    void testReadPrincipal_ClaimsEnabled_RoundTripsUser() {
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", true);
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("test@example.com")
+                .name("Test User")
+                .organizationId(3L)
+                .role(Role.builder().id(2L).name("ADMIN").build())
+                .build();
+
+        User principal = jwtService.readPrincipal(jwtService.parseToken(jwtService.generateToken(user)));
+
+        assertEquals(user.getId(), principal.getId());
+        assertEquals("test@example.com", principal.getEmail());
+        assertEquals("Test User", principal.getName());
+        assertEquals(3L, principal.getOrganizationId());
+        assertEquals("ADMIN", principal.getRole().getName());
+    }
+
+    @Test
+    void testReadPrincipal_UserWithoutOrganizationOrRole_LeavesThemNull() {
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", true);
+        User user = User.builder().id(UUID.randomUUID()).email("new@example.com").name("New").build();
+
+        User principal = jwtService.readPrincipal(jwtService.parseToken(jwtService.generateToken(user)));
+
+        assertNull(principal.getOrganizationId());
+        assertNull(principal.getRole());
+    }
+
+    @Test
+    void testReadPrincipal_ClaimsDisabled_ReturnsNull() {
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", false);
+        User user = User.builder().id(UUID.randomUUID()).email("test@example.com").organizationId(3L).build();
+
+        Claims claims = jwtService.parseToken(jwtService.generateToken(user));
+
+        assertNull(claims.get("org"));
+        assertNull(jwtService.readPrincipal(claims));
+    }
+
+    @Test
+    void testReadPrincipal_TokenWithoutClaims_ReturnsNull() {
+        ReflectionTestUtils.setField(jwtService, "principalClaimsEnabled", true);
+
+        assertNull(jwtService.readPrincipal(jwtService.parseToken(jwtService.generateToken("test@example.com"))));
+    }
 }
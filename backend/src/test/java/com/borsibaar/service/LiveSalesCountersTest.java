@@ -0,0 +1,136 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.LiveSalesCounterDto;
+import com.borsibaar.dto.LiveSalesStatsDto;
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.projection.SaleLine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class LiveSalesCountersTest {
+
+    private static final long NOW = 1_740_823_230_000L; // 2025-03-01T10:00:30Z
+    private static final long MINUTE = 60_000L;
+
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+
+    @InjectMocks private LiveSalesCounters counters;
+
+    private final UUID alice = UUID.randomUUID();
+
+    @Test
+    void snapshot_ReportsWindowsPerStationUserAndProduct() {
+        counters.recordSale(1L, alice, 7L, List.of(item(5L, "2", "3.50"), item(6L, "1", "4.00")), NOW);
+        counters.recordSale(1L, alice, 8L, List.of(item(5L, "1", "3.50")), NOW - 10 * MINUTE);
+        counters.recordSale(1L, null, null, List.of(item(6L, "1", "4.00")), NOW - 30 * MINUTE);
+
+        LiveSalesStatsDto stats = counters.snapshot(1L, NOW);
+
+        assertEquals(Instant.ofEpochMilli(NOW), stats.asOf().toInstant());
+        assertEquals(new LiveSalesCounterDto(null, 0.2, amount("11.00"), amount("14.50"), amount("18.50"),
+                amount("5")), stats.total());
+        assertEquals(List.of("7", "8"), stats.stations().stream().map(LiveSalesCounterDto::id).toList());
+        assertEquals(List.of(alice.toString()), stats.users().stream().map(LiveSalesCounterDto::id).toList());
+        assertEquals(0, new BigDecimal("14.50").compareTo(stats.users().get(0).revenue60Min()));
+        LiveSalesCounterDto beer = stats.products().get(0);
+        assertEquals("5", beer.id());
+        assertEquals(0, new BigDecimal("3").compareTo(beer.itemsSold60Min()));
+        assertEquals(0, new BigDecimal("7.00").compareTo(beer.revenue5Min()));
+    }
+
+    @Test
+    void snapshot_UnknownOrganization_IsEmpty() {
+        LiveSalesStatsDto stats = counters.snapshot(2L, NOW);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(stats.total().revenue60Min()));
+        assertTrue(stats.products().isEmpty());
+        assertTrue(counters.organizationIds().isEmpty());
+    }
+
+    @Test
+    void evictIdle_DropsEntriesWithoutSalesInTheLastHour() {
+        counters.recordSale(1L, alice, 7L, List.of(item(5L, "1", "3.50")), NOW - 61 * MINUTE);
+        counters.recordSale(1L, null, null, List.of(item(6L, "1", "4.00")), NOW);
+
+        counters.evictIdle(NOW);
+
+        LiveSalesStatsDto stats = counters.snapshot(1L, NOW);
+        assertTrue(stats.stations().isEmpty());
+        assertTrue(stats.users().isEmpty());
+        assertEquals(List.of("6"), stats.products().stream().map(LiveSalesCounterDto::id).toList());
+        assertEquals(Set.of(1L), counters.organizationIds());
+    }
+
+    @Test
+    void rebuild_CountsEachSaleReferenceOnce() {
+        OffsetDateTime soldAt = OffsetDateTime.now(ZoneOffset.UTC);
+        List<SaleLine> lines = List.of(
+                line("SALE-1", 5L, "2", "3.50", soldAt),
+                line("SALE-1", 6L, "1", "4.00", soldAt),
+                line("SALE-2", 5L, "1", "3.50", soldAt));
+        when(inventoryTransactionRepository.findSaleLinesSince(any())).thenReturn(lines);
+
+        counters.rebuild();
+
+        LiveSalesCounterDto total = counters.snapshot(1L, soldAt.toInstant().toEpochMilli()).total();
+        assertEquals(0.4, total.salesPerMinute());
+        assertEquals(0, new BigDecimal("14.50").compareTo(total.revenue60Min()));
+        assertEquals(0, new BigDecimal("4").compareTo(total.itemsSold60Min()));
+    }
+
+    @Test
+    void rebuild_RepositoryFailure_StartsEmpty() {
+        when(inventoryTransactionRepository.findSaleLinesSince(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        counters.rebuild();
+
+        assertTrue(counters.organizationIds().isEmpty());
+    }
+
+    private static SaleItemResponseDto item(Long productId, String quantity, String unitPrice) {
+        BigDecimal qty = new BigDecimal(quantity);
+        BigDecimal price = new BigDecimal(unitPrice);
+        return new SaleItemResponseDto(productId, "Product", qty, price, price.multiply(qty));
+    }
+
+    private SaleLine line(String referenceId, Long productId, String quantity, String unitPrice,
+            OffsetDateTime createdAt) {
+        // Only the last line of a sale is read for its sale-level fields
+        SaleLine line = mock(SaleLine.class, withSettings().strictness(Strictness.LENIENT));
+        when(line.getOrganizationId()).thenReturn(1L);
+        when(line.getReferenceId()).thenReturn(referenceId);
+        when(line.getUserId()).thenReturn(alice);
+        when(line.getBarStationId()).thenReturn(7L);
+        when(line.getProductId()).thenReturn(productId);
+        when(line.getQuantity()).thenReturn(new BigDecimal(quantity));
+        when(line.getUnitPrice()).thenReturn(new BigDecimal(unitPrice));
+        when(line.getCreatedAt()).thenReturn(createdAt);
+        return line;
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value).setScale(4);
+    }
+}
@@ -0,0 +1,91 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.InventoryResponseDto;
+import com.borsibaar.dto.MenuSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MenuResponseCacheTest {
+
+    @Mock private InventoryService inventoryService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void get_EncodesOncePerSnapshot() throws Exception {
+        MenuResponseCache cache = new MenuResponseCache(inventoryService, objectMapper, true, 60, 1_000_000);
+        List<InventoryResponseDto> items = menu(50);
+        when(inventoryService.getMenu(1L, null)).thenReturn(new MenuSnapshot(1, "m1", items));
+
+        MenuResponseCache.EncodedMenu first = cache.get(1L, null);
+        MenuResponseCache.EncodedMenu second = cache.get(1L, null);
+
+        assertSame(first, second);
+        assertEquals("m1", first.etag());
+        assertArrayEquals(objectMapper.writeValueAsBytes(items), first.json());
+        assertTrue(first.hasGzip());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void get_NewSnapshotIsEncodedAgain() {
+        MenuResponseCache cache = new MenuResponseCache(inventoryService, objectMapper, true, 60, 1_000_000);
+        when(inventoryService.getMenu(1L, null))
+                .thenReturn(new MenuSnapshot(1, "m1", menu(1)), new MenuSnapshot(2, "m2", menu(2)));
+
+        MenuResponseCache.EncodedMenu first = cache.get(1L, null);
+        MenuResponseCache.EncodedMenu second = cache.get(1L, null);
+
+        assertNotSame(first, second);
+        assertEquals("m2", second.etag());
+    }
+
+    @Test
+    void get_ManyCategories_KeepsAtMostMaxEncodedBytes() {
+        MenuResponseCache cache = new MenuResponseCache(inventoryService, objectMapper, false, 60, 10_000);
+        when(inventoryService.getMenu(eq(1L), anyLong()))
+                .thenAnswer(invocation -> new MenuSnapshot(1, "m1", menu(5)));
+        int menuBytes = cache.get(1L, 0L).json().length;
+
+        for (long categoryId = 1; categoryId < 1_000; categoryId++) {
+            cache.get(1L, categoryId);
+        }
+
+        assertTrue(cache.size() * menuBytes <= 10_000);
+    }
+
+    @Test
+    void encode_SkipsGzipWhenDisabledOrNotSmaller() {
+        MenuResponseCache disabled = new MenuResponseCache(inventoryService, objectMapper, false, 60, 1_000_000);
+        assertFalse(disabled.encode(new MenuSnapshot(1, "m1", menu(50))).hasGzip());
+
+        MenuResponseCache enabled = new MenuResponseCache(inventoryService, objectMapper, true, 60, 1_000_000);
+        assertFalse(enabled.encode(new MenuSnapshot(1, "m1", List.of())).hasGzip());
+    }
+
+    private static List<InventoryResponseDto> menu(int size) {
+        List<InventoryResponseDto> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new InventoryResponseDto((long) i, 1L, 100L + i, "Beer " + i, BigDecimal.TEN,
+                    new BigDecimal("3.50"), null, null, null, null, null));
+        }
+        return items;
+    }
+}
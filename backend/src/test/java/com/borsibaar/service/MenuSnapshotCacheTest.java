@@ -0,0 +1,171 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.InventoryResponseDto;
+import com.borsibaar.dto.MenuSnapshot;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.event.MenuChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MenuSnapshotCacheTest {
+
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private TransactionStatus transactionStatus;
+
+    private MenuSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        cache = new MenuSnapshotCache(new ObjectMapper(), transactionManager, 60, 100);
+    }
+
+    @Test
+    void get_ReusesSnapshotUntilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+
+        MenuSnapshot first = cache.get(1L, null, () -> menu(loads.incrementAndGet()));
+        MenuSnapshot second = cache.get(1L, null, () -> menu(loads.incrementAndGet()));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+
+        cache.onMarketUpdate(new MarketUpdateEvent(1L, List.of()));
+        MenuSnapshot third = cache.get(1L, null, () -> menu(loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+        assertTrue(third.version() > first.version());
+        assertNotEquals(first.etag(), third.etag());
+    }
+
+    @Test
+    void get_UnchangedItemsKeepTheirETag() {
+        MenuSnapshot first = cache.get(1L, null, () -> menu(5));
+        cache.onMenuChanged(new MenuChangedEvent(1L));
+        MenuSnapshot second = cache.get(1L, null, () -> menu(5));
+
+        assertNotSame(first, second);
+        assertEquals(first.etag(), second.etag());
+    }
+
+    @Test
+    void get_SameItemsOnAnotherInstance_HaveTheSameETag() {
+        MenuSnapshotCache other = new MenuSnapshotCache(new ObjectMapper(), transactionManager, 60, 100);
+        other.get(2L, null, () -> menu(1));
+
+        MenuSnapshot here = cache.get(1L, null, () -> menu(5));
+        MenuSnapshot there = other.get(1L, null, () -> menu(5));
+
+        assertNotEquals(here.version(), there.version());
+        assertEquals(here.etag(), there.etag());
+    }
+
+    @Test
+    void invalidate_OnlyAffectsItsOrganization() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, null, () -> menu(loads.incrementAndGet()));
+        cache.get(1L, 7L, () -> menu(loads.incrementAndGet()));
+        cache.get(2L, null, () -> menu(loads.incrementAndGet()));
+
+        cache.invalidate(2L);
+        cache.get(1L, null, () -> menu(loads.incrementAndGet()));
+        cache.get(1L, 7L, () -> menu(loads.incrementAndGet()));
+        cache.get(2L, null, () -> menu(loads.incrementAndGet()));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_ExpiredSnapshotIsRebuilt() {
+        MenuSnapshotCache expiring = new MenuSnapshotCache(new ObjectMapper(), transactionManager, 0, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        expiring.get(1L, null, () -> menu(loads.incrementAndGet()));
+        expiring.get(1L, null, () -> menu(loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_ManyKeys_KeepsAtMostMaxEntries() {
+        MenuSnapshotCache bounded = new MenuSnapshotCache(new ObjectMapper(), transactionManager, 60, 10);
+
+        for (long categoryId = 0; categoryId < 1_000; categoryId++) {
+            bounded.get(1L, categoryId, List::of);
+        }
+
+        assertTrue(bounded.size() <= 10);
+    }
+
+    @Test
+    void get_FailedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, null, () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        assertEquals(1, cache.get(1L, null, () -> menu(1)).items().size());
+    }
+
+    @Test
+    void get_ConcurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<MenuSnapshot> first = executor.submit(() -> cache.get(1L, null, () -> {
+                loading.countDown();
+                await(release);
+                return menu(loads.incrementAndGet());
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            List<Future<MenuSnapshot>> waiting = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waiting.add(executor.submit(() -> cache.get(1L, null, () -> menu(loads.incrementAndGet()))));
+            }
+            release.countDown();
+
+            MenuSnapshot snapshot = first.get(5, TimeUnit.SECONDS);
+            for (Future<MenuSnapshot> other : waiting) {
+                assertSame(snapshot, other.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<InventoryResponseDto> menu(int quantity) {
+        return List.of(new InventoryResponseDto(1L, 1L, 10L, "Beer", BigDecimal.valueOf(quantity),
+                BigDecimal.TEN, null, null, null, null, null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
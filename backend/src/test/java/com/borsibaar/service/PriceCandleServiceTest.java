@@ -0,0 +1,180 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.CandleResolution;
+import com.borsibaar.dto.PriceCandleDto;
+import com.borsibaar.dto.PriceTickDto;
+import com.borsibaar.dto.ProductSparklineDto;
+import com.borsibaar.dto.SparklinesDto;
+import com.borsibaar.entity.PriceCandle;
+import com.borsibaar.repository.PriceCandleRepository;
+import com.borsibaar.repository.PriceTickRepository;
+import com.borsibaar.repository.projection.PriceTick;
+import com.borsibaar.repository.projection.SparklineCandle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceCandleServiceTest {
+
+    private static final OffsetDateTime TEN = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+
+    @Mock private PriceCandleRepository priceCandleRepository;
+    @Mock private PriceTickRepository priceTickRepository;
+
+    @InjectMocks private PriceCandleService priceCandleService;
+
+    @Test
+    void getCandles_FillsGapsWithPreviousClose() {
+        when(priceCandleRepository.findCandles(1L, 5L, 60, TEN, TEN.plusMinutes(4))).thenReturn(List.of(
+                candle(TEN.plusMinutes(1), "3.00", "3.40", "2.90", "3.20", "4"),
+                candle(TEN.plusMinutes(3), "3.20", "3.20", "3.00", "3.00", "1")));
+        when(priceCandleRepository.findLatestBefore(1L, 5L, 60, TEN))
+                .thenReturn(Optional.of(candle(TEN.minusMinutes(7), "2.50", "3.00", "2.50", "3.00", "2")));
+
+        List<PriceCandleDto> candles = priceCandleService.getCandles(1L, 5L, CandleResolution.ONE_MINUTE,
+                TEN, TEN.plusMinutes(4));
+
+        assertEquals(List.of(
+                flat("2025-03-01T10:00:00Z", "3.00"),
+                new PriceCandleDto("2025-03-01T10:01:00Z", new BigDecimal("3.00"), new BigDecimal("3.40"),
+                        new BigDecimal("2.90"), new BigDecimal("3.20"), new BigDecimal("4")),
+                flat("2025-03-01T10:02:00Z", "3.20"),
+                new PriceCandleDto("2025-03-01T10:03:00Z", new BigDecimal("3.20"), new BigDecimal("3.20"),
+                        new BigDecimal("3.00"), new BigDecimal("3.00"), new BigDecimal("1"))), candles);
+    }
+
+    @Test
+    void getCandles_SkipsBucketsBeforeFirstPrice() {
+        when(priceCandleRepository.findCandles(eq(1L), eq(5L), eq(300), any(), any())).thenReturn(List.of(
+                candle(TEN.plusMinutes(10), "3.00", "3.00", "3.00", "3.00", "1")));
+        when(priceCandleRepository.findLatestBefore(eq(1L), eq(5L), eq(300), any())).thenReturn(Optional.empty());
+
+        List<PriceCandleDto> candles = priceCandleService.getCandles(1L, 5L, CandleResolution.FIVE_MINUTES,
+                TEN, TEN.plusMinutes(20));
+
+        assertEquals(List.of("2025-03-01T10:10:00Z", "2025-03-01T10:15:00Z"),
+                candles.stream().map(PriceCandleDto::bucketStart).toList());
+    }
+
+    @Test
+    void getCandles_WidensRangeToWholeBuckets() {
+        priceCandleService.getCandles(1L, 5L, CandleResolution.ONE_HOUR,
+                OffsetDateTime.parse("2025-03-01T12:15:00+02:00"), OffsetDateTime.parse("2025-03-01T13:00:01+02:00"));
+
+        verify(priceCandleRepository).findCandles(1L, 5L, 3600, TEN, TEN.plusHours(2));
+    }
+
+    @Test
+    void getCandles_FromNotBeforeTo_Throws400() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getCandles(1L, 5L, CandleResolution.ONE_MINUTE, TEN, TEN));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(priceCandleRepository);
+    }
+
+    @Test
+    void getCandles_TooManyCandles_Throws400() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getCandles(1L, 5L, CandleResolution.ONE_MINUTE, TEN, TEN.plusDays(2)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(priceCandleRepository);
+    }
+
+    @Test
+    void getSparklines_StepsThroughClosesPerProduct() {
+        doAnswer(inv -> {
+            Consumer<SparklineCandle> consumer = inv.getArgument(4);
+            consumer.accept(new SparklineCandle(5L, new BigDecimal("3.00"), new BigDecimal("3.50"),
+                    TEN.plusMinutes(10), new BigDecimal("3.00"), new BigDecimal("3.20")));
+            consumer.accept(new SparklineCandle(5L, new BigDecimal("3.00"), new BigDecimal("3.50"),
+                    TEN.plusMinutes(40), new BigDecimal("3.20"), new BigDecimal("3.50")));
+            consumer.accept(new SparklineCandle(6L, null, new BigDecimal("4.00"), null, null, null));
+            return null;
+        }).when(priceCandleRepository).streamSparklineCandles(eq(1L), eq(60), eq(TEN), eq(TEN.plusHours(1)), any());
+
+        SparklinesDto sparklines = priceCandleService.getSparklines(1L, TEN, TEN.plusHours(1), 60);
+
+        assertEquals(CandleResolution.ONE_MINUTE, sparklines.resolution());
+        long ten = TEN.toInstant().toEpochMilli();
+        assertEquals(List.of(
+                new ProductSparklineDto(5L,
+                        List.of(ten, ten + 11 * 60_000, ten + 41 * 60_000, ten + 60 * 60_000),
+                        List.of(new BigDecimal("3.00"), new BigDecimal("3.20"), new BigDecimal("3.50"),
+                                new BigDecimal("3.50"))),
+                new ProductSparklineDto(6L, List.of(ten, ten + 60 * 60_000),
+                        List.of(new BigDecimal("4.00"), new BigDecimal("4.00")))), sparklines.products());
+    }
+
+    @Test
+    void getSparklines_ReadsCoarsestCandlesHoldingEnoughBuckets() {
+        priceCandleService.getSparklines(1L, TEN.plusMinutes(30), TEN.plusDays(1), 60);
+        priceCandleService.getSparklines(1L, TEN, TEN.plusDays(7), 60);
+
+        // A day holds only 24 hours but 288 five-minute buckets; the start is floored to its bucket
+        verify(priceCandleRepository).streamSparklineCandles(eq(1L), eq(300), eq(TEN.plusMinutes(30)),
+                eq(TEN.plusDays(1)), any());
+        verify(priceCandleRepository).streamSparklineCandles(eq(1L), eq(3600), eq(TEN), eq(TEN.plusDays(7)), any());
+    }
+
+    @Test
+    void getSparklines_InvalidArguments_Throw400() {
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getSparklines(1L, TEN, TEN.plusHours(1), 1)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getSparklines(1L, TEN, TEN.plusHours(1), 501)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getSparklines(1L, TEN, TEN, 60)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getSparklines(1L, TEN, TEN.plusDays(32), 60)).getStatusCode());
+        verifyNoInteractions(priceCandleRepository);
+    }
+
+    @Test
+    void getPriceTicks_DefaultsToLastDay() {
+        when(priceTickRepository.findTicks(1L, 5L, TEN.minusDays(1), TEN, 100)).thenReturn(List.of(
+                new PriceTick(5L, TEN.minusMinutes(2), new BigDecimal("3.5000")),
+                new PriceTick(5L, TEN.minusMinutes(1), new BigDecimal("3.0000"))));
+
+        List<PriceTickDto> ticks = priceCandleService.getPriceTicks(1L, 5L, null, TEN, 100);
+
+        assertEquals(List.of(new PriceTickDto("2025-03-01T09:58:00Z", new BigDecimal("3.5000")),
+                new PriceTickDto("2025-03-01T09:59:00Z", new BigDecimal("3.0000"))), ticks);
+    }
+
+    @Test
+    void getPriceTicks_LimitOutOfRange_Throws400() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> priceCandleService.getPriceTicks(1L, 5L, null, null, PriceCandleService.MAX_PRICE_TICKS + 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(priceTickRepository);
+    }
+
+    private static PriceCandle candle(OffsetDateTime bucketStart, String open, String high, String low,
+            String close, String volume) {
+        return new PriceCandle(null, 1L, 5L, 60, bucketStart, new BigDecimal(open), new BigDecimal(high),
+                new BigDecimal(low), new BigDecimal(close), new BigDecimal(volume));
+    }
+
+    private static PriceCandleDto flat(String bucketStart, String price) {
+        BigDecimal value = new BigDecimal(price);
+        return new PriceCandleDto(bucketStart, value, value, value, value, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,85 @@
+package com.borsibaar.service;
+
+import com.borsibaar.entity.Role;
+import com.borsibaar.entity.User;
+import com.borsibaar.event.UserChangedEvent;
+import com.borsibaar.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock private UserRepository userRepository;
+
+    private PrincipalCache cache;
+    private User stored;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 100, 30);
+        stored = User.builder()
+                .id(UUID.randomUUID())
+                .email("bartender@test.com")
+                .name("Bartender")
+                .organizationId(1L)
+                .role(Role.builder().id(2L).name("USER").build())
+                .build();
+    }
+
+    @Test
+    void get_LoadsUserOnce() {
+        when(userRepository.findByEmailWithRole("bartender@test.com")).thenReturn(Optional.of(stored));
+
+        User first = cache.get("bartender@test.com");
+        User second = cache.get("bartender@test.com");
+
+        verify(userRepository, times(1)).findByEmailWithRole("bartender@test.com");
+        assertEquals(stored.getId(), second.getId());
+        assertEquals("Bartender", second.getName());
+        assertEquals(1L, second.getOrganizationId());
+        assertEquals("USER", second.getRole().getName());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void get_ChangingReturnedUser_DoesNotChangeCache() {
+        when(userRepository.findByEmailWithRole("bartender@test.com")).thenReturn(Optional.of(stored));
+
+        cache.get("bartender@test.com").setOrganizationId(2L);
+
+        assertEquals(1L, cache.get("bartender@test.com").getOrganizationId());
+    }
+
+    @Test
+    void get_UnknownEmail_IsNotCached() {
+        when(userRepository.findByEmailWithRole("new@test.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(stored));
+
+        assertNull(cache.get("new@test.com"));
+        assertNotNull(cache.get("new@test.com"));
+    }
+
+    @Test
+    void onUserChanged_ReloadsUser() {
+        when(userRepository.findByEmailWithRole("bartender@test.com")).thenReturn(Optional.of(stored));
+        cache.get("bartender@test.com");
+
+        stored.setRole(Role.builder().id(1L).name("ADMIN").build());
+        cache.onUserChanged(new UserChangedEvent("bartender@test.com"));
+
+        assertEquals("ADMIN", cache.get("bartender@test.com").getRole().getName());
+        verify(userRepository, times(2)).findByEmailWithRole("bartender@test.com");
+    }
+}
@@ -6,6 +6,7 @@ import com.borsibaar.entity.Category;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
 import com.borsibaar.entity.Product;
+import com.borsibaar.event.MenuChangedEvent;
 import com.borsibaar.mapper.ProductMapper;
 import com.borsibaar.repository.CategoryRepository;
 import com.borsibaar.repository.InventoryRepository;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -36,6 +38,7 @@ class ProductServiceTest {
     @Mock private UserRepository userRepository;
     @Mock private InventoryRepository inventoryRepository;
     @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private ProductService productService;
 
@@ -58,6 +61,7 @@ class ProductServiceTest {
         assertEquals("Beer", dto.name());
         verify(inventoryRepository).save(any(Inventory.class));
         verify(inventoryTransactionRepository).save(any(InventoryTransaction.class));
+        verify(eventPublisher).publishEvent(new MenuChangedEvent(1L));
     }
 
     @Test
@@ -104,11 +108,12 @@ class ProductServiceTest {
 
     @Test
     void delete_MarksInactive() {
-        Product product = new Product(); product.setId(44L); product.setActive(true);
+        Product product = new Product(); product.setId(44L); product.setOrganizationId(1L); product.setActive(true);
         when(productRepository.findById(44L)).thenReturn(Optional.of(product));
         productService.delete(44L);
         assertFalse(product.isActive());
         verify(productRepository).save(product);
+        verify(eventPublisher).publishEvent(new MenuChangedEvent(1L));
     }
 
     @Test
@@ -0,0 +1,172 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleItemRequestDto;
+import com.borsibaar.dto.SaleRequestDto;
+import com.borsibaar.dto.SaleResponseDto;
+import com.borsibaar.entity.InventoryTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleBatchProcessorTest {
+
+    @Mock private SalesService salesService;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private TransactionStatus transactionStatus;
+    @Mock private DataSource dataSource;
+    @Mock private Connection connection;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID userId = UUID.randomUUID();
+    private SaleBatchProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new SaleBatchProcessor(salesService, transactionManager,
+                dataSource, meterRegistry, true, 3, 64);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        processor.stop();
+    }
+
+    @Test
+    void processBatch_AppliesAllSalesInOneTransaction() throws SQLException {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(salesService.applySale(any(), eq(userId), eq(1L), isNull(), anyList())).thenAnswer(inv -> {
+            List<InventoryTransaction> transactions = inv.getArgument(4);
+            transactions.add(new InventoryTransaction());
+            return response("SALE-1");
+        });
+
+        List<SaleBatchProcessor.PendingSale> batch = List.of(pending(), pending(), pending());
+        processor.processBatch(batch);
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(transactionStatus);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(salesService).saveSaleTransactions(captor.capture());
+        assertEquals(3, captor.getValue().size());
+        batch.forEach(sale -> assertEquals("SALE-1", sale.result().join().saleId()));
+        assertEquals(1, meterRegistry.get("sales.batch.size").summary().count());
+        assertEquals(3.0, meterRegistry.get("sales.batch.size").summary().totalAmount());
+        assertEquals(3, meterRegistry.get("sales.batch.wait").timer().count());
+    }
+
+    @Test
+    void processBatch_FailedSaleIsRolledBackToItsSavepointOnly() throws SQLException {
+        Savepoint failedSavepoint = mock(Savepoint.class);
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.setSavepoint()).thenReturn(mock(Savepoint.class), failedSavepoint, mock(Savepoint.class));
+        List<Integer> calls = new ArrayList<>();
+        when(salesService.applySale(any(), eq(userId), eq(1L), isNull(), anyList())).thenAnswer(inv -> {
+            List<InventoryTransaction> transactions = inv.getArgument(4);
+            transactions.add(new InventoryTransaction());
+            calls.add(calls.size());
+            if (calls.size() == 2) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient stock");
+            }
+            return response("SALE-" + calls.size());
+        });
+
+        List<SaleBatchProcessor.PendingSale> batch = List.of(pending(), pending(), pending());
+        processor.processBatch(batch);
+
+        verify(connection).rollback(failedSavepoint);
+        verify(connection, never()).releaseSavepoint(failedSavepoint);
+        verify(transactionManager).commit(transactionStatus);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(salesService).saveSaleTransactions(captor.capture());
+        assertEquals(2, captor.getValue().size());
+
+        assertEquals("SALE-1", batch.get(0).result().join().saleId());
+        assertTrue(batch.get(1).result().isCompletedExceptionally());
+        assertEquals("SALE-3", batch.get(2).result().join().saleId());
+    }
+
+    @Test
+    void processBatch_CommitFailure_RetriesEachSaleAlone() throws SQLException {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(salesService.applySale(any(), eq(userId), eq(1L), isNull(), anyList())).thenReturn(response("SALE-1"));
+        doThrow(new IllegalStateException("commit failed")).when(transactionManager).commit(transactionStatus);
+        when(salesService.processSale(any(), eq(userId), eq(1L), isNull())).thenReturn(response("SALE-2"));
+
+        List<SaleBatchProcessor.PendingSale> batch = List.of(pending(), pending());
+        processor.processBatch(batch);
+
+        verify(salesService, times(2)).processSale(any(), eq(userId), eq(1L), isNull());
+        batch.forEach(sale -> assertEquals("SALE-2", sale.result().join().saleId()));
+        assertEquals(1.0, meterRegistry.get("sales.batch.fallbacks").counter().count());
+    }
+
+    @Test
+    void process_WhenDisabled_UsesOwnTransaction() {
+        SaleBatchProcessor disabled = new SaleBatchProcessor(salesService, transactionManager, dataSource,
+                meterRegistry, false, 3, 64);
+        disabled.start();
+        SaleRequestDto request = request();
+        when(salesService.processSale(request, userId, 1L, null)).thenReturn(response("SALE-1"));
+
+        assertEquals("SALE-1", disabled.process(request, userId, 1L, null).saleId());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void process_WhenEnabled_CompletesCallerAndRethrowsRejection() throws SQLException {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(salesService.applySale(any(), eq(userId), eq(1L), isNull(), anyList()))
+                .thenReturn(response("SALE-1"))
+                .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient stock"));
+        processor.start();
+
+        assertEquals("SALE-1", processor.process(request(), userId, 1L, null).saleId());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> processor.process(request(), userId, 1L, null));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    private SaleBatchProcessor.PendingSale pending() {
+        return new SaleBatchProcessor.PendingSale(request(), userId, 1L, null, System.nanoTime(),
+                new CompletableFuture<>());
+    }
+
+    private static SaleRequestDto request() {
+        return new SaleRequestDto(List.of(new SaleItemRequestDto(5L, BigDecimal.ONE)), null, 1L);
+    }
+
+    private static SaleResponseDto response(String saleId) {
+        return new SaleResponseDto(saleId, List.of(), BigDecimal.ONE, null, OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,230 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleItemRequestDto;
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.dto.SaleRequestDto;
+import com.borsibaar.dto.SaleResponseDto;
+import com.borsibaar.entity.SaleIdempotencyKey;
+import com.borsibaar.exception.DuplicateResourceException;
+import com.borsibaar.repository.SaleIdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleIdempotencyServiceTest {
+
+    private static final SaleRequestDto REQUEST = request(BigDecimal.ONE);
+
+    @Mock private SaleIdempotencyKeyRepository saleIdempotencyKeyRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private SaleIdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SaleIdempotencyService(saleIdempotencyKeyRepository, objectMapper, 100, 24);
+    }
+
+    @Test
+    void execute_RetryReturnsCachedResponseWithoutSellingAgain() {
+        AtomicInteger sales = new AtomicInteger();
+        SaleResponseDto first = service.execute(1L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()));
+        SaleResponseDto retry = service.execute(1L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()));
+
+        assertEquals(1, sales.get());
+        assertSame(first, retry);
+        verify(saleIdempotencyKeyRepository, times(1)).findByOrganizationIdAndIdempotencyKey(1L, "key-1");
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentRequest_ThrowsUnprocessableEntity() {
+        AtomicInteger sales = new AtomicInteger();
+        service.execute(1L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.execute(1L, "key-1", request(BigDecimal.TWO),
+                        () -> response("SALE-" + sales.incrementAndGet())));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+        assertEquals(1, sales.get());
+    }
+
+    @Test
+    void execute_StoredKeyOfDifferentRequest_ThrowsUnprocessableEntity() throws Exception {
+        when(saleIdempotencyKeyRepository.findByOrganizationIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(stored(response("SALE-7"), "0".repeat(64))));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.execute(1L, "key-1", REQUEST, () -> fail("sale must not run again")));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+    }
+
+    @Test
+    void execute_SameKeyInOtherOrganizationIsIndependent() {
+        AtomicInteger sales = new AtomicInteger();
+        service.execute(1L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()));
+        service.execute(2L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()));
+
+        assertEquals(2, sales.get());
+    }
+
+    @Test
+    void execute_StoredResponseIsReplayedAfterRestart() throws Exception {
+        SaleResponseDto original = response("SALE-7");
+        when(saleIdempotencyKeyRepository.findByOrganizationIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.of(stored(original)));
+
+        SaleResponseDto replay = service.execute(1L, "key-1", REQUEST, () -> fail("sale must not run again"));
+
+        assertEquals(original, replay);
+    }
+
+    @Test
+    void execute_KeyTakenByConcurrentInstance_ReturnsStoredResponse() throws Exception {
+        SaleResponseDto original = response("SALE-7");
+        when(saleIdempotencyKeyRepository.findByOrganizationIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty(), Optional.of(stored(original)));
+
+        SaleResponseDto replay = service.execute(1L, "key-1", REQUEST, () -> {
+            throw new DuplicateResourceException("taken");
+        });
+
+        assertEquals(original, replay);
+    }
+
+    @Test
+    void execute_FailedSaleIsNotRemembered() {
+        ResponseStatusException rejected = new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient stock");
+        assertSame(rejected, assertThrows(ResponseStatusException.class,
+                () -> service.execute(1L, "key-1", REQUEST, () -> {
+                    throw rejected;
+                })));
+
+        assertEquals("SALE-2", service.execute(1L, "key-1", REQUEST, () -> response("SALE-2")).saleId());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicatesWaitForFirstRequest() throws Exception {
+        CountDownLatch saleStarted = new CountDownLatch(1);
+        CountDownLatch releaseSale = new CountDownLatch(1);
+        AtomicInteger sales = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<SaleResponseDto> first = executor.submit(() -> service.execute(1L, "key-1", REQUEST, () -> {
+                saleStarted.countDown();
+                await(releaseSale);
+                return response("SALE-" + sales.incrementAndGet());
+            }));
+            assertTrue(saleStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<SaleResponseDto>> duplicates = List.of(
+                    executor.submit(() -> service.execute(1L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()))),
+                    executor.submit(() -> service.execute(1L, "key-1", REQUEST, () -> response("SALE-" + sales.incrementAndGet()))));
+            releaseSale.countDown();
+
+            SaleResponseDto response = first.get(5, TimeUnit.SECONDS);
+            for (Future<SaleResponseDto> duplicate : duplicates) {
+                assertEquals(response.saleId(), duplicate.get(5, TimeUnit.SECONDS).saleId());
+            }
+            assertEquals(1, sales.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_InvalidKey_ThrowsBadRequest() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.execute(1L, " ", REQUEST, () -> response("SALE-1")));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        assertThrows(ResponseStatusException.class,
+                () -> service.execute(1L, "k".repeat(256), REQUEST, () -> response("SALE-1")));
+    }
+
+    @Test
+    void record_StoresSerializedResponse() throws Exception {
+        SaleResponseDto response = response("SALE-1");
+        when(saleIdempotencyKeyRepository.insertIfAbsent(eq(1L), eq("key-1"), anyString(), eq("SALE-1"), anyString()))
+                .thenReturn(true);
+
+        service.record(1L, "key-1", REQUEST, response);
+
+        ArgumentCaptor<String> requestHash = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(saleIdempotencyKeyRepository).insertIfAbsent(eq(1L), eq("key-1"), requestHash.capture(), eq("SALE-1"),
+                body.capture());
+        assertEquals(64, requestHash.getValue().length());
+        assertEquals(response, objectMapper.readValue(body.getValue(), SaleResponseDto.class));
+    }
+
+    @Test
+    void record_KeyAlreadyStored_Throws() {
+        when(saleIdempotencyKeyRepository.insertIfAbsent(anyLong(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(false);
+
+        assertThrows(DuplicateResourceException.class,
+                () -> service.record(1L, "key-1", REQUEST, response("SALE-1")));
+    }
+
+    private SaleIdempotencyKey stored(SaleResponseDto response) throws Exception {
+        return stored(response, null);
+    }
+
+    private SaleIdempotencyKey stored(SaleResponseDto response, String requestHash) throws Exception {
+        SaleIdempotencyKey stored = new SaleIdempotencyKey();
+        stored.setRequestHash(requestHash);
+        stored.setOrganizationId(1L);
+        stored.setIdempotencyKey("key-1");
+        stored.setSaleId(response.saleId());
+        stored.setResponseBody(objectMapper.writeValueAsString(response));
+        return stored;
+    }
+
+    private static SaleRequestDto request(BigDecimal quantity) {
+        return new SaleRequestDto(List.of(new SaleItemRequestDto(5L, quantity)), null, 1L);
+    }
+
+    private static SaleResponseDto response(String saleId) {
+        SaleItemResponseDto item = new SaleItemResponseDto(5L, "Beer", BigDecimal.ONE, new BigDecimal("3.50"),
+                new BigDecimal("3.50"));
+        return new SaleResponseDto(saleId, List.of(item), new BigDecimal("3.50"), null,
+                OffsetDateTime.of(2025, 1, 1, 20, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
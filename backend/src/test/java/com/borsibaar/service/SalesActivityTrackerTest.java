@@ -0,0 +1,117 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.event.SaleCompletedEvent;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.projection.ProductLastSale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalesActivityTrackerTest {
+
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+
+    private SalesActivityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SalesActivityTracker(inventoryTransactionRepository, 60);
+    }
+
+    @Test
+    void recordSale_MarksProductsAndOrganizationActive() {
+        tracker.recordSale(1L, List.of(10L, 11L), 5_000);
+
+        assertEquals(Set.of(1L), tracker.organizationsActiveSince(5_000));
+        assertTrue(tracker.soldSince(10L, 5_000));
+        assertTrue(tracker.soldSince(11L, 5_000));
+        assertFalse(tracker.soldSince(12L, 0));
+        assertTrue(tracker.organizationsActiveSince(5_001).isEmpty());
+    }
+
+    @Test
+    void onSaleCompleted_MarksSoldProductsActive() {
+        tracker.onSaleCompleted(new SaleCompletedEvent(1L, "SALE-1", null, null, List.of(
+                new SaleItemResponseDto(10L, "Beer", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.TEN)), 5_000));
+
+        assertTrue(tracker.organizationSoldSince(1L, 5_000));
+        assertTrue(tracker.soldSince(10L, 5_000));
+        assertFalse(tracker.soldSince(11L, 0));
+    }
+
+    @Test
+    void recordSale_OutOfOrderSaleKeepsLatestTimestamp() {
+        tracker.recordSale(1L, List.of(10L), 9_000);
+        tracker.recordSale(1L, List.of(10L), 4_000);
+
+        assertTrue(tracker.soldSince(10L, 9_000));
+    }
+
+    @Test
+    void evictBefore_DropsOnlyStaleEntries() {
+        tracker.recordSale(1L, List.of(10L), 1_000);
+        tracker.recordSale(2L, List.of(20L), 8_000);
+
+        tracker.evictBefore(5_000);
+
+        assertEquals(Set.of(2L), tracker.organizationsActiveSince(0));
+        assertFalse(tracker.soldSince(10L, 0));
+        assertTrue(tracker.soldSince(20L, 0));
+    }
+
+    @Test
+    void rebuild_LoadsLastWindowOfSales() {
+        OffsetDateTime soldAt = OffsetDateTime.of(2025, 1, 1, 20, 0, 30, 0, ZoneOffset.UTC);
+        when(inventoryTransactionRepository.findLastSalePerProductSince(any()))
+                .thenReturn(List.of(lastSale(1L, 10L, soldAt)));
+
+        tracker.rebuild();
+
+        long soldAtMillis = soldAt.toInstant().toEpochMilli();
+        assertEquals(Set.of(1L), tracker.organizationsActiveSince(soldAtMillis));
+        assertTrue(tracker.soldSince(10L, soldAtMillis));
+    }
+
+    @Test
+    void rebuild_DatabaseUnavailable_StartsEmpty() {
+        when(inventoryTransactionRepository.findLastSalePerProductSince(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(() -> tracker.rebuild());
+        assertTrue(tracker.organizationsActiveSince(0).isEmpty());
+    }
+
+    private static ProductLastSale lastSale(Long organizationId, Long productId, OffsetDateTime soldAt) {
+        return new ProductLastSale() {
+            @Override
+            public Long getOrganizationId() {
+                return organizationId;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public OffsetDateTime getLastSaleAt() {
+                return soldAt;
+            }
+        };
+    }
+}
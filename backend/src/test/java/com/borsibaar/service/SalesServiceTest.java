@@ -1,24 +1,32 @@
 package com.borsibaar.service;
 
+import com.borsibaar.dto.MarketUpdateDto;
 import com.borsibaar.dto.SaleItemRequestDto;
 import com.borsibaar.dto.SaleRequestDto;
 import com.borsibaar.dto.SaleResponseDto;
 import com.borsibaar.entity.Inventory;
 import com.borsibaar.entity.InventoryTransaction;
 import com.borsibaar.entity.Product;
+import com.borsibaar.event.MarketUpdateEvent;
+import com.borsibaar.event.SaleCompletedEvent;
 import com.borsibaar.repository.InventoryRepository;
 import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.PriceCandleRepository;
 import com.borsibaar.repository.ProductRepository;
+import com.borsibaar.repository.SalesRollupRepository;
+import com.borsibaar.repository.projection.SaleStockChange;
+import com.borsibaar.util.ReferenceIdGenerator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,6 +40,11 @@ class SalesServiceTest {
     @Mock private InventoryRepository inventoryRepository;
     @Mock private InventoryTransactionRepository inventoryTransactionRepository;
     @Mock private ProductRepository productRepository;
+    @Mock private SalesRollupRepository salesRollupRepository;
+    @Mock private PriceCandleRepository priceCandleRepository;
+    @Mock private ReferenceIdGenerator referenceIdGenerator;
+    @Mock private SaleIdempotencyService saleIdempotencyService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private SalesService salesService;
 
@@ -39,21 +52,54 @@ class SalesServiceTest {
 
     @Test
     void processSale_SingleItem_SuccessPriceIncreaseCapped() {
-        Product product = new Product(); product.setId(5L); product.setOrganizationId(1L); product.setActive(true); product.setBasePrice(BigDecimal.valueOf(10)); product.setMaxPrice(BigDecimal.valueOf(10)); product.setName("Beer");
-        Inventory inventory = new Inventory(); inventory.setId(9L); inventory.setProduct(product); inventory.setProductId(5L); inventory.setQuantity(BigDecimal.valueOf(20)); inventory.setAdjustedPrice(BigDecimal.valueOf(10)); inventory.setUpdatedAt(OffsetDateTime.now());
-        product.setInventory(inventory);
-        when(productRepository.findById(5L)).thenReturn(Optional.of(product));
-        when(inventoryRepository.save(inventory)).thenReturn(inventory);
-        when(inventoryTransactionRepository.save(any(InventoryTransaction.class))).thenAnswer(inv -> inv.getArgument(0));
+        SaleStockChange change = stockChange(9L, "Beer", BigDecimal.valueOf(20), BigDecimal.valueOf(18), BigDecimal.valueOf(10), BigDecimal.valueOf(10));
+        when(inventoryRepository.decrementStockForSale(5L, 1L, BigDecimal.valueOf(2))).thenReturn(Optional.of(change));
+        when(referenceIdGenerator.nextReference("SALE")).thenReturn("SALE-0000000000000001");
 
         SaleItemRequestDto item = new SaleItemRequestDto(5L, BigDecimal.valueOf(2));
         SaleRequestDto request = new SaleRequestDto(List.of(item), "note", 1L);
-        SaleResponseDto response = salesService.processSale(request, userId, 1L);
+        SaleResponseDto response = salesService.processSale(request, userId, 1L, null);
+        assertEquals("SALE-0000000000000001", response.saleId());
         assertEquals(1, response.items().size());
-        assertEquals(BigDecimal.valueOf(20), response.totalAmount());
-        // Price capped at max (10)
-        assertEquals(BigDecimal.valueOf(10), inventory.getAdjustedPrice());
-        verify(inventoryTransactionRepository).save(any(InventoryTransaction.class));
+        assertEquals("Beer", response.items().get(0).productName());
+        assertEquals(new BigDecimal("20.0000"), response.totalAmount());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(inventoryTransactionRepository).insertAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        InventoryTransaction tx = captor.getValue().get(0);
+        assertEquals(9L, tx.getInventoryId());
+        assertEquals(response.saleId(), tx.getReferenceId());
+        assertEquals(BigDecimal.valueOf(-2), tx.getQuantityChange());
+        assertEquals(BigDecimal.valueOf(20), tx.getQuantityBefore());
+        assertEquals(BigDecimal.valueOf(18), tx.getQuantityAfter());
+        // Price capped at max (10) by the update statement
+        assertEquals(BigDecimal.valueOf(10), tx.getPriceAfter());
+        verify(salesRollupRepository).addSales(captor.getValue());
+        verify(priceCandleRepository).addPriceChanges(captor.getValue());
+        verify(productRepository, never()).findById(any());
+        verify(inventoryRepository, never()).save(any());
+        verifyNoInteractions(saleIdempotencyService);
+        verify(eventPublisher).publishEvent(new MarketUpdateEvent(1L,
+                List.of(new MarketUpdateDto(5L, BigDecimal.valueOf(18), BigDecimal.valueOf(10)))));
+        ArgumentCaptor<SaleCompletedEvent> saleCaptor = ArgumentCaptor.forClass(SaleCompletedEvent.class);
+        verify(eventPublisher).publishEvent(saleCaptor.capture());
+        assertEquals(response.saleId(), saleCaptor.getValue().saleId());
+        assertEquals(userId, saleCaptor.getValue().userId());
+        assertEquals(1L, saleCaptor.getValue().barStationId());
+        assertEquals(response.items(), saleCaptor.getValue().items());
+    }
+
+    @Test
+    void processSale_WithIdempotencyKey_RecordsResponseInSameTransaction() {
+        SaleStockChange change = stockChange(9L, "Beer", BigDecimal.valueOf(20), BigDecimal.valueOf(19), BigDecimal.valueOf(5), BigDecimal.valueOf(6));
+        when(inventoryRepository.decrementStockForSale(5L, 1L, BigDecimal.ONE)).thenReturn(Optional.of(change));
+
+        SaleRequestDto request = new SaleRequestDto(List.of(new SaleItemRequestDto(5L, BigDecimal.ONE)), null, 1L);
+        SaleResponseDto response = salesService.processSale(request, userId, 1L, "key-1");
+
+        verify(saleIdempotencyService).record(1L, "key-1", request, response);
     }
 
     @Test
@@ -61,11 +107,16 @@ class SalesServiceTest {
         Product product = new Product(); product.setId(5L); product.setOrganizationId(1L); product.setActive(true); product.setBasePrice(BigDecimal.ONE); product.setName("Beer");
         Inventory inventory = new Inventory(); inventory.setId(9L); inventory.setProduct(product); inventory.setProductId(5L); inventory.setQuantity(BigDecimal.ONE); inventory.setAdjustedPrice(BigDecimal.ONE);
         product.setInventory(inventory);
+        when(inventoryRepository.decrementStockForSale(5L, 1L, BigDecimal.valueOf(5))).thenReturn(Optional.empty());
         when(productRepository.findById(5L)).thenReturn(Optional.of(product));
         SaleItemRequestDto item = new SaleItemRequestDto(5L, BigDecimal.valueOf(5));
         SaleRequestDto request = new SaleRequestDto(List.of(item), null, null);
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L, null));
         assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verify(inventoryTransactionRepository, never()).insertAll(any());
+        verifyNoInteractions(salesRollupRepository);
+        verifyNoInteractions(priceCandleRepository);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -73,10 +124,11 @@ class SalesServiceTest {
         Product product = new Product(); product.setId(5L); product.setOrganizationId(1L); product.setActive(false); product.setBasePrice(BigDecimal.ONE); product.setName("Beer");
         Inventory inventory = new Inventory(); inventory.setId(9L); inventory.setProduct(product); inventory.setProductId(5L); inventory.setQuantity(BigDecimal.ONE); inventory.setAdjustedPrice(BigDecimal.ONE);
         product.setInventory(inventory);
+        when(inventoryRepository.decrementStockForSale(5L, 1L, BigDecimal.ONE)).thenReturn(Optional.empty());
         when(productRepository.findById(5L)).thenReturn(Optional.of(product));
         SaleItemRequestDto item = new SaleItemRequestDto(5L, BigDecimal.ONE);
         SaleRequestDto request = new SaleRequestDto(List.of(item), null, null);
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L, null));
         assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
     }
 
@@ -85,20 +137,35 @@ class SalesServiceTest {
         Product product = new Product(); product.setId(5L); product.setOrganizationId(2L); product.setActive(true); product.setBasePrice(BigDecimal.ONE); product.setName("Beer");
         Inventory inventory = new Inventory(); inventory.setId(9L); inventory.setProduct(product); inventory.setProductId(5L); inventory.setQuantity(BigDecimal.ONE); inventory.setAdjustedPrice(BigDecimal.ONE);
         product.setInventory(inventory);
+        when(inventoryRepository.decrementStockForSale(5L, 1L, BigDecimal.ONE)).thenReturn(Optional.empty());
         when(productRepository.findById(5L)).thenReturn(Optional.of(product));
         SaleItemRequestDto item = new SaleItemRequestDto(5L, BigDecimal.ONE);
         SaleRequestDto request = new SaleRequestDto(List.of(item), null, null);
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L, null));
         assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
     }
 
     @Test
     void processSale_ProductInventoryMissing_Throws() {
         Product product = new Product(); product.setId(5L); product.setOrganizationId(1L); product.setActive(true); product.setBasePrice(BigDecimal.ONE); product.setName("Beer");
+        when(inventoryRepository.decrementStockForSale(5L, 1L, BigDecimal.ONE)).thenReturn(Optional.empty());
         when(productRepository.findById(5L)).thenReturn(Optional.of(product));
         SaleItemRequestDto item = new SaleItemRequestDto(5L, BigDecimal.ONE);
         SaleRequestDto request = new SaleRequestDto(List.of(item), null, null);
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> salesService.processSale(request, userId, 1L, null));
         assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
     }
+
+    private static SaleStockChange stockChange(Long inventoryId, String productName,
+                                               BigDecimal quantityBefore, BigDecimal quantityAfter,
+                                               BigDecimal priceBefore, BigDecimal priceAfter) {
+        return new SaleStockChange() {
+            @Override public Long getInventoryId() { return inventoryId; }
+            @Override public String getProductName() { return productName; }
+            @Override public BigDecimal getQuantityBefore() { return quantityBefore; }
+            @Override public BigDecimal getQuantityAfter() { return quantityAfter; }
+            @Override public BigDecimal getPriceBefore() { return priceBefore; }
+            @Override public BigDecimal getPriceAfter() { return priceAfter; }
+        };
+    }
 }
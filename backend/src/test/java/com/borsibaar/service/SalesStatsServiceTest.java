@@ -0,0 +1,165 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SalesStatsGranularity;
+import com.borsibaar.dto.StationSalesStatsResponseDto;
+import com.borsibaar.dto.UserSalesStatsResponseDto;
+import com.borsibaar.repository.SalesRollupRepository;
+import com.borsibaar.repository.projection.StationSalesBucket;
+import com.borsibaar.repository.projection.StationSalesStats;
+import com.borsibaar.repository.projection.UserSalesBucket;
+import com.borsibaar.repository.projection.UserSalesStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesStatsServiceTest {
+
+    private static final ZoneId TALLINN = ZoneId.of("Europe/Tallinn");
+
+    @Mock private SalesRollupRepository salesRollupRepository;
+
+    @InjectMocks private SalesStatsService salesStatsService;
+
+    @Test
+    void getUserSalesStats_MapsAggregatedRows() {
+        UUID uid = UUID.randomUUID();
+        UserSalesStats known = mock(UserSalesStats.class);
+        when(known.getUserId()).thenReturn(uid);
+        when(known.getUserName()).thenReturn("Bob");
+        when(known.getUserEmail()).thenReturn("b@c.d");
+        when(known.getSalesCount()).thenReturn(2L);
+        when(known.getTotalRevenue()).thenReturn(new BigDecimal("11.00"));
+        when(known.getBarStationId()).thenReturn(7L);
+        when(known.getBarStationName()).thenReturn("Main");
+        UserSalesStats deletedUser = mock(UserSalesStats.class);
+        when(deletedUser.getUserId()).thenReturn(UUID.randomUUID());
+        when(deletedUser.getSalesCount()).thenReturn(1L);
+        when(deletedUser.getTotalRevenue()).thenReturn(BigDecimal.ONE);
+        when(deletedUser.getBarStationId()).thenReturn(null);
+        when(salesRollupRepository.findUserSalesStats(eq(1L), any(), any())).thenReturn(List.of(known, deletedUser));
+
+        List<UserSalesStatsResponseDto> stats = salesStatsService.getUserSalesStats(1L, null, null, null,
+                ZoneOffset.UTC);
+
+        assertEquals(new UserSalesStatsResponseDto(uid.toString(), "Bob", "b@c.d", 2L, new BigDecimal("11.00"), 7L,
+                "Main", null), stats.get(0));
+        assertEquals("Unknown User", stats.get(1).userName());
+        assertEquals("unknown@email.com", stats.get(1).userEmail());
+        assertNull(stats.get(1).barStationId());
+    }
+
+    @Test
+    void getUserSalesStats_WidensRangeToWholeHours() {
+        salesStatsService.getUserSalesStats(1L, OffsetDateTime.parse("2025-03-01T10:15:00+02:00"),
+                OffsetDateTime.parse("2025-03-01T12:00:01+02:00"), null, ZoneOffset.UTC);
+
+        verify(salesRollupRepository).findUserSalesStats(1L, OffsetDateTime.parse("2025-03-01T08:00:00Z"),
+                OffsetDateTime.parse("2025-03-01T11:00:00Z"));
+    }
+
+    @Test
+    void getUserSalesStats_FromNotBeforeTo_Throws400() {
+        OffsetDateTime at = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> salesStatsService.getUserSalesStats(1L, at, at, null, ZoneOffset.UTC));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(salesRollupRepository);
+    }
+
+    @Test
+    void getUserSalesStats_Daily_MergesHoursOfTheLocalDay() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        // 21:00Z and 22:00Z on Jan 1 are 23:00 on Jan 1 and 00:00 on Jan 2 in Tallinn
+        List<UserSalesBucket> hours = List.of(
+                userHour("2025-01-01T20:00:00Z", alice, 2, "10.00"),
+                userHour("2025-01-01T21:00:00Z", alice, 1, "5.00"),
+                userHour("2025-01-01T21:00:00Z", bob, 4, "20.00"),
+                userHour("2025-01-01T22:00:00Z", alice, 3, "15.00"));
+        when(salesRollupRepository.findHourlyUserSalesStats(eq(1L), any(), any())).thenReturn(hours);
+
+        List<UserSalesStatsResponseDto> stats = salesStatsService.getUserSalesStats(1L, null, null,
+                SalesStatsGranularity.DAILY, TALLINN);
+
+        assertEquals(3, stats.size());
+        assertEquals(List.of(bob.toString(), alice.toString(), alice.toString()),
+                stats.stream().map(UserSalesStatsResponseDto::userId).toList());
+        assertEquals(List.of("2025-01-01T00:00:00+02:00", "2025-01-01T00:00:00+02:00", "2025-01-02T00:00:00+02:00"),
+                stats.stream().map(UserSalesStatsResponseDto::bucketStart).toList());
+        assertEquals(3L, stats.get(1).salesCount());
+        assertEquals(0, new BigDecimal("15.00").compareTo(stats.get(1).totalRevenue()));
+        assertEquals(3L, stats.get(2).salesCount());
+    }
+
+    @Test
+    void getStationSalesStats_Hourly_ReturnsOneRowPerHourInZone() {
+        StationSalesBucket first = stationHour("2025-01-01T20:00:00Z", 7L, 2, "10.00");
+        StationSalesBucket second = stationHour("2025-01-01T21:00:00Z", 7L, 1, "5.00");
+        when(salesRollupRepository.findHourlyStationSalesStats(eq(1L), any(), any()))
+                .thenReturn(List.of(first, second));
+
+        List<StationSalesStatsResponseDto> stats = salesStatsService.getStationSalesStats(1L, null, null,
+                SalesStatsGranularity.HOURLY, TALLINN);
+
+        assertEquals(List.of(
+                new StationSalesStatsResponseDto(7L, "Main", 2L, new BigDecimal("10.00"), "2025-01-01T22:00:00+02:00"),
+                new StationSalesStatsResponseDto(7L, "Main", 1L, new BigDecimal("5.00"), "2025-01-01T23:00:00+02:00")),
+                stats);
+    }
+
+    @Test
+    void getStationSalesStats_MapsAggregatedRows() {
+        StationSalesStats row = mock(StationSalesStats.class);
+        when(row.getBarStationId()).thenReturn(7L);
+        when(row.getBarStationName()).thenReturn("Main");
+        when(row.getSalesCount()).thenReturn(2L);
+        when(row.getTotalRevenue()).thenReturn(new BigDecimal("11.00"));
+        when(salesRollupRepository.findStationSalesStats(eq(1L), any(), any())).thenReturn(List.of(row));
+
+        List<StationSalesStatsResponseDto> stats = salesStatsService.getStationSalesStats(1L, null, null, null,
+                ZoneOffset.UTC);
+
+        assertEquals(List.of(new StationSalesStatsResponseDto(7L, "Main", 2L, new BigDecimal("11.00"), null)), stats);
+    }
+
+    private static UserSalesBucket userHour(String bucketStart, UUID userId, long salesCount, String revenue) {
+        UserSalesBucket hour = mock(UserSalesBucket.class);
+        when(hour.getBucketStart()).thenReturn(OffsetDateTime.parse(bucketStart));
+        when(hour.getUserId()).thenReturn(userId);
+        when(hour.getUserName()).thenReturn("User");
+        when(hour.getUserEmail()).thenReturn("user@example.com");
+        when(hour.getSalesCount()).thenReturn(salesCount);
+        when(hour.getTotalRevenue()).thenReturn(new BigDecimal(revenue));
+        when(hour.getBarStationId()).thenReturn(7L);
+        return hour;
+    }
+
+    private static StationSalesBucket stationHour(String bucketStart, Long stationId, long salesCount,
+            String revenue) {
+        StationSalesBucket hour = mock(StationSalesBucket.class);
+        when(hour.getBucketStart()).thenReturn(OffsetDateTime.parse(bucketStart));
+        when(hour.getBarStationId()).thenReturn(stationId);
+        when(hour.getBarStationName()).thenReturn("Main");
+        when(hour.getSalesCount()).thenReturn(salesCount);
+        when(hour.getTotalRevenue()).thenReturn(new BigDecimal(revenue));
+        return hour;
+    }
+}
@@ -0,0 +1,134 @@
+package com.borsibaar.service;
+
+import com.borsibaar.dto.SaleItemResponseDto;
+import com.borsibaar.dto.TopSellerDto;
+import com.borsibaar.dto.TopSellersDto;
+import com.borsibaar.dto.TopSellersWindow;
+import com.borsibaar.repository.InventoryTransactionRepository;
+import com.borsibaar.repository.SalesRollupRepository;
+import com.borsibaar.repository.projection.ProductSalesTotal;
+import com.borsibaar.repository.projection.SaleLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TopSellersTrackerTest {
+
+    // 2025-03-01T23:30:00+02:00, the night started at 06:00 local time
+    private static final OffsetDateTime NOW = OffsetDateTime.parse("2025-03-01T23:30:00+02:00");
+    private static final long NOW_MILLIS = NOW.toInstant().toEpochMilli();
+    private static final long MINUTE = 60_000L;
+
+    @Mock private InventoryTransactionRepository inventoryTransactionRepository;
+    @Mock private SalesRollupRepository salesRollupRepository;
+
+    private TopSellersTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new TopSellersTracker(inventoryTransactionRepository, salesRollupRepository, 8,
+                "Europe/Tallinn", "06:00");
+    }
+
+    @Test
+    void getTopSellers_Last10Minutes_RanksByUnitsAndByRevenue() {
+        tracker.recordSale(1L, List.of(item(5L, "3", "2.00"), item(6L, "1", "9.00")), NOW_MILLIS);
+        tracker.recordSale(1L, List.of(item(5L, "1", "2.00")), NOW_MILLIS - 5 * MINUTE);
+        tracker.recordSale(1L, List.of(item(7L, "10", "1.00")), NOW_MILLIS - 10 * MINUTE);
+
+        TopSellersDto top = tracker.getTopSellers(1L, TopSellersWindow.LAST_10_MINUTES, 5, NOW_MILLIS);
+
+        assertEquals(List.of(5L, 6L), top.byUnits().stream().map(TopSellerDto::productId).toList());
+        assertEquals(0, new BigDecimal("4").compareTo(top.byUnits().get(0).amount()));
+        assertEquals(List.of(6L, 5L), top.byRevenue().stream().map(TopSellerDto::productId).toList());
+        assertEquals(OffsetDateTime.parse("2025-03-01T23:21:00+02:00").toInstant(), top.since().toInstant());
+    }
+
+    @Test
+    void getTopSellers_Tonight_CoversSalesSinceNightStart() {
+        tracker.recordSale(1L, List.of(item(7L, "10", "1.00")), NOW_MILLIS - 10 * MINUTE);
+        tracker.recordSale(1L, List.of(item(5L, "2", "2.00")), NOW_MILLIS);
+
+        TopSellersDto top = tracker.getTopSellers(1L, TopSellersWindow.TONIGHT, 1, NOW_MILLIS);
+
+        assertEquals(List.of(7L), top.byUnits().stream().map(TopSellerDto::productId).toList());
+        assertEquals(OffsetDateTime.parse("2025-03-01T06:00:00+02:00").toInstant(), top.since().toInstant());
+        // The next night starts from scratch
+        long nextNight = OffsetDateTime.parse("2025-03-02T06:00:00+02:00").toInstant().toEpochMilli();
+        assertTrue(tracker.getTopSellers(1L, TopSellersWindow.TONIGHT, 1, nextNight).byUnits().isEmpty());
+    }
+
+    @Test
+    void getTopSellers_UnknownOrganization_ReturnsEmptyLists() {
+        TopSellersDto top = tracker.getTopSellers(2L, TopSellersWindow.TONIGHT, 3, NOW_MILLIS);
+
+        assertTrue(top.byUnits().isEmpty());
+        assertTrue(top.byRevenue().isEmpty());
+    }
+
+    @Test
+    void getTopSellers_LimitAboveCapacity_Throws400() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> tracker.getTopSellers(1L, TopSellersWindow.TONIGHT, 9, NOW_MILLIS));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    void rebuild_LoadsTonightFromRollupsAndRecentMinutesFromTransactions() {
+        ProductSalesTotal total = mock(ProductSalesTotal.class);
+        when(total.getOrganizationId()).thenReturn(1L);
+        when(total.getProductId()).thenReturn(5L);
+        when(total.getUnits()).thenReturn(new BigDecimal("40"));
+        when(total.getRevenue()).thenReturn(new BigDecimal("80.00"));
+        when(salesRollupRepository.findProductSalesSince(any())).thenReturn(List.of(total));
+        SaleLine line = mock(SaleLine.class);
+        when(line.getOrganizationId()).thenReturn(1L);
+        when(line.getProductId()).thenReturn(6L);
+        when(line.getQuantity()).thenReturn(new BigDecimal("2"));
+        when(line.getUnitPrice()).thenReturn(new BigDecimal("3.00"));
+        when(line.getCreatedAt()).thenReturn(OffsetDateTime.now(ZoneOffset.UTC));
+        when(inventoryTransactionRepository.findSaleLinesSince(any())).thenReturn(List.of(line));
+
+        tracker.rebuild();
+
+        long now = System.currentTimeMillis();
+        assertEquals(List.of(5L), tracker.getTopSellers(1L, TopSellersWindow.TONIGHT, 5, now).byUnits().stream()
+                .map(TopSellerDto::productId).toList());
+        TopSellersDto recent = tracker.getTopSellers(1L, TopSellersWindow.LAST_10_MINUTES, 5, now);
+        assertEquals(List.of(6L), recent.byRevenue().stream().map(TopSellerDto::productId).toList());
+        assertEquals(0, new BigDecimal("6.00").compareTo(recent.byRevenue().get(0).amount()));
+    }
+
+    @Test
+    void rebuild_RepositoryFailure_StartsEmpty() {
+        when(salesRollupRepository.findProductSalesSince(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        tracker.rebuild();
+
+        assertTrue(tracker.getTopSellers(1L, TopSellersWindow.TONIGHT, 5, NOW_MILLIS).byUnits().isEmpty());
+    }
+
+    private static SaleItemResponseDto item(Long productId, String quantity, String unitPrice) {
+        BigDecimal qty = new BigDecimal(quantity);
+        BigDecimal price = new BigDecimal(unitPrice);
+        return new SaleItemResponseDto(productId, "Product", qty, price, price.multiply(qty));
+    }
+}
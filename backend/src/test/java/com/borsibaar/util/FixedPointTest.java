@@ -0,0 +1,110 @@
+package com.borsibaar.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    private static final int SAMPLES = 100_000;
+
+    // Fixed seed, so a failure can be reproduced
+    private final Random random = new Random(20_231_017L);
+
+    @Test
+    void of_RoundsHalfUpToFourDecimals() {
+        assertEquals(12_345, FixedPoint.of(new BigDecimal("1.23445")));
+        assertEquals(12_344, FixedPoint.of(new BigDecimal("1.23444")));
+        assertEquals(-12_345, FixedPoint.of(new BigDecimal("-1.23445")));
+        assertEquals(50_000, FixedPoint.of(new BigDecimal("5")));
+        assertEquals(50_000, FixedPoint.of(new BigDecimal("5.000000")));
+    }
+
+    @Test
+    void of_MatchesBigDecimalSetScale() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal value = BigDecimal.valueOf(random.nextLong() % 1_000_000_000_000L, random.nextInt(9));
+
+            BigDecimal expected = value.setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+
+            assertEquals(expected, FixedPoint.toBigDecimal(FixedPoint.of(value)), value::toPlainString);
+        }
+    }
+
+    @Test
+    void toBigDecimal_RoundTrips() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long value = random.nextLong();
+
+            assertEquals(value, FixedPoint.of(FixedPoint.toBigDecimal(value)));
+        }
+    }
+
+    @Test
+    void of_BeyondLongRange_Throws() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(new BigDecimal("1e16")));
+    }
+
+    @Test
+    void multiply_MatchesBigDecimalRoundedHalfUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            // Prices and quantities of up to a million, either sign
+            long a = random.nextLong() % 10_000_000_000L;
+            long b = random.nextLong() % 10_000_000_000L;
+
+            assertEquals(reference(a, b), FixedPoint.multiply(a, b), () -> a + " * " + b);
+        }
+    }
+
+    @Test
+    void multiply_ProductsBeyondSixtyFourBits_MatchBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            // Exact products mostly overflow a long, the rounded results do not
+            long a = random.nextLong() % 100_000_000_000_000L;
+            long b = random.nextLong() % 100_000_000L;
+
+            assertEquals(reference(a, b), FixedPoint.multiply(a, b), () -> a + " * " + b);
+        }
+    }
+
+    @Test
+    void multiply_Ties_RoundAwayFromZero() {
+        // 0.0001 * 0.5 = 0.00005
+        assertEquals(1, FixedPoint.multiply(1, 5_000));
+        assertEquals(-1, FixedPoint.multiply(-1, 5_000));
+        assertEquals(-1, FixedPoint.multiply(1, -5_000));
+        // 0.0001 * 0.4999
+        assertEquals(0, FixedPoint.multiply(1, 4_999));
+        assertEquals(0, FixedPoint.multiply(-1, 4_999));
+    }
+
+    @Test
+    void multiply_ResultBeyondLongRange_Throws() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE, 2 * FixedPoint.ONE));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MIN_VALUE, Long.MIN_VALUE));
+    }
+
+    @Test
+    void addExact_SumsMatchBigDecimal() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long a = random.nextLong() >> 2;
+            long b = random.nextLong() >> 2;
+
+            assertEquals(FixedPoint.toBigDecimal(a).add(FixedPoint.toBigDecimal(b)),
+                    FixedPoint.toBigDecimal(Math.addExact(a, b)));
+        }
+        assertThrows(ArithmeticException.class, () -> Math.addExact(Long.MAX_VALUE, FixedPoint.ONE));
+    }
+
+    private static long reference(long a, long b) {
+        return FixedPoint.toBigDecimal(a)
+                .multiply(FixedPoint.toBigDecimal(b))
+                .setScale(FixedPoint.SCALE, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+}
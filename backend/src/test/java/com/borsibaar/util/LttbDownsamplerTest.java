@@ -0,0 +1,90 @@
+package com.borsibaar.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbDownsamplerTest {
+
+    @Test
+    void finish_OnePointPerBucket_KeepsAll() {
+        LttbDownsampler<Integer> lttb = new LttbDownsampler<>(0, 100, 6);
+        int[] times = {0, 10, 35, 60, 85, 100};
+        for (int i = 0; i < times.length; i++) {
+            lttb.add(times[i], i, i);
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), lttb.finish());
+    }
+
+    @Test
+    void finish_KeepsSpikeOfFlatSeries() {
+        LttbDownsampler<Integer> lttb = new LttbDownsampler<>(0, 1000, 5);
+        for (int t = 0; t <= 1000; t++) {
+            lttb.add(t, t == 420 ? 9 : 3, t);
+        }
+
+        List<Integer> kept = lttb.finish();
+
+        assertEquals(5, kept.size());
+        assertEquals(0, kept.get(0));
+        assertEquals(1000, kept.get(4));
+        assertTrue(kept.contains(420));
+    }
+
+    @Test
+    void finish_LongSeries_StaysWithinThresholdInTimeOrder() {
+        LttbDownsampler<Integer> lttb = new LttbDownsampler<>(0, 100_000, 50);
+        Random random = new Random(7);
+        double value = 5;
+        for (int t = 0; t <= 100_000; t += 1 + random.nextInt(3)) {
+            value += random.nextGaussian();
+            lttb.add(t, value, t);
+        }
+
+        List<Integer> kept = lttb.finish();
+
+        assertEquals(50, kept.size());
+        assertEquals(0, kept.get(0));
+        for (int i = 1; i < kept.size(); i++) {
+            assertTrue(kept.get(i) > kept.get(i - 1));
+        }
+    }
+
+    @Test
+    void finish_EmptyBucketsAreSkipped() {
+        LttbDownsampler<String> lttb = new LttbDownsampler<>(0, 100, 12);
+        lttb.add(0, 1, "first");
+        lttb.add(55, 2, "middle");
+        lttb.add(100, 1, "last");
+
+        assertEquals(List.of("first", "middle", "last"), lttb.finish());
+    }
+
+    @Test
+    void finish_ThresholdTwo_KeepsFirstAndLast() {
+        LttbDownsampler<Integer> lttb = new LttbDownsampler<>(0, 10, 2);
+        for (int t = 0; t <= 10; t++) {
+            lttb.add(t, t % 3, t);
+        }
+
+        assertEquals(List.of(0, 10), lttb.finish());
+    }
+
+    @Test
+    void finish_SinglePoint() {
+        LttbDownsampler<Integer> lttb = new LttbDownsampler<>(0, 10, 5);
+        lttb.add(3, 1, 3);
+
+        assertEquals(List.of(3), lttb.finish());
+    }
+
+    @Test
+    void constructor_RejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LttbDownsampler<>(10, 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> new LttbDownsampler<>(0, 10, 1));
+    }
+}
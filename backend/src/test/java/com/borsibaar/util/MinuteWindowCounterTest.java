@@ -0,0 +1,66 @@
+package com.borsibaar.util;
+
+import com.borsibaar.util.MinuteWindowCounter.Totals;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinuteWindowCounterTest {
+
+    private final MinuteWindowCounter counter = new MinuteWindowCounter();
+
+    @Test
+    void totals_SumOnlyMinutesInsideTheWindow() {
+        counter.add(100, 1, 20_000, 50_000);
+        counter.add(100, 1, 10_000, 30_000);
+        counter.add(96, 1, 10_000, 10_000);
+        counter.add(90, 2, 40_000, 70_000);
+
+        assertEquals(new Totals(2, 30_000, 80_000), counter.totals(100, 1));
+        assertEquals(new Totals(3, 40_000, 90_000), counter.totals(100, 5));
+        assertEquals(new Totals(5, 80_000, 160_000), counter.totals(100, 15));
+        assertEquals(new Totals(0, 0, 0), counter.totals(99, 1));
+    }
+
+    @Test
+    void add_ReusedSlotStartsFromZero() {
+        counter.add(100, 5, 5, 5);
+        counter.add(100 + MinuteWindowCounter.MINUTES, 1, 1, 1);
+
+        assertEquals(new Totals(1, 1, 1), counter.totals(160, MinuteWindowCounter.MINUTES));
+    }
+
+    @Test
+    void add_MinuteOlderThanSlotIsIgnored() {
+        counter.add(160, 1, 1, 1);
+        counter.add(100, 5, 5, 5);
+
+        assertEquals(new Totals(1, 1, 1), counter.totals(160, MinuteWindowCounter.MINUTES));
+    }
+
+    @Test
+    void isIdle_AfterAnHourWithoutSales() {
+        assertTrue(counter.isIdle(0));
+        counter.add(100, 1, 1, 1);
+
+        assertFalse(counter.isIdle(159));
+        assertTrue(counter.isIdle(160));
+    }
+
+    @Test
+    void add_ConcurrentWritersLoseNothing() throws InterruptedException {
+        Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = Thread.ofPlatform().start(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    counter.add(100, 1, 1, 2);
+                }
+            });
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(new Totals(40_000, 40_000, 80_000), counter.totals(100, 1));
+    }
+}
@@ -0,0 +1,117 @@
+package com.borsibaar.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceIdGeneratorTest {
+
+    private static final long NOW = ReferenceIdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    void nextId_EncodesTimestampNodeAndSequence() {
+        ReferenceIdGenerator generator = new ReferenceIdGenerator(5, () -> NOW);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertEquals(1_000_000L, first >>> 22);
+        assertEquals(5, (first >>> 12) & ReferenceIdGenerator.MAX_NODE_ID);
+        assertEquals(0, first & 0xFFF);
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void nextId_SequenceOverflowCarriesIntoNextMillisecond() {
+        ReferenceIdGenerator generator = new ReferenceIdGenerator(0, () -> NOW);
+
+        long last = 0;
+        for (int i = 0; i < 4096; i++) {
+            last = generator.nextId();
+        }
+        long overflow = generator.nextId();
+
+        assertEquals(4095, last & 0xFFF);
+        assertEquals(1_000_001L, overflow >>> 22);
+        assertEquals(0, overflow & 0xFFF);
+    }
+
+    @Test
+    void nextId_ClockGoingBackwardsStaysMonotonic() {
+        AtomicLong clock = new AtomicLong(NOW);
+        ReferenceIdGenerator generator = new ReferenceIdGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.set(NOW - 5_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void nextReference_IsFixedWidthAndSortable() {
+        AtomicLong clock = new AtomicLong(NOW);
+        ReferenceIdGenerator generator = new ReferenceIdGenerator(3, clock::get);
+
+        String first = generator.nextReference("SALE");
+        clock.addAndGet(1);
+        String second = generator.nextReference("SALE");
+
+        assertTrue(first.matches("SALE-[0-9a-f]{16}"), first);
+        assertEquals(Long.parseLong(first.substring(5), 16) + (1L << 22), Long.parseLong(second.substring(5), 16));
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    void constructor_RejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceIdGenerator(-1, () -> NOW));
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceIdGenerator(1024, () -> NOW));
+    }
+
+    @Test
+    void nextId_ConcurrentCallersNeverCollide() throws Exception {
+        ReferenceIdGenerator generator = new ReferenceIdGenerator(7, System::currentTimeMillis);
+        int threads = 8;
+        int idsPerThread = 100_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet(threads * idsPerThread);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    long previous = -1;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        long id = generator.nextId();
+                        // Each caller observes strictly increasing ids
+                        if (id <= previous || !ids.add(id)) {
+                            return false;
+                        }
+                        previous = id;
+                    }
+                    return true;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+}
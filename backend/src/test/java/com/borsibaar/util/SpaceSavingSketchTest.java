@@ -0,0 +1,83 @@
+package com.borsibaar.util;
+
+import com.borsibaar.util.SpaceSavingSketch.Estimate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void top_BelowCapacity_CountsExactly() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(4);
+        sketch.add("beer", 3);
+        sketch.add("cider", 1);
+        sketch.add("beer", 2);
+
+        assertEquals(List.of(new Estimate<>("beer", 5, 0), new Estimate<>("cider", 1, 0)), sketch.top(10));
+        assertEquals(List.of(new Estimate<>("beer", 5, 0)), sketch.top(1));
+    }
+
+    @Test
+    void add_FullSketch_ReplacesSmallestAndRemembersError() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(2);
+        sketch.add("beer", 5);
+        sketch.add("cider", 2);
+        sketch.add("wine", 1);
+
+        assertEquals(2, sketch.size());
+        assertEquals(List.of(new Estimate<>("beer", 5, 0), new Estimate<>("wine", 3, 2)), sketch.top(2));
+    }
+
+    @Test
+    void top_SkewedStream_KeepsHeavyHittersWithinErrorBound() {
+        SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(20);
+        long[] truth = new long[1000];
+        long total = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // A handful of popular products and a long tail
+            int key = random.nextInt(10) < 6 ? random.nextInt(5) : 5 + random.nextInt(995);
+            sketch.add(key, 1);
+            truth[key]++;
+            total++;
+        }
+
+        List<Estimate<Integer>> top = sketch.top(5);
+        assertEquals(List.of(0, 1, 2, 3, 4), top.stream().map(Estimate::key).sorted().toList());
+        for (Estimate<Integer> estimate : sketch.top(20)) {
+            long overcount = estimate.count() - truth[estimate.key()];
+            assertTrue(overcount >= 0 && overcount <= estimate.error(), estimate.toString());
+            assertTrue(estimate.error() <= total / 20, estimate.toString());
+        }
+    }
+
+    @Test
+    void addAll_SumsCountsAndErrors() {
+        SpaceSavingSketch<String> first = new SpaceSavingSketch<>(2);
+        first.add("beer", 2);
+        first.add("cider", 1);
+        first.add("wine", 1);
+        SpaceSavingSketch<String> second = new SpaceSavingSketch<>(2);
+        second.add("beer", 4);
+        SpaceSavingSketch<String> merged = new SpaceSavingSketch<>(4);
+
+        merged.addAll(first);
+        merged.addAll(second);
+
+        assertEquals(List.of(new Estimate<>("beer", 6, 0), new Estimate<>("wine", 2, 1)), merged.top(2));
+    }
+
+    @Test
+    void clear_EmptiesSketch() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(2);
+        sketch.add("beer", 1);
+
+        sketch.clear();
+
+        assertTrue(sketch.top(2).isEmpty());
+    }
+}
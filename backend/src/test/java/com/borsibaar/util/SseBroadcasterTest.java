@@ -0,0 +1,155 @@
+package com.borsibaar.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseBroadcasterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SseBroadcaster<Long> broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.closeAll();
+        }
+    }
+
+    @Test
+    void subscribe_SendsInitialEventThenPublishedEventsOfTopic() throws Exception {
+        broadcaster = new SseBroadcaster<>("test", new ObjectMapper(), meterRegistry, 16, Duration.ofMinutes(1), 10);
+        RecordingHandler handler = new RecordingHandler();
+
+        SseEmitter emitter = broadcaster.subscribe(1L, "snapshot", () -> List.of(Map.of("id", 1)));
+        handler.attach(emitter);
+        awaitUntil(() -> handler.text().contains("snapshot"));
+
+        broadcaster.publish(1L, "update", Map.of("price", 5));
+        broadcaster.publish(2L, "update", Map.of("price", 99));
+        awaitUntil(() -> handler.text().contains("\"price\":5"));
+
+        String text = handler.text();
+        assertTrue(text.startsWith("event:snapshot\ndata:[{\"id\":1}]"), text);
+        assertFalse(text.contains("99"), text);
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void publish_SlowSubscriberIsEvictedWithoutBlockingPublisher() throws Exception {
+        broadcaster = new SseBroadcaster<>("test", new ObjectMapper(), meterRegistry, 2, Duration.ofMinutes(1), 10);
+        CountDownLatch releaseSnapshot = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler();
+
+        // The snapshot blocks the drain thread, so published events pile up in the queue
+        SseEmitter emitter = broadcaster.subscribe(1L, "snapshot", () -> {
+            try {
+                releaseSnapshot.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        });
+        handler.attach(emitter);
+        for (int i = 0; i < 3; i++) {
+            broadcaster.publish(1L, "update", i);
+        }
+        releaseSnapshot.countDown();
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("test.evictions").counter().count());
+        awaitUntil(handler::isCompleted);
+    }
+
+    @Test
+    void subscribe_OverLimit_ThrowsServiceUnavailable() {
+        broadcaster = new SseBroadcaster<>("test", new ObjectMapper(), meterRegistry, 2, Duration.ofMinutes(1), 1);
+        broadcaster.subscribe(1L, "snapshot", List::of);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> broadcaster.subscribe(1L, "snapshot", List::of));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void idleStream_ReceivesHeartbeats() throws Exception {
+        broadcaster = new SseBroadcaster<>("test", new ObjectMapper(), meterRegistry, 2, Duration.ofMillis(20), 10);
+        RecordingHandler handler = new RecordingHandler();
+
+        handler.attach(broadcaster.subscribe(1L, "snapshot", List::of));
+
+        awaitUntil(() -> handler.text().contains(":heartbeat"));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Stands in for Spring MVC's (package-private) emitter handler and records
+     * what the emitter writes.
+     */
+    private static class RecordingHandler implements InvocationHandler {
+        private final List<Object> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        void attach(ResponseBodyEmitter emitter) throws Exception {
+            Class<?> handlerType = Class.forName(ResponseBodyEmitter.class.getName() + "$Handler");
+            Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType}, this);
+            Method initialize = ResponseBodyEmitter.class.getDeclaredMethod("initialize", handlerType);
+            initialize.setAccessible(true);
+            initialize.invoke(emitter, handler);
+        }
+
+        String text() {
+            StringBuilder text = new StringBuilder();
+            sent.forEach(text::append);
+            return text.toString();
+        }
+
+        boolean isCompleted() {
+            return completed;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "send" -> {
+                    if (args[0] instanceof Set<?> items) {
+                        items.forEach(item -> sent.add(((ResponseBodyEmitter.DataWithMediaType) item).getData()));
+                    } else {
+                        sent.add(args[0]);
+                    }
+                }
+                case "complete", "completeWithError" -> completed = true;
+                default -> {
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.borsibaar.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_ExpiresAtFirstTickAfterDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("beer", 250);
+        wheel.schedule("cider", 300);
+
+        assertEquals(List.of(), wheel.advance(299));
+        assertEquals(List.of("beer", "cider"), wheel.advance(300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ReportsExactDeadlines() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("beer", 250);
+        wheel.schedule("cider", 1_020);
+        Map<String, Long> expired = new HashMap<>();
+
+        wheel.advance(1_100, expired::put);
+
+        assertEquals(Map.of("beer", 250L, "cider", 1_020L), expired);
+    }
+
+    @Test
+    void schedule_ExistingKey_ReplacesDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("beer", 500);
+        wheel.schedule("beer", 5_000);
+
+        assertEquals(List.of(), wheel.advance(4_900));
+        assertEquals(5_000L, wheel.deadlineOf("beer"));
+        assertEquals(List.of("beer"), wheel.advance(5_000));
+    }
+
+    @Test
+    void schedule_PastDeadline_ExpiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 3, 1_000);
+        wheel.schedule("beer", 10);
+
+        assertEquals(List.of("beer"), wheel.advance(1_100));
+    }
+
+    @Test
+    void cancel_RemovesTimer() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("beer", 500);
+
+        assertTrue(wheel.cancel("beer"));
+        assertFalse(wheel.cancel("beer"));
+        assertFalse(wheel.contains("beer"));
+        assertEquals(List.of(), wheel.advance(1_000));
+    }
+
+    @Test
+    void advance_CascadesFromHigherLevels() {
+        // 8 ticks on level 0, 64 on level 1, 512 on level 2
+        TimingWheel<String> wheel = new TimingWheel<>(1, 8, 3, 3);
+        wheel.schedule("level1", 40);
+        wheel.schedule("level2", 300);
+        wheel.schedule("beyond", 2_000);
+
+        assertEquals(List.of(), wheel.advance(39));
+        assertEquals(List.of("level1"), wheel.advance(40));
+        assertEquals(List.of(), wheel.advance(299));
+        assertEquals(List.of("level2"), wheel.advance(300));
+        assertEquals(List.of(), wheel.advance(1_999));
+        assertEquals(List.of("beyond"), wheel.advance(2_000));
+    }
+
+    @Test
+    void advance_SingleLevel_KeepsTimersBeyondRotation() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 4, 1, 0);
+        wheel.schedule("beer", 9);
+
+        assertEquals(List.of(), wheel.advance(8));
+        assertEquals(List.of("beer"), wheel.advance(9));
+    }
+
+    @Test
+    void advance_RandomOperations_MatchReferenceModel() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 16, 3, 5);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        long now = 5;
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(500);
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    // Mostly near deadlines, some past and some beyond the top level
+                    long deadline = now + (random.nextInt(10) == 0
+                            ? random.nextInt(100_000) - 50
+                            : random.nextInt(2_000));
+                    wheel.schedule(key, deadline);
+                    long tick = Math.max(Math.ceilDiv(deadline, 10), Math.floorDiv(now, 10) + 1);
+                    expected.put(key, tick * 10);
+                }
+                case 2 -> assertEquals(expected.remove(key) != null, wheel.cancel(key));
+                default -> {
+                    now += random.nextInt(300);
+                    List<Integer> fired = wheel.advance(now);
+                    List<Integer> due = new ArrayList<>();
+                    long at = now;
+                    expected.entrySet().removeIf(entry -> {
+                        if (entry.getValue() <= at) {
+                            due.add(entry.getKey());
+                            return true;
+                        }
+                        return false;
+                    });
+                    assertEquals(due.stream().sorted().toList(), fired.stream().sorted().toList());
+                }
+            }
+            assertEquals(expected.size(), wheel.size());
+        }
+    }
+}
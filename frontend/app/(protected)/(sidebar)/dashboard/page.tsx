@@ -42,6 +42,7 @@ export default function Dashboard() {
     name: string;
     priceIncreaseStep?: number;
     priceDecreaseStep?: number;
+    priceDecayIntervalSeconds?: number;
   } | null>(null);
   const [saving, setSaving] = useState(false);
   const [saveError, setSaveError] = useState<string | null>(null);
@@ -83,6 +84,8 @@ export default function Dashboard() {
               priceDecreaseStep: org?.priceDecreaseStep
                 ? parseFloat(org.priceDecreaseStep)
                 : undefined,
+              priceDecayIntervalSeconds:
+                org?.priceDecayIntervalSeconds ?? undefined,
             });
           } else setOrgName("Unknown Organization");
         } catch {
@@ -154,6 +157,7 @@ export default function Dashboard() {
             name: orgDetails.name,
             priceIncreaseStep: orgDetails.priceIncreaseStep,
             priceDecreaseStep: orgDetails.priceDecreaseStep,
+            priceDecayIntervalSeconds: orgDetails.priceDecayIntervalSeconds,
           }),
         }
       );
@@ -167,6 +171,7 @@ export default function Dashboard() {
         priceDecreaseStep: updated.priceDecreaseStep
           ? parseFloat(updated.priceDecreaseStep)
           : undefined,
+        priceDecayIntervalSeconds: updated.priceDecayIntervalSeconds ?? undefined,
       });
       setSaveSuccess("Organization updated successfully");
     } catch (err) {
@@ -402,6 +407,33 @@ export default function Dashboard() {
                     }
                   />
                 </div>
+                <div>
+                  <label className="block text-sm font-medium mb-1 text-card-foreground">
+                    Price Decay Interval (s)
+                  </label>
+                  <Input
+                    type="number"
+                    step="1"
+                    min="5"
+                    max="86400"
+                    placeholder="Default"
+                    className="w-full px-3 py-2 border border-gray-700 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
+                    value={orgDetails.priceDecayIntervalSeconds ?? ""}
+                    onChange={(e) =>
+                      setOrgDetails((d) =>
+                        d
+                          ? {
+                              ...d,
+                              priceDecayIntervalSeconds:
+                                e.target.value === ""
+                                  ? undefined
+                                  : parseInt(e.target.value, 10),
+                            }
+                          : d
+                      )
+                    }
+                  />
+                </div>
               </div>
               {saveError && (
                 <p className="text-sm text-destructive">{saveError}</p>
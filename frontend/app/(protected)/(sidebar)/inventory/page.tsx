@@ -48,6 +48,9 @@ import { Button } from "@/components/ui/button";
 
 export const dynamic = "force-dynamic";
 
+// Transactions fetched per page of the history dialog
+const HISTORY_PAGE_SIZE = 100;
+
 export default function Inventory() {
   const [inventory, setInventory] = useState([]);
   const [loading, setLoading] = useState(true);
@@ -62,6 +65,8 @@ export default function Inventory() {
     InventoryTransactionResponseDto[]
   >([]);
   const [loadingHistory, setLoadingHistory] = useState(false);
+  const [loadingMoreHistory, setLoadingMoreHistory] = useState(false);
+  const [hasMoreHistory, setHasMoreHistory] = useState(false);
   const [formData, setFormData] = useState({
     quantity: "",
     notes: "",
@@ -126,11 +131,20 @@ export default function Inventory() {
     }
   };
 
-  const fetchTransactionHistory = async (productId: number) => {
+  // Newest first; with `before`, the page of transactions older than it is appended
+  const fetchTransactionHistory = async (
+    productId: number,
+    before?: InventoryTransactionResponseDto
+  ) => {
+    const setLoading = before ? setLoadingMoreHistory : setLoadingHistory;
     try {
-      setLoadingHistory(true);
+      setLoading(true);
+      const params = new URLSearchParams({ limit: String(HISTORY_PAGE_SIZE) });
+      if (before) {
+        params.set("before", `${before.createdAt},${before.id}`);
+      }
       const response = await fetch(
-        `/api/backend/inventory/product/${productId}/history`,
+        `/api/backend/inventory/product/${productId}/history?${params}`,
         {
           credentials: "include",
         }
@@ -138,13 +152,19 @@ export default function Inventory() {
 
       if (!response.ok) throw new Error("Failed to fetch history");
 
-      const data = await response.json();
-      setTransactionHistory(data);
+      const data: InventoryTransactionResponseDto[] = await response.json();
+      setTransactionHistory((previous) =>
+        before ? [...previous, ...data] : data
+      );
+      setHasMoreHistory(data.length === HISTORY_PAGE_SIZE);
     } catch (err) {
       console.error("Error fetching history:", err);
-      setTransactionHistory([]);
+      if (!before) {
+        setTransactionHistory([]);
+        setHasMoreHistory(false);
+      }
     } finally {
-      setLoadingHistory(false);
+      setLoading(false);
     }
   };
 
@@ -363,6 +383,8 @@ export default function Inventory() {
     setFormData({ quantity: "", notes: "", referenceId: "" });
     setTransactionHistory([]);
     setLoadingHistory(false);
+    setLoadingMoreHistory(false);
+    setHasMoreHistory(false);
   };
 
   // @ts-expect-error: types aren't imported currently from backend
@@ -1185,6 +1207,22 @@ export default function Inventory() {
                       )}
                   </div>
                 ))}
+                {hasMoreHistory && (
+                  <Button
+                    variant="outline"
+                    className="w-full"
+                    disabled={loadingMoreHistory}
+                    onClick={() =>
+                      fetchTransactionHistory(
+                        // @ts-expect-error: types aren't imported currently from backend
+                        selectedProduct.productId,
+                        transactionHistory[transactionHistory.length - 1]
+                      )
+                    }
+                  >
+                    {loadingMoreHistory ? "Loading..." : "Load more"}
+                  </Button>
+                )}
               </div>
             )}
           </div>
@@ -47,17 +47,25 @@ const tallinnTicks = (cutoff: Date, now: Date, stepMin: number) => {
   return out;
 };
 
+// Hours of price history shown
+const HOURS_WINDOW = 1;
+
+// Points per product in the sparklines, and how often they are refreshed
+const SPARKLINE_POINTS = 120;
+const SPARKLINE_REFRESH_MS = 15_000;
+
 // ---------- Types ----------
-type HistoryDto = {
-  id: number;
-  inventoryId: number;
-  priceBefore: number;
-  priceAfter: number;
-  createdAt: string;
+type SparklineDto = {
+  productId: number;
+  times: number[];
+  prices: number[];
+};
+type SparklinesDto = {
+  products: SparklineDto[];
 };
 type CurrentHistory = {
   productInv: InvDto;
-  priceHistory: HistoryDto[];
+  sparkline: SparklineDto | null;
 };
 
 export default function PriceHistoryGraphFancy({
@@ -83,24 +91,49 @@ export default function PriceHistoryGraphFancy({
     );
   }, []);
 
-  const loadPriceHistory = useCallback(async (productInv: InvDto) => {
+  // Price series of every product, fetched in one request per refresh
+  const sparklinesRef = useRef<Map<number, SparklineDto>>(new Map());
+
+  const showProduct = useCallback((productInv: InvDto) => {
     if (!productInv) return;
+    setCurrent({
+      productInv,
+      sparkline: sparklinesRef.current.get(productInv.productId) ?? null,
+    });
+  }, []);
+
+  const loadSparklines = useCallback(async () => {
+    const organizationId = flatten(groupsRef.current)[0]?.organizationId;
+    if (organizationId == null) return;
     try {
       setError(null);
+      const from = new Date(Date.now() - HOURS_WINDOW * 3600_000).toISOString();
       const res = await fetch(
-        `/api/backend/inventory/product/${productInv.productId}/history`,
+        `/api/backend/inventory/sparklines?organizationId=${organizationId}&from=${encodeURIComponent(from)}&points=${SPARKLINE_POINTS}`,
         {
           cache: "no-store",
           credentials: "include",
         },
       );
       if (!res.ok) throw new Error(`HTTP ${res.status}`);
-      const historyJson: HistoryDto[] = await res.json();
-      setCurrent({ productInv, priceHistory: historyJson });
+      const json: SparklinesDto = await res.json();
+      sparklinesRef.current = new Map(json.products.map((p) => [p.productId, p]));
+      if (activeProductRef.current) showProduct(activeProductRef.current);
     } catch (e) {
       setError(e?.message || "Failed to fetch history");
     }
-  }, []);
+  }, [flatten, showProduct]);
+
+  useEffect(() => {
+    loadSparklines();
+    const id = setInterval(loadSparklines, SPARKLINE_REFRESH_MS);
+    return () => clearInterval(id);
+  }, [loadSparklines]);
+
+  // The organization is only known once the menu has loaded
+  useEffect(() => {
+    if (sparklinesRef.current.size === 0) loadSparklines();
+  }, [groups, loadSparklines]);
 
   const rotateOnce = useCallback(() => {
     const flat = flatten(groupsRef.current).filter(p => p.unitPrice != p.basePrice);
@@ -116,8 +149,8 @@ export default function PriceHistoryGraphFancy({
     const next = flat[nextIdx];
     activeIdxRef.current = nextIdx;
     activeProductRef.current = next;
-    loadPriceHistory(next);
-  }, [flatten, loadPriceHistory]);
+    showProduct(next);
+  }, [flatten, showProduct]);
 
   useEffect(() => {
     if (!activeProductRef.current) {
@@ -126,61 +159,41 @@ export default function PriceHistoryGraphFancy({
         activeIdxRef.current %= flat.length;
         const initial = flat[activeIdxRef.current];
         activeProductRef.current = initial;
-        loadPriceHistory(initial);
+        showProduct(initial);
       }
     }
     const id = setInterval(rotateOnce, 5000);
     return () => clearInterval(id);
-  }, [flatten, rotateOnce, loadPriceHistory]);
+  }, [flatten, rotateOnce, showProduct]);
 
   // build full step series (no zero baseline)
   const series = useMemo(() => {
     if (!current) return [] as { date: Date; price: number }[];
 
     const product = current.productInv;
-    const hist = [...(current.priceHistory ?? [])]
-      .map((h) => ({
-        ts: new Date(h.createdAt),
-        before: Number(h.priceBefore),
-        after: Number(h.priceAfter),
+    const points = (current.sparkline?.times ?? [])
+      .map((t, i) => ({
+        date: new Date(t),
+        price: Number(current.sparkline?.prices[i]),
       }))
-      .filter((h) => !isNaN(h.ts.getTime()))
-      .sort((a, b) => a.ts.getTime() - b.ts.getTime());
-
-    const firstBefore = hist.find(
-      (h) => Number.isFinite(h.before) && h.before !== 0,
-    )?.before;
-    const base =
-      (firstBefore ??
-        product?.basePrice ??
-        product.unitPrice ??
-        hist[0]?.after ??
-        0) as number;
+      .filter((p) => !isNaN(p.date.getTime()) && Number.isFinite(p.price));
 
-    const out: { date: Date; price: number }[] = [];
-    if (hist.length === 0) {
+    if (points.length === 0) {
+      const base = (product?.unitPrice ?? product?.basePrice ?? 0) as number;
       const now = new Date();
-      out.push(
+      return [
         { date: new Date(now.getTime() - 1), price: base },
         { date: now, price: base },
-      );
-      return out;
-    }
-    out.push({ date: new Date(hist[0].ts.getTime() - 1), price: base });
-    let last = base;
-    for (const e of hist) {
-      const next = Number.isFinite(e.after) ? e.after : last;
-      out.push({ date: e.ts, price: next });
-      last = next;
+      ];
     }
-    if (+out[out.length - 1].date < Date.now()) {
-      out.push({ date: new Date(), price: last });
+    const last = points[points.length - 1].price;
+    if (+points[points.length - 1].date < Date.now()) {
+      points.push({ date: new Date(), price: last });
     }
-    return out;
+    return points;
   }, [current]);
 
   // ---- WINDOW: last 1 hour + delta ----
-  const HOURS_WINDOW = 1;
   const { data: windowed, cutoff, now, delta } = useMemo(() => {
     const _now = new Date();
     const _cutoff = new Date(_now.getTime() - HOURS_WINDOW * 3600_000);
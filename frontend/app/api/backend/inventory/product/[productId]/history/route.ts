@@ -7,7 +7,7 @@ export async function GET(
 ) {
     try {
         const response = await fetch(
-            `${backendUrl}/api/inventory/product/${(await params).productId}/history`,
+            `${backendUrl}/api/inventory/product/${(await params).productId}/history${request.nextUrl.search}`,
             {
                 method: "GET",
                 headers: {
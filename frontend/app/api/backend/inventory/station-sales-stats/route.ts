@@ -3,7 +3,7 @@ import { backendUrl } from "@/utils/constants";
 
 export async function GET(request: NextRequest) {
     try {
-        const response = await fetch(`${backendUrl}/api/inventory/station-sales-stats`, {
+        const response = await fetch(`${backendUrl}/api/inventory/station-sales-stats${request.nextUrl.search}`, {
             method: "GET",
             headers: {
                 Cookie: request.headers.get("cookie") || "",